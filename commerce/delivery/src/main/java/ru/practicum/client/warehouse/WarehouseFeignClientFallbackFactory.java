@@ -41,7 +41,7 @@ public class WarehouseFeignClientFallbackFactory implements FallbackFactory<Ware
             }
 
             @Override
-            public AddressDto getWarehouseAddress() {
+            public AddressDto getWarehouseAddress(String country, String city) {
                 fastFallBack(cause);
                 return null;
             }
@@ -66,6 +66,12 @@ public class WarehouseFeignClientFallbackFactory implements FallbackFactory<Ware
                 fastFallBack(cause);
                 return null;
             }
+
+            @Override
+            public OrderAllocationDto allocateProductsForOrder(AssemblyProductsForOrderRequest request) {
+                fastFallBack(cause);
+                return null;
+            }
         };
     }
 }
\ No newline at end of file
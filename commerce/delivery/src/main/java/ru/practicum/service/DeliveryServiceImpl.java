@@ -3,6 +3,7 @@ package ru.practicum.service;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.client.OrderClient;
@@ -18,6 +19,7 @@ import ru.practicum.repository.DeliveryRepository;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -39,14 +41,31 @@ public class DeliveryServiceImpl implements DeliveryService {
 
     /**
      * Создает или планирует новую доставку.
+     * Если доставка для заказа уже создана (повторный запрос), возвращает её без создания новой.
+     * Параллельные запросы одного заказа разделяет уникальный индекс по заказу: проигравший запрос
+     * возвращает доставку, созданную другим.
      *
      * @param deliveryDto данные доставки
-     * @return созданная доставка в формате DTO
+     * @return созданная или существующая доставка в формате DTO
      */
     @Override
     public DeliveryDto planDelivery(DeliveryDto deliveryDto) {
+        if (deliveryDto.orderId() != null) {
+            Optional<Delivery> existing = deliveryRepository.findByOrderId(deliveryDto.orderId());
+            if (existing.isPresent()) {
+                log.info("Delivery for order {} already planned", deliveryDto.orderId());
+                return deliveryMapper.toDto(existing.get());
+            }
+        }
+
         Delivery delivery = deliveryMapper.toEntity(deliveryDto);
-        return deliveryMapper.toDto(deliveryRepository.save(delivery));
+        try {
+            return deliveryMapper.toDto(deliveryRepository.save(delivery));
+        } catch (DataIntegrityViolationException e) {
+            Delivery existing = deliveryRepository.findByOrderId(deliveryDto.orderId()).orElseThrow(() -> e);
+            log.info("Delivery for order {} planned concurrently", deliveryDto.orderId());
+            return deliveryMapper.toDto(existing);
+        }
     }
 
     /**
@@ -22,3 +22,7 @@ CREATE TABLE IF NOT EXISTS deliveries
     updated_at      TIMESTAMP        DEFAULT CURRENT_TIMESTAMP
 );
 
+
+-- Одна доставка на заказ: повторное планирование возвращает существующую доставку
+CREATE UNIQUE INDEX IF NOT EXISTS idx_deliveries_order_id
+    ON deliveries (order_id);
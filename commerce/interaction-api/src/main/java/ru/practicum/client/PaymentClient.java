@@ -1,6 +1,7 @@
 package ru.practicum.client;
 
 import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import ru.practicum.dto.order.OrderDto;
@@ -63,4 +64,13 @@ public interface PaymentClient {
      */
     @PostMapping("/failed")
     void failed(@RequestBody UUID paymentId);
+
+    /**
+     * Получить ставку налога на стоимость товаров.
+     * Позволяет сервисам, рассчитывающим общую стоимость локально, использовать ту же ставку.
+     *
+     * @return ставка налога (например, 0.1 для 10%)
+     */
+    @GetMapping("/taxRate")
+    BigDecimal getTaxRate();
 }
\ No newline at end of file
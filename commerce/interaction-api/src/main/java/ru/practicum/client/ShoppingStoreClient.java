@@ -1,6 +1,7 @@
 package ru.practicum.client;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import org.springframework.cloud.openfeign.SpringQueryMap;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -10,8 +11,11 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.annotation.validator.ValidPageable;
 import ru.practicum.dto.product.ProductCategory;
 import ru.practicum.dto.product.ProductDto;
+import ru.practicum.dto.product.ProductPriceDto;
 import ru.practicum.dto.product.SetProductQuantityStateRequest;
 
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -70,6 +74,16 @@ public interface ShoppingStoreClient {
     @PostMapping("/quantityState")
     Boolean setQuantityState(@Valid @SpringQueryMap SetProductQuantityStateRequest request);
 
+    /**
+     * Устанавливает состояния количества нескольких товаров одним запросом.
+     * Товары, которых нет в магазине, пропускаются.
+     *
+     * @param requests запросы на изменение состояния
+     * @return true если операция успешна
+     */
+    @PostMapping("/quantityStates")
+    Boolean setQuantityStates(@RequestBody @NotEmpty List<@Valid SetProductQuantityStateRequest> requests);
+
     /**
      * Получает товар по ID.
      *
@@ -78,4 +92,13 @@ public interface ShoppingStoreClient {
      */
     @GetMapping("/{productId}")
     ProductDto getProduct(@PathVariable UUID productId);
+
+    /**
+     * Получает цены нескольких товаров одним запросом.
+     *
+     * @param productIds ID товаров
+     * @return цены товаров с их версиями
+     */
+    @PostMapping("/prices")
+    List<ProductPriceDto> getProductPrices(@RequestBody @NotEmpty Set<UUID> productIds);
 }
\ No newline at end of file
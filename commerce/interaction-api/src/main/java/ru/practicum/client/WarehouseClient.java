@@ -5,6 +5,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import ru.practicum.dto.cart.ShoppingCartDto;
 import ru.practicum.dto.warehouse.*;
 
@@ -44,11 +45,15 @@ public interface WarehouseClient {
 
     /**
      * Получает адрес склада.
+     * Если передан город или страна доставки, склад выбирается с их учетом.
      *
+     * @param country страна доставки, необязательно
+     * @param city    город доставки, необязательно
      * @return адрес склада
      */
     @GetMapping("/address")
-    AddressDto getWarehouseAddress();
+    AddressDto getWarehouseAddress(@RequestParam(required = false) String country,
+                                   @RequestParam(required = false) String city);
 
     /**
      * Отмечает товары как отгруженные для доставки.
@@ -77,6 +82,21 @@ public interface WarehouseClient {
             @RequestBody @Valid
             AssemblyProductsForOrderRequest request);
 
+    /**
+     * Собирает товары для заказа, распределяя их по складам.
+     * Заказ делится на наименьшее возможное количество отгрузок.
+     * <p>
+     * Сервисы заказов и доставки пока не используют этот метод: заказ собирается через
+     * {@link #assemblyProductForOrderFromShoppingCart}, который бронирует так же, но суммирует отгрузки
+     * в одни характеристики, а доставка планируется одна, от адреса {@link #getWarehouseAddress}.
+     * Отгрузки с нескольких складов доступны только через этот метод.
+     *
+     * @param request запрос на сборку товаров
+     * @return отгрузки со складов
+     */
+    @PostMapping("/assembly/allocation")
+    OrderAllocationDto allocateProductsForOrder(@RequestBody @Valid AssemblyProductsForOrderRequest request);
+
     /**
      * Отменяет сборку товаров для заказа.
      *
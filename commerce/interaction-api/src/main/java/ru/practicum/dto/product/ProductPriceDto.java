@@ -0,0 +1,44 @@
+package ru.practicum.dto.product;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * DTO цены товара для расчета стоимости заказа.
+ * Версия цены растет при каждом изменении товара и позволяет потребителю,
+ * кэширующему цены, не заменять более новую цену ответом, полученным раньше.
+ *
+ * @param productId уникальный идентификатор товара
+ * @param price     цена товара
+ * @param version   версия товара (время последнего изменения в миллисекундах)
+ */
+@Schema(description = "Цена товара")
+public record ProductPriceDto(
+
+        @Schema(
+                description = "Уникальный идентификатор товара",
+                example = "123e4567-e89b-12d3-a456-426614174000",
+                format = "uuid"
+        )
+        UUID productId,
+
+        @Schema(
+                description = "Цена товара",
+                example = "2999.99"
+        )
+        BigDecimal price,
+
+        @Schema(
+                description = "Версия товара (время последнего изменения в миллисекундах)",
+                example = "1767225600000"
+        )
+        long version
+) {
+
+    @Builder
+    public ProductPriceDto {
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.dto.warehouse;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Распределение заказа по складам.
+ *
+ * @param orderId   идентификатор заказа
+ * @param shipments отгрузки со складов, по одной на склад
+ */
+@Schema(description = "Распределение заказа по складам")
+public record OrderAllocationDto(
+
+        @Schema(
+                description = "Идентификатор заказа",
+                example = "123e4567-e89b-12d3-a456-426614174000",
+                format = "uuid"
+        )
+        UUID orderId,
+
+        @Schema(description = "Отгрузки со складов, по одной на склад")
+        List<WarehouseShipmentDto> shipments
+) {
+}
@@ -0,0 +1,37 @@
+package ru.practicum.dto.warehouse;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+
+import java.util.UUID;
+
+/**
+ * Строка пакетной приемки товаров на склад.
+ * Должно быть заполнено ровно одно из полей {@code newProduct} и {@code add}.
+ *
+ * @param newProduct  регистрация нового товара на складе
+ * @param warehouseId склад для регистрации нового товара; если не указан, склад выбирается
+ *                    по настроенной политике и товар регистрируется, только если его нет ни на одном складе
+ * @param add         добавление количества существующего товара
+ */
+@Schema(description = "Строка пакетной приемки товаров: регистрация нового товара или добавление количества")
+public record StockIntakeLine(
+
+        @Valid
+        @Schema(description = "Регистрация нового товара на складе")
+        NewProductInWarehouseRequest newProduct,
+
+        @Schema(
+                description = "Склад для регистрации нового товара. Позволяет разместить товар на нескольких "
+                              + "складах; если не указан, склад выбирается по политике, а товар, уже "
+                              + "зарегистрированный на любом складе, не регистрируется повторно",
+                example = "123e4567-e89b-12d3-a456-426614174000",
+                format = "uuid"
+        )
+        UUID warehouseId,
+
+        @Valid
+        @Schema(description = "Добавление количества существующего товара")
+        AddProductToWarehouseRequest add
+) {
+}
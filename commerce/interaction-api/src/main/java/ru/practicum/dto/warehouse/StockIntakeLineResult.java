@@ -0,0 +1,24 @@
+package ru.practicum.dto.warehouse;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Результат обработки строки пакетной приемки.
+ *
+ * @param line    номер строки, начиная с 1
+ * @param status  результат обработки
+ * @param message описание ошибки, null для примененных строк
+ */
+@Schema(description = "Результат обработки строки пакетной приемки")
+public record StockIntakeLineResult(
+
+        @Schema(description = "Номер строки, начиная с 1", example = "1")
+        long line,
+
+        @Schema(description = "Результат обработки строки")
+        StockIntakeStatus status,
+
+        @Schema(description = "Описание ошибки", example = "Product not found")
+        String message
+) {
+}
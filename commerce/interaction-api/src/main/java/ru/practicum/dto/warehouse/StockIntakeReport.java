@@ -0,0 +1,30 @@
+package ru.practicum.dto.warehouse;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Отчет о пакетной приемке товаров.
+ *
+ * @param total     количество прочитанных строк
+ * @param succeeded количество примененных строк
+ * @param failed    количество непримененных строк
+ * @param results   результаты по строкам в порядке чтения
+ */
+@Schema(description = "Отчет о пакетной приемке товаров")
+public record StockIntakeReport(
+
+        @Schema(description = "Количество прочитанных строк", example = "10000")
+        long total,
+
+        @Schema(description = "Количество примененных строк", example = "9998")
+        long succeeded,
+
+        @Schema(description = "Количество непримененных строк", example = "2")
+        long failed,
+
+        @Schema(description = "Результаты по строкам в порядке чтения")
+        List<StockIntakeLineResult> results
+) {
+}
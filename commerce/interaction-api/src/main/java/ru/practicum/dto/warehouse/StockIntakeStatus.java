@@ -0,0 +1,46 @@
+package ru.practicum.dto.warehouse;
+
+/**
+ * Результат обработки строки пакетной приемки.
+ */
+public enum StockIntakeStatus {
+
+    /**
+     * Новый товар зарегистрирован на складе.
+     */
+    REGISTERED,
+
+    /**
+     * Количество товара добавлено.
+     */
+    ADDED,
+
+    /**
+     * Товар уже зарегистрирован на выбранном складе.
+     */
+    ALREADY_EXISTS,
+
+    /**
+     * Товар для добавления количества не найден на складе.
+     */
+    NOT_FOUND,
+
+    /**
+     * Строка не прошла проверку.
+     */
+    INVALID,
+
+    /**
+     * Пачка со строкой не применена из-за ошибки.
+     */
+    FAILED;
+
+    /**
+     * Проверяет, применена ли строка.
+     *
+     * @return true для REGISTERED и ADDED
+     */
+    public boolean isSuccess() {
+        return this == REGISTERED || this == ADDED;
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum.dto.warehouse;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Часть заказа, отгружаемая с одного склада.
+ *
+ * @param warehouseId    идентификатор склада
+ * @param products       товары, забронированные на складе (ID товара → количество)
+ * @param bookedProducts характеристики забронированных на складе товаров для доставки
+ */
+@Schema(description = "Часть заказа, отгружаемая с одного склада")
+public record WarehouseShipmentDto(
+
+        @Schema(
+                description = "Идентификатор склада",
+                example = "123e4567-e89b-12d3-a456-426614174000",
+                format = "uuid"
+        )
+        UUID warehouseId,
+
+        @Schema(description = "Товары, забронированные на складе (ID товара → количество)")
+        Map<UUID, Long> products,
+
+        @Schema(description = "Характеристики забронированных на складе товаров для доставки")
+        BookedProductsDto bookedProducts
+) {
+}
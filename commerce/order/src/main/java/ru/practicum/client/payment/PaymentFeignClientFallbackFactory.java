@@ -50,6 +50,12 @@ public class PaymentFeignClientFallbackFactory implements FallbackFactory<Paymen
             public void failed(UUID paymentId) {
                 fastFallBack(cause);
             }
+
+            @Override
+            public BigDecimal getTaxRate() {
+                fastFallBack(cause);
+                return null;
+            }
         };
     }
 }
@@ -41,7 +41,7 @@ public class WarehouseFeignClientFallbackFactory implements FallbackFactory<Ware
             }
 
             @Override
-            public AddressDto getWarehouseAddress() {
+            public AddressDto getWarehouseAddress(String country, String city) {
                 fastFallBack(cause);
                 return null;
             }
@@ -62,6 +62,12 @@ public class WarehouseFeignClientFallbackFactory implements FallbackFactory<Ware
                 return null;
             }
 
+            @Override
+            public OrderAllocationDto allocateProductsForOrder(AssemblyProductsForOrderRequest request) {
+                fastFallBack(cause);
+                return null;
+            }
+
             @Override
             public void cancelAssemblyProductForOrder(UUID orderId) {
                 fastFallBack(cause);
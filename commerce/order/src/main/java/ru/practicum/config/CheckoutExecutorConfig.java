@@ -0,0 +1,27 @@
+package ru.practicum.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Конфигурация исполнителя для параллельных вызовов сервисов при оформлении заказа.
+ * <p>
+ * Вызовы Feign клиентов блокирующие, поэтому каждый выполняется в отдельном виртуальном потоке:
+ * ожидание ответа не занимает поток платформы и не требует подбора размера пула.
+ */
+@Configuration
+public class CheckoutExecutorConfig {
+
+    /**
+     * Создает исполнитель, запускающий каждую задачу в новом виртуальном потоке.
+     *
+     * @return исполнитель вызовов оформления заказа
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService checkoutExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("checkout-", 0).factory());
+    }
+}
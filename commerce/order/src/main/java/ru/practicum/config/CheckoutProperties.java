@@ -0,0 +1,31 @@
+package ru.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки оформления заказа.
+ * Читает свойства {@code order.checkout.*} из конфигурации.
+ *
+ * <p>Пример конфигурации в application.yml:</p>
+ * <pre>
+ * order:
+ *   checkout:
+ *     tax-rate-ttl: 10m
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "order.checkout")
+public class CheckoutProperties {
+
+    /**
+     * Время хранения ставки налога, полученной от сервиса платежей.
+     * Общая стоимость рассчитывается локально, а платеж создается по переданным суммам,
+     * поэтому ставка берется у сервиса платежей, а не задается в конфигурации заказа.
+     */
+    private Duration taxRateTtl = Duration.ofMinutes(10);
+}
@@ -0,0 +1,20 @@
+package ru.practicum.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Конфигурация асинхронного оформления заказов.
+ * <p>
+ * Включает планировщик для периодической отправки сообщений outbox,
+ * если асинхронное оформление включено.
+ *
+ * @see OrderSagaProperties
+ * @see ru.practicum.service.OutboxRelay
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "order.saga", name = "enabled", havingValue = "true")
+public class OrderSagaConfig {
+}
@@ -0,0 +1,87 @@
+package ru.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Настройки асинхронного оформления заказов.
+ * Читает свойства {@code order.saga.*} из конфигурации.
+ *
+ * <p>Пример конфигурации в application.yml:</p>
+ * <pre>
+ * order:
+ *   saga:
+ *     enabled: true
+ *     topic: commerce.order.saga.v1
+ *     producer-properties:
+ *       bootstrap.servers: localhost:9092
+ *     consumer-properties:
+ *       bootstrap.servers: localhost:9092
+ *       group.id: order-saga
+ * </pre>
+ *
+ * @see ru.practicum.service.OrderSagaService
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "order.saga")
+public class OrderSagaProperties {
+
+    /**
+     * Включает эндпоинт асинхронного оформления заказа, отправку команд из outbox и их обработку.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Топик команд оформления заказов. Ключ записи - идентификатор заказа, поэтому команды
+     * одного заказа обрабатываются по порядку, а количество партиций ограничивает параллелизм обработки.
+     */
+    private String topic = "commerce.order.saga.v1";
+
+    /**
+     * Максимальное количество попыток шага при временной недоступности сервиса.
+     * После последней неудачной попытки выполняется компенсация.
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * Пауза перед первой повторной попыткой шага при временной недоступности сервиса.
+     * Каждая следующая пауза вдвое длиннее предыдущей.
+     */
+    private Duration stepRetryBackoff = Duration.ofSeconds(2);
+
+    /**
+     * Максимальное количество сообщений outbox, отправляемых за один проход.
+     */
+    private int relayBatchSize = 100;
+
+    /**
+     * Пауза между проходами отправки сообщений outbox в миллисекундах.
+     */
+    private long relayIntervalMs = 200;
+
+    /**
+     * Пауза перед повторной обработкой команды после непредвиденной ошибки, например недоступности БД.
+     */
+    private Duration retryBackoff = Duration.ofSeconds(1);
+
+    /**
+     * Настройки Kafka продюсера команд.
+     * Сериализаторы ключа и значения задаются сервисом.
+     *
+     * @see org.apache.kafka.clients.producer.ProducerConfig
+     */
+    private Properties producerProperties = new Properties();
+
+    /**
+     * Настройки Kafka консьюмера команд.
+     * Десериализаторы и ручное подтверждение смещений задаются сервисом.
+     *
+     * @see org.apache.kafka.clients.consumer.ConsumerConfig
+     */
+    private Properties consumerProperties = new Properties();
+}
@@ -0,0 +1,51 @@
+package ru.practicum.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import ru.practicum.annotation.LogAllMethods;
+import ru.practicum.dto.order.CreateNewOrderRequest;
+import ru.practicum.dto.order.OrderDto;
+import ru.practicum.service.OrderSagaService;
+
+/**
+ * Контроллер асинхронного оформления заказов.
+ * Доступен, если включено свойство {@code order.saga.enabled}.
+ */
+@LogAllMethods
+@RestController
+@RequestMapping("/api/v1/order/async")
+@Validated
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "order.saga", name = "enabled", havingValue = "true")
+@Tag(name = "Order API", description = "Операции по управлению заказами")
+public class OrderSagaController {
+    private final OrderSagaService orderSagaService;
+
+    @PutMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Operation(
+            summary = "Создать новый заказ асинхронно",
+            description = "Сохраняет заказ и возвращает его сразу; резервирование товаров, планирование доставки, "
+                    + "расчет стоимости и создание платежа выполняются в фоне. "
+                    + "Заказ оформлен, когда в нем заполнен paymentId; при неудаче заказ переходит "
+                    + "в статус ASSEMBLY_FAILED, PAYMENT_FAILED или CANCELED"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Заказ принят к оформлению"),
+            @ApiResponse(responseCode = "400", description = "Неверные данные заказа")
+    })
+    public OrderDto createOrder(
+            @Parameter(description = "Данные для создания заказа", required = true)
+            @RequestBody @Valid CreateNewOrderRequest request) {
+        return orderSagaService.start(request);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Состояние асинхронного оформления заказа.
+ * Хранит текущий шаг и номер попытки его выполнения; результаты шагов сохраняются в заказе.
+ */
+@Entity
+@Table(name = "order_sagas")
+@ToString
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@DynamicUpdate
+public class OrderSaga {
+
+    /**
+     * Идентификатор заказа.
+     */
+    @Id
+    @Column(name = "order_id", updatable = false, nullable = false)
+    private UUID orderId;
+
+    /**
+     * Текущий шаг оформления.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "step", nullable = false)
+    private SagaStep step;
+
+    /**
+     * Номер попытки выполнения текущего шага, начиная с 0.
+     */
+    @Column(name = "attempt", nullable = false)
+    private int attempt;
+
+    /**
+     * Причина, по которой оформление не удалось.
+     */
+    @Column(name = "failure_reason")
+    private String failureReason;
+
+    /**
+     * Дата последнего обновления.
+     * Автоматически обновляется при изменении.
+     */
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+}
@@ -0,0 +1,63 @@
+package ru.practicum.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Команда оформления заказа, ожидающая отправки в Kafka.
+ * Сохраняется в одной транзакции с изменением заказа и удаляется после подтверждения отправки брокером.
+ */
+@Entity
+@Table(name = "order_outbox")
+@ToString
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+
+    /**
+     * Порядковый номер сообщения.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "outbox_id", updatable = false, nullable = false)
+    private Long id;
+
+    /**
+     * Идентификатор заказа, используется как ключ записи Kafka.
+     */
+    @Column(name = "order_id", nullable = false)
+    private UUID orderId;
+
+    /**
+     * Шаг, который нужно выполнить.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "step", nullable = false)
+    private SagaStep step;
+
+    /**
+     * Номер попытки выполнения шага.
+     */
+    @Column(name = "attempt", nullable = false)
+    private int attempt;
+
+    /**
+     * Время, раньше которого сообщение не отправляется. Откладывает повторные попытки шага.
+     */
+    @Column(name = "not_before", nullable = false)
+    private Instant notBefore;
+
+    /**
+     * Дата создания записи.
+     */
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,14 @@
+package ru.practicum.model;
+
+import java.util.UUID;
+
+/**
+ * Команда выполнить шаг оформления заказа.
+ * Передается через топик {@code order.saga.topic} в формате JSON.
+ *
+ * @param orderId идентификатор заказа
+ * @param step    шаг, который нужно выполнить
+ * @param attempt номер попытки; команда устаревших попыток и шагов игнорируется
+ */
+public record SagaCommand(UUID orderId, SagaStep step, int attempt) {
+}
@@ -0,0 +1,69 @@
+package ru.practicum.model;
+
+/**
+ * Шаг асинхронного оформления заказа.
+ * Шаги выполняются по порядку, после ошибки выполняется {@link #COMPENSATION}.
+ */
+public enum SagaStep {
+
+    /**
+     * Бронирование товаров на складе.
+     */
+    ASSEMBLY,
+
+    /**
+     * Планирование доставки от адреса склада.
+     */
+    DELIVERY,
+
+    /**
+     * Расчет стоимости доставки, товаров и общей стоимости.
+     */
+    PRICING,
+
+    /**
+     * Создание платежа.
+     */
+    PAYMENT,
+
+    /**
+     * Отмена доставки и бронирования после ошибки одного из шагов.
+     */
+    COMPENSATION,
+
+    /**
+     * Заказ оформлен.
+     */
+    COMPLETED,
+
+    /**
+     * Оформление не удалось, выполненные шаги отменены.
+     */
+    FAILED;
+
+    /**
+     * Возвращает шаг, следующий за успешно выполненным.
+     *
+     * @return следующий шаг
+     * @throws IllegalStateException если шаг завершающий
+     */
+    public SagaStep next() {
+        return switch (this) {
+            case ASSEMBLY -> DELIVERY;
+            case DELIVERY -> PRICING;
+            case PRICING -> PAYMENT;
+            case PAYMENT -> COMPLETED;
+            case COMPENSATION -> FAILED;
+            case COMPLETED, FAILED -> throw new IllegalStateException("Step " + this + " is final");
+        };
+    }
+
+    /**
+     * Проверяет, завершено ли оформление заказа.
+     *
+     * @return {@code true} для {@link #COMPLETED} и {@link #FAILED}
+     */
+    public boolean isFinal() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
@@ -0,0 +1,12 @@
+package ru.practicum.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import ru.practicum.model.OrderSaga;
+
+import java.util.UUID;
+
+/**
+ * Репозиторий для работы с состоянием асинхронного оформления заказов.
+ */
+public interface OrderSagaRepository extends JpaRepository<OrderSaga, UUID> {
+}
@@ -0,0 +1,33 @@
+package ru.practicum.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.model.OutboxMessage;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Репозиторий для работы с командами оформления заказов, ожидающими отправки в Kafka.
+ */
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Находит и блокирует самые старые сообщения, время отправки которых наступило.
+     * Сообщения, заблокированные другим экземпляром сервиса, пропускаются,
+     * поэтому несколько экземпляров отправляют разные сообщения.
+     *
+     * @param now   текущее время
+     * @param limit максимальное количество сообщений
+     * @return сообщения в порядке создания
+     */
+    @Query(value = """
+            SELECT * FROM order_outbox
+            WHERE not_before <= :now
+            ORDER BY outbox_id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxMessage> lockOldest(@Param("now") Instant now, @Param("limit") int limit);
+}
@@ -0,0 +1,79 @@
+package ru.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.client.PaymentClient;
+import ru.practicum.config.CheckoutProperties;
+import ru.practicum.model.Order;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Локальный расчет общей стоимости заказа.
+ * Повторяет расчет сервиса платежей, чтобы оформление заказа не делало для него удаленный вызов.
+ * Ставка налога запрашивается у сервиса платежей и кэшируется на {@code order.checkout.tax-rate-ttl},
+ * поэтому расчеты двух сервисов не расходятся при изменении ставки.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderCostCalculator {
+    private final CheckoutProperties checkoutProperties;
+    private final PaymentClient paymentClient;
+
+    private volatile CachedTaxRate cachedTaxRate;
+
+    /**
+     * Рассчитывает общую стоимость заказа так же, как сервис платежей:
+     * стоимость доставки, стоимость товаров и налог на стоимость товаров.
+     *
+     * @param order заказ с рассчитанными стоимостями доставки и товаров
+     * @return общая стоимость заказа, округленная до 2 знаков
+     */
+    public BigDecimal totalPrice(Order order) {
+        BigDecimal productPrice = order.getProductPrice();
+        BigDecimal tax = productPrice.multiply(taxRate())
+                .setScale(2, RoundingMode.HALF_UP);
+
+        return order.getDeliveryPrice()
+                .add(productPrice)
+                .add(tax)
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Возвращает ставку налога сервиса платежей.
+     * Если срок хранения ставки истек, а сервис платежей недоступен,
+     * используется последняя полученная ставка. Без полученной ранее ставки
+     * ошибка сервиса платежей пробрасывается вызывающему.
+     *
+     * @return ставка налога на стоимость товаров
+     */
+    private BigDecimal taxRate() {
+        CachedTaxRate cached = cachedTaxRate;
+        long now = System.nanoTime();
+        if (cached != null && now - cached.fetchedAt() < checkoutProperties.getTaxRateTtl().toNanos()) {
+            return cached.rate();
+        }
+
+        try {
+            BigDecimal rate = paymentClient.getTaxRate();
+            if (rate == null) {
+                throw new IllegalStateException("Payment service returned no tax rate");
+            }
+            cachedTaxRate = new CachedTaxRate(rate, now);
+            return rate;
+        } catch (RuntimeException e) {
+            if (cached == null) {
+                throw e;
+            }
+            log.warn("Failed to refresh tax rate, using cached rate {}", cached.rate(), e);
+            return cached.rate();
+        }
+    }
+
+    private record CachedTaxRate(BigDecimal rate, long fetchedAt) {
+    }
+}
@@ -0,0 +1,114 @@
+package ru.practicum.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.config.OrderSagaProperties;
+import ru.practicum.model.SagaCommand;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Чтение команд оформления заказов из Kafka и их выполнение через {@link OrderSagaService}.
+ * <p>
+ * Команды обрабатываются в отдельном потоке по одной, смещение подтверждается после каждой команды.
+ * Если обработка завершилась непредвиденной ошибкой (например, недоступна БД), консьюмер возвращается
+ * к этой команде и повторяет её после паузы {@code order.saga.retry-backoff}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "order.saga", name = "enabled", havingValue = "true")
+@Slf4j
+public class OrderSagaConsumer {
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private final OrderSagaService orderSagaService;
+    private final OrderSagaProperties properties;
+    private final ObjectMapper objectMapper;
+    private final KafkaConsumer<String, String> consumer;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public OrderSagaConsumer(OrderSagaService orderSagaService,
+                             OrderSagaProperties properties,
+                             ObjectMapper objectMapper) {
+        this.orderSagaService = orderSagaService;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+
+        Properties consumerProperties = new Properties();
+        consumerProperties.putAll(properties.getConsumerProperties());
+        consumerProperties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        consumerProperties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        this.consumer = new KafkaConsumer<>(consumerProperties);
+        this.worker = new Thread(this::run, "order-saga-consumer");
+    }
+
+    @PostConstruct
+    public void start() {
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        consumer.wakeup();
+        worker.join();
+    }
+
+    private void run() {
+        try {
+            consumer.subscribe(List.of(properties.getTopic()));
+            while (running) {
+                for (ConsumerRecord<String, String> record : consumer.poll(POLL_TIMEOUT)) {
+                    if (!process(record)) {
+                        break;
+                    }
+                }
+            }
+        } catch (WakeupException e) {
+            // остановка
+        } catch (Exception e) {
+            log.error("Order saga consumer stopped", e);
+        } finally {
+            consumer.close();
+        }
+    }
+
+    /**
+     * Выполняет команду и подтверждает её смещение.
+     *
+     * @param record запись с командой
+     * @return {@code false}, если команду нужно повторить и оставшиеся записи пачки пропускаются
+     */
+    private boolean process(ConsumerRecord<String, String> record) throws InterruptedException {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        try {
+            SagaCommand command = objectMapper.readValue(record.value(), SagaCommand.class);
+            orderSagaService.handle(command);
+        } catch (JsonProcessingException e) {
+            log.error("Skipping malformed saga command at {}:{}: {}", partition, record.offset(), record.value(), e);
+        } catch (RuntimeException e) {
+            log.warn("Failed to process saga command at {}:{}, retrying", partition, record.offset(), e);
+            consumer.seek(partition, record.offset());
+            Thread.sleep(properties.getRetryBackoff().toMillis());
+            return false;
+        }
+        consumer.commitSync(Map.of(partition, new OffsetAndMetadata(record.offset() + 1)));
+        return true;
+    }
+}
@@ -0,0 +1,288 @@
+package ru.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.client.DeliveryClient;
+import ru.practicum.client.PaymentClient;
+import ru.practicum.client.WarehouseClient;
+import ru.practicum.config.OrderSagaProperties;
+import ru.practicum.dto.cart.ShoppingCartDto;
+import ru.practicum.dto.delivery.DeliveryDto;
+import ru.practicum.dto.order.CreateNewOrderRequest;
+import ru.practicum.dto.order.OrderDto;
+import ru.practicum.dto.order.OrderState;
+import ru.practicum.dto.warehouse.AddressDto;
+import ru.practicum.dto.warehouse.AssemblyProductsForOrderRequest;
+import ru.practicum.dto.warehouse.BookedProductsDto;
+import ru.practicum.exception.NoOrderFoundException;
+import ru.practicum.exception.ServiceTemporaryUnavailableException;
+import ru.practicum.mapper.AddressMapper;
+import ru.practicum.mapper.OrderMapper;
+import ru.practicum.model.Order;
+import ru.practicum.model.OrderSaga;
+import ru.practicum.model.OutboxMessage;
+import ru.practicum.model.SagaCommand;
+import ru.practicum.model.SagaStep;
+import ru.practicum.repository.OrderRepository;
+import ru.practicum.repository.OrderSagaRepository;
+import ru.practicum.repository.OutboxMessageRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Асинхронное оформление заказов (оркестрируемая сага).
+ * <p>
+ * Заказ, состояние оформления и команда первого шага сохраняются в одной транзакции,
+ * после чего клиент сразу получает ответ. Остальные шаги выполняются по командам из топика
+ * {@code order.saga.topic}:
+ * <ol>
+ *   <li>{@link SagaStep#ASSEMBLY} - бронирование товаров на складе</li>
+ *   <li>{@link SagaStep#DELIVERY} - планирование доставки</li>
+ *   <li>{@link SagaStep#PRICING} - расчет стоимости</li>
+ *   <li>{@link SagaStep#PAYMENT} - создание платежа</li>
+ * </ol>
+ * Результат шага, переход к следующему шагу и команда для него сохраняются в одной транзакции,
+ * поэтому после перезапуска оформление продолжается с незавершенного шага.
+ * Шаг может выполниться повторно (повтор попытки, повторная доставка команды), поэтому участники
+ * идемпотентны по идентификатору заказа: повторный вызов возвращает уже созданные бронирование,
+ * доставку или платеж.
+ * При ошибке шага выполняется {@link SagaStep#COMPENSATION}: отмена платежа, доставки и бронирования.
+ *
+ * @see OutboxRelay
+ * @see OrderSagaConsumer
+ */
+@Service
+@ConditionalOnProperty(prefix = "order.saga", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class OrderSagaService {
+    private final OrderRepository orderRepository;
+    private final OrderSagaRepository orderSagaRepository;
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final OrderMapper orderMapper;
+    private final AddressMapper addressMapper;
+    private final DeliveryClient deliveryClient;
+    private final PaymentClient paymentClient;
+    private final WarehouseClient warehouseClient;
+    private final OrderCostCalculator orderCostCalculator;
+    private final OrderSagaProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Принимает заказ к асинхронному оформлению.
+     * Сохраняет заказ в статусе NEW, состояние оформления и команду бронирования товаров.
+     *
+     * @param request данные для создания заказа
+     * @return принятый заказ без характеристик доставки, стоимости и платежа
+     */
+    public OrderDto start(CreateNewOrderRequest request) {
+        ShoppingCartDto shoppingCart = request.shoppingCart();
+
+        return transactionTemplate.execute(status -> {
+            Order order = orderRepository.save(Order.builder()
+                    .shoppingCartId(shoppingCart.shoppingCartId())
+                    .products(shoppingCart.products())
+                    .state(OrderState.NEW)
+                    .username(shoppingCart.username())
+                    .address(addressMapper.toEntity(request.deliveryAddress()))
+                    .build());
+
+            orderSagaRepository.save(OrderSaga.builder()
+                    .orderId(order.getOrderId())
+                    .step(SagaStep.ASSEMBLY)
+                    .build());
+            enqueue(order.getOrderId(), SagaStep.ASSEMBLY, 0, Duration.ZERO);
+
+            log.info("Order {} accepted for asynchronous checkout", order.getOrderId());
+            return orderMapper.toDto(order);
+        });
+    }
+
+    /**
+     * Выполняет шаг оформления заказа.
+     * Повторные и устаревшие команды (шаг или попытка не совпадают с сохраненным состоянием) игнорируются.
+     * <p>
+     * При временной недоступности сервиса шаг повторяется, пока не исчерпаны попытки,
+     * при остальных ошибках и после последней попытки выполняется компенсация.
+     *
+     * @param command команда выполнить шаг
+     */
+    public void handle(SagaCommand command) {
+        OrderSaga saga = orderSagaRepository.findById(command.orderId()).orElse(null);
+        if (saga == null || saga.getStep() != command.step() || saga.getAttempt() != command.attempt()) {
+            log.debug("Skipping stale command {}, saga state {}", command, saga);
+            return;
+        }
+
+        OrderDto order = transactionTemplate.execute(status -> orderMapper.toDto(getOrder(command.orderId())));
+
+        try {
+            Consumer<Order> result = execute(command.step(), order);
+            transition(command.orderId(), result, command.step().next(), null);
+        } catch (ServiceTemporaryUnavailableException e) {
+            if (command.attempt() + 1 < properties.getMaxAttempts()) {
+                log.warn("Step {} of order {} failed, attempt {} of {}",
+                        command.step(), command.orderId(), command.attempt() + 1, properties.getMaxAttempts(), e);
+                retry(command);
+            } else {
+                fail(command, e);
+            }
+        } catch (RuntimeException e) {
+            fail(command, e);
+        }
+    }
+
+    /**
+     * Выполняет удаленные вызовы шага.
+     *
+     * @param step  шаг
+     * @param order текущее состояние заказа
+     * @return изменение заказа по результатам шага
+     */
+    private Consumer<Order> execute(SagaStep step, OrderDto order) {
+        return switch (step) {
+            case ASSEMBLY -> {
+                BookedProductsDto booked = warehouseClient.assemblyProductForOrderFromShoppingCart(
+                        new AssemblyProductsForOrderRequest(order.products(), order.orderId()));
+                yield entity -> {
+                    entity.setDeliveryWeight(booked.deliveryWeight());
+                    entity.setDeliveryVolume(booked.deliveryVolume());
+                    entity.setFragile(booked.fragile());
+                };
+            }
+            case DELIVERY -> {
+                AddressDto toAddress = transactionTemplate.execute(
+                        status -> addressMapper.toDto(getOrder(order.orderId()).getAddress()));
+                DeliveryDto delivery = deliveryClient.planDelivery(DeliveryDto.builder()
+                        .fromAddress(warehouseClient.getWarehouseAddress(toAddress.country(), toAddress.city()))
+                        .toAddress(toAddress)
+                        .orderId(order.orderId())
+                        .build());
+                yield entity -> entity.setDeliveryId(delivery.deliveryId());
+            }
+            case PRICING -> {
+                BigDecimal deliveryPrice = deliveryClient.deliveryCost(order);
+                BigDecimal productPrice = paymentClient.productCost(order);
+                yield entity -> {
+                    entity.setDeliveryPrice(deliveryPrice);
+                    entity.setProductPrice(productPrice);
+                    entity.setTotalPrice(orderCostCalculator.totalPrice(entity));
+                };
+            }
+            case PAYMENT -> {
+                UUID paymentId = paymentClient.payment(order).paymentId();
+                yield entity -> entity.setPaymentId(paymentId);
+            }
+            case COMPENSATION -> {
+                if (order.paymentId() != null) {
+                    paymentClient.failed(order.paymentId());
+                }
+                if (order.deliveryId() != null) {
+                    deliveryClient.cancelDelivery(order.deliveryId());
+                }
+                warehouseClient.cancelAssemblyProductForOrder(order.orderId());
+                yield entity -> {
+                };
+            }
+            case COMPLETED, FAILED -> throw new IllegalStateException("Step " + step + " is final");
+        };
+    }
+
+    /**
+     * Сохраняет результат шага и переходит к следующему шагу в одной транзакции.
+     *
+     * @param orderId       идентификатор заказа
+     * @param result        изменение заказа по результатам шага
+     * @param next          следующий шаг
+     * @param failureReason причина неудачи оформления или {@code null}
+     */
+    private void transition(UUID orderId, Consumer<Order> result, SagaStep next, String failureReason) {
+        transactionTemplate.executeWithoutResult(status -> {
+            result.accept(getOrder(orderId));
+
+            OrderSaga saga = getSaga(orderId);
+            saga.setStep(next);
+            saga.setAttempt(0);
+            if (failureReason != null) {
+                saga.setFailureReason(failureReason);
+            }
+            if (!next.isFinal()) {
+                enqueue(orderId, next, 0, Duration.ZERO);
+            }
+            log.info("Order {} checkout moved to step {}", orderId, next);
+        });
+    }
+
+    /**
+     * Повторяет шаг со следующим номером попытки после паузы.
+     * Пауза начинается с {@code order.saga.step-retry-backoff} и удваивается с каждой попыткой.
+     *
+     * @param command неудачная команда
+     */
+    private void retry(SagaCommand command) {
+        transactionTemplate.executeWithoutResult(status -> {
+            int attempt = command.attempt() + 1;
+            Duration backoff = properties.getStepRetryBackoff().multipliedBy(1L << (attempt - 1));
+            getSaga(command.orderId()).setAttempt(attempt);
+            enqueue(command.orderId(), command.step(), attempt, backoff);
+        });
+    }
+
+    /**
+     * Завершает шаг с ошибкой: переводит заказ в статус неудачи шага и запускает компенсацию.
+     * Ошибка самой компенсации переводит оформление в {@link SagaStep#FAILED} без повторной компенсации,
+     * такие заказы требуют ручного разбора.
+     *
+     * @param command неудачная команда
+     * @param cause   причина
+     */
+    private void fail(SagaCommand command, RuntimeException cause) {
+        String reason = command.step() + ": " + cause.getMessage();
+
+        if (command.step() == SagaStep.COMPENSATION) {
+            log.error("Compensation of order {} failed, manual action required", command.orderId(), cause);
+            transition(command.orderId(), order -> {
+            }, SagaStep.FAILED, reason);
+            return;
+        }
+
+        log.warn("Step {} of order {} failed, compensating", command.step(), command.orderId(), cause);
+        OrderState state = switch (command.step()) {
+            case ASSEMBLY -> OrderState.ASSEMBLY_FAILED;
+            case PAYMENT -> OrderState.PAYMENT_FAILED;
+            default -> OrderState.CANCELED;
+        };
+        transition(command.orderId(), order -> order.setState(state), SagaStep.COMPENSATION, reason);
+    }
+
+    /**
+     * Сохраняет команду в outbox. Вызывается внутри транзакции, изменяющей состояние оформления.
+     *
+     * @param delay задержка отправки команды
+     */
+    private void enqueue(UUID orderId, SagaStep step, int attempt, Duration delay) {
+        outboxMessageRepository.save(OutboxMessage.builder()
+                .orderId(orderId)
+                .step(step)
+                .attempt(attempt)
+                .notBefore(Instant.now().plus(delay))
+                .build());
+    }
+
+    private Order getOrder(UUID orderId) {
+        return orderRepository.findById(orderId)
+                .orElseThrow(() -> new NoOrderFoundException("No order found for id = " + orderId));
+    }
+
+    private OrderSaga getSaga(UUID orderId) {
+        return orderSagaRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalStateException("No checkout state for order " + orderId));
+    }
+}
@@ -29,6 +29,10 @@ import ru.practicum.repository.OrderRepository;
 
 import java.math.BigDecimal;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Сервис для управления заказами.
@@ -46,6 +50,8 @@ public class OrderServiceImpl implements OrderService {
     private final PaymentClient paymentClient;
     private final WarehouseClient warehouseClient;
     private final TransactionTemplate transactionTemplate;
+    private final OrderCostCalculator orderCostCalculator;
+    private final ExecutorService checkoutExecutor;
 
     /**
      * Получает список заказов пользователя с пагинацией.
@@ -56,6 +62,7 @@ public class OrderServiceImpl implements OrderService {
      * @throws NotAuthorizedUserException если username равен null
      */
     @Override
+    @Transactional
     public Page<OrderDto> getOrders(String username, Pageable pageable) {
         if (username == null) {
             throw new NotAuthorizedUserException("User =  " + username + " is not authorized");
@@ -68,43 +75,66 @@ public class OrderServiceImpl implements OrderService {
      * Создает новый заказ.
      * Выполняет последовательность шагов:
      * <ol>
-     *   <li>Создание заказа и бронирование товаров на складе</li>
-     *   <li>Планирование доставки</li>
-     *   <li>Расчет стоимости доставки и товаров</li>
-     *   <li>Создание платежа</li>
+     *   <li>Сохранение заказа в короткой транзакции для получения ID</li>
+     *   <li>Параллельно: бронирование товаров на складе, планирование доставки
+     *   от адреса склада и расчет стоимости товаров</li>
+     *   <li>Расчет стоимости доставки по характеристикам забронированных товаров</li>
+     *   <li>Локальный расчет общей стоимости и создание платежа</li>
+     *   <li>Сохранение результатов в короткой транзакции</li>
      * </ol>
-     * В случае ошибки выполняется откат всех выполненных действий.
+     * Транзакция БД не охватывает удаленные вызовы и не держит соединение на время их выполнения.
+     * В случае ошибки выполняется откат всех выполненных действий, а заказ удаляется.
      *
      * @param request данные для создания заказа
      * @return созданный заказ
      */
     @Override
-    @Transactional
     public OrderDto createOrder(CreateNewOrderRequest request) {
-        // 1. Создание заказа и бронирование товаров на складе
-        Order order = createOrderEntity(request);
+        // 1. Создание заказа
+        Order order = transactionTemplate.execute(status -> orderRepository.save(newOrder(request)));
+        OrderDto created = orderMapper.toDto(order);
+
+        // 2. Независимые вызовы выполняются параллельно
+        CompletableFuture<BookedProductsDto> bookedProducts = CompletableFuture.supplyAsync(
+                () -> warehouseClient.assemblyProductForOrderFromShoppingCart(
+                        new AssemblyProductsForOrderRequest(order.getProducts(), order.getOrderId())),
+                checkoutExecutor);
+        CompletableFuture<DeliveryDto> delivery = CompletableFuture
+                .supplyAsync(() -> warehouseClient.getWarehouseAddress(
+                        request.deliveryAddress().country(), request.deliveryAddress().city()), checkoutExecutor)
+                .thenApplyAsync(fromAddress -> planDelivery(order, fromAddress, request.deliveryAddress()),
+                        checkoutExecutor);
+        CompletableFuture<BigDecimal> productPrice = CompletableFuture.supplyAsync(
+                () -> paymentClient.productCost(created), checkoutExecutor);
 
         try {
-            // 2. Планирование доставки
-            planDelivery(order, request.deliveryAddress());
-
-            // 3. Расчет стоимости
-            calculateAndSetPrices(order);
-
-            // 4. Создание платежа
+            // ожидаем завершения всех вызовов, даже если один из них уже завершился ошибкой,
+            // чтобы компенсации не обогнали выполняющиеся вызовы
+            await(CompletableFuture.allOf(bookedProducts, delivery, productPrice));
+
+            BookedProductsDto booked = bookedProducts.join();
+            order.setDeliveryWeight(booked.deliveryWeight());
+            order.setDeliveryVolume(booked.deliveryVolume());
+            order.setFragile(booked.fragile());
+            order.setDeliveryId(delivery.join().deliveryId());
+            order.setProductPrice(productPrice.join());
+
+            // 3. Расчет стоимости доставки
+            order.setDeliveryPrice(deliveryClient.deliveryCost(orderMapper.toDto(order)));
+
+            // 4. Расчет общей стоимости и создание платежа
+            order.setTotalPrice(orderCostCalculator.totalPrice(order));
             createPayment(order);
-        } catch (Exception e) {
-            //отменяем бронирование товаров и доставку,
-            //т.к. платеж не создастся без всех предыдущих этапов, то откат платежа не нужен
-            if (order.getDeliveryId() != null) {
-                deliveryClient.cancelDelivery(order.getDeliveryId());
-            }
-            if (order.getOrderId() != null) {
-                warehouseClient.cancelAssemblyProductForOrder(order.getOrderId());
-            }
+
+            // 5. Сохранение результатов
+            transactionTemplate.executeWithoutResult(status -> orderRepository.save(order));
+        } catch (RuntimeException e) {
+            //отменяем бронирование товаров, доставку и платеж,
+            //если он успел создаться до ошибки сохранения заказа
+            compensate(order, delivery);
 
             //пробрасываем исключение дальше,
-            //что бы не создавался заказ и была видна причина почему это произошло.
+            //что бы была видна причина почему заказ не создан.
             throw e;
         }
 
@@ -286,92 +316,101 @@ public class OrderServiceImpl implements OrderService {
     }
 
     /**
-     * Создает сущность заказа и резервирует товары на складе.
+     * Создает сущность нового заказа.
      *
      * @param request данные для создания заказа
-     * @return созданный заказ с характеристиками доставки
+     * @return заказ без характеристик доставки и стоимости
      */
-    private Order createOrderEntity(CreateNewOrderRequest request) {
+    private Order newOrder(CreateNewOrderRequest request) {
         ShoppingCartDto shoppingCart = request.shoppingCart();
 
-        // 1. Создаем базовый заказ и делаем промежуточное сохранение для получения ID
-        Order order = Order.builder()
+        return Order.builder()
                 .shoppingCartId(shoppingCart.shoppingCartId())
                 .products(shoppingCart.products())
                 .state(OrderState.NEW)
                 .username(shoppingCart.username())
                 .address(addressMapper.toEntity(request.deliveryAddress()))
                 .build();
-
-        order = orderRepository.save(order);
-
-        // 2. Создаем запрос на сборку товаров
-        AssemblyProductsForOrderRequest assemblyRequest =
-                new AssemblyProductsForOrderRequest(order.getProducts(), order.getOrderId());
-
-        BookedProductsDto bookedProducts = warehouseClient.assemblyProductForOrderFromShoppingCart(assemblyRequest);
-
-        order.setDeliveryWeight(bookedProducts.deliveryWeight());
-        order.setDeliveryVolume(bookedProducts.deliveryVolume());
-        order.setFragile(bookedProducts.fragile());
-
-        return orderRepository.save(order);
     }
 
     /**
      * Планирует доставку для заказа.
      *
      * @param order           заказ
+     * @param fromAddress     адрес склада
      * @param deliveryAddress адрес доставки
+     * @return запланированная доставка
      */
-    private void planDelivery(Order order, AddressDto deliveryAddress) {
-        AddressDto fromAddress = warehouseClient.getWarehouseAddress();
-
+    private DeliveryDto planDelivery(Order order, AddressDto fromAddress, AddressDto deliveryAddress) {
         DeliveryDto deliveryDto = DeliveryDto.builder()
                 .fromAddress(fromAddress)
                 .toAddress(deliveryAddress)
                 .orderId(order.getOrderId())
                 .build();
 
-        deliveryDto = deliveryClient.planDelivery(deliveryDto);
-        order.setDeliveryId(deliveryDto.deliveryId());
-        orderRepository.save(order);
+        return deliveryClient.planDelivery(deliveryDto);
     }
 
     /**
-     * Рассчитывает и устанавливает цены для заказа.
+     * Создает платеж для заказа.
      *
      * @param order заказ
      */
-    private void calculateAndSetPrices(Order order) {
-        OrderDto orderDto = orderMapper.toDto(order);
-
-        //Получаем стоимости доставки и товаров
-        BigDecimal deliveryPrice = deliveryClient.deliveryCost(orderDto);
-        BigDecimal productPrice = paymentClient.productCost(orderDto);
-
-        //Устанавливаем стоимость доставки и товаров
-        //для дальнейшего расчета общей стоимости
-        order.setDeliveryPrice(deliveryPrice);
-        order.setProductPrice(productPrice);
-
-        //Получаем общую стоимость заказа
-        BigDecimal totalPrice = paymentClient.getTotalCost(orderMapper.toDto(order));
-        order.setTotalPrice(totalPrice);
+    private void createPayment(Order order) {
+        PaymentDto paymentDto = paymentClient.payment(orderMapper.toDto(order));
+        order.setPaymentId(paymentDto.paymentId());
+        log.debug("Payment {} created for order {}", paymentDto.paymentId(), order.getOrderId());
+    }
 
-        //Обновляем данные в репозитории
-        orderRepository.save(order);
+    /**
+     * Отменяет платеж, доставку и бронирование товаров и удаляет заказ.
+     * Ошибки компенсаций только логируются, чтобы выполнились остальные компенсации
+     * и наружу ушла исходная причина.
+     *
+     * @param order    заказ
+     * @param delivery результат планирования доставки
+     */
+    private void compensate(Order order, CompletableFuture<DeliveryDto> delivery) {
+        if (order.getPaymentId() != null) {
+            try {
+                paymentClient.failed(order.getPaymentId());
+            } catch (RuntimeException e) {
+                log.warn("Failed to cancel payment {} of order {}", order.getPaymentId(), order.getOrderId(), e);
+            }
+        }
+        if (delivery.state() == Future.State.SUCCESS) {
+            UUID deliveryId = delivery.resultNow().deliveryId();
+            try {
+                deliveryClient.cancelDelivery(deliveryId);
+            } catch (RuntimeException e) {
+                log.warn("Failed to cancel delivery {} of order {}", deliveryId, order.getOrderId(), e);
+            }
+        }
+        try {
+            warehouseClient.cancelAssemblyProductForOrder(order.getOrderId());
+        } catch (RuntimeException e) {
+            log.warn("Failed to cancel assembly of order {}", order.getOrderId(), e);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> orderRepository.deleteById(order.getOrderId()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete order {}", order.getOrderId(), e);
+        }
     }
 
     /**
-     * Создает платеж для заказа.
+     * Ожидает завершения вызова и пробрасывает его исключение без обертки {@link CompletionException}.
      *
-     * @param order заказ
+     * @param future ожидаемый вызов
      */
-    private void createPayment(Order order) {
-        PaymentDto paymentDto = paymentClient.payment(orderMapper.toDto(order));
-        order.setPaymentId(paymentDto.paymentId());
-        orderRepository.save(order);
-        log.debug("Payment {} created for order {}", paymentDto.paymentId(), order.getOrderId());
+    private static void await(CompletableFuture<?> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,133 @@
+package ru.practicum.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.config.OrderSagaProperties;
+import ru.practicum.model.OutboxMessage;
+import ru.practicum.model.SagaCommand;
+import ru.practicum.repository.OutboxMessageRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Отправка команд оформления заказов из outbox в Kafka.
+ * <p>
+ * Периодически блокирует пачку самых старых сообщений, время отправки которых наступило, отправляет их и удаляет после подтверждения брокером
+ * в той же транзакции. Если отправка не удалась, транзакция откатывается и сообщения будут отправлены
+ * в следующий проход, поэтому команда может быть доставлена повторно, но не потеряется.
+ */
+@Component
+@ConditionalOnProperty(prefix = "order.saga", name = "enabled", havingValue = "true")
+@Slf4j
+public class OutboxRelay {
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final OrderSagaProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final KafkaProducer<String, String> producer;
+
+    public OutboxRelay(OutboxMessageRepository outboxMessageRepository,
+                       OrderSagaProperties properties,
+                       TransactionTemplate transactionTemplate,
+                       ObjectMapper objectMapper) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+
+        Properties producerProperties = new Properties();
+        producerProperties.putAll(properties.getProducerProperties());
+        producerProperties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        producerProperties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        this.producer = new KafkaProducer<>(producerProperties);
+    }
+
+    /**
+     * Отправляет накопленные сообщения outbox пачками, пока они не закончатся.
+     */
+    @Scheduled(fixedDelayString = "${order.saga.relay-interval-ms:200}")
+    public void relay() {
+        try {
+            int sent;
+            do {
+                sent = relayBatch();
+            } while (sent == properties.getRelayBatchSize());
+        } catch (RuntimeException e) {
+            log.warn("Failed to relay outbox messages, will retry", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        producer.close();
+    }
+
+    /**
+     * Отправляет одну пачку сообщений и удаляет их из outbox.
+     *
+     * @return количество отправленных сообщений
+     */
+    private int relayBatch() {
+        Integer sent = transactionTemplate.execute(status -> {
+            List<OutboxMessage> messages = outboxMessageRepository.lockOldest(
+                    Instant.now(), properties.getRelayBatchSize());
+            if (messages.isEmpty()) {
+                return 0;
+            }
+
+            List<Future<RecordMetadata>> acks = new ArrayList<>(messages.size());
+            for (OutboxMessage message : messages) {
+                SagaCommand command = new SagaCommand(message.getOrderId(), message.getStep(), message.getAttempt());
+                acks.add(producer.send(new ProducerRecord<>(
+                        properties.getTopic(), message.getOrderId().toString(), toJson(command))));
+            }
+            producer.flush();
+            for (Future<RecordMetadata> ack : acks) {
+                await(ack);
+            }
+
+            outboxMessageRepository.deleteAllInBatch(messages);
+            return messages.size();
+        });
+
+        if (sent != null && sent > 0) {
+            log.debug("Relayed {} outbox messages", sent);
+        }
+        return sent == null ? 0 : sent;
+    }
+
+    private String toJson(SagaCommand command) {
+        try {
+            return objectMapper.writeValueAsString(command);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + command, e);
+        }
+    }
+
+    private static void await(Future<RecordMetadata> ack) {
+        try {
+            ack.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sending outbox messages", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to send outbox message", e.getCause());
+        }
+    }
+}
@@ -38,4 +38,27 @@ CREATE TABLE IF NOT EXISTS orders_products
     quantity   BIGINT NOT NULL,
     CONSTRAINT PK_orders_products
         PRIMARY KEY (order_id, product_id)
-);
\ No newline at end of file
+);
+-- Состояние асинхронного оформления заказов
+CREATE TABLE IF NOT EXISTS order_sagas
+(
+    order_id       UUID PRIMARY KEY REFERENCES orders (order_id),
+    step           VARCHAR(50) NOT NULL,
+    attempt        INTEGER     NOT NULL DEFAULT 0,
+    failure_reason VARCHAR(1000),
+    updated_at     TIMESTAMP            DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Команды оформления заказов, ожидающие отправки в Kafka
+CREATE TABLE IF NOT EXISTS order_outbox
+(
+    outbox_id  BIGSERIAL PRIMARY KEY,
+    order_id   UUID        NOT NULL,
+    step       VARCHAR(50) NOT NULL,
+    attempt    INTEGER     NOT NULL DEFAULT 0,
+    not_before TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP            DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE order_outbox
+    ADD COLUMN IF NOT EXISTS not_before TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
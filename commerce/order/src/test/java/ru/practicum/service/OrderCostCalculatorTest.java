@@ -0,0 +1,98 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.client.PaymentClient;
+import ru.practicum.config.CheckoutProperties;
+import ru.practicum.exception.ServiceTemporaryUnavailableException;
+import ru.practicum.model.Order;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты локального расчета общей стоимости заказа и кэширования ставки налога.
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderCostCalculatorTest {
+    private static final BigDecimal TAX_RATE = new BigDecimal("0.10");
+
+    @Mock
+    private PaymentClient paymentClient;
+
+    private final CheckoutProperties checkoutProperties = new CheckoutProperties();
+    private OrderCostCalculator orderCostCalculator;
+
+    @BeforeEach
+    void setUp() {
+        orderCostCalculator = new OrderCostCalculator(checkoutProperties, paymentClient);
+    }
+
+    @Test
+    void totalPriceAddsDeliveryProductsAndRoundedTax() {
+        when(paymentClient.getTaxRate()).thenReturn(TAX_RATE);
+
+        BigDecimal total = orderCostCalculator.totalPrice(order("100.05", "50.00"));
+
+        assertThat(total).isEqualTo(new BigDecimal("160.06"));
+    }
+
+    @Test
+    void taxRateIsFetchedOnceWithinTtl() {
+        when(paymentClient.getTaxRate()).thenReturn(TAX_RATE);
+
+        orderCostCalculator.totalPrice(order("100.00", "10.00"));
+        orderCostCalculator.totalPrice(order("200.00", "10.00"));
+
+        verify(paymentClient, times(1)).getTaxRate();
+    }
+
+    @Test
+    void expiredTaxRateIsRefreshed() {
+        checkoutProperties.setTaxRateTtl(Duration.ZERO);
+        when(paymentClient.getTaxRate()).thenReturn(TAX_RATE, new BigDecimal("0.20"));
+
+        orderCostCalculator.totalPrice(order("100.00", "0.00"));
+        BigDecimal total = orderCostCalculator.totalPrice(order("100.00", "0.00"));
+
+        assertThat(total).isEqualTo(new BigDecimal("120.00"));
+    }
+
+    @Test
+    void lastTaxRateIsUsedWhenRefreshFails() {
+        checkoutProperties.setTaxRateTtl(Duration.ZERO);
+        when(paymentClient.getTaxRate())
+                .thenReturn(TAX_RATE)
+                .thenThrow(new ServiceTemporaryUnavailableException("Payment service is unavailable"));
+
+        orderCostCalculator.totalPrice(order("100.00", "0.00"));
+        BigDecimal total = orderCostCalculator.totalPrice(order("100.00", "0.00"));
+
+        assertThat(total).isEqualTo(new BigDecimal("110.00"));
+    }
+
+    @Test
+    void failureWithoutCachedTaxRateIsPropagated() {
+        when(paymentClient.getTaxRate())
+                .thenThrow(new ServiceTemporaryUnavailableException("Payment service is unavailable"));
+
+        assertThatThrownBy(() -> orderCostCalculator.totalPrice(order("100.00", "0.00")))
+                .isInstanceOf(ServiceTemporaryUnavailableException.class);
+    }
+
+    private static Order order(String productPrice, String deliveryPrice) {
+        return Order.builder()
+                .productPrice(new BigDecimal(productPrice))
+                .deliveryPrice(new BigDecimal(deliveryPrice))
+                .build();
+    }
+}
@@ -0,0 +1,233 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.client.DeliveryClient;
+import ru.practicum.client.PaymentClient;
+import ru.practicum.client.WarehouseClient;
+import ru.practicum.config.OrderSagaProperties;
+import ru.practicum.dto.order.OrderState;
+import ru.practicum.dto.warehouse.BookedProductsDto;
+import ru.practicum.exception.BadRequestException;
+import ru.practicum.exception.ServiceTemporaryUnavailableException;
+import ru.practicum.mapper.AddressMapperImpl;
+import ru.practicum.mapper.OrderMapperImpl;
+import ru.practicum.model.Order;
+import ru.practicum.model.OrderSaga;
+import ru.practicum.model.OutboxMessage;
+import ru.practicum.model.SagaCommand;
+import ru.practicum.model.SagaStep;
+import ru.practicum.repository.OrderRepository;
+import ru.practicum.repository.OrderSagaRepository;
+import ru.practicum.repository.OutboxMessageRepository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты переходов между шагами асинхронного оформления заказа, повторов и компенсации.
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderSagaServiceTest {
+    private static final UUID ORDER_ID = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+    private static final UUID PRODUCT_ID = UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+    private static final UUID DELIVERY_ID = UUID.fromString("123e4567-e89b-12d3-a456-426614174002");
+    private static final UUID PAYMENT_ID = UUID.fromString("123e4567-e89b-12d3-a456-426614174003");
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private OrderSagaRepository orderSagaRepository;
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+    @Mock
+    private DeliveryClient deliveryClient;
+    @Mock
+    private PaymentClient paymentClient;
+    @Mock
+    private WarehouseClient warehouseClient;
+    @Mock
+    private OrderCostCalculator orderCostCalculator;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final OrderSagaProperties properties = new OrderSagaProperties();
+    private final Order order = Order.builder()
+            .orderId(ORDER_ID)
+            .products(Map.of(PRODUCT_ID, 2L))
+            .state(OrderState.NEW)
+            .build();
+
+    @Test
+    void completedStepMovesToNextStepAndEnqueuesItsCommand() {
+        OrderSaga saga = givenSaga(SagaStep.ASSEMBLY, 0);
+        when(warehouseClient.assemblyProductForOrderFromShoppingCart(any()))
+                .thenReturn(new BookedProductsDto(1.5, 0.01, true));
+
+        service().handle(new SagaCommand(ORDER_ID, SagaStep.ASSEMBLY, 0));
+
+        assertThat(order.getDeliveryWeight()).isEqualTo(1.5);
+        assertThat(order.getFragile()).isTrue();
+        assertThat(saga.getStep()).isEqualTo(SagaStep.DELIVERY);
+        verify(outboxMessageRepository).save(argThat(message -> isCommand(message, SagaStep.DELIVERY, 0)));
+    }
+
+    @Test
+    void pricingStoresLocallyCalculatedTotal() {
+        OrderSaga saga = givenSaga(SagaStep.PRICING, 0);
+        when(deliveryClient.deliveryCost(any())).thenReturn(new BigDecimal("50.00"));
+        when(paymentClient.productCost(any())).thenReturn(new BigDecimal("100.00"));
+        when(orderCostCalculator.totalPrice(order)).thenReturn(new BigDecimal("160.00"));
+
+        service().handle(new SagaCommand(ORDER_ID, SagaStep.PRICING, 0));
+
+        assertThat(order.getDeliveryPrice()).isEqualTo(new BigDecimal("50.00"));
+        assertThat(order.getProductPrice()).isEqualTo(new BigDecimal("100.00"));
+        assertThat(order.getTotalPrice()).isEqualTo(new BigDecimal("160.00"));
+        assertThat(saga.getStep()).isEqualTo(SagaStep.PAYMENT);
+    }
+
+    @Test
+    void staleCommandIsIgnored() {
+        when(orderSagaRepository.findById(ORDER_ID)).thenReturn(Optional.of(OrderSaga.builder()
+                .orderId(ORDER_ID)
+                .step(SagaStep.DELIVERY)
+                .build()));
+
+        service().handle(new SagaCommand(ORDER_ID, SagaStep.ASSEMBLY, 0));
+
+        verifyNoInteractions(warehouseClient, outboxMessageRepository, transactionTemplate);
+    }
+
+    @Test
+    void temporaryFailureRetriesStepWithBackoff() {
+        OrderSaga saga = givenSaga(SagaStep.ASSEMBLY, 1);
+        when(warehouseClient.assemblyProductForOrderFromShoppingCart(any()))
+                .thenThrow(new ServiceTemporaryUnavailableException("Warehouse service is unavailable"));
+        Instant earliestRetry = Instant.now().plus(properties.getStepRetryBackoff().multipliedBy(2));
+
+        service().handle(new SagaCommand(ORDER_ID, SagaStep.ASSEMBLY, 1));
+
+        assertThat(saga.getStep()).isEqualTo(SagaStep.ASSEMBLY);
+        assertThat(saga.getAttempt()).isEqualTo(2);
+        verify(outboxMessageRepository).save(argThat(message -> isCommand(message, SagaStep.ASSEMBLY, 2)
+                && !message.getNotBefore().isBefore(earliestRetry)));
+    }
+
+    @Test
+    void lastFailedAttemptStartsCompensation() {
+        int lastAttempt = properties.getMaxAttempts() - 1;
+        OrderSaga saga = givenSaga(SagaStep.ASSEMBLY, lastAttempt);
+        when(warehouseClient.assemblyProductForOrderFromShoppingCart(any()))
+                .thenThrow(new ServiceTemporaryUnavailableException("Warehouse service is unavailable"));
+
+        service().handle(new SagaCommand(ORDER_ID, SagaStep.ASSEMBLY, lastAttempt));
+
+        assertThat(order.getState()).isEqualTo(OrderState.ASSEMBLY_FAILED);
+        assertThat(saga.getStep()).isEqualTo(SagaStep.COMPENSATION);
+        assertThat(saga.getAttempt()).isZero();
+        assertThat(saga.getFailureReason()).startsWith("ASSEMBLY: ");
+        verify(outboxMessageRepository).save(argThat(message -> isCommand(message, SagaStep.COMPENSATION, 0)));
+    }
+
+    @Test
+    void rejectedPaymentIsCompensatedWithoutRetry() {
+        OrderSaga saga = givenSaga(SagaStep.PAYMENT, 0);
+        when(paymentClient.payment(any())).thenThrow(new BadRequestException("Payment rejected"));
+
+        service().handle(new SagaCommand(ORDER_ID, SagaStep.PAYMENT, 0));
+
+        assertThat(order.getState()).isEqualTo(OrderState.PAYMENT_FAILED);
+        assertThat(saga.getStep()).isEqualTo(SagaStep.COMPENSATION);
+        verify(outboxMessageRepository).save(argThat(message -> isCommand(message, SagaStep.COMPENSATION, 0)));
+    }
+
+    @Test
+    void compensationCancelsPaymentDeliveryAndBooking() {
+        order.setPaymentId(PAYMENT_ID);
+        order.setDeliveryId(DELIVERY_ID);
+        OrderSaga saga = givenSaga(SagaStep.COMPENSATION, 0);
+
+        service().handle(new SagaCommand(ORDER_ID, SagaStep.COMPENSATION, 0));
+
+        verify(paymentClient).failed(PAYMENT_ID);
+        verify(deliveryClient).cancelDelivery(DELIVERY_ID);
+        verify(warehouseClient).cancelAssemblyProductForOrder(ORDER_ID);
+        assertThat(saga.getStep()).isEqualTo(SagaStep.FAILED);
+        assertThat(saga.getFailureReason()).isNull();
+        verify(outboxMessageRepository, never()).save(any());
+    }
+
+    @Test
+    void compensationSkipsStepsThatWereNotReached() {
+        givenSaga(SagaStep.COMPENSATION, 0);
+
+        service().handle(new SagaCommand(ORDER_ID, SagaStep.COMPENSATION, 0));
+
+        verify(paymentClient, never()).failed(any());
+        verify(deliveryClient, never()).cancelDelivery(any());
+        verify(warehouseClient).cancelAssemblyProductForOrder(ORDER_ID);
+    }
+
+    @Test
+    void failedCompensationEndsCheckoutWithoutAnotherCompensation() {
+        OrderSaga saga = givenSaga(SagaStep.COMPENSATION, 0);
+        doThrow(new BadRequestException("Booking not found"))
+                .when(warehouseClient).cancelAssemblyProductForOrder(ORDER_ID);
+
+        service().handle(new SagaCommand(ORDER_ID, SagaStep.COMPENSATION, 0));
+
+        assertThat(saga.getStep()).isEqualTo(SagaStep.FAILED);
+        assertThat(saga.getFailureReason()).startsWith("COMPENSATION: ");
+        verify(outboxMessageRepository, never()).save(any());
+    }
+
+    private OrderSagaService service() {
+        return new OrderSagaService(orderRepository, orderSagaRepository, outboxMessageRepository,
+                new OrderMapperImpl(), new AddressMapperImpl(), deliveryClient, paymentClient, warehouseClient,
+                orderCostCalculator, properties, transactionTemplate);
+    }
+
+    /**
+     * Сохраняет состояние оформления на указанном шаге и выполняет транзакции в вызывающем потоке.
+     */
+    private OrderSaga givenSaga(SagaStep step, int attempt) {
+        OrderSaga saga = OrderSaga.builder()
+                .orderId(ORDER_ID)
+                .step(step)
+                .attempt(attempt)
+                .build();
+        when(orderSagaRepository.findById(ORDER_ID)).thenReturn(Optional.of(saga));
+        when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(order));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        return saga;
+    }
+
+    private static boolean isCommand(OutboxMessage message, SagaStep step, int attempt) {
+        return message.getOrderId().equals(ORDER_ID) && message.getStep() == step && message.getAttempt() == attempt;
+    }
+}
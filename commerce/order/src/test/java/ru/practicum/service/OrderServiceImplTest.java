@@ -0,0 +1,173 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.client.DeliveryClient;
+import ru.practicum.client.PaymentClient;
+import ru.practicum.client.WarehouseClient;
+import ru.practicum.dto.cart.ShoppingCartDto;
+import ru.practicum.dto.delivery.DeliveryDto;
+import ru.practicum.dto.order.CreateNewOrderRequest;
+import ru.practicum.dto.payment.PaymentDto;
+import ru.practicum.dto.warehouse.AddressDto;
+import ru.practicum.dto.warehouse.BookedProductsDto;
+import ru.practicum.exception.ServiceTemporaryUnavailableException;
+import ru.practicum.mapper.AddressMapperImpl;
+import ru.practicum.mapper.OrderMapperImpl;
+import ru.practicum.model.Order;
+import ru.practicum.repository.OrderRepository;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты компенсаций при неудачном синхронном оформлении заказа.
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderServiceImplTest {
+    private static final UUID ORDER_ID = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+    private static final UUID PRODUCT_ID = UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+    private static final UUID DELIVERY_ID = UUID.fromString("123e4567-e89b-12d3-a456-426614174002");
+    private static final UUID PAYMENT_ID = UUID.fromString("123e4567-e89b-12d3-a456-426614174003");
+    private static final AddressDto ADDRESS = new AddressDto("Россия", "Москва", "Тверская", "15", "42");
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private DeliveryClient deliveryClient;
+    @Mock
+    private PaymentClient paymentClient;
+    @Mock
+    private WarehouseClient warehouseClient;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private OrderCostCalculator orderCostCalculator;
+
+    private final ExecutorService checkoutExecutor = Executors.newFixedThreadPool(3);
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        orderService = new OrderServiceImpl(orderRepository, new OrderMapperImpl(), new AddressMapperImpl(),
+                deliveryClient, paymentClient, warehouseClient, transactionTemplate, orderCostCalculator,
+                checkoutExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        checkoutExecutor.shutdownNow();
+    }
+
+    @Test
+    void failedSaveCancelsPaymentDeliveryAndBooking() {
+        DataAccessResourceFailureException failure = new DataAccessResourceFailureException("Connection lost");
+        when(orderRepository.save(any()))
+                .thenAnswer(invocation -> {
+                    Order order = invocation.getArgument(0);
+                    order.setOrderId(ORDER_ID);
+                    return order;
+                })
+                .thenThrow(failure);
+        when(warehouseClient.assemblyProductForOrderFromShoppingCart(any()))
+                .thenReturn(new BookedProductsDto(1.5, 0.01, false));
+        stubDeliveryAndProductCost();
+        when(deliveryClient.deliveryCost(any())).thenReturn(new BigDecimal("50.00"));
+        when(orderCostCalculator.totalPrice(any())).thenReturn(new BigDecimal("160.00"));
+        when(paymentClient.payment(any())).thenReturn(PaymentDto.builder().paymentId(PAYMENT_ID).build());
+
+        assertThatThrownBy(() -> orderService.createOrder(request())).isSameAs(failure);
+
+        verify(paymentClient).failed(PAYMENT_ID);
+        verify(deliveryClient).cancelDelivery(DELIVERY_ID);
+        verify(warehouseClient).cancelAssemblyProductForOrder(ORDER_ID);
+        verify(orderRepository).deleteById(ORDER_ID);
+    }
+
+    @Test
+    void failedBookingCancelsDeliveryWithoutPayment() {
+        ServiceTemporaryUnavailableException failure =
+                new ServiceTemporaryUnavailableException("Warehouse service is unavailable");
+        when(orderRepository.save(any())).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setOrderId(ORDER_ID);
+            return order;
+        });
+        when(warehouseClient.assemblyProductForOrderFromShoppingCart(any())).thenThrow(failure);
+        stubDeliveryAndProductCost();
+
+        assertThatThrownBy(() -> orderService.createOrder(request())).isSameAs(failure);
+
+        verify(paymentClient, never()).payment(any());
+        verify(paymentClient, never()).failed(any());
+        verify(deliveryClient).cancelDelivery(DELIVERY_ID);
+        verify(warehouseClient).cancelAssemblyProductForOrder(ORDER_ID);
+        verify(orderRepository).deleteById(ORDER_ID);
+    }
+
+    @Test
+    void compensationContinuesWhenPaymentCancellationFails() {
+        when(orderRepository.save(any()))
+                .thenAnswer(invocation -> {
+                    Order order = invocation.getArgument(0);
+                    order.setOrderId(ORDER_ID);
+                    return order;
+                })
+                .thenThrow(new DataAccessResourceFailureException("Connection lost"));
+        when(warehouseClient.assemblyProductForOrderFromShoppingCart(any()))
+                .thenReturn(new BookedProductsDto(1.5, 0.01, false));
+        stubDeliveryAndProductCost();
+        when(deliveryClient.deliveryCost(any())).thenReturn(new BigDecimal("50.00"));
+        when(orderCostCalculator.totalPrice(any())).thenReturn(new BigDecimal("160.00"));
+        when(paymentClient.payment(any())).thenReturn(PaymentDto.builder().paymentId(PAYMENT_ID).build());
+        doThrow(new ServiceTemporaryUnavailableException("Payment service is unavailable"))
+                .when(paymentClient).failed(PAYMENT_ID);
+
+        assertThatThrownBy(() -> orderService.createOrder(request()))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+
+        verify(deliveryClient).cancelDelivery(DELIVERY_ID);
+        verify(warehouseClient).cancelAssemblyProductForOrder(ORDER_ID);
+        verify(orderRepository).deleteById(ORDER_ID);
+    }
+
+    private void stubDeliveryAndProductCost() {
+        when(warehouseClient.getWarehouseAddress(anyString(), anyString())).thenReturn(ADDRESS);
+        when(deliveryClient.planDelivery(any())).thenReturn(DeliveryDto.builder().deliveryId(DELIVERY_ID).build());
+        when(paymentClient.productCost(any())).thenReturn(new BigDecimal("100.00"));
+    }
+
+    private static CreateNewOrderRequest request() {
+        return new CreateNewOrderRequest(
+                new ShoppingCartDto(UUID.randomUUID(), Map.of(PRODUCT_ID, 2L), "ivan_ivanov"),
+                ADDRESS);
+    }
+}
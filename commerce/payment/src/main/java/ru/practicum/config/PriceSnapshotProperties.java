@@ -0,0 +1,38 @@
+package ru.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша цен товаров.
+ * Читает свойства {@code payment.price-snapshot.*} из конфигурации.
+ *
+ * <p>Пример конфигурации в application.yml:</p>
+ * <pre>
+ * payment:
+ *   price-snapshot:
+ *     ttl: 10s
+ *     maximum-size: 10000
+ * </pre>
+ *
+ * @see ru.practicum.service.PriceSnapshotCache
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.price-snapshot")
+public class PriceSnapshotProperties {
+
+    /**
+     * Время жизни цены в кэше.
+     * Изменение цены в магазине учитывается в расчете стоимости не позже чем через это время.
+     */
+    private Duration ttl = Duration.ofSeconds(10);
+
+    /**
+     * Максимальное количество товаров в кэше.
+     */
+    private long maximumSize = 10_000;
+}
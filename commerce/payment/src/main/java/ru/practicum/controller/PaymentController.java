@@ -105,4 +105,16 @@ public class PaymentController implements PaymentClient {
             @RequestBody UUID paymentId) {
         paymentService.failed(paymentId);
     }
+
+    @Override
+    @GetMapping("/taxRate")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Получить ставку налога",
+            description = "Возвращает ставку налога на стоимость товаров, используемую при расчете платежей"
+    )
+    @ApiResponse(responseCode = "200", description = "Ставка налога получена")
+    public BigDecimal getTaxRate() {
+        return paymentService.getTaxRate();
+    }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package ru.practicum.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import ru.practicum.dto.payment.PaymentStatus;
 import ru.practicum.model.Payment;
 
 import java.util.Optional;
@@ -20,4 +21,13 @@ public interface PaymentRepository extends JpaRepository<Payment, UUID> {
      * @return Optional с платежом, если найден, иначе пустой Optional
      */
     Optional<Payment> findPaymentByPaymentId(UUID paymentId);
-}
\ No newline at end of file
+
+    /**
+     * Находит платеж заказа в указанном статусе.
+     *
+     * @param orderId       идентификатор заказа
+     * @param paymentStatus статус платежа
+     * @return Optional с платежом, если найден, иначе пустой Optional
+     */
+    Optional<Payment> findFirstByOrderIdAndPaymentStatus(UUID orderId, PaymentStatus paymentStatus);
+}
@@ -55,4 +55,11 @@ public interface PaymentService {
      * @param paymentId идентификатор платежа
      */
     void failed(UUID paymentId);
+
+    /**
+     * Возвращает ставку налога на стоимость товаров.
+     *
+     * @return ставка налога
+     */
+    BigDecimal getTaxRate();
 }
\ No newline at end of file
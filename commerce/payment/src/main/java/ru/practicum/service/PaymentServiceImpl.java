@@ -2,13 +2,14 @@ package ru.practicum.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.client.OrderClient;
-import ru.practicum.client.ShoppingStoreClient;
 import ru.practicum.dto.order.OrderDto;
 import ru.practicum.dto.payment.PaymentDto;
 import ru.practicum.dto.payment.PaymentStatus;
+import ru.practicum.dto.product.ProductPriceDto;
 import ru.practicum.exception.NoPaymentFoundException;
 import ru.practicum.exception.NotEnoughInfoInOrderToCalculateException;
 import ru.practicum.mapper.PaymentMapper;
@@ -18,6 +19,7 @@ import ru.practicum.repository.PaymentRepository;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -31,13 +33,16 @@ public class PaymentServiceImpl implements PaymentService {
     private final PaymentRepository paymentRepository;
     private final PaymentMapper paymentMapper;
     private final OrderClient orderClient;
-    private final ShoppingStoreClient shoppingStoreClient;
+    private final PriceSnapshotCache priceSnapshotCache;
     private final TransactionTemplate transactionTemplate;
     private final BigDecimal TAX_PERCENTAGE = BigDecimal.valueOf(0.1);
 
     /**
      * Создает платеж для заказа.
      * Проверяет данные заказа и создает платеж со статусом PENDING.
+     * Если у заказа уже есть платеж в статусе PENDING (повторный запрос), возвращает его без создания нового.
+     * Параллельные запросы одного заказа разделяет частичный уникальный индекс по PENDING-платежам заказа:
+     * проигравший запрос возвращает платеж, созданный другим.
      *
      * @param orderDto данные заказа
      * @return созданный платеж
@@ -47,6 +52,13 @@ public class PaymentServiceImpl implements PaymentService {
     public PaymentDto payment(OrderDto orderDto) {
         checkOrderDto(orderDto);
 
+        Optional<Payment> pending = paymentRepository.findFirstByOrderIdAndPaymentStatus(
+                orderDto.orderId(), PaymentStatus.PENDING);
+        if (pending.isPresent()) {
+            log.info("Payment {} for order {} already created", pending.get().getPaymentId(), orderDto.orderId());
+            return paymentMapper.toDto(pending.get());
+        }
+
         Payment payment = Payment.builder()
                 .orderId(orderDto.orderId())
                 .totalPayment(orderDto.totalPrice())
@@ -56,7 +68,14 @@ public class PaymentServiceImpl implements PaymentService {
                 .paymentStatus(PaymentStatus.PENDING)
                 .build();
 
-        return paymentMapper.toDto(paymentRepository.save(payment));
+        try {
+            return paymentMapper.toDto(paymentRepository.save(payment));
+        } catch (DataIntegrityViolationException e) {
+            Payment existing = paymentRepository.findFirstByOrderIdAndPaymentStatus(
+                    orderDto.orderId(), PaymentStatus.PENDING).orElseThrow(() -> e);
+            log.info("Payment {} for order {} created concurrently", existing.getPaymentId(), orderDto.orderId());
+            return paymentMapper.toDto(existing);
+        }
     }
 
     /**
@@ -122,7 +141,8 @@ public class PaymentServiceImpl implements PaymentService {
 
     /**
      * Рассчитывает стоимость товаров в заказе.
-     * Запрашивает цены товаров у сервиса магазина и умножает на количество.
+     * Берет цены товаров из кэша цен, отсутствующие цены запрашиваются у магазина одним запросом,
+     * и умножает их на количество.
      *
      * @param orderDto данные заказа
      * @return стоимость товаров, округленная до 2 знаков
@@ -136,12 +156,17 @@ public class PaymentServiceImpl implements PaymentService {
             throw new NotEnoughInfoInOrderToCalculateException("No products in order to calculate cost");
         }
 
+        Map<UUID, ProductPriceDto> prices = priceSnapshotCache.getAll(products.keySet());
+
         return products.entrySet().stream()
                 .map(entry -> {
                     UUID productId = entry.getKey();
                     BigDecimal quantity = BigDecimal.valueOf(entry.getValue());
-                    BigDecimal price = shoppingStoreClient.getProduct(productId).price();
-                    return price.multiply(quantity);
+                    ProductPriceDto price = prices.get(productId);
+                    if (price == null || price.price() == null) {
+                        throw new NotEnoughInfoInOrderToCalculateException("No price for product " + productId);
+                    }
+                    return price.price().multiply(quantity);
                 })
                 .reduce(BigDecimal.ZERO, BigDecimal::add)
                 .setScale(2, RoundingMode.HALF_UP);
@@ -184,6 +209,16 @@ public class PaymentServiceImpl implements PaymentService {
         }
     }
 
+    /**
+     * Возвращает ставку налога, по которой рассчитывается налог в платежах.
+     *
+     * @return ставка налога (10%)
+     */
+    @Override
+    public BigDecimal getTaxRate() {
+        return TAX_PERCENTAGE;
+    }
+
     /**
      * Находит платеж по идентификатору.
      *
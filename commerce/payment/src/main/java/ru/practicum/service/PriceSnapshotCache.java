@@ -0,0 +1,63 @@
+package ru.practicum.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import ru.practicum.client.ShoppingStoreClient;
+import ru.practicum.config.PriceSnapshotProperties;
+import ru.practicum.dto.product.ProductPriceDto;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Кэш цен товаров для расчета стоимости заказов.
+ * <p>
+ * Отсутствующие в кэше цены запрашиваются у магазина одним запросом на весь заказ.
+ * Цена заменяется в кэше, только если ее версия не старее закэшированной, поэтому ответ,
+ * полученный параллельным запросом раньше изменения цены, не вытесняет более новую цену.
+ * Изменения цен в магазине видны после истечения {@code ttl}.
+ */
+@Component
+public class PriceSnapshotCache {
+    private final ShoppingStoreClient shoppingStoreClient;
+    private final Cache<UUID, ProductPriceDto> cache;
+
+    public PriceSnapshotCache(ShoppingStoreClient shoppingStoreClient, PriceSnapshotProperties properties) {
+        this.shoppingStoreClient = shoppingStoreClient;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getTtl())
+                .maximumSize(properties.getMaximumSize())
+                .build();
+    }
+
+    /**
+     * Возвращает цены товаров, запрашивая отсутствующие в кэше одним запросом к магазину.
+     *
+     * @param productIds ID товаров
+     * @return цены (ID товара → цена)
+     */
+    public Map<UUID, ProductPriceDto> getAll(Set<UUID> productIds) {
+        Map<UUID, ProductPriceDto> prices = new HashMap<>(cache.getAllPresent(productIds));
+
+        Set<UUID> missing = new HashSet<>(productIds);
+        missing.removeAll(prices.keySet());
+        if (!missing.isEmpty()) {
+            for (ProductPriceDto loaded : shoppingStoreClient.getProductPrices(missing)) {
+                prices.put(loaded.productId(),
+                        cache.asMap().merge(loaded.productId(), loaded, PriceSnapshotCache::newer));
+            }
+        }
+        return prices;
+    }
+
+    /**
+     * Выбирает более новую из двух версий цены.
+     */
+    private static ProductPriceDto newer(ProductPriceDto cached, ProductPriceDto loaded) {
+        return loaded.version() >= cached.version() ? loaded : cached;
+    }
+}
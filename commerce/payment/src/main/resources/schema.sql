@@ -12,3 +12,8 @@ CREATE TABLE IF NOT EXISTS payments
     updated_at     TIMESTAMP        DEFAULT CURRENT_TIMESTAMP
 );
 
+
+-- Один ожидающий оплаты платеж на заказ: повторный запрос возвращает существующий платеж
+CREATE UNIQUE INDEX IF NOT EXISTS idx_payments_order_id_pending
+    ON payments (order_id)
+    WHERE payment_status = 'PENDING';
@@ -6,6 +6,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -19,9 +20,12 @@ import ru.practicum.annotation.validator.ValidPageable;
 import ru.practicum.client.ShoppingStoreClient;
 import ru.practicum.dto.product.ProductCategory;
 import ru.practicum.dto.product.ProductDto;
+import ru.practicum.dto.product.ProductPriceDto;
 import ru.practicum.dto.product.SetProductQuantityStateRequest;
 import ru.practicum.service.ShoppingStoreService;
 
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -120,6 +124,23 @@ public class ShoppingStoreController implements ShoppingStoreClient {
         return shoppingStoreService.setQuantityState(request);
     }
 
+    @Override
+    @PostMapping("/quantityStates")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Установить состояния количества нескольких товаров",
+            description = "Изменяет состояния количества нескольких товаров одним запросом, отсутствующие товары пропускаются"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Состояния количества успешно обновлены"),
+            @ApiResponse(responseCode = "400", description = "Неверные данные запроса")
+    })
+    public Boolean setQuantityStates(
+            @Parameter(description = "Запросы на изменение состояния количества", required = true)
+            @RequestBody @NotEmpty List<@Valid SetProductQuantityStateRequest> requests) {
+        return shoppingStoreService.setQuantityStates(requests);
+    }
+
     @Override
     @GetMapping("/{productId}")
     @ResponseStatus(HttpStatus.OK)
@@ -136,4 +157,21 @@ public class ShoppingStoreController implements ShoppingStoreClient {
             @PathVariable UUID productId) {
         return shoppingStoreService.getProductById(productId);
     }
+
+    @Override
+    @PostMapping("/prices")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Получить цены нескольких товаров",
+            description = "Возвращает цены и версии товаров по списку идентификаторов одним запросом"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Цены товаров получены"),
+            @ApiResponse(responseCode = "404", description = "Какой-либо из товаров не найден")
+    })
+    public List<ProductPriceDto> getProductPrices(
+            @Parameter(description = "ID товаров", required = true)
+            @RequestBody @NotEmpty Set<UUID> productIds) {
+        return shoppingStoreService.getProductPrices(productIds);
+    }
 }
\ No newline at end of file
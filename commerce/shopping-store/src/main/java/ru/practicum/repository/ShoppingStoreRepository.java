@@ -3,9 +3,14 @@ package ru.practicum.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.dto.product.ProductCategory;
+import ru.practicum.dto.product.QuantityState;
 import ru.practicum.model.Product;
 
+import java.util.Collection;
 import java.util.UUID;
 
 /**
@@ -21,4 +26,16 @@ public interface ShoppingStoreRepository extends JpaRepository<Product, UUID> {
      * @return страница товаров
      */
     Page<Product> findAllByProductCategory(ProductCategory category, Pageable pageable);
-}
\ No newline at end of file
+
+    /**
+     * Устанавливает состояние количества товарам одним запросом.
+     *
+     * @param productIds    ID товаров
+     * @param quantityState состояние количества
+     * @return количество обновленных товаров
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.quantityState = :quantityState WHERE p.productId IN :productIds")
+    int updateQuantityState(@Param("productIds") Collection<UUID> productIds,
+                            @Param("quantityState") QuantityState quantityState);
+}
@@ -4,8 +4,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import ru.practicum.dto.product.ProductCategory;
 import ru.practicum.dto.product.ProductDto;
+import ru.practicum.dto.product.ProductPriceDto;
 import ru.practicum.dto.product.SetProductQuantityStateRequest;
 
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -45,6 +48,14 @@ public interface ShoppingStoreService {
      */
     Boolean setQuantityState(SetProductQuantityStateRequest request);
 
+    /**
+     * Изменяет состояния количества нескольких товаров.
+     *
+     * @param requests запросы на изменение состояния
+     * @return true если операция успешна
+     */
+    Boolean setQuantityStates(List<SetProductQuantityStateRequest> requests);
+
     /**
      * Получает товары по категории с пагинацией.
      *
@@ -61,4 +72,12 @@ public interface ShoppingStoreService {
      * @return данные товара
      */
     ProductDto getProductById(UUID productId);
+
+    /**
+     * Получает цены нескольких товаров.
+     *
+     * @param productIds ID товаров
+     * @return цены товаров с их версиями
+     */
+    List<ProductPriceDto> getProductPrices(Set<UUID> productIds);
 }
\ No newline at end of file
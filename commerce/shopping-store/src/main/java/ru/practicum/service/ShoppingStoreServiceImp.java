@@ -10,6 +10,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.dto.product.ProductCategory;
 import ru.practicum.dto.product.ProductDto;
+import ru.practicum.dto.product.ProductPriceDto;
+import ru.practicum.dto.product.QuantityState;
 import ru.practicum.dto.product.ProductState;
 import ru.practicum.dto.product.SetProductQuantityStateRequest;
 import ru.practicum.exception.ProductNotFoundException;
@@ -17,7 +19,8 @@ import ru.practicum.mapper.ProductMapper;
 import ru.practicum.model.Product;
 import ru.practicum.repository.ShoppingStoreRepository;
 
-import java.util.UUID;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Реализация сервиса управления товарами магазина.
@@ -107,6 +110,40 @@ public class ShoppingStoreServiceImp implements ShoppingStoreService {
         }
     }
 
+    /**
+     * Устанавливает состояния количества нескольких товаров.
+     * Товары группируются по состоянию, и каждое состояние устанавливается одним UPDATE.
+     * Если для товара передано несколько состояний, применяется последнее.
+     * Товары, которых нет в магазине, пропускаются.
+     * Очищает кэш товаров после обновления.
+     *
+     * @param requests запросы на изменение состояния количества
+     * @return true после обновления
+     */
+    @Transactional
+    @CacheEvict(cacheNames = "products", allEntries = true)
+    @Override
+    public Boolean setQuantityStates(List<SetProductQuantityStateRequest> requests) {
+        Map<UUID, QuantityState> states = requests.stream()
+                .collect(Collectors.toMap(SetProductQuantityStateRequest::getProductId,
+                        SetProductQuantityStateRequest::getQuantityState,
+                        (first, second) -> second));
+
+        Map<QuantityState, Set<UUID>> productsByState = states.entrySet().stream()
+                .collect(Collectors.groupingBy(Map.Entry::getValue,
+                        () -> new EnumMap<>(QuantityState.class),
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toSet())));
+
+        int updated = productsByState.entrySet().stream()
+                .mapToInt(entry -> shoppingStoreRepository.updateQuantityState(entry.getValue(), entry.getKey()))
+                .sum();
+
+        if (updated < states.size()) {
+            log.warn("Skipped quantity state of {} products not found in store", states.size() - updated);
+        }
+        return true;
+    }
+
     /**
      * Получает товары по категории с пагинацией.
      * Использует кэширование для повышения производительности.
@@ -135,6 +172,34 @@ public class ShoppingStoreServiceImp implements ShoppingStoreService {
         return productMapper.toDto(getProduct(productId));
     }
 
+    /**
+     * Получает цены нескольких товаров одним запросом к БД.
+     * Версией цены служит время последнего изменения товара.
+     *
+     * @param productIds идентификаторы товаров
+     * @return цены товаров с их версиями
+     * @throws ProductNotFoundException если какой-либо из товаров не найден
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<ProductPriceDto> getProductPrices(Set<UUID> productIds) {
+        List<Product> products = shoppingStoreRepository.findAllById(productIds);
+
+        if (products.size() < productIds.size()) {
+            Set<UUID> notFound = new HashSet<>(productIds);
+            products.forEach(product -> notFound.remove(product.getProductId()));
+            throw new ProductNotFoundException(String.format("Products with ids %s not found", notFound));
+        }
+
+        return products.stream()
+                .map(product -> ProductPriceDto.builder()
+                        .productId(product.getProductId())
+                        .price(product.getPrice())
+                        .version(product.getUpdatedAt() == null ? 0 : product.getUpdatedAt().toEpochMilli())
+                        .build())
+                .toList();
+    }
+
     /**
      * Находит товар по идентификатору.
      *
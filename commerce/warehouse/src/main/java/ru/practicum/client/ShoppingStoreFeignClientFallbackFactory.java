@@ -7,8 +7,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 import ru.practicum.dto.product.ProductCategory;
 import ru.practicum.dto.product.ProductDto;
+import ru.practicum.dto.product.ProductPriceDto;
 import ru.practicum.dto.product.SetProductQuantityStateRequest;
 
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static ru.practicum.exception.FallBackUtility.fastFallBack;
@@ -53,11 +56,23 @@ public class ShoppingStoreFeignClientFallbackFactory implements FallbackFactory<
                 return null;
             }
 
+            @Override
+            public Boolean setQuantityStates(List<SetProductQuantityStateRequest> requests) {
+                fastFallBack(cause);
+                return null;
+            }
+
             @Override
             public ProductDto getProduct(UUID productId) {
                 fastFallBack(cause);
                 return null;
             }
+
+            @Override
+            public List<ProductPriceDto> getProductPrices(Set<UUID> productIds) {
+                fastFallBack(cause);
+                return null;
+            }
         };
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package ru.practicum.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Настройки распределения заказов по складам.
+ * Читает свойства {@code warehouse.allocation.*} из конфигурации.
+ *
+ * @see ru.practicum.service.allocation.AllocationEngine
+ * @see ru.practicum.service.allocation.StockAllocationIndex
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "warehouse.allocation")
+@Validated
+public class AllocationProperties {
+
+    /**
+     * Время жизни остатков товара в индексе.
+     * Бронирования этого экземпляра применяются к индексу сразу, остальные изменения перечитываются
+     * после изменения товара этим экземпляром или после истечения этого времени.
+     */
+    private Duration indexTtl = Duration.ofSeconds(5);
+
+    /**
+     * Максимальное количество складов с товарами заказа, для которого наименьший набор складов
+     * ищется перебором. При большем количестве склады выбираются жадно.
+     * Перебор проходит 2^n наборов складов, поэтому значение ограничено
+     * {@link ru.practicum.service.allocation.AllocationEngine#MAX_EXACT_SEARCH_LIMIT}.
+     */
+    @Min(1)
+    @Max(20)
+    private int exactSearchLimit = 12;
+
+    /**
+     * Максимальное количество товаров в индексе.
+     */
+    private long maximumSize = 100_000;
+}
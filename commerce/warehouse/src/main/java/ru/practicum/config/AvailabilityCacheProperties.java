@@ -0,0 +1,39 @@
+package ru.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша доступности товаров.
+ * Читает свойства {@code warehouse.availability-cache.*} из конфигурации.
+ *
+ * <p>Пример конфигурации в application.yml:</p>
+ * <pre>
+ * warehouse:
+ *   availability-cache:
+ *     ttl: 5s
+ *     maximum-size: 100000
+ * </pre>
+ *
+ * @see ru.practicum.service.StockAvailabilityCache
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "warehouse.availability-cache")
+public class AvailabilityCacheProperties {
+
+    /**
+     * Время жизни записи кэша.
+     * Изменения остатков этим экземпляром применяются к кэшу сразу, а изменения других экземпляров
+     * становятся видны не позже чем через это время.
+     */
+    private Duration ttl = Duration.ofSeconds(5);
+
+    /**
+     * Максимальное количество товаров в кэше.
+     */
+    private long maximumSize = 100_000;
+}
@@ -0,0 +1,70 @@
+package ru.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Настройки журнала бронирований популярных товаров.
+ * Читает свойства {@code warehouse.hot-sku-ledger.*} из конфигурации.
+ *
+ * <p>Пример конфигурации в application.yml:</p>
+ * <pre>
+ * warehouse:
+ *   hot-sku-ledger:
+ *     enabled: true
+ *     product-ids:
+ *       - 5b1a3c1e-8f3d-4a7e-9b7c-2f1d3e4a5b6c
+ * </pre>
+ *
+ * @see ru.practicum.service.HotSkuLedger
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "warehouse.hot-sku-ledger")
+public class HotSkuLedgerProperties {
+
+    /**
+     * Включает журнал бронирований.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Товары, бронирования которых выполняются журналом.
+     * Журнал используется для заказа, только если все товары заказа входят в этот список.
+     */
+    private Set<UUID> productIds = new HashSet<>();
+
+    /**
+     * Количество счетчиков, на которые делится остаток товара в памяти.
+     * Параллельные бронирования одного товара списывают разные счетчики и не конкурируют за один.
+     */
+    private int stripes = 8;
+
+    /**
+     * Количество товара, забираемое из остатка склада в память за одно обращение к БД.
+     * Забранный, но не забронированный остаток недоступен для обычных бронирований и других экземпляров.
+     */
+    private long allotmentSize = 100;
+
+    /**
+     * Пауза между записями накопленных бронирований в БД.
+     */
+    private Duration flushInterval = Duration.ofMillis(10);
+
+    /**
+     * Максимальное количество заказов, бронирования которых записываются в одной транзакции.
+     */
+    private int flushBatchSize = 500;
+
+    /**
+     * Время, после которого остаток, забранный в память остановившимся экземпляром, возвращается на склад.
+     * Экземпляр продлевает свои остатки не реже чем раз в треть этого времени.
+     */
+    private Duration leaseTimeout = Duration.ofSeconds(30);
+}
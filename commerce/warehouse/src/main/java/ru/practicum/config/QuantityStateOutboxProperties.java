@@ -0,0 +1,45 @@
+package ru.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки отправки состояний количества товаров в магазин.
+ * Читает свойства {@code warehouse.quantity-state.*} из конфигурации.
+ *
+ * <p>Пример конфигурации в application.yml:</p>
+ * <pre>
+ * warehouse:
+ *   quantity-state:
+ *     relay-batch-size: 500
+ *     relay-interval-ms: 500
+ *     claim-timeout: 30s
+ * </pre>
+ *
+ * @see ru.practicum.service.QuantityStateOutbox
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "warehouse.quantity-state")
+public class QuantityStateOutboxProperties {
+
+    /**
+     * Максимальное количество состояний, отправляемых в магазин одним запросом.
+     */
+    private int relayBatchSize = 500;
+
+    /**
+     * Пауза между проходами отправки состояний в миллисекундах.
+     */
+    private long relayIntervalMs = 500;
+
+    /**
+     * Срок, на который экземпляр забирает пачку состояний для отправки.
+     * Если экземпляр не снял пометку к отправке за это время (например, остановился),
+     * состояния отправит следующий проход любого экземпляра.
+     */
+    private Duration claimTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,15 @@
+package ru.practicum.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Конфигурация планировщика.
+ * Включает периодическую отправку состояний количества товаров из outbox в магазин.
+ *
+ * @see ru.practicum.service.QuantityStateOutbox
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
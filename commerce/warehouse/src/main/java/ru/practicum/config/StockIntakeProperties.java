@@ -0,0 +1,23 @@
+package ru.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки пакетной приемки товаров.
+ * Читает свойства {@code warehouse.intake.*} из конфигурации.
+ *
+ * @see ru.practicum.service.StockIntakeService
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "warehouse.intake")
+public class StockIntakeProperties {
+
+    /**
+     * Количество строк, применяемых в одной транзакции.
+     * Ошибка в пачке отменяет только ее строки.
+     */
+    private int chunkSize = 500;
+}
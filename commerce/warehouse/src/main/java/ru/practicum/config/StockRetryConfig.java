@@ -0,0 +1,34 @@
+package ru.practicum.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.support.RetryTemplate;
+
+/**
+ * Конфигурация повторов изменений остатков на складе.
+ * <p>
+ * Пополнение, возврат и отмена бронирования изменяют записи товаров с проверкой версии.
+ * Если запись за это время изменило другое действие, транзакция завершается
+ * {@link OptimisticLockingFailureException} и повторяется с перечитанными данными.
+ */
+@Configuration
+public class StockRetryConfig {
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long BACKOFF_MILLIS = 20;
+
+    /**
+     * Создает шаблон повторов при конфликте версий.
+     *
+     * @return шаблон повторов
+     */
+    @Bean
+    public RetryTemplate stockRetryTemplate() {
+        return RetryTemplate.builder()
+                .maxAttempts(MAX_ATTEMPTS)
+                .uniformRandomBackoff(BACKOFF_MILLIS, BACKOFF_MILLIS * 5)
+                .retryOn(OptimisticLockingFailureException.class)
+                .traversingCauses()
+                .build();
+    }
+}
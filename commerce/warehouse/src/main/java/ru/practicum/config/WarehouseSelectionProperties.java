@@ -0,0 +1,45 @@
+package ru.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import ru.practicum.service.selection.SelectionPolicy;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Настройки выбора склада.
+ * Читает свойства {@code warehouse.selection.*} из конфигурации.
+ *
+ * <p>Пример конфигурации в application.yml:</p>
+ * <pre>
+ * warehouse:
+ *   selection:
+ *     policy: PROXIMITY
+ *     preferred-warehouse-id: 5b1a3c1e-8f3d-4a7e-9b7c-2f1d3e4a5b6c
+ * </pre>
+ *
+ * @see ru.practicum.service.WarehouseDirectory
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "warehouse.selection")
+public class WarehouseSelectionProperties {
+
+    /**
+     * Политика выбора склада для новых товаров и адреса отправки.
+     */
+    private SelectionPolicy policy = SelectionPolicy.CONFIGURED;
+
+    /**
+     * Предпочтительный склад. Выбирается политикой CONFIGURED и остальными политиками,
+     * когда они не могут выбрать склад. Если не задан, предпочтительным считается первый склад по ID.
+     */
+    private UUID preferredWarehouseId;
+
+    /**
+     * Время, после которого сведения о складах перечитываются из БД.
+     */
+    private Duration metadataTtl = Duration.ofMinutes(1);
+}
@@ -0,0 +1,44 @@
+package ru.practicum.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import ru.practicum.dto.warehouse.StockIntakeReport;
+import ru.practicum.service.StockIntakeService;
+
+import java.io.InputStream;
+
+/**
+ * Контроллер пакетной приемки товаров на склад.
+ * Тело запроса читается потоком, поэтому методы не логируются целиком.
+ */
+@RestController
+@RequestMapping("/api/v1/warehouse/intake")
+@RequiredArgsConstructor
+@Tag(name = "Warehouse API", description = "Операции по управлению складом и запасами")
+public class StockIntakeController {
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final StockIntakeService stockIntakeService;
+
+    @PostMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Пакетная приемка товаров",
+            description = "Принимает JSON-массив или NDJSON строк StockIntakeLine: регистрацию новых товаров "
+                    + "(в том числе на явно указанный склад) и добавление количества. "
+                    + "Строки применяются пачками в отдельных транзакциях, "
+                    + "результат возвращается по каждой строке"
+    )
+    @ApiResponse(responseCode = "200", description = "Строки обработаны, результаты в отчете")
+    public StockIntakeReport intake(
+            @Parameter(description = "Строки приемки", required = true)
+            InputStream body) {
+        return stockIntakeService.intake(body);
+    }
+}
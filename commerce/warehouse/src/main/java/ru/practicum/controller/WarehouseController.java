@@ -83,11 +83,16 @@ public class WarehouseController implements WarehouseClient {
     @ResponseStatus(HttpStatus.OK)
     @Operation(
             summary = "Получить адрес склада",
-            description = "Возвращает адрес основного склада"
+            description = "Возвращает адрес склада, выбранного по настроенной политике с учетом адреса доставки"
     )
     @ApiResponse(responseCode = "200", description = "Адрес склада получен")
-    public AddressDto getWarehouseAddress() {
-        return warehouseService.getAddress();
+    public AddressDto getWarehouseAddress(
+            @Parameter(description = "Страна доставки", example = "Россия")
+            @RequestParam(required = false) String country,
+
+            @Parameter(description = "Город доставки", example = "Москва")
+            @RequestParam(required = false) String city) {
+        return warehouseService.getAddress(country, city);
     }
 
     @Override
@@ -135,6 +140,23 @@ public class WarehouseController implements WarehouseClient {
         return warehouseService.assemblyProductForOrder(request);
     }
 
+    @Override
+    @PostMapping("/assembly/allocation")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(
+            summary = "Собрать товары для заказа с распределением по складам",
+            description = "Собирает товары с наименьшего числа складов и возвращает отгрузку с каждого из них"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Товары собраны и распределены по складам"),
+            @ApiResponse(responseCode = "400", description = "Недостаточно товаров на складах")
+    })
+    public OrderAllocationDto allocateProductsForOrder(
+            @Parameter(description = "Запрос на сборку товаров", required = true)
+            @RequestBody @Valid AssemblyProductsForOrderRequest request) {
+        return warehouseService.allocateProductsForOrder(request);
+    }
+
     @Override
     @PostMapping("/assembly/cancel")
     @ResponseStatus(HttpStatus.OK)
@@ -0,0 +1,11 @@
+package ru.practicum.exception;
+
+/**
+ * Исключение при потере остатка экземпляра: остаток был возвращен на склад как брошенный,
+ * поэтому бронирования из него записывать нельзя.
+ */
+public class AllotmentLostException extends RuntimeException {
+    public AllotmentLostException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Доступность и физические характеристики товара на складе.
+ *
+ * @param quantity суммарный остаток товара на всех складах, изменяется на месте изменениями этого экземпляра
+ * @param weight   вес единицы товара
+ * @param volume   объем единицы товара
+ * @param fragile  признак хрупкости
+ */
+public record ProductAvailability(AtomicLong quantity, double weight, double volume, boolean fragile) {
+
+    /**
+     * Изменяет остаток на {@code delta}, но не меньше нуля.
+     *
+     * @param delta изменение остатка
+     */
+    public void changeQuantity(long delta) {
+        quantity.accumulateAndGet(delta, (current, change) -> Math.max(0, current + change));
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.model;
+
+import ru.practicum.dto.warehouse.AddressDto;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сведения о складе, хранящиеся в памяти для выбора склада.
+ *
+ * @param warehouseId  ID склада
+ * @param name         название склада
+ * @param address      адрес склада
+ * @param productCount количество видов товаров на складе
+ */
+public record WarehouseInfo(UUID warehouseId, String name, AddressDto address, AtomicLong productCount) {
+}
@@ -83,6 +83,15 @@ public class WarehouseProduct {
     @Schema(description = "Вес товара в кг", example = "2.5", minimum = "0")
     private Double weight;
 
+    /**
+     * Версия записи для оптимистической блокировки.
+     * Увеличивается при каждом изменении записи, в том числе при условном списании остатка при бронировании.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    @Schema(description = "Версия записи", accessMode = Schema.AccessMode.READ_ONLY)
+    private Long version;
+
     /**
      * Дата поступления товара на склад.
      * Автоматически устанавливается при сохранении.
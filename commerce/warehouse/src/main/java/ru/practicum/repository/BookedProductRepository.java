@@ -23,6 +23,15 @@ public interface BookedProductRepository extends JpaRepository<BookedProduct, UU
      */
     List<BookedProduct> findAllByOrderId(UUID orderId);
 
+    /**
+     * Находит действующие бронирования заказа: отмена обнуляет количество, но оставляет записи.
+     *
+     * @param orderId  идентификатор заказа
+     * @param quantity количество, которое должно быть превышено
+     * @return список забронированных товаров с количеством больше указанного
+     */
+    List<BookedProduct> findAllByOrderIdAndQuantityGreaterThan(UUID orderId, Long quantity);
+
     /**
      * Обновляет количество забронированных товаров для заказа.
      * Выполняет массовое обновление в базе данных.
@@ -0,0 +1,75 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Отметки о бронировании заказов.
+ * <p>
+ * Проверка существующего бронирования и создание нового выполняются разными запросами, поэтому
+ * параллельные повторы одного заказа (повтор после таймаута, повторная доставка команды) могли бы
+ * забронировать товары дважды. Отметка вставляется первой в транзакции бронирования: вставка
+ * параллельной транзакции ждет ее завершения и после фиксации не вставляет строку.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderBookingRepository {
+    private static final String CLAIM_SQL = """
+            INSERT INTO order_bookings (order_id)
+            VALUES (:orderId)
+            ON CONFLICT (order_id) DO NOTHING
+            """;
+    private static final String CLAIM_ALL_SQL = """
+            INSERT INTO order_bookings (order_id)
+            SELECT DISTINCT id FROM unnest(ARRAY[:orderIds]) AS id
+            ON CONFLICT (order_id) DO NOTHING
+            RETURNING order_id
+            """;
+    private static final String RELEASE_SQL = """
+            DELETE FROM order_bookings
+            WHERE order_id = :orderId
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Отмечает заказ как бронируемый.
+     * Должен выполняться в транзакции бронирования, чтобы отметка откатывалась вместе с ним.
+     *
+     * @param orderId ID заказа
+     * @return {@code true}, если отметка создана; {@code false}, если заказ уже забронирован
+     */
+    public boolean claim(UUID orderId) {
+        return jdbcTemplate.update(CLAIM_SQL, Map.of("orderId", orderId)) == 1;
+    }
+
+    /**
+     * Отмечает заказы как бронируемые одним запросом.
+     * Должен выполняться в транзакции бронирования, чтобы отметки откатывались вместе с ним.
+     *
+     * @param orderIds ID заказов
+     * @return ID заказов, отметки которых созданы; остальные заказы уже забронированы
+     */
+    public Set<UUID> claimAll(Collection<UUID> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(CLAIM_ALL_SQL, Map.of("orderIds", orderIds), UUID.class));
+    }
+
+    /**
+     * Снимает отметку при отмене бронирования, после чего заказ можно забронировать заново.
+     *
+     * @param orderId ID заказа
+     */
+    public void release(UUID orderId) {
+        jdbcTemplate.update(RELEASE_SQL, Map.of("orderId", orderId));
+    }
+}
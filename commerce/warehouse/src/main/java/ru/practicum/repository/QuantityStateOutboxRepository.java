@@ -0,0 +1,126 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.practicum.dto.product.QuantityState;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Outbox состояний количества товаров для магазина.
+ * <p>
+ * Хранит по одной записи на товар с последним записанным состоянием. Запись помечается к отправке,
+ * только если состояние действительно изменилось, поэтому изменения остатка внутри одного диапазона
+ * не порождают запросов в магазин.
+ */
+@Repository
+@RequiredArgsConstructor
+public class QuantityStateOutboxRepository {
+    private static final String RECORD_SQL = """
+            INSERT INTO quantity_state_outbox (product_id, quantity_state, pending, updated_at)
+            VALUES (:productId, :quantityState, TRUE, CURRENT_TIMESTAMP)
+            ON CONFLICT (product_id) DO UPDATE
+                SET quantity_state = EXCLUDED.quantity_state, pending = TRUE, updated_at = CURRENT_TIMESTAMP
+                WHERE quantity_state_outbox.quantity_state <> EXCLUDED.quantity_state
+            """;
+    private static final String CLAIM_PENDING_SQL = """
+            UPDATE quantity_state_outbox
+            SET claimed_until = CURRENT_TIMESTAMP + make_interval(secs => :claimTimeout)
+            WHERE product_id IN (SELECT product_id
+                                 FROM quantity_state_outbox
+                                 WHERE pending AND (claimed_until IS NULL OR claimed_until < CURRENT_TIMESTAMP)
+                                 ORDER BY updated_at
+                                 LIMIT :limit
+                                 FOR UPDATE SKIP LOCKED)
+            RETURNING product_id, quantity_state
+            """;
+    private static final String MARK_SENT_SQL = """
+            UPDATE quantity_state_outbox
+            SET pending = pending AND quantity_state <> :quantityState, claimed_until = NULL
+            WHERE product_id = :productId
+            """;
+    private static final String RELEASE_SQL = """
+            UPDATE quantity_state_outbox SET claimed_until = NULL WHERE product_id IN (:productIds)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Записывает состояния товаров одним пакетом.
+     * Товары, состояние которых не изменилось, не помечаются к отправке.
+     * Должен выполняться в транзакции изменения остатков.
+     *
+     * @param states состояния (ID товара → состояние)
+     */
+    public void record(Map<UUID, QuantityState> states) {
+        if (states.isEmpty()) {
+            return;
+        }
+
+        SqlParameterSource[] batch = states.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("productId", entry.getKey())
+                        .addValue("quantityState", entry.getValue().name()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(RECORD_SQL, batch);
+    }
+
+    /**
+     * Забирает самые старые состояния, ожидающие отправки, на {@code claimTimeout}.
+     * Состояния, забранные другим экземпляром, пропускаются, пока срок не истек.
+     * Выполняется в собственной короткой транзакции, блокировки не удерживаются на время отправки.
+     *
+     * @param limit        максимальное количество записей
+     * @param claimTimeout срок, на который забираются состояния
+     * @return состояния для отправки
+     */
+    public List<PendingState> claimPending(int limit, Duration claimTimeout) {
+        return jdbcTemplate.query(CLAIM_PENDING_SQL,
+                Map.of("limit", limit, "claimTimeout", claimTimeout.toSeconds()),
+                (rs, rowNum) -> new PendingState(
+                        rs.getObject("product_id", UUID.class),
+                        QuantityState.valueOf(rs.getString("quantity_state"))));
+    }
+
+    /**
+     * Снимает пометку к отправке с отправленных состояний и освобождает их.
+     * Если состояние товара изменилось во время отправки, пометка остается и новое состояние
+     * будет отправлено следующим проходом.
+     *
+     * @param states отправленные состояния
+     */
+    public void markSent(List<PendingState> states) {
+        SqlParameterSource[] batch = states.stream()
+                .map(state -> new MapSqlParameterSource()
+                        .addValue("productId", state.productId())
+                        .addValue("quantityState", state.quantityState().name()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(MARK_SENT_SQL, batch);
+    }
+
+    /**
+     * Освобождает забранные состояния без снятия пометки к отправке.
+     *
+     * @param productIds ID товаров
+     */
+    public void release(Collection<UUID> productIds) {
+        jdbcTemplate.update(RELEASE_SQL, Map.of("productIds", productIds));
+    }
+
+    /**
+     * Состояние товара, ожидающее отправки.
+     *
+     * @param productId     ID товара
+     * @param quantityState состояние количества
+     */
+    public record PendingState(UUID productId, QuantityState quantityState) {
+    }
+}
@@ -0,0 +1,169 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.practicum.exception.AllotmentLostException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Остатки товаров, забранные экземплярами сервиса в память для журнала бронирований.
+ * <p>
+ * Забранное количество атомарно списывается с записи товара на складе и учитывается в {@code stock_allotments}
+ * за экземпляром-владельцем. Бронирования уменьшают остаток владельца, а не запись товара на складе,
+ * поэтому популярный товар не обновляется на каждое бронирование.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockAllotmentRepository {
+    private static final String TAKE_SQL = """
+            UPDATE warehouse_products wp
+            SET quantity = wp.quantity - t.taken, version = wp.version + 1, updated_at = CURRENT_TIMESTAMP
+            FROM (SELECT warehouse_product_id, LEAST(quantity, :amount) AS taken
+                  FROM warehouse_products
+                  WHERE warehouse_product_id = :id
+                  FOR UPDATE) t
+            WHERE wp.warehouse_product_id = t.warehouse_product_id
+            RETURNING t.taken AS taken, wp.quantity AS remaining
+            """;
+    private static final String ADD_SQL = """
+            INSERT INTO stock_allotments (owner_id, warehouse_product_id, quantity, heartbeat_at)
+            VALUES (:owner, :id, :amount, CURRENT_TIMESTAMP)
+            ON CONFLICT (owner_id, warehouse_product_id)
+                DO UPDATE SET quantity = stock_allotments.quantity + EXCLUDED.quantity, heartbeat_at = CURRENT_TIMESTAMP
+            """;
+    private static final String BOOK_SQL = """
+            INSERT INTO booked_products (order_id, warehouse_product_id, quantity)
+            VALUES (:orderId, :id, :quantity)
+            """;
+    private static final String CONSUME_SQL = """
+            UPDATE stock_allotments
+            SET quantity = quantity - :quantity
+            WHERE owner_id = :owner AND warehouse_product_id = :id AND quantity >= :quantity
+            """;
+    private static final String HEARTBEAT_SQL = """
+            UPDATE stock_allotments SET heartbeat_at = CURRENT_TIMESTAMP WHERE owner_id = :owner
+            """;
+    private static final String RELEASE_SQL = """
+            WITH released AS (
+                DELETE FROM stock_allotments WHERE %s RETURNING warehouse_product_id, quantity
+            )
+            UPDATE warehouse_products wp
+            SET quantity = wp.quantity + r.quantity, version = wp.version + 1, updated_at = CURRENT_TIMESTAMP
+            FROM (SELECT warehouse_product_id, SUM(quantity) AS quantity
+                  FROM released
+                  GROUP BY warehouse_product_id) r
+            WHERE wp.warehouse_product_id = r.warehouse_product_id
+            """;
+    private static final String OWNER_CONDITION = "owner_id = :owner";
+    private static final String STALE_CONDITION = "heartbeat_at < CURRENT_TIMESTAMP - make_interval(secs => :lease)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Забирает до {@code amount} единиц товара из записи склада в остаток владельца.
+     * Должен выполняться в транзакции.
+     *
+     * @param owner  ID экземпляра-владельца
+     * @param id     ID записи товара на складе
+     * @param amount желаемое количество
+     * @return забранное количество и оставшийся на складе остаток
+     */
+    public Taken take(UUID owner, UUID id, long amount) {
+        Map<String, Object> params = Map.of("owner", owner, "id", id, "amount", amount);
+        List<Taken> taken = jdbcTemplate.query(TAKE_SQL, params,
+                (rs, rowNum) -> new Taken(rs.getLong("taken"), rs.getLong("remaining")));
+        if (taken.isEmpty()) {
+            return new Taken(0, 0);
+        }
+
+        Taken result = taken.getFirst();
+        if (result.taken() > 0) {
+            jdbcTemplate.update(ADD_SQL, new MapSqlParameterSource(params).addValue("amount", result.taken()));
+        }
+        return result;
+    }
+
+    /**
+     * Записывает бронирования и списывает их с остатков владельца одним пакетом.
+     * Должен выполняться в транзакции.
+     * Если остатка владельца уже нет (он возвращен на склад как брошенный) или его не хватает,
+     * пакет не записывается, иначе товар был бы продан дважды.
+     *
+     * @param owner    ID экземпляра-владельца
+     * @param bookings бронирования
+     * @throws AllotmentLostException если остаток какой-либо записи товара потерян
+     */
+    public void book(UUID owner, List<Booking> bookings) {
+        SqlParameterSource[] batch = bookings.stream()
+                .map(booking -> new MapSqlParameterSource()
+                        .addValue("owner", owner)
+                        .addValue("orderId", booking.orderId())
+                        .addValue("id", booking.warehouseProductId())
+                        .addValue("quantity", booking.quantity()))
+                .toArray(SqlParameterSource[]::new);
+
+        int[] consumed = jdbcTemplate.batchUpdate(CONSUME_SQL, batch);
+        for (int i = 0; i < consumed.length; i++) {
+            if (consumed[i] == 0) {
+                throw new AllotmentLostException("Allotment of warehouse product "
+                                                 + bookings.get(i).warehouseProductId() + " is lost");
+            }
+        }
+        jdbcTemplate.batchUpdate(BOOK_SQL, batch);
+    }
+
+    /**
+     * Продлевает остатки владельца.
+     *
+     * @param owner ID экземпляра-владельца
+     * @return количество продленных остатков; 0, если у владельца нет остатков или они возвращены на склад
+     */
+    public int heartbeat(UUID owner) {
+        return jdbcTemplate.update(HEARTBEAT_SQL, Map.of("owner", owner));
+    }
+
+    /**
+     * Возвращает на склад остатки владельца одним запросом.
+     *
+     * @param owner ID экземпляра-владельца
+     */
+    public void release(UUID owner) {
+        jdbcTemplate.update(RELEASE_SQL.formatted(OWNER_CONDITION), Map.of("owner", owner));
+    }
+
+    /**
+     * Возвращает на склад одним запросом остатки экземпляров, которые не продлевали их дольше {@code lease}.
+     *
+     * @param lease время, после которого остаток считается брошенным
+     * @return количество записей товаров на складе, получивших остаток обратно
+     */
+    public int releaseStale(Duration lease) {
+        return jdbcTemplate.update(RELEASE_SQL.formatted(STALE_CONDITION), Map.of("lease", lease.toSeconds()));
+    }
+
+    /**
+     * Результат забора остатка.
+     *
+     * @param taken     забранное количество
+     * @param remaining остаток на складе после забора
+     */
+    public record Taken(long taken, long remaining) {
+    }
+
+    /**
+     * Бронирование товара для заказа.
+     *
+     * @param orderId            ID заказа
+     * @param warehouseProductId ID записи товара на складе
+     * @param quantity           количество
+     */
+    public record Booking(UUID orderId, UUID warehouseProductId, long quantity) {
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.ProductAvailability;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Чтение доступности товаров на складе.
+ * <p>
+ * Остатки и характеристики нескольких товаров читаются одним запросом вместе с размерами,
+ * без загрузки сущностей и отдельных запросов размеров для каждого товара.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockAvailabilityRepository {
+    private static final String AVAILABILITY_SQL = """
+            SELECT wp.product_id,
+                   SUM(wp.quantity)                  AS quantity,
+                   MAX(wp.weight)                    AS weight,
+                   MAX(d.width * d.height * d.depth) AS volume,
+                   BOOL_OR(wp.fragile)               AS fragile
+            FROM warehouse_products wp
+                     JOIN dimensions d ON d.dimensions_id = wp.dimensions_id
+            WHERE wp.product_id IN (:productIds)
+            GROUP BY wp.product_id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Находит доступность товаров.
+     * Товары, которых нет на складе, в результат не попадают.
+     *
+     * @param productIds ID товаров
+     * @return доступность (ID товара → доступность)
+     */
+    public Map<UUID, ProductAvailability> findByProductIds(Collection<? extends UUID> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<UUID, ProductAvailability> availability = new HashMap<>();
+        jdbcTemplate.query(AVAILABILITY_SQL, Map.of("productIds", Set.copyOf(productIds)),
+                rs -> {
+                    availability.put(rs.getObject("product_id", UUID.class), new ProductAvailability(
+                            new AtomicLong(rs.getLong("quantity")),
+                            rs.getDouble("weight"),
+                            rs.getDouble("volume"),
+                            rs.getBoolean("fragile")));
+                });
+        return availability;
+    }
+}
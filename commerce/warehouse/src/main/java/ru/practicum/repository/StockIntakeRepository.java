@@ -0,0 +1,175 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Пакетная приемка товаров на склад.
+ * <p>
+ * Регистрация новых товаров и добавление количества выполняются пакетами JDBC-запросов
+ * без загрузки сущностей. Все методы должны выполняться в транзакции пачки приемки.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockIntakeRepository {
+    private static final String EXISTING_SQL = """
+            SELECT warehouse_id, product_id
+            FROM warehouse_products
+            WHERE product_id IN (:productIds)
+            """;
+    private static final String LOCK_REGISTRATION_SQL = """
+            SELECT pg_advisory_xact_lock(k.key)
+            FROM (SELECT DISTINCT hashtextextended(CAST(id AS text), 0) AS key
+                  FROM unnest(ARRAY[:productIds]) AS id
+                  ORDER BY key) k
+            """;
+    private static final String INSERT_DIMENSION_SQL = """
+            INSERT INTO dimensions (dimensions_id, width, height, depth)
+            VALUES (:dimensionId, :width, :height, :depth)
+            """;
+    private static final String INSERT_PRODUCT_SQL = """
+            INSERT INTO warehouse_products (warehouse_product_id, warehouse_id, product_id, quantity, fragile,
+                                            dimensions_id, weight)
+            VALUES (:id, :warehouseId, :productId, 0, :fragile, :dimensionId, :weight)
+            """;
+    private static final String ADD_SQL = """
+            UPDATE warehouse_products
+            SET quantity = quantity + :quantity, version = version + 1, updated_at = CURRENT_TIMESTAMP
+            WHERE warehouse_product_id = (SELECT warehouse_product_id
+                                          FROM warehouse_products
+                                          WHERE product_id = :productId
+                                          ORDER BY warehouse_product_id
+                                          LIMIT 1)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Блокирует регистрацию товаров до конца транзакции.
+     * Проверка наличия товара и его регистрация выполняются в разных запросах, поэтому без блокировки
+     * две параллельные регистрации одного товара на разные склады обе проходили бы проверку.
+     * Блокировки берутся в порядке ключей, чтобы параллельные пачки не блокировали друг друга взаимно.
+     *
+     * @param productIds ID товаров
+     */
+    public void lockRegistration(Collection<UUID> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query(LOCK_REGISTRATION_SQL, Map.of("productIds", productIds), rs -> {
+        });
+    }
+
+    /**
+     * Находит уже зарегистрированные пары (склад, товар).
+     *
+     * @param productIds ID товаров
+     * @return зарегистрированные пары
+     */
+    public Set<Placement> findExisting(Collection<UUID> productIds) {
+        if (productIds.isEmpty()) {
+            return Set.of();
+        }
+
+        Set<Placement> existing = new HashSet<>();
+        jdbcTemplate.query(EXISTING_SQL, Map.of("productIds", productIds), rs -> {
+            existing.add(new Placement(rs.getObject("warehouse_id", UUID.class),
+                    rs.getObject("product_id", UUID.class)));
+        });
+        return existing;
+    }
+
+    /**
+     * Регистрирует новые товары с нулевым остатком двумя пакетами: размеры и записи товаров.
+     *
+     * @param products новые товары
+     */
+    public void register(List<NewProduct> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+
+        List<SqlParameterSource> batch = new ArrayList<>(products.size());
+        for (NewProduct product : products) {
+            batch.add(new MapSqlParameterSource()
+                    .addValue("id", UUID.randomUUID())
+                    .addValue("dimensionId", UUID.randomUUID())
+                    .addValue("warehouseId", product.placement().warehouseId())
+                    .addValue("productId", product.placement().productId())
+                    .addValue("fragile", product.fragile())
+                    .addValue("weight", product.weight())
+                    .addValue("width", product.width())
+                    .addValue("height", product.height())
+                    .addValue("depth", product.depth()));
+        }
+
+        SqlParameterSource[] params = batch.toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(INSERT_DIMENSION_SQL, params);
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT_SQL, params);
+    }
+
+    /**
+     * Добавляет количество товаров одним пакетом.
+     * Как и при добавлении одного товара, количество добавляется к одной записи товара на складе.
+     *
+     * @param quantities добавляемое количество (ID товара → количество)
+     * @return ID товаров, которых нет на складе
+     */
+    public Set<UUID> add(Map<UUID, Long> quantities) {
+        if (quantities.isEmpty()) {
+            return Set.of();
+        }
+
+        List<UUID> productIds = new ArrayList<>(quantities.keySet());
+        productIds.sort(null);
+        SqlParameterSource[] batch = productIds.stream()
+                .map(productId -> new MapSqlParameterSource()
+                        .addValue("productId", productId)
+                        .addValue("quantity", quantities.get(productId)))
+                .toArray(SqlParameterSource[]::new);
+
+        int[] updated = jdbcTemplate.batchUpdate(ADD_SQL, batch);
+
+        Set<UUID> notFound = new HashSet<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                notFound.add(productIds.get(i));
+            }
+        }
+        return notFound;
+    }
+
+    /**
+     * Товар на складе.
+     *
+     * @param warehouseId ID склада
+     * @param productId   ID товара
+     */
+    public record Placement(UUID warehouseId, UUID productId) {
+    }
+
+    /**
+     * Новый товар для регистрации.
+     *
+     * @param placement склад и товар
+     * @param fragile   признак хрупкости
+     * @param weight    вес
+     * @param width     ширина
+     * @param height    высота
+     * @param depth     глубина
+     */
+    public record NewProduct(Placement placement, boolean fragile, double weight,
+                             double width, double height, double depth) {
+    }
+}
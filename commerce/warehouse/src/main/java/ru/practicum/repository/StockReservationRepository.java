@@ -0,0 +1,97 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.UUID;
+
+/**
+ * Атомарное списание остатков товаров на складе.
+ * <p>
+ * Остаток уменьшается условным UPDATE в самой БД, а не через чтение и изменение сущности,
+ * поэтому параллельные бронирования одного товара не могут списать больше, чем есть на складе.
+ * Строка блокируется только на время UPDATE и до конца транзакции, чтение остатков не блокируется.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockReservationRepository {
+    private static final String RESERVE_SQL = """
+            UPDATE warehouse_products
+            SET quantity = quantity - :quantity, version = version + 1, updated_at = CURRENT_TIMESTAMP
+            WHERE warehouse_product_id = :id AND quantity >= :quantity
+            """;
+    private static final String PRODUCT_QUANTITIES_SQL = """
+            SELECT wp.product_id, SUM(wp.quantity + COALESCE(sa.quantity, 0)) AS quantity
+            FROM warehouse_products wp
+                     LEFT JOIN (SELECT warehouse_product_id, SUM(quantity) AS quantity
+                                FROM stock_allotments
+                                GROUP BY warehouse_product_id) sa
+                               ON sa.warehouse_product_id = wp.warehouse_product_id
+            WHERE wp.product_id IN (:productIds)
+            GROUP BY wp.product_id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Списывает остатки одним пакетом условных UPDATE.
+     * Строки обновляются в порядке идентификаторов, чтобы параллельные бронирования
+     * с пересекающимися товарами не блокировали друг друга взаимно.
+     * Должен выполняться в транзакции: при нехватке хотя бы одного товара вызывающий код
+     * откатывает транзакцию вместе с успешными списаниями.
+     *
+     * @param reservations записи товаров на складе (ID записи → списываемое количество)
+     * @return ID записей, остатка которых не хватило
+     */
+    public List<UUID> reserve(SortedMap<UUID, Long> reservations) {
+        if (reservations.isEmpty()) {
+            return List.of();
+        }
+
+        List<UUID> ids = new ArrayList<>(reservations.keySet());
+        SqlParameterSource[] batch = ids.stream()
+                .map(id -> new MapSqlParameterSource()
+                        .addValue("id", id)
+                        .addValue("quantity", reservations.get(id)))
+                .toArray(SqlParameterSource[]::new);
+
+        int[] updated = jdbcTemplate.batchUpdate(RESERVE_SQL, batch);
+
+        List<UUID> shortfall = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                shortfall.add(ids.get(i));
+            }
+        }
+        return shortfall;
+    }
+
+    /**
+     * Возвращает текущие остатки товаров, суммируя все записи товара на всех складах.
+     * Остаток, забранный экземплярами в журнал бронирований ({@code stock_allotments}), но еще
+     * не забронированный, входит в остаток: он остается доступным для заказов.
+     *
+     * @param productIds ID товаров
+     * @return остатки (ID товара → количество)
+     */
+    public Map<UUID, Long> findProductQuantities(Collection<UUID> productIds) {
+        Map<UUID, Long> quantities = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return quantities;
+        }
+
+        jdbcTemplate.query(PRODUCT_QUANTITIES_SQL, Map.of("productIds", productIds), rs -> {
+            quantities.put(rs.getObject("product_id", UUID.class), rs.getLong("quantity"));
+        });
+        return quantities;
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.service.allocation.StockRow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Чтение остатков товаров по складам для распределения заказов.
+ * Читает только записи с ненулевым остатком, одним запросом для нескольких товаров.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockRowRepository {
+    private static final String ROWS_SQL = """
+            SELECT wp.warehouse_product_id,
+                   wp.warehouse_id,
+                   wp.product_id,
+                   wp.quantity,
+                   wp.weight,
+                   d.width * d.height * d.depth AS volume,
+                   wp.fragile
+            FROM warehouse_products wp
+                     JOIN dimensions d ON d.dimensions_id = wp.dimensions_id
+            WHERE wp.product_id IN (:productIds)
+              AND wp.quantity > 0
+            ORDER BY wp.warehouse_id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Находит записи товаров с ненулевым остатком.
+     * Товары без остатка попадают в результат с пустым списком.
+     *
+     * @param productIds ID товаров
+     * @return записи по товарам (ID товара → записи)
+     */
+    public Map<UUID, List<StockRow>> findByProductIds(Collection<? extends UUID> productIds) {
+        Map<UUID, List<StockRow>> rows = new HashMap<>();
+        productIds.forEach(productId -> rows.put(productId, new ArrayList<>()));
+        if (productIds.isEmpty()) {
+            return rows;
+        }
+
+        jdbcTemplate.query(ROWS_SQL, Map.of("productIds", Set.copyOf(productIds)), rs -> {
+            UUID productId = rs.getObject("product_id", UUID.class);
+            rows.get(productId).add(new StockRow(
+                    rs.getObject("warehouse_product_id", UUID.class),
+                    rs.getObject("warehouse_id", UUID.class),
+                    productId,
+                    new AtomicLong(rs.getLong("quantity")),
+                    rs.getDouble("weight"),
+                    rs.getDouble("volume"),
+                    rs.getBoolean("fragile")));
+        });
+        return rows;
+    }
+}
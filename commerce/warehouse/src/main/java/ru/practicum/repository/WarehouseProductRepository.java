@@ -4,7 +4,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.model.WarehouseProduct;
 
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
@@ -22,11 +21,10 @@ public interface WarehouseProductRepository extends JpaRepository<WarehouseProdu
     List<WarehouseProduct> findAllByProductIdIn(Set<UUID> productIdList);
 
     /**
-     * Находит товар на складе по ID товара.
-     * При работе с несколькими складами может возвращать любой товар.
+     * Проверяет, зарегистрирован ли товар хотя бы на одном складе.
      *
      * @param productId ID товара
-     * @return товар на складе
+     * @return true если товар уже есть на каком-либо складе
      */
-    Optional<WarehouseProduct> findByProductId(UUID productId);
-}
\ No newline at end of file
+    boolean existsByProductId(UUID productId);
+}
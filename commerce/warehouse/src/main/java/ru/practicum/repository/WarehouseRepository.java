@@ -1,12 +1,47 @@
 package ru.practicum.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.model.Warehouse;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
  * Репозиторий для работы со складами.
  */
 public interface WarehouseRepository extends JpaRepository<Warehouse, UUID> {
-}
\ No newline at end of file
+
+    /**
+     * Находит все склады вместе с адресами одним запросом.
+     *
+     * @return склады
+     */
+    @Query("SELECT w FROM Warehouse w JOIN FETCH w.address ORDER BY w.warehouseId")
+    List<Warehouse> findAllWithAddress();
+
+    /**
+     * Считает количество видов товаров на каждом складе.
+     *
+     * @return количество видов товаров по складам
+     */
+    @Query("SELECT wp.warehouse.warehouseId AS warehouseId, COUNT(wp) AS productCount " +
+           "FROM WarehouseProduct wp GROUP BY wp.warehouse.warehouseId")
+    List<WarehouseProductCount> countProductsByWarehouse();
+
+    /**
+     * Количество видов товаров на складе.
+     */
+    interface WarehouseProductCount {
+
+        /**
+         * @return ID склада
+         */
+        UUID getWarehouseId();
+
+        /**
+         * @return количество видов товаров
+         */
+        long getProductCount();
+    }
+}
@@ -0,0 +1,388 @@
+package ru.practicum.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.config.HotSkuLedgerProperties;
+import ru.practicum.dto.warehouse.BookedProductsDto;
+import ru.practicum.dto.warehouse.WarehouseShipmentDto;
+import ru.practicum.exception.AllotmentLostException;
+import ru.practicum.exception.ProductInShoppingCartLowQuantityInWarehouse;
+import ru.practicum.exception.ServiceTemporaryUnavailableException;
+import ru.practicum.model.WarehouseProduct;
+import ru.practicum.repository.OrderBookingRepository;
+import ru.practicum.repository.StockAllotmentRepository;
+import ru.practicum.repository.StockAllotmentRepository.Booking;
+import ru.practicum.repository.StockAllotmentRepository.Taken;
+import ru.practicum.repository.StockReservationRepository;
+import ru.practicum.repository.WarehouseProductRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Журнал бронирований популярных товаров.
+ * <p>
+ * При распродаже тысячи заказов одного товара обновляют одну строку {@code warehouse_products}
+ * и выстраиваются в очередь за её блокировкой. Журнал убирает эту строку с пути бронирования:
+ * <ul>
+ *   <li>остаток товара забирается из БД в память порциями {@code allotment-size}
+ *   и учитывается в {@code stock_allotments} за этим экземпляром сервиса</li>
+ *   <li>бронирование списывается со счетчиков в памяти ({@link StripedStockCounter}) без обращения к БД</li>
+ *   <li>бронирования накапливаются и записываются в {@code booked_products} пакетами
+ *   раз в {@code flush-interval}, одна транзакция на пакет; запрос отвечает только после записи</li>
+ * </ul>
+ * В транзакции пакета создаются отметки заказов ({@link OrderBookingRepository}): заказ, уже забронированный
+ * другим экземпляром или обычным бронированием, не записывается повторно, а его количество возвращается
+ * в счетчики. Там же записываются состояния количества для магазина по записанным в БД остаткам.
+ * При остановке неизрасходованный остаток возвращается на склад. Остаток экземпляра, остановившегося
+ * аварийно, возвращается на склад при запуске любого экземпляра или во время работы остальных,
+ * когда экземпляр не продлевал его дольше {@code lease-timeout}.
+ * <p>
+ * Используется для заказа, только если все его товары входят в {@code product-ids}.
+ * Для каждого товара используется одна запись склада - с наибольшим остатком на момент запуска.
+ */
+@Service
+@ConditionalOnProperty(prefix = "warehouse.hot-sku-ledger", name = "enabled", havingValue = "true")
+@Slf4j
+public class HotSkuLedger {
+    private final UUID owner = UUID.randomUUID();
+    private final Map<UUID, Sku> skus = new ConcurrentHashMap<>();
+    private final BlockingQueue<PendingOrder> pending = new LinkedBlockingQueue<>();
+    private final Map<UUID, PendingOrder> unwritten = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "hot-sku-ledger"));
+    private final HotSkuLedgerProperties properties;
+    private final StockAllotmentRepository stockAllotmentRepository;
+    private final WarehouseProductRepository warehouseProductRepository;
+    private final OrderBookingRepository orderBookingRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final QuantityStateOutbox quantityStateOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private long lastHeartbeatMillis = System.currentTimeMillis();
+
+    public HotSkuLedger(HotSkuLedgerProperties properties,
+                        StockAllotmentRepository stockAllotmentRepository,
+                        WarehouseProductRepository warehouseProductRepository,
+                        OrderBookingRepository orderBookingRepository,
+                        StockReservationRepository stockReservationRepository,
+                        QuantityStateOutbox quantityStateOutbox,
+                        TransactionTemplate transactionTemplate) {
+        this.properties = properties;
+        this.stockAllotmentRepository = stockAllotmentRepository;
+        this.warehouseProductRepository = warehouseProductRepository;
+        this.orderBookingRepository = orderBookingRepository;
+        this.stockReservationRepository = stockReservationRepository;
+        this.quantityStateOutbox = quantityStateOutbox;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Возвращает на склад брошенные остатки, загружает характеристики товаров и запускает запись бронирований.
+     */
+    @PostConstruct
+    public void start() {
+        int released = stockAllotmentRepository.releaseStale(properties.getLeaseTimeout());
+        if (released > 0) {
+            log.info("Returned stale allotments of {} warehouse products", released);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> warehouseProductRepository
+                .findAllByProductIdIn(properties.getProductIds()).stream()
+                .collect(Collectors.groupingBy(WarehouseProduct::getProductId,
+                        Collectors.maxBy(Comparator.comparing(WarehouseProduct::getQuantity))))
+                .forEach((productId, product) -> product.ifPresent(row -> skus.put(productId, new Sku(
+                        row.getId(),
+                        row.getWarehouse().getWarehouseId(),
+                        row.getWeight(),
+                        row.getDimensions().getVolume(),
+                        row.getFragile(),
+                        new StripedStockCounter(properties.getStripes()))))));
+        log.info("Hot SKU ledger {} started for products {}", owner, skus.keySet());
+
+        long interval = properties.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Записывает накопленные бронирования и возвращает неизрасходованный остаток на склад.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flusher.shutdown();
+        if (!flusher.awaitTermination(properties.getLeaseTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Hot SKU ledger flusher did not stop in time");
+        }
+        flush();
+        stockAllotmentRepository.release(owner);
+        log.info("Hot SKU ledger {} stopped, allotments returned", owner);
+    }
+
+    /**
+     * Проверяет, бронируется ли заказ журналом.
+     *
+     * @param products товары заказа (ID → количество)
+     * @return {@code true}, если все товары заказа входят в журнал
+     */
+    public boolean handles(Map<UUID, Long> products) {
+        return products != null && !products.isEmpty() && skus.keySet().containsAll(products.keySet());
+    }
+
+    /**
+     * Бронирует товары заказа.
+     * Списывает количество со счетчиков в памяти, ставит бронирование в очередь записи и дожидается записи.
+     * Повторный запрос по заказу, бронирование которого еще не записано, дожидается записи этого бронирования.
+     *
+     * @param orderId  ID заказа
+     * @param products товары заказа (ID → количество)
+     * @return отгрузки со складов, из записей которых забронированы товары, или пустой результат,
+     * если заказ уже был забронирован раньше
+     * @throws ProductInShoppingCartLowQuantityInWarehouse если товаров недостаточно
+     * @throws ServiceTemporaryUnavailableException        если бронирование не удалось записать
+     */
+    public Optional<List<WarehouseShipmentDto>> reserve(UUID orderId, Map<UUID, Long> products) {
+        PendingOrder unwrittenOrder = unwritten.get(orderId);
+        if (unwrittenOrder != null) {
+            return await(unwrittenOrder);
+        }
+
+        Map<UUID, Long> granted = new HashMap<>();
+        List<UUID> shortfall = new ArrayList<>();
+
+        products.forEach((productId, quantity) -> {
+            if (acquire(skus.get(productId), quantity)) {
+                granted.put(productId, quantity);
+            } else {
+                shortfall.add(productId);
+            }
+        });
+
+        if (!shortfall.isEmpty()) {
+            release(granted);
+            throw new ProductInShoppingCartLowQuantityInWarehouse("Out of stock products ids: { " + shortfall + " }");
+        }
+
+        PendingOrder order = new PendingOrder(orderId, granted, new CompletableFuture<>());
+        PendingOrder concurrent = unwritten.putIfAbsent(orderId, order);
+        if (concurrent != null) {
+            // параллельный повтор того же заказа успел поставить бронирование в очередь
+            release(granted);
+            return await(concurrent);
+        }
+        pending.add(order);
+        return await(order);
+    }
+
+    /**
+     * Дожидается записи бронирования.
+     *
+     * @return отгрузки бронирования или пустой результат, если заказ уже был забронирован раньше
+     */
+    private Optional<List<WarehouseShipmentDto>> await(PendingOrder order) {
+        try {
+            return order.written().join() ? Optional.of(shipments(order.products())) : Optional.empty();
+        } catch (CompletionException e) {
+            throw new ServiceTemporaryUnavailableException("Failed to write booking of order " + order.orderId());
+        }
+    }
+
+    /**
+     * Списывает количество со счетчиков, при нехватке забирает очередную порцию остатка из БД.
+     */
+    private boolean acquire(Sku sku, long quantity) {
+        if (sku.counter().tryAcquire(quantity)) {
+            return true;
+        }
+
+        synchronized (sku) {
+            if (sku.counter().tryAcquire(quantity)) {
+                return true;
+            }
+
+            long amount = Math.max(properties.getAllotmentSize(), quantity);
+            Taken taken = transactionTemplate.execute(
+                    status -> stockAllotmentRepository.take(owner, sku.warehouseProductId(), amount));
+            sku.counter().release(taken.taken());
+            log.debug("Took {} units of warehouse product {}, {} left in warehouse",
+                    taken.taken(), sku.warehouseProductId(), taken.remaining());
+
+            return sku.counter().tryAcquire(quantity);
+        }
+    }
+
+    /**
+     * Записывает накопленные бронирования пакетами и продлевает остатки экземпляра.
+     * Заказы не делятся между пакетами, поэтому бронирование заказа записывается целиком или не записывается.
+     */
+    private void flush() {
+        try {
+            List<PendingOrder> batch = new ArrayList<>();
+            while (pending.drainTo(batch, properties.getFlushBatchSize()) > 0) {
+                write(batch);
+                batch.clear();
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - lastHeartbeatMillis >= properties.getLeaseTimeout().toMillis() / 3) {
+                if (stockAllotmentRepository.heartbeat(owner) == 0) {
+                    drainCounters();
+                }
+                stockAllotmentRepository.releaseStale(properties.getLeaseTimeout());
+                lastHeartbeatMillis = now;
+            }
+        } catch (RuntimeException e) {
+            log.error("Hot SKU ledger flush failed", e);
+        }
+    }
+
+    /**
+     * Записывает пакет бронирований в одной транзакции вместе с отметками заказов и состояниями количества.
+     * Заказы, уже забронированные раньше, не записываются: их количество возвращается в счетчики.
+     * При ошибке количество возвращается в счетчики, а ожидающие запросы получают ошибку.
+     */
+    private void write(List<PendingOrder> batch) {
+        try {
+            Set<UUID> written = transactionTemplate.execute(status -> {
+                Set<UUID> claimed = orderBookingRepository.claimAll(batch.stream().map(PendingOrder::orderId).toList());
+                List<Booking> bookings = new ArrayList<>();
+                Set<UUID> productIds = new HashSet<>();
+                batch.stream()
+                        .filter(order -> claimed.contains(order.orderId()))
+                        .forEach(order -> order.products().forEach((productId, quantity) -> {
+                            bookings.add(new Booking(order.orderId(), skus.get(productId).warehouseProductId(),
+                                    quantity));
+                            productIds.add(productId);
+                        }));
+                stockAllotmentRepository.book(owner, bookings);
+                quantityStateOutbox.record(stockReservationRepository.findProductQuantities(productIds));
+                return claimed;
+            });
+            batch.forEach(order -> {
+                unwritten.remove(order.orderId());
+                boolean booked = written.contains(order.orderId());
+                if (!booked) {
+                    log.info("Order {} is already booked, returning its units to memory", order.orderId());
+                    release(order.products());
+                }
+                order.written().complete(booked);
+            });
+            log.debug("Wrote bookings of {} of {} orders", written.size(), batch.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to write bookings of {} orders", batch.size(), e);
+            boolean lost = e instanceof AllotmentLostException;
+            try {
+                if (lost) {
+                    // остатки экземпляра теряются вместе, оставшиеся возвращаем на склад и начинаем заново;
+                    // счетчики обнуляются до ответа ожидающим, чтобы их повторы не списали потерянный остаток
+                    drainCounters();
+                    stockAllotmentRepository.release(owner);
+                }
+            } finally {
+                batch.forEach(order -> {
+                    unwritten.remove(order.orderId());
+                    if (!lost) {
+                        release(order.products());
+                    }
+                    order.written().completeExceptionally(e);
+                });
+            }
+        }
+    }
+
+    /**
+     * Возвращает списанное количество в счетчики.
+     *
+     * @param products товары (ID → количество)
+     */
+    private void release(Map<UUID, Long> products) {
+        products.forEach((productId, quantity) -> skus.get(productId).counter().release(quantity));
+    }
+
+    /**
+     * Обнуляет счетчики в памяти после потери остатков экземпляра.
+     * Остатки уже возвращены на склад другим экземпляром, поэтому бронировать из счетчиков больше нельзя:
+     * следующие бронирования заберут новую порцию остатка из БД.
+     */
+    private void drainCounters() {
+        skus.forEach((productId, sku) -> {
+            synchronized (sku) {
+                long drained = sku.counter().drain();
+                if (drained > 0) {
+                    log.warn("Allotment of product {} is lost, dropped {} units from memory", productId, drained);
+                }
+            }
+        });
+    }
+
+    private List<WarehouseShipmentDto> shipments(Map<UUID, Long> products) {
+        Map<UUID, Map<UUID, Long>> byWarehouse = new LinkedHashMap<>();
+        products.forEach((productId, quantity) -> byWarehouse
+                .computeIfAbsent(skus.get(productId).warehouseId(), id -> new LinkedHashMap<>())
+                .put(productId, quantity));
+
+        List<WarehouseShipmentDto> shipments = new ArrayList<>();
+        byWarehouse.forEach((warehouseId, warehouseProducts) -> {
+            double weight = 0;
+            double volume = 0;
+            boolean fragile = false;
+            for (Map.Entry<UUID, Long> entry : warehouseProducts.entrySet()) {
+                Sku sku = skus.get(entry.getKey());
+                weight += sku.weight() * entry.getValue();
+                volume += sku.volume() * entry.getValue();
+                fragile |= sku.fragile();
+            }
+
+            shipments.add(new WarehouseShipmentDto(warehouseId, warehouseProducts, BookedProductsDto.builder()
+                    .deliveryWeight(weight)
+                    .deliveryVolume(volume)
+                    .fragile(fragile)
+                    .build()));
+        });
+        return shipments;
+    }
+
+    /**
+     * Товар журнала.
+     *
+     * @param warehouseProductId ID записи товара на складе, из которой забирается остаток
+     * @param warehouseId        ID склада записи
+     * @param weight             вес единицы товара
+     * @param volume             объем единицы товара
+     * @param fragile            признак хрупкости
+     * @param counter            остаток в памяти
+     */
+    private record Sku(UUID warehouseProductId, UUID warehouseId, double weight, double volume, boolean fragile,
+                       StripedStockCounter counter) {
+    }
+
+    /**
+     * Бронирование заказа, ожидающее записи.
+     *
+     * @param orderId  ID заказа
+     * @param products товары заказа (ID → количество)
+     * @param written  завершается после записи: {@code true}, если бронирование записано,
+     *                 {@code false}, если заказ уже был забронирован раньше
+     */
+    private record PendingOrder(UUID orderId, Map<UUID, Long> products, CompletableFuture<Boolean> written) {
+    }
+}
@@ -0,0 +1,121 @@
+package ru.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.client.ShoppingStoreFeignClient;
+import ru.practicum.config.QuantityStateOutboxProperties;
+import ru.practicum.dto.product.QuantityState;
+import ru.practicum.dto.product.SetProductQuantityStateRequest;
+import ru.practicum.exception.BadRequestException;
+import ru.practicum.repository.QuantityStateOutboxRepository;
+import ru.practicum.repository.QuantityStateOutboxRepository.PendingState;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Передача состояний количества товаров в магазин через outbox.
+ * <p>
+ * Изменения остатков записывают новое состояние в outbox в своей транзакции, только если состояние
+ * перешло в другой диапазон (ENDED/FEW/ENOUGH/MANY). Отдельный проход периодически отправляет
+ * накопленные состояния в магазин одним запросом на пачку:
+ * <ol>
+ *   <li>пачка забирается короткой транзакцией на {@code claim-timeout}</li>
+ *   <li>состояния отправляются в магазин вне транзакции, строки outbox не блокируются</li>
+ *   <li>пометка к отправке снимается, только если состояние не изменилось за время отправки</li>
+ * </ol>
+ * Если магазин недоступен, пачка освобождается и будет отправлена в следующий проход.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QuantityStateOutbox {
+    private final QuantityStateOutboxRepository quantityStateOutboxRepository;
+    private final QuantityStateOutboxProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ShoppingStoreFeignClient shoppingStoreClient;
+
+    /**
+     * Записывает состояния количества товаров по их остаткам.
+     * Должен выполняться в транзакции изменения остатков.
+     *
+     * @param quantities остатки (ID товара → количество)
+     */
+    public void record(Map<UUID, Long> quantities) {
+        Map<UUID, QuantityState> states = new HashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            if (productId != null && quantity != null) {
+                states.put(productId, determineQuantityState(quantity));
+            }
+        });
+        quantityStateOutboxRepository.record(states);
+    }
+
+    /**
+     * Отправляет накопленные состояния пачками, пока они не закончатся.
+     */
+    @Scheduled(fixedDelayString = "${warehouse.quantity-state.relay-interval-ms:500}")
+    public void relay() {
+        try {
+            int sent;
+            do {
+                sent = relayBatch();
+            } while (sent == properties.getRelayBatchSize());
+        } catch (RuntimeException e) {
+            log.warn("Failed to relay quantity states, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Отправляет одну пачку состояний и снимает с них пометку к отправке.
+     * Пачку, отклоненную магазином как некорректную, повторно не отправляет.
+     *
+     * @return количество отправленных состояний
+     */
+    private int relayBatch() {
+        List<PendingState> states = quantityStateOutboxRepository.claimPending(
+                properties.getRelayBatchSize(), properties.getClaimTimeout());
+        if (states.isEmpty()) {
+            return 0;
+        }
+
+        List<SetProductQuantityStateRequest> requests = states.stream()
+                .map(state -> new SetProductQuantityStateRequest(state.productId(), state.quantityState()))
+                .toList();
+        try {
+            shoppingStoreClient.setQuantityStates(requests);
+        } catch (BadRequestException e) {
+            log.error("Shopping store rejected {} quantity states, dropping them", states.size(), e);
+        } catch (RuntimeException e) {
+            quantityStateOutboxRepository.release(states.stream().map(PendingState::productId).toList());
+            throw e;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> quantityStateOutboxRepository.markSent(states));
+        log.debug("Relayed {} quantity states", states.size());
+        return states.size();
+    }
+
+    /**
+     * Определяет состояние количества на основе доступного количества.
+     *
+     * @param quantity доступное количество товара
+     * @return состояние количества
+     */
+    private QuantityState determineQuantityState(Long quantity) {
+        if (quantity == 0) {
+            return QuantityState.ENDED;
+        } else if (quantity < 10) {
+            return QuantityState.FEW;
+        } else if (quantity < 100) {
+            return QuantityState.ENOUGH;
+        } else {
+            return QuantityState.MANY;
+        }
+    }
+}
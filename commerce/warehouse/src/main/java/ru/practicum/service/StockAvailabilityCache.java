@@ -0,0 +1,72 @@
+package ru.practicum.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import ru.practicum.config.AvailabilityCacheProperties;
+import ru.practicum.model.ProductAvailability;
+import ru.practicum.repository.StockAvailabilityRepository;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Кэш доступности и физических характеристик товаров для проверки корзин.
+ * <p>
+ * Отсутствующие в кэше товары загружаются одним запросом на всю корзину. Изменения остатков этим
+ * экземпляром применяются к кэшу после фиксации транзакции, поэтому проверка корзины обычно
+ * выполняется без обращения к БД. Изменения других экземпляров видны после истечения {@code ttl}.
+ * Остаток изменяется на месте в загруженной записи, а не заменой записи: замена считалась бы записью
+ * в кэш и продлевала бы {@code ttl}, и часто изменяемый товар не перечитывался бы из БД.
+ */
+@Component
+public class StockAvailabilityCache {
+    private final StockAvailabilityRepository stockAvailabilityRepository;
+    private final Cache<UUID, ProductAvailability> cache;
+
+    public StockAvailabilityCache(StockAvailabilityRepository stockAvailabilityRepository,
+                                  AvailabilityCacheProperties properties) {
+        this.stockAvailabilityRepository = stockAvailabilityRepository;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getTtl())
+                .maximumSize(properties.getMaximumSize())
+                .build();
+    }
+
+    /**
+     * Возвращает доступность товаров, загружая отсутствующие в кэше одним запросом.
+     * Товары, которых нет на складе, в результат не попадают.
+     *
+     * @param productIds ID товаров
+     * @return доступность (ID товара → доступность)
+     */
+    public Map<UUID, ProductAvailability> getAll(Set<UUID> productIds) {
+        return cache.getAll(productIds, stockAvailabilityRepository::findByProductIds);
+    }
+
+    /**
+     * Изменяет остатки товаров в кэше после фиксации текущей транзакции.
+     * Вне транзакции изменяет сразу.
+     *
+     * @param deltas изменения остатков (ID товара → изменение)
+     */
+    public void changeQuantities(Map<UUID, Long> deltas) {
+        AfterCommit.run(() -> deltas.forEach((productId, delta) -> {
+            ProductAvailability availability = cache.getIfPresent(productId);
+            if (availability != null) {
+                availability.changeQuantity(delta);
+            }
+        }));
+    }
+
+    /**
+     * Удаляет товар из кэша после фиксации текущей транзакции.
+     * Вне транзакции удаляет сразу.
+     *
+     * @param productId ID товара
+     */
+    public void invalidate(UUID productId) {
+        AfterCommit.run(() -> cache.invalidate(productId));
+    }
+}
@@ -0,0 +1,269 @@
+package ru.practicum.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.config.StockIntakeProperties;
+import ru.practicum.dto.warehouse.*;
+import ru.practicum.repository.StockIntakeRepository;
+import ru.practicum.repository.StockIntakeRepository.NewProduct;
+import ru.practicum.repository.StockIntakeRepository.Placement;
+import ru.practicum.repository.StockReservationRepository;
+import ru.practicum.service.allocation.StockAllocationIndex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетная приемка товаров на склад.
+ * <p>
+ * Строки читаются из потока (JSON-массив или NDJSON) и применяются пачками по {@code chunk-size},
+ * каждая пачка в своей транзакции:
+ * <ul>
+ *   <li>новые товары регистрируются пакетом вставок, дубликаты определяются одним запросом на пачку</li>
+ *   <li>количество одного товара из всех строк пачки суммируется и добавляется одним пакетом UPDATE</li>
+ *   <li>изменения состояния количества записываются в outbox один раз на товар в пачке</li>
+ * </ul>
+ * Новые товары пачки регистрируются раньше добавления количества, поэтому товар можно зарегистрировать
+ * и принять в одной пачке. Ошибка пачки отменяет только ее строки, остальные пачки применяются.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockIntakeService {
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final StockIntakeRepository stockIntakeRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final StockIntakeProperties properties;
+    private final WarehouseDirectory warehouseDirectory;
+    private final QuantityStateOutbox quantityStateOutbox;
+    private final StockAvailabilityCache stockAvailabilityCache;
+    private final StockAllocationIndex stockAllocationIndex;
+
+    /**
+     * Читает строки приемки из потока и применяет их пачками.
+     *
+     * @param input поток с JSON-массивом или NDJSON строк {@link StockIntakeLine}
+     * @return отчет с результатами по строкам; если поток содержит некорректный JSON,
+     * чтение останавливается, а последней строкой отчета указывается место ошибки
+     */
+    public StockIntakeReport intake(InputStream input) {
+        List<StockIntakeLineResult> results = new ArrayList<>();
+        List<ParsedLine> chunk = new ArrayList<>(properties.getChunkSize());
+        long lineNumber = 0;
+
+        // читатель сам создает парсер из потока, поэтому разворачивает корневой JSON-массив в элементы,
+        // а NDJSON читает как последовательность значений
+        try (MappingIterator<JsonNode> nodes = objectMapper.readerFor(JsonNode.class).readValues(input)) {
+            while (nodes.hasNextValue()) {
+                JsonNode node = nodes.nextValue();
+                chunk.add(new ParsedLine(++lineNumber, node));
+                if (chunk.size() == properties.getChunkSize()) {
+                    results.addAll(apply(chunk));
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            // дальше поток прочитать нельзя: применяем прочитанное и отмечаем место ошибки
+            results.addAll(apply(chunk));
+            chunk.clear();
+            results.add(invalid(lineNumber + 1, "Malformed JSON, reading stopped: " + e.getMessage()));
+        }
+        results.addAll(apply(chunk));
+
+        long succeeded = results.stream().filter(result -> result.status().isSuccess()).count();
+        log.info("Stock intake processed {} lines, {} succeeded", results.size(), succeeded);
+        return new StockIntakeReport(results.size(), succeeded, results.size() - succeeded, results);
+    }
+
+    /**
+     * Проверяет строки пачки и применяет корректные в одной транзакции.
+     *
+     * @param chunk строки пачки
+     * @return результаты в порядке строк
+     */
+    private List<StockIntakeLineResult> apply(List<ParsedLine> chunk) {
+        if (chunk.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, StockIntakeLineResult> results = new TreeMap<>();
+        List<ValidLine<StockIntakeLine>> newProducts = new ArrayList<>();
+        List<ValidLine<AddProductToWarehouseRequest>> additions = new ArrayList<>();
+
+        for (ParsedLine parsed : chunk) {
+            try {
+                StockIntakeLine line = objectMapper.treeToValue(parsed.node(), StockIntakeLine.class);
+                String violation = validate(line);
+                if (violation != null) {
+                    results.put(parsed.line(), invalid(parsed.line(), violation));
+                } else if (line.newProduct() != null) {
+                    newProducts.add(new ValidLine<>(parsed.line(), line));
+                } else {
+                    additions.add(new ValidLine<>(parsed.line(), line.add()));
+                }
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                results.put(parsed.line(), invalid(parsed.line(), e.getMessage()));
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                register(newProducts, results);
+                add(additions, results);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Stock intake chunk of lines {}-{} failed", chunk.getFirst().line(), chunk.getLast().line(), e);
+            String message = e.getMessage();
+            newProducts.forEach(line -> results.put(line.line(),
+                    new StockIntakeLineResult(line.line(), StockIntakeStatus.FAILED, message)));
+            additions.forEach(line -> results.put(line.line(),
+                    new StockIntakeLineResult(line.line(), StockIntakeStatus.FAILED, message)));
+        }
+
+        return new ArrayList<>(results.values());
+    }
+
+    /**
+     * Регистрирует новые товары пачки.
+     * Строка без склада регистрирует товар, только если его нет ни на одном складе, как и
+     * {@link WarehouseService#addNewItem}; строка с явным складом отклоняется, только если товар
+     * уже есть на этом складе.
+     */
+    private void register(List<ValidLine<StockIntakeLine>> lines, Map<Long, StockIntakeLineResult> results) {
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        Set<UUID> productIds = lines.stream()
+                .map(line -> UUID.fromString(line.request().newProduct().productId()))
+                .collect(Collectors.toSet());
+        stockIntakeRepository.lockRegistration(productIds);
+        Set<Placement> existing = stockIntakeRepository.findExisting(productIds);
+        Set<UUID> existingProducts = existing.stream().map(Placement::productId).collect(Collectors.toSet());
+
+        List<NewProduct> products = new ArrayList<>();
+        Set<Placement> registered = new HashSet<>();
+        Set<UUID> registeredProducts = new HashSet<>();
+        for (ValidLine<StockIntakeLine> line : lines) {
+            NewProductInWarehouseRequest request = line.request().newProduct();
+            UUID productId = UUID.fromString(request.productId());
+            UUID warehouseId = line.request().warehouseId();
+
+            boolean duplicate = warehouseId == null
+                    ? existingProducts.contains(productId) || registeredProducts.contains(productId)
+                    : existing.contains(new Placement(warehouseId, productId))
+                      || registered.contains(new Placement(warehouseId, productId));
+            if (duplicate) {
+                results.put(line.line(), new StockIntakeLineResult(line.line(), StockIntakeStatus.ALREADY_EXISTS,
+                        "Product already specified in warehouse, id = " + productId));
+                continue;
+            }
+
+            Placement placement = new Placement(
+                    warehouseId == null ? warehouseDirectory.select(null).warehouseId() : warehouseId, productId);
+            registered.add(placement);
+            registeredProducts.add(productId);
+            products.add(new NewProduct(placement, Boolean.TRUE.equals(request.fragile()), request.weight(),
+                    request.dimension().width(), request.dimension().height(), request.dimension().depth()));
+            results.put(line.line(), new StockIntakeLineResult(line.line(), StockIntakeStatus.REGISTERED, null));
+        }
+
+        stockIntakeRepository.register(products);
+        AfterCommit.run(() -> {
+            products.forEach(product -> {
+                warehouseDirectory.productAdded(product.placement().warehouseId());
+                stockAvailabilityCache.invalidate(product.placement().productId());
+            });
+            stockAllocationIndex.invalidate(registeredProducts);
+        });
+    }
+
+    /**
+     * Добавляет количество товаров пачки, суммируя строки одного товара.
+     */
+    private void add(List<ValidLine<AddProductToWarehouseRequest>> lines,
+                     Map<Long, StockIntakeLineResult> results) {
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, Long> quantities = lines.stream()
+                .collect(Collectors.toMap(line -> line.request().productId(), line -> line.request().quantity(),
+                        Long::sum));
+
+        Set<UUID> notFound = stockIntakeRepository.add(quantities);
+        for (ValidLine<AddProductToWarehouseRequest> line : lines) {
+            UUID productId = line.request().productId();
+            results.put(line.line(), notFound.contains(productId)
+                    ? new StockIntakeLineResult(line.line(), StockIntakeStatus.NOT_FOUND,
+                    String.format("Product which id = %s not found", productId))
+                    : new StockIntakeLineResult(line.line(), StockIntakeStatus.ADDED, null));
+        }
+
+        quantities.keySet().removeAll(notFound);
+        quantityStateOutbox.record(stockReservationRepository.findProductQuantities(quantities.keySet()));
+        stockAvailabilityCache.changeQuantities(quantities);
+        stockAllocationIndex.invalidate(quantities.keySet());
+    }
+
+    /**
+     * Проверяет строку.
+     *
+     * @return описание нарушений или null, если строка корректна
+     */
+    private String validate(StockIntakeLine line) {
+        if (line == null || (line.newProduct() == null) == (line.add() == null)) {
+            return "Exactly one of newProduct or add must be specified";
+        }
+        if (line.warehouseId() != null && line.newProduct() == null) {
+            return "warehouseId may be specified only with newProduct";
+        }
+        if (line.warehouseId() != null && !warehouseDirectory.contains(line.warehouseId())) {
+            return "Unknown warehouse, id = " + line.warehouseId();
+        }
+
+        Set<ConstraintViolation<StockIntakeLine>> violations = validator.validate(line);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static StockIntakeLineResult invalid(long line, String message) {
+        return new StockIntakeLineResult(line, StockIntakeStatus.INVALID, message);
+    }
+
+    /**
+     * Прочитанная строка приемки.
+     *
+     * @param line номер строки
+     * @param node содержимое строки
+     */
+    private record ParsedLine(long line, JsonNode node) {
+    }
+
+    /**
+     * Строка приемки, прошедшая проверку.
+     *
+     * @param line    номер строки
+     * @param request запрос строки
+     * @param <T>     тип запроса
+     */
+    private record ValidLine<T>(long line, T request) {
+    }
+}
@@ -0,0 +1,102 @@
+package ru.practicum.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Остаток одного товара в памяти, разделенный на несколько счетчиков.
+ * <p>
+ * Бронирование начинает со случайного счетчика и списывает количество целиком из первого счетчика,
+ * где его хватает, поэтому параллельные бронирования обычно изменяют разные счетчики.
+ * Если остаток раздроблен и ни в одном счетчике не хватает количества, счетчики собираются в один
+ * под блокировкой.
+ */
+class StripedStockCounter {
+    private final AtomicLongArray stripes;
+
+    StripedStockCounter(int stripes) {
+        this.stripes = new AtomicLongArray(Math.max(1, stripes));
+    }
+
+    /**
+     * Списывает количество, если его хватает.
+     *
+     * @param quantity количество
+     * @return {@code true}, если количество списано
+     */
+    boolean tryAcquire(long quantity) {
+        int length = stripes.length();
+        int start = ThreadLocalRandom.current().nextInt(length);
+        for (int i = 0; i < length; i++) {
+            if (tryAcquire((start + i) % length, quantity)) {
+                return true;
+            }
+        }
+
+        synchronized (this) {
+            return tryAcquire(gather(), quantity);
+        }
+    }
+
+    /**
+     * Возвращает количество в остаток, распределяя его по счетчикам.
+     *
+     * @param quantity количество
+     */
+    void release(long quantity) {
+        int length = stripes.length();
+        long share = quantity / length;
+        for (int i = 0; i < length; i++) {
+            stripes.addAndGet(i, i == 0 ? share + quantity % length : share);
+        }
+    }
+
+    /**
+     * Суммарный остаток всех счетчиков.
+     *
+     * @return остаток
+     */
+    long available() {
+        long sum = 0;
+        for (int i = 0; i < stripes.length(); i++) {
+            sum += stripes.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Обнуляет все счетчики.
+     *
+     * @return остаток до обнуления
+     */
+    long drain() {
+        long drained = 0;
+        for (int i = 0; i < stripes.length(); i++) {
+            drained += stripes.getAndSet(i, 0);
+        }
+        return drained;
+    }
+
+    private boolean tryAcquire(int stripe, long quantity) {
+        long current = stripes.get(stripe);
+        while (current >= quantity) {
+            if (stripes.compareAndSet(stripe, current, current - quantity)) {
+                return true;
+            }
+            current = stripes.get(stripe);
+        }
+        return false;
+    }
+
+    /**
+     * Переносит остаток всех счетчиков в нулевой.
+     *
+     * @return номер счетчика с собранным остатком
+     */
+    private int gather() {
+        for (int i = 1; i < stripes.length(); i++) {
+            stripes.addAndGet(0, stripes.getAndSet(i, 0));
+        }
+        return 0;
+    }
+}
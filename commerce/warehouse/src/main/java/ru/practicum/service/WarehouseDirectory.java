@@ -0,0 +1,142 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.config.WarehouseSelectionProperties;
+import ru.practicum.dto.warehouse.AddressDto;
+import ru.practicum.mapper.AddressMapper;
+import ru.practicum.model.WarehouseInfo;
+import ru.practicum.repository.WarehouseRepository;
+import ru.practicum.repository.WarehouseRepository.WarehouseProductCount;
+import ru.practicum.service.selection.WarehouseSelectionStrategy;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Справочник складов в памяти и выбор склада по настроенной политике.
+ * <p>
+ * Склады с адресами и количеством видов товаров читаются из БД двумя запросами
+ * и перечитываются после истечения {@code metadata-ttl}. Между перечитываниями
+ * выбор склада не обращается к БД.
+ *
+ * @see WarehouseSelectionStrategy
+ */
+@Component
+@Slf4j
+public class WarehouseDirectory {
+    private final WarehouseRepository warehouseRepository;
+    private final AddressMapper addressMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final WarehouseSelectionProperties properties;
+    private final WarehouseSelectionStrategy strategy;
+    private volatile Snapshot snapshot;
+
+    public WarehouseDirectory(WarehouseRepository warehouseRepository,
+                              AddressMapper addressMapper,
+                              TransactionTemplate transactionTemplate,
+                              WarehouseSelectionProperties properties,
+                              Set<WarehouseSelectionStrategy> strategies) {
+        this.warehouseRepository = warehouseRepository;
+        this.addressMapper = addressMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.strategy = strategies.stream()
+                .collect(Collectors.toMap(WarehouseSelectionStrategy::getPolicy, Function.identity()))
+                .get(properties.getPolicy());
+        Objects.requireNonNull(strategy, "No warehouse selection strategy for policy " + properties.getPolicy());
+    }
+
+    /**
+     * Выбирает склад по настроенной политике.
+     *
+     * @param target адрес доставки, может быть null
+     * @return выбранный склад
+     * @throws RuntimeException если склады не найдены
+     */
+    public WarehouseInfo select(AddressDto target) {
+        List<WarehouseInfo> warehouses = warehouses();
+        if (warehouses.isEmpty()) {
+            throw new RuntimeException("No warehouses found");
+        }
+        return strategy.select(warehouses, target);
+    }
+
+    /**
+     * Проверяет, известен ли склад.
+     *
+     * @param warehouseId ID склада
+     * @return {@code true}, если склад есть в справочнике
+     */
+    public boolean contains(UUID warehouseId) {
+        return warehouses().stream().anyMatch(warehouse -> warehouse.warehouseId().equals(warehouseId));
+    }
+
+    /**
+     * Учитывает новый вид товара на складе.
+     *
+     * @param warehouseId ID склада
+     */
+    public void productAdded(UUID warehouseId) {
+        warehouses().stream()
+                .filter(warehouse -> warehouse.warehouseId().equals(warehouseId))
+                .findFirst()
+                .ifPresent(warehouse -> warehouse.productCount().incrementAndGet());
+    }
+
+    private List<WarehouseInfo> warehouses() {
+        Snapshot current = snapshot;
+        if (current == null || System.nanoTime() - current.loadedAt() > properties.getMetadataTtl().toNanos()) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null
+                    || System.nanoTime() - current.loadedAt() > properties.getMetadataTtl().toNanos()) {
+                    current = new Snapshot(load(), System.nanoTime());
+                    snapshot = current;
+                }
+            }
+        }
+        return current.warehouses();
+    }
+
+    /**
+     * Читает склады из БД. Предпочтительный склад идет первым, остальные - по ID.
+     */
+    private List<WarehouseInfo> load() {
+        List<WarehouseInfo> warehouses = transactionTemplate.execute(status -> {
+            Map<UUID, Long> productCounts = warehouseRepository.countProductsByWarehouse().stream()
+                    .collect(Collectors.toMap(WarehouseProductCount::getWarehouseId,
+                            WarehouseProductCount::getProductCount));
+
+            return warehouseRepository.findAllWithAddress().stream()
+                    .map(warehouse -> new WarehouseInfo(
+                            warehouse.getWarehouseId(),
+                            warehouse.getName(),
+                            addressMapper.toDto(warehouse.getAddress()),
+                            new AtomicLong(productCounts.getOrDefault(warehouse.getWarehouseId(), 0L))))
+                    .sorted(Comparator.comparing((WarehouseInfo warehouse) ->
+                            !warehouse.warehouseId().equals(properties.getPreferredWarehouseId())))
+                    .toList();
+        });
+
+        log.debug("Loaded {} warehouses", warehouses.size());
+        return warehouses;
+    }
+
+    /**
+     * Склады, прочитанные из БД.
+     *
+     * @param warehouses склады
+     * @param loadedAt   время чтения по {@link System#nanoTime()}
+     */
+    private record Snapshot(List<WarehouseInfo> warehouses, long loadedAt) {
+    }
+}
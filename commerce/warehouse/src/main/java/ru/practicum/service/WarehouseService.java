@@ -40,11 +40,13 @@ public interface WarehouseService {
 
     /**
      * Получает адрес склада.
-     * Возвращает адрес основного или текущего склада.
+     * Склад выбирается по настроенной политике с учетом адреса доставки.
      *
+     * @param country страна доставки, может быть null
+     * @param city    город доставки, может быть null
      * @return адрес склада
      */
-    AddressDto getAddress();
+    AddressDto getAddress(String country, String city);
 
     /**
      * Отмечает товары как отгруженные для доставки.
@@ -71,6 +73,15 @@ public interface WarehouseService {
      */
     BookedProductsDto assemblyProductForOrder(AssemblyProductsForOrderRequest request);
 
+    /**
+     * Собирает товары для заказа, распределяя их по складам.
+     * Возвращает отгрузки с каждого склада, участвующего в сборке.
+     *
+     * @param request запрос на сборку товаров
+     * @return распределение заказа по складам
+     */
+    OrderAllocationDto allocateProductsForOrder(AssemblyProductsForOrderRequest request);
+
     /**
      * Отменяет сборку товаров для заказа.
      * Освобождает забронированные товары и возвращает их в доступный остаток.
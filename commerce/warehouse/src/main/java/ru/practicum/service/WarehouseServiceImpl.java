@@ -2,25 +2,33 @@ package ru.practicum.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
-import ru.practicum.client.ShoppingStoreFeignClient;
 import ru.practicum.dto.cart.ShoppingCartDto;
-import ru.practicum.dto.product.QuantityState;
-import ru.practicum.dto.product.SetProductQuantityStateRequest;
 import ru.practicum.dto.warehouse.*;
 import ru.practicum.exception.*;
-import ru.practicum.mapper.AddressMapper;
 import ru.practicum.mapper.DimensionMapper;
 import ru.practicum.model.BookedProduct;
-import ru.practicum.model.Warehouse;
+import ru.practicum.model.ProductAvailability;
+import ru.practicum.model.WarehouseInfo;
 import ru.practicum.model.WarehouseProduct;
 import ru.practicum.repository.BookedProductRepository;
+import ru.practicum.repository.OrderBookingRepository;
+import ru.practicum.repository.StockIntakeRepository;
+import ru.practicum.repository.StockReservationRepository;
 import ru.practicum.repository.WarehouseProductRepository;
 import ru.practicum.repository.WarehouseRepository;
+import ru.practicum.service.allocation.Allocation;
+import ru.practicum.service.allocation.AllocationEngine;
+import ru.practicum.service.allocation.StockAllocationIndex;
+import ru.practicum.service.allocation.StockRow;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
 import java.util.stream.Collectors;
 
 /**
@@ -32,35 +40,51 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 public class WarehouseServiceImpl implements WarehouseService {
+    private static final int ALLOCATION_ATTEMPTS = 2;
+
     private final TransactionTemplate transactionTemplate;
     private final WarehouseRepository warehouseRepository;
     private final WarehouseProductRepository warehouseProductRepository;
     private final BookedProductRepository bookedProductRepository;
-    private final AddressMapper addressMapper;
+    private final OrderBookingRepository orderBookingRepository;
     private final DimensionMapper dimensionMapper;
-    private final ShoppingStoreFeignClient shoppingStoreClient;
+    private final StockReservationRepository stockReservationRepository;
+    private final StockIntakeRepository stockIntakeRepository;
+    private final RetryTemplate stockRetryTemplate;
+    private final ObjectProvider<HotSkuLedger> hotSkuLedger;
+    private final QuantityStateOutbox quantityStateOutbox;
+    private final StockAvailabilityCache stockAvailabilityCache;
+    private final WarehouseDirectory warehouseDirectory;
+    private final StockAllocationIndex stockAllocationIndex;
+    private final AllocationEngine allocationEngine;
 
     /**
      * Добавляет новый тип товара на склад.
+     * Склад выбирается по настроенной политике. Товар регистрируется, только если его нет ни на одном складе:
+     * политики CAPACITY и PROXIMITY могут выбрать для повторной регистрации другой склад.
+     * Параллельные регистрации одного товара упорядочиваются блокировкой по товару, поэтому проверка
+     * не пропускает вторую строку на другом складе.
+     * Разместить товар на нескольких складах можно через приемку с явным указанием склада
+     * ({@link StockIntakeLine#warehouseId()}).
      *
      * @param request данные о новом товаре
-     * @throws SpecifiedProductAlreadyInWarehouseException если товар уже зарегистрирован на складе
+     * @throws SpecifiedProductAlreadyInWarehouseException если товар уже зарегистрирован на каком-либо складе
      */
     @Transactional
     @Override
     public void addNewItem(NewProductInWarehouseRequest request) {
-        Warehouse warehouse = getRandomWarehouse();
         UUID productId = UUID.fromString(request.productId());
-        List<WarehouseProduct> products = warehouse.getProducts();
 
-        if (products.stream()
-                .anyMatch(p -> p.getProductId().equals(productId))) {
+        stockIntakeRepository.lockRegistration(List.of(productId));
+        if (warehouseProductRepository.existsByProductId(productId)) {
             throw new SpecifiedProductAlreadyInWarehouseException("Product already specified in warehouse, id = " +
                                                                   productId);
         }
 
+        WarehouseInfo warehouse = warehouseDirectory.select(null);
+
         WarehouseProduct newProduct = WarehouseProduct.builder()
-                .warehouse(warehouse)
+                .warehouse(warehouseRepository.getReferenceById(warehouse.warehouseId()))
                 .productId(productId)
                 .fragile(request.fragile())
                 .dimensions(dimensionMapper.toEntity(request.dimension()))
@@ -68,90 +92,194 @@ public class WarehouseServiceImpl implements WarehouseService {
                 .quantity(0L)
                 .build();
 
-        products.add(newProduct);
+        warehouseProductRepository.save(newProduct);
+        AfterCommit.run(() -> {
+            warehouseDirectory.productAdded(warehouse.warehouseId());
+            stockAvailabilityCache.invalidate(productId);
+            stockAllocationIndex.invalidate(List.of(productId));
+        });
     }
 
     /**
      * Проверяет наличие товаров из корзины на складе.
+     * Отвечает из кэша доступности, отсутствующие в кэше товары загружаются одним запросом.
      *
      * @param shoppingCart корзина для проверки
      * @return информация о забронированных товарах
      * @throws ProductInShoppingCartLowQuantityInWarehouse если товаров недостаточно на складе
      */
-    @Transactional(readOnly = true)
     @Override
     public BookedProductsDto checkQuantityInWarehouse(ShoppingCartDto shoppingCart) {
         Map<UUID, Long> shoppingCartProducts = shoppingCart.products();
-        List<WarehouseProduct> availableProducts = checkAvailableProducts(shoppingCartProducts);
-        return determineBookedProducts(availableProducts, shoppingCartProducts);
+        if (shoppingCartProducts == null || shoppingCartProducts.isEmpty()) {
+            return BookedProductsDto.builder().build();
+        }
+
+        Map<UUID, ProductAvailability> availability = stockAvailabilityCache.getAll(shoppingCartProducts.keySet());
+
+        List<UUID> notEnoughProducts = shoppingCartProducts.entrySet().stream()
+                .filter(entry -> {
+                    ProductAvailability available = availability.get(entry.getKey());
+                    return available == null || available.quantity().get() < entry.getValue();
+                }).map(Map.Entry::getKey)
+                .toList();
+
+        if (!notEnoughProducts.isEmpty()) {
+            throw new ProductInShoppingCartLowQuantityInWarehouse("Out of stock products ids: { " +
+                                                                  notEnoughProducts + " }");
+        }
+
+        double deliveryWeight = 0;
+        double deliveryVolume = 0;
+        boolean fragile = false;
+        for (Map.Entry<UUID, Long> entry : shoppingCartProducts.entrySet()) {
+            ProductAvailability available = availability.get(entry.getKey());
+            deliveryWeight += available.weight() * entry.getValue();
+            deliveryVolume += available.volume() * entry.getValue();
+            fragile |= available.fragile();
+        }
+
+        return BookedProductsDto.builder()
+                .deliveryWeight(deliveryWeight)
+                .deliveryVolume(deliveryVolume)
+                .fragile(fragile)
+                .build();
     }
 
     /**
      * Добавляет количество существующего товара на склад.
-     * Обновляет состояние количества товара в магазине.
+     * Если товар размещен на нескольких складах, количество добавляется к одной его записи (см. {@link #credit}).
+     * Записывает изменение состояния количества товара для магазина.
+     * При конфликте версий с параллельным изменением повторяется.
      *
      * @param request запрос на добавление товара
      * @throws NoSpecifiedProductInWarehouseException если товар не найден на складе
      */
     @Override
     public void addItem(AddProductToWarehouseRequest request) {
-        WarehouseProduct updatedWarehouseProduct = transactionTemplate.execute(status -> {
-            WarehouseProduct warehouseProduct = warehouseProductRepository.findByProductId(request.productId())
-                    .orElseThrow(() -> new NoSpecifiedProductInWarehouseException(
-                            String.format("Product which id = %s not found", request.productId())));
-
-            warehouseProduct.setQuantity(warehouseProduct.getQuantity() + request.quantity());
-            return warehouseProduct;
-        });
-
-        updateQuantityState(updatedWarehouseProduct);
+        stockRetryTemplate.execute(context ->
+                transactionTemplate.execute(status -> {
+                    List<WarehouseProduct> warehouseProducts =
+                            credit(Map.of(request.productId(), request.quantity()));
+                    if (warehouseProducts.isEmpty()) {
+                        throw new NoSpecifiedProductInWarehouseException(
+                                String.format("Product which id = %s not found", request.productId()));
+                    }
+
+                    quantityStateOutbox.record(quantitiesOf(warehouseProducts));
+                    stockAvailabilityCache.changeQuantities(Map.of(request.productId(), request.quantity()));
+                    stockAllocationIndex.invalidate(List.of(request.productId()));
+                    return warehouseProducts;
+                }));
     }
 
     /**
      * Собирает товары для заказа из корзины.
-     * Бронирует товары на складе и обновляет остатки.
+     * Бронирует товары через {@link #allocateProductsForOrder} и суммирует характеристики всех отгрузок.
      *
      * @param request запрос на сборку товаров
      * @return информация о забронированных товарах с характеристиками доставки
      * @throws ProductInShoppingCartLowQuantityInWarehouse если товаров недостаточно на складе
      */
     @Override
-    @Transactional
     public BookedProductsDto assemblyProductForOrder(AssemblyProductsForOrderRequest request) {
-        Map<UUID, Long> assemblyProducts = request.products();
-        List<WarehouseProduct> products = checkAvailableProducts(assemblyProducts);
+        List<WarehouseShipmentDto> shipments = allocateProductsForOrder(request).shipments();
+        if (shipments.isEmpty()) {
+            return BookedProductsDto.builder().build();
+        }
 
-        // Создаем бронирования
-        List<BookedProduct> bookedProducts = products.stream()
-                .map(product -> BookedProduct.builder()
-                        .orderId(request.orderId())
-                        .warehouseProduct(product)
-                        .quantity(assemblyProducts.get(product.getProductId()))
-                        .build())
-                .toList();
+        double deliveryWeight = 0;
+        double deliveryVolume = 0;
+        boolean fragile = false;
+        for (WarehouseShipmentDto shipment : shipments) {
+            deliveryWeight += shipment.bookedProducts().deliveryWeight();
+            deliveryVolume += shipment.bookedProducts().deliveryVolume();
+            fragile |= shipment.bookedProducts().fragile();
+        }
 
-        bookedProductRepository.saveAll(bookedProducts);
+        return BookedProductsDto.builder()
+                .deliveryWeight(deliveryWeight)
+                .deliveryVolume(deliveryVolume)
+                .fragile(fragile)
+                .build();
+    }
+
+    /**
+     * Собирает товары для заказа, распределяя их по складам.
+     * <p>
+     * Распределение строится {@link AllocationEngine} по остаткам из {@link StockAllocationIndex}:
+     * заказ собирается с наименьшего числа складов, товар может делиться между складами.
+     * Остатки выбранных записей списываются одним пакетом условных UPDATE (списание только при достаточном остатке).
+     * Если индекс устарел или параллельное бронирование успело забрать остаток, транзакция откатывается,
+     * индекс по товарам заказа сбрасывается и распределение строится заново один раз.
+     * Изменения состояния количества для магазина записываются в той же транзакции.
+     * Заказы, состоящие только из популярных товаров, бронируются через {@link HotSkuLedger}, если он включен.
+     * <p>
+     * Повторный запрос по уже забронированному заказу (повтор после таймаута или повторная доставка команды)
+     * не бронирует товары заново, а возвращает распределение существующего бронирования.
+     * Параллельные повторы разделяет отметка {@link OrderBookingRepository}: бронирует только транзакция,
+     * создавшая отметку, остальные возвращают ее бронирование.
+     *
+     * @param request запрос на сборку товаров
+     * @return распределение заказа по складам
+     * @throws ProductInShoppingCartLowQuantityInWarehouse если товаров недостаточно на складах
+     */
+    @Override
+    public OrderAllocationDto allocateProductsForOrder(AssemblyProductsForOrderRequest request) {
+        Map<UUID, Long> assemblyProducts = request.products();
+        if (assemblyProducts == null || assemblyProducts.isEmpty()) {
+            return new OrderAllocationDto(request.orderId(), List.of());
+        }
 
-        // Уменьшаем количество
-        products.forEach(product ->
-                product.setQuantity(
-                        product.getQuantity() -
-                        assemblyProducts.get(product.getProductId())));
+        List<WarehouseShipmentDto> existing = transactionTemplate.execute(status ->
+                bookedShipments(request.orderId()));
+        if (!existing.isEmpty()) {
+            log.info("Order {} is already booked, returning existing allocation", request.orderId());
+            return new OrderAllocationDto(request.orderId(), existing);
+        }
 
-        products.forEach(this::updateQuantityState);
+        HotSkuLedger ledger = hotSkuLedger.getIfAvailable();
+        if (ledger != null && ledger.handles(assemblyProducts)) {
+            Optional<List<WarehouseShipmentDto>> shipments = ledger.reserve(request.orderId(), assemblyProducts);
+            if (shipments.isEmpty()) {
+                log.info("Order {} was booked concurrently, returning existing allocation", request.orderId());
+                return new OrderAllocationDto(request.orderId(), transactionTemplate.execute(status ->
+                        bookedShipments(request.orderId())));
+            }
+            stockAvailabilityCache.changeQuantities(negated(assemblyProducts));
+            stockAllocationIndex.invalidate(assemblyProducts.keySet());
+            return new OrderAllocationDto(request.orderId(), shipments.get());
+        }
 
-        return determineBookedProducts(products, assemblyProducts);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                List<Allocation> allocations = allocationEngine.allocate(assemblyProducts,
+                        stockAllocationIndex.getAll(assemblyProducts.keySet()));
+                List<WarehouseShipmentDto> shipments = transactionTemplate.execute(status ->
+                        book(request.orderId(), allocations));
+                return new OrderAllocationDto(request.orderId(), shipments);
+            } catch (ProductInShoppingCartLowQuantityInWarehouse e) {
+                stockAllocationIndex.invalidate(assemblyProducts.keySet());
+                if (attempt == ALLOCATION_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Allocation for order {} is stale, retrying: {}", request.orderId(), e.getMessage());
+            }
+        }
     }
 
     /**
-     * Получает адрес склада.
+     * Получает адрес склада, выбранного по настроенной политике с учетом адреса доставки.
      *
+     * @param country страна доставки, может быть null
+     * @param city    город доставки, может быть null
      * @return адрес склада
      */
     @Override
-    public AddressDto getAddress() {
-        Warehouse warehouse = getRandomWarehouse();
-        return addressMapper.toDto(warehouse.getAddress());
+    public AddressDto getAddress(String country, String city) {
+        AddressDto target = country == null && city == null ? null
+                : new AddressDto(country, city, null, null, null);
+        return warehouseDirectory.select(target).address();
     }
 
     /**
@@ -170,177 +298,219 @@ public class WarehouseServiceImpl implements WarehouseService {
 
     /**
      * Возвращает товары на склад.
-     * Увеличивает остаток товаров и обновляет состояние количества.
+     * Увеличивает остаток товаров и записывает изменения состояния количества для магазина.
+     * Количество каждого товара добавляется к одной его записи (см. {@link #credit}), а не к каждой.
+     * При конфликте версий с параллельным изменением повторяется.
      *
      * @param products товары для возврата (ID товара → количество)
      */
     @Override
-    @Transactional
     public void returnToWarehouse(Map<UUID, Long> products) {
-        List<WarehouseProduct> productsToReturn = warehouseProductRepository.findAllByProductIdIn(products.keySet());
-        productsToReturn.forEach(product ->
-                product.setQuantity(product.getQuantity() + products.get(product.getProductId())));
-        productsToReturn.forEach(this::updateQuantityState);
+        stockRetryTemplate.execute(context ->
+                transactionTemplate.execute(status -> {
+                    List<WarehouseProduct> productsToReturn = credit(products);
+                    Map<UUID, Long> quantities = quantitiesOf(productsToReturn);
+                    quantityStateOutbox.record(quantities);
+                    stockAvailabilityCache.changeQuantities(quantities.keySet().stream()
+                            .collect(Collectors.toMap(productId -> productId, products::get)));
+                    stockAllocationIndex.invalidate(products.keySet());
+                    return productsToReturn;
+                }));
     }
 
     /**
      * Отменяет сборку товаров для заказа.
      * Возвращает забронированные товары на склад и обнуляет бронирование.
+     * При конфликте версий с параллельным изменением повторяется.
      *
      * @param orderId идентификатор заказа
      */
     @Override
-    @Transactional
     public void cancelAssemblyProductForOrder(UUID orderId) {
-        List<BookedProduct> bookedProducts = bookedProductRepository.findAllByOrderId(orderId);
-
-        if (bookedProducts.isEmpty()) {
-            return;
-        }
-
-        List<WarehouseProduct> warehouseProductsToUpdate = new ArrayList<>();
-
-        for (BookedProduct bookedProduct : bookedProducts) {
-            WarehouseProduct warehouseProduct = bookedProduct.getWarehouseProduct();
-            warehouseProduct.setQuantity(warehouseProduct.getQuantity() + bookedProduct.getQuantity());
-            warehouseProductsToUpdate.add(warehouseProduct);
-        }
-
-        warehouseProductRepository.saveAll(warehouseProductsToUpdate);
-        int canceledBooking = bookedProductRepository.updateQuantity(orderId, 0L);
-        log.info("Canceled booking for {} booked products", canceledBooking);
-        warehouseProductsToUpdate.forEach(this::updateQuantityState);
+        stockRetryTemplate.execute(context ->
+                transactionTemplate.execute(status -> {
+                    List<BookedProduct> bookedProducts = bookedProductRepository.findAllByOrderId(orderId);
+
+                    if (bookedProducts.isEmpty()) {
+                        return 0;
+                    }
+
+                    List<WarehouseProduct> warehouseProductsToUpdate = new ArrayList<>();
+                    Map<UUID, Long> returned = new HashMap<>();
+
+                    for (BookedProduct bookedProduct : bookedProducts) {
+                        WarehouseProduct warehouseProduct = bookedProduct.getWarehouseProduct();
+                        warehouseProduct.setQuantity(warehouseProduct.getQuantity() + bookedProduct.getQuantity());
+                        warehouseProductsToUpdate.add(warehouseProduct);
+                        returned.merge(warehouseProduct.getProductId(), bookedProduct.getQuantity(), Long::sum);
+                    }
+
+                    warehouseProductRepository.saveAll(warehouseProductsToUpdate);
+                    orderBookingRepository.release(orderId);
+                    int canceledBooking = bookedProductRepository.updateQuantity(orderId, 0L);
+                    log.info("Canceled booking for {} booked products", canceledBooking);
+                    quantityStateOutbox.record(quantitiesOf(
+                            warehouseProductRepository.findAllByProductIdIn(returned.keySet())));
+                    stockAvailabilityCache.changeQuantities(returned);
+                    stockAllocationIndex.invalidate(returned.keySet());
+                    return canceledBooking;
+                }));
     }
 
     /**
-     * Получает случайный склад из доступных.
+     * Меняет знак количеств для списания из кэша доступности.
      *
-     * @return случайный склад
-     * @throws RuntimeException если склады не найдены
+     * @param quantities количества (ID товара → количество)
+     * @return изменения остатков (ID товара → -количество)
      */
-    private Warehouse getRandomWarehouse() {
-        return warehouseRepository.findAll().stream()
-                .findAny()
-                .orElseThrow(() -> new RuntimeException("No warehouses found"));
+    private Map<UUID, Long> negated(Map<UUID, Long> quantities) {
+        return quantities.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> -entry.getValue()));
     }
 
     /**
-     * Обновляет состояние количества товара в магазине.
-     * Отправляет запрос в сервис магазина для обновления статуса количества.
+     * Добавляет количество к записям товаров на складе.
+     * Количество товара добавляется к одной записи - с наименьшим ID, как и при приемке
+     * ({@link ru.practicum.repository.StockIntakeRepository#add}), поэтому товар, размещенный
+     * на нескольких складах, не получает количество несколько раз.
+     * Должен выполняться в транзакции.
      *
-     * @param warehouseProduct товар на складе
+     * @param quantities добавляемое количество (ID товара → количество)
+     * @return все записи найденных товаров на всех складах
      */
-    private void updateQuantityState(WarehouseProduct warehouseProduct) {
-        if (warehouseProduct == null) {
-            return;
-        }
-
-        QuantityState quantityState = determineQuantityState(warehouseProduct.getQuantity());
-        log.debug("Setting quantity state for product {} to {}", warehouseProduct.getProductId(), quantityState);
-
-        SetProductQuantityStateRequest request = new SetProductQuantityStateRequest(
-                warehouseProduct.getProductId(),
-                quantityState);
-
-        try {
-            shoppingStoreClient.setQuantityState(request);
-        } catch (ResourceNotFoundException e) {
-            log.warn("Product {} not in store", warehouseProduct.getProductId());
-        } catch (BadRequestException e) {
-            log.warn("Invalid quantity state for product {}", warehouseProduct.getProductId());
-        } catch (ServiceTemporaryUnavailableException e) {
-            log.warn("Service temporary unavailable {}", warehouseProduct.getProductId());
-        } catch (Exception e) {
-            log.warn("Unknown error {}", warehouseProduct.getProductId());
-        }
+    private List<WarehouseProduct> credit(Map<UUID, Long> quantities) {
+        List<WarehouseProduct> warehouseProducts = warehouseProductRepository.findAllByProductIdIn(quantities.keySet());
+        // UUID сравниваются как строки, чтобы порядок совпадал с порядком uuid в PostgreSQL
+        warehouseProducts.stream()
+                .collect(Collectors.toMap(WarehouseProduct::getProductId, product -> product,
+                        BinaryOperator.minBy(Comparator.comparing(product -> product.getId().toString()))))
+                .forEach((productId, product) ->
+                        product.setQuantity(product.getQuantity() + quantities.get(productId)));
+        return warehouseProducts;
     }
 
     /**
-     * Определяет состояние количества на основе доступного количества.
+     * Собирает остатки товаров для записи состояния количества, суммируя записи товара на всех складах.
      *
-     * @param quantity доступное количество товара
-     * @return состояние количества
+     * @param warehouseProducts все записи товаров на складах
+     * @return остатки (ID товара → количество)
      */
-    private QuantityState determineQuantityState(Long quantity) {
-        if (quantity == 0) {
-            return QuantityState.ENDED;
-        } else if (quantity < 10) {
-            return QuantityState.FEW;
-        } else if (quantity < 100) {
-            return QuantityState.ENOUGH;
-        } else {
-            return QuantityState.MANY;
-        }
+    private Map<UUID, Long> quantitiesOf(List<WarehouseProduct> warehouseProducts) {
+        return warehouseProducts.stream()
+                .collect(Collectors.toMap(WarehouseProduct::getProductId, WarehouseProduct::getQuantity, Long::sum));
     }
 
     /**
-     * Проверяет доступность товаров на складе.
+     * Списывает остатки по распределению и создает бронирования.
+     * Если заказ уже забронирован параллельным запросом, возвращает его бронирование.
+     * Должен выполняться в транзакции.
      *
-     * @param checkingProducts товары для проверки (ID → требуемое количество)
-     * @return доступные товары на складе
-     * @throws ProductInShoppingCartLowQuantityInWarehouse если товаров недостаточно
+     * @param orderId     ID заказа
+     * @param allocations распределение заказа по записям товаров на складах
+     * @return отгрузки со складов
+     * @throws ProductInShoppingCartLowQuantityInWarehouse если остатка какой-либо записи уже не хватает
      */
-    private List<WarehouseProduct> checkAvailableProducts(Map<UUID, Long> checkingProducts) {
-        if (checkingProducts == null || checkingProducts.isEmpty()) {
-            return Collections.emptyList();
+    private List<WarehouseShipmentDto> book(UUID orderId, List<Allocation> allocations) {
+        if (!orderBookingRepository.claim(orderId)) {
+            log.info("Order {} was booked concurrently, returning existing allocation", orderId);
+            return bookedShipments(orderId);
         }
 
-        List<WarehouseProduct> products = warehouseProductRepository
-                .findAllByProductIdIn(checkingProducts.keySet());
-
-        Map<UUID, Long> availableProducts = products.stream()
-                .collect(Collectors.toMap(
-                        WarehouseProduct::getProductId,
-                        WarehouseProduct::getQuantity,
-                        Long::sum));
+        // Списываем остатки
+        SortedMap<UUID, Long> reservations = new TreeMap<>();
+        allocations.forEach(allocation ->
+                reservations.put(allocation.row().warehouseProductId(), allocation.quantity()));
+
+        List<UUID> shortfall = stockReservationRepository.reserve(reservations);
+        if (!shortfall.isEmpty()) {
+            List<UUID> shortfallProducts = allocations.stream()
+                    .map(Allocation::row)
+                    .filter(row -> shortfall.contains(row.warehouseProductId()))
+                    .map(StockRow::productId)
+                    .distinct()
+                    .toList();
+            throw new ProductInShoppingCartLowQuantityInWarehouse("Out of stock products ids: { " +
+                                                                  shortfallProducts + " }");
+        }
 
-        List<UUID> notEnoughProducts = checkingProducts.entrySet().stream()
-                .filter(entry -> {
-                    Long available = availableProducts.get(entry.getKey());
-                    return available == null || available < entry.getValue();
-                }).map(Map.Entry::getKey)
+        // Создаем бронирования
+        List<BookedProduct> bookedProducts = allocations.stream()
+                .map(allocation -> BookedProduct.builder()
+                        .orderId(orderId)
+                        .warehouseProduct(warehouseProductRepository.getReferenceById(
+                                allocation.row().warehouseProductId()))
+                        .quantity(allocation.quantity())
+                        .build())
                 .toList();
 
-        if (!notEnoughProducts.isEmpty()) {
-            throw new ProductInShoppingCartLowQuantityInWarehouse("Out of stock products ids: { " +
-                                                                  notEnoughProducts + " }");
-        }
+        bookedProductRepository.saveAll(bookedProducts);
+
+        Map<UUID, Long> reserved = new HashMap<>();
+        allocations.forEach(allocation ->
+                reserved.merge(allocation.row().productId(), allocation.quantity(), Long::sum));
+        quantityStateOutbox.record(stockReservationRepository.findProductQuantities(reserved.keySet()));
+        stockAvailabilityCache.changeQuantities(negated(reserved));
+        stockAllocationIndex.reserved(allocations);
 
-        return products;
+        return shipmentsOf(allocations);
     }
 
     /**
-     * Определяет характеристики забронированных товаров для доставки.
+     * Восстанавливает отгрузки по сохраненным бронированиям заказа.
+     * Должен выполняться в транзакции.
      *
-     * @param availableProducts доступные товары на складе
-     * @param assemblyProducts  товары для сборки (ID → количество)
-     * @return характеристики забронированных товаров
+     * @param orderId ID заказа
+     * @return отгрузки со складов или пустой список, если заказ не бронировался или бронирование отменено
      */
-    private BookedProductsDto determineBookedProducts(
-            List<WarehouseProduct> availableProducts,
-            Map<UUID, Long> assemblyProducts) {
-
-        if (availableProducts == null || availableProducts.isEmpty()
-            || assemblyProducts == null || assemblyProducts.isEmpty()) {
-            return BookedProductsDto.builder().build();
-        }
-
-        Double deliveryWeight = availableProducts.stream()
-                .mapToDouble(wp ->
-                        wp.getWeight() * assemblyProducts.get(wp.getProductId()))
-                .sum();
-
-        Double deliveryVolume = availableProducts.stream()
-                .mapToDouble(wp ->
-                        wp.getDimensions().getVolume() * assemblyProducts.get(wp.getProductId()))
-                .sum();
-
-        Boolean fragile = availableProducts.stream().anyMatch(WarehouseProduct::getFragile);
+    private List<WarehouseShipmentDto> bookedShipments(UUID orderId) {
+        List<Allocation> allocations = bookedProductRepository.findAllByOrderIdAndQuantityGreaterThan(orderId, 0L)
+                .stream()
+                .map(bookedProduct -> {
+                    WarehouseProduct product = bookedProduct.getWarehouseProduct();
+                    return new Allocation(new StockRow(
+                            product.getId(),
+                            product.getWarehouse().getWarehouseId(),
+                            product.getProductId(),
+                            new AtomicLong(product.getQuantity()),
+                            product.getWeight(),
+                            product.getDimensions().getVolume(),
+                            product.getFragile()), bookedProduct.getQuantity());
+                })
+                .toList();
+        return shipmentsOf(allocations);
+    }
 
-        return BookedProductsDto.builder()
-                .deliveryWeight(deliveryWeight)
-                .deliveryVolume(deliveryVolume)
-                .fragile(fragile)
-                .build();
+    /**
+     * Группирует распределение по складам и определяет характеристики каждой отгрузки.
+     *
+     * @param allocations распределение заказа по записям товаров на складах
+     * @return отгрузки со складов
+     */
+    private List<WarehouseShipmentDto> shipmentsOf(List<Allocation> allocations) {
+        Map<UUID, List<Allocation>> byWarehouse = allocations.stream()
+                .collect(Collectors.groupingBy(allocation -> allocation.row().warehouseId(),
+                        LinkedHashMap::new, Collectors.toList()));
+
+        return byWarehouse.entrySet().stream()
+                .map(entry -> {
+                    Map<UUID, Long> products = new LinkedHashMap<>();
+                    double deliveryWeight = 0;
+                    double deliveryVolume = 0;
+                    boolean fragile = false;
+                    for (Allocation allocation : entry.getValue()) {
+                        StockRow row = allocation.row();
+                        products.merge(row.productId(), allocation.quantity(), Long::sum);
+                        deliveryWeight += row.weight() * allocation.quantity();
+                        deliveryVolume += row.volume() * allocation.quantity();
+                        fragile |= row.fragile();
+                    }
+
+                    return new WarehouseShipmentDto(entry.getKey(), products, BookedProductsDto.builder()
+                            .deliveryWeight(deliveryWeight)
+                            .deliveryVolume(deliveryVolume)
+                            .fragile(fragile)
+                            .build());
+                })
+                .toList();
     }
-}
\ No newline at end of file
+}
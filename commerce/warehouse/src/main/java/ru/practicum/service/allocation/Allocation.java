@@ -0,0 +1,10 @@
+package ru.practicum.service.allocation;
+
+/**
+ * Количество товара, списываемое с одной записи склада.
+ *
+ * @param row      запись товара на складе
+ * @param quantity количество
+ */
+public record Allocation(StockRow row, long quantity) {
+}
@@ -0,0 +1,195 @@
+package ru.practicum.service.allocation;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.config.AllocationProperties;
+import ru.practicum.exception.ProductInShoppingCartLowQuantityInWarehouse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Распределение заказа по складам.
+ * <p>
+ * Выбирает наименьший набор складов, остатков которых хватает на весь заказ, и делит товары заказа
+ * между ними. Если склады с товарами заказа не больше {@code exact-search-limit}, наборы перебираются
+ * по возрастанию размера; из наборов одного размера выбирается набор с наибольшим остатком товаров заказа.
+ * Иначе склады добавляются жадно: каждый раз склад, покрывающий больше всего оставшихся единиц.
+ * Внутри набора товар списывается сначала со склада с наибольшим остатком, поэтому позиция делится
+ * между складами, только если ни на одном складе набора ее не хватает целиком.
+ */
+@Component
+@RequiredArgsConstructor
+public class AllocationEngine {
+    /**
+     * Наибольшее количество складов, для которого допускается перебор наборов.
+     * Ограничивает настройку на случай, если она задана без проверки, и не дает переполниться маске набора.
+     */
+    public static final int MAX_EXACT_SEARCH_LIMIT = 20;
+
+    private final AllocationProperties properties;
+
+    /**
+     * Распределяет заказ по складам.
+     *
+     * @param order товары заказа (ID товара → количество)
+     * @param rows  записи складов с остатком по товарам заказа
+     * @return списания с записей складов
+     * @throws ProductInShoppingCartLowQuantityInWarehouse если суммарного остатка товара не хватает
+     */
+    public List<Allocation> allocate(Map<UUID, Long> order, Map<UUID, List<StockRow>> rows) {
+        if (order.isEmpty()) {
+            return List.of();
+        }
+
+        List<UUID> products = new ArrayList<>(order.keySet());
+        List<UUID> warehouses = new ArrayList<>(new TreeSet<>(rows.values().stream()
+                .flatMap(List::stream)
+                .map(StockRow::warehouseId)
+                .toList()));
+
+        // снимок остатков: склад × товар
+        long[][] stock = new long[warehouses.size()][products.size()];
+        Map<UUID, Integer> warehouseIndex = new HashMap<>();
+        for (int w = 0; w < warehouses.size(); w++) {
+            warehouseIndex.put(warehouses.get(w), w);
+        }
+        long[] need = new long[products.size()];
+        List<UUID> shortfall = new ArrayList<>();
+        for (int p = 0; p < products.size(); p++) {
+            need[p] = order.get(products.get(p));
+            long total = 0;
+            for (StockRow row : rows.getOrDefault(products.get(p), List.of())) {
+                long quantity = Math.max(0, row.quantity().get());
+                stock[warehouseIndex.get(row.warehouseId())][p] += quantity;
+                total += quantity;
+            }
+            if (total < need[p]) {
+                shortfall.add(products.get(p));
+            }
+        }
+
+        if (!shortfall.isEmpty()) {
+            throw new ProductInShoppingCartLowQuantityInWarehouse("Out of stock products ids: { " + shortfall + " }");
+        }
+
+        List<Integer> chosen = warehouses.size() <= Math.min(properties.getExactSearchLimit(), MAX_EXACT_SEARCH_LIMIT)
+                ? smallestCover(stock, need)
+                : greedyCover(stock, need);
+
+        List<Allocation> allocations = new ArrayList<>();
+        for (int p = 0; p < products.size(); p++) {
+            long remaining = need[p];
+            List<StockRow> candidates = rows.getOrDefault(products.get(p), List.of()).stream()
+                    .filter(row -> chosen.contains(warehouseIndex.get(row.warehouseId())))
+                    .sorted(Comparator.comparingLong((StockRow row) -> row.quantity().get()).reversed())
+                    .toList();
+            for (StockRow row : candidates) {
+                if (remaining == 0) {
+                    break;
+                }
+                long quantity = Math.min(remaining, Math.max(0, row.quantity().get()));
+                if (quantity > 0) {
+                    allocations.add(new Allocation(row, quantity));
+                    remaining -= quantity;
+                }
+            }
+            if (remaining > 0) {
+                // остаток изменился после снимка, распределение будет повторено по перечитанным данным
+                throw new ProductInShoppingCartLowQuantityInWarehouse("Out of stock products ids: { ["
+                                                                      + products.get(p) + "] }");
+            }
+        }
+        return allocations;
+    }
+
+    /**
+     * Перебирает наборы складов по возрастанию размера и возвращает первый подходящий размер.
+     */
+    private List<Integer> smallestCover(long[][] stock, long[] need) {
+        int warehouses = stock.length;
+        for (int size = 1; size <= warehouses; size++) {
+            int best = -1;
+            long bestUnits = -1;
+            for (int mask = 1; mask < (1 << warehouses); mask++) {
+                if (Integer.bitCount(mask) != size) {
+                    continue;
+                }
+                long units = coveredUnits(stock, need, mask);
+                if (units > bestUnits) {
+                    best = mask;
+                    bestUnits = units;
+                }
+            }
+            if (best >= 0) {
+                List<Integer> chosen = new ArrayList<>(size);
+                for (int w = 0; w < warehouses; w++) {
+                    if ((best & (1 << w)) != 0) {
+                        chosen.add(w);
+                    }
+                }
+                return chosen;
+            }
+        }
+        throw new IllegalStateException("Total stock covers the order, but no warehouse set does");
+    }
+
+    /**
+     * Суммарный остаток товаров заказа в наборе складов или -1, если набор не покрывает заказ.
+     */
+    private long coveredUnits(long[][] stock, long[] need, int mask) {
+        long units = 0;
+        for (int p = 0; p < need.length; p++) {
+            long available = 0;
+            for (int w = 0; w < stock.length; w++) {
+                if ((mask & (1 << w)) != 0) {
+                    available += stock[w][p];
+                }
+            }
+            if (available < need[p]) {
+                return -1;
+            }
+            units += available;
+        }
+        return units;
+    }
+
+    /**
+     * Добавляет склады, каждый раз выбирая склад, покрывающий больше всего оставшихся единиц заказа.
+     */
+    private List<Integer> greedyCover(long[][] stock, long[] need) {
+        long[] remaining = need.clone();
+        List<Integer> chosen = new ArrayList<>();
+        while (Arrays.stream(remaining).anyMatch(quantity -> quantity > 0)) {
+            int best = -1;
+            long bestCovered = 0;
+            for (int w = 0; w < stock.length; w++) {
+                if (chosen.contains(w)) {
+                    continue;
+                }
+                long covered = 0;
+                for (int p = 0; p < remaining.length; p++) {
+                    covered += Math.min(stock[w][p], remaining[p]);
+                }
+                if (covered > bestCovered) {
+                    best = w;
+                    bestCovered = covered;
+                }
+            }
+            if (best < 0) {
+                throw new IllegalStateException("Total stock covers the order, but no warehouse set does");
+            }
+            chosen.add(best);
+            for (int p = 0; p < remaining.length; p++) {
+                remaining[p] -= Math.min(stock[best][p], remaining[p]);
+            }
+        }
+        return chosen;
+    }
+}
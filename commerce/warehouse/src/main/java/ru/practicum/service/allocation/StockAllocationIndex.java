@@ -0,0 +1,68 @@
+package ru.practicum.service.allocation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import ru.practicum.config.AllocationProperties;
+import ru.practicum.repository.StockRowRepository;
+import ru.practicum.service.AfterCommit;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Индекс остатков товаров по складам в памяти.
+ * <p>
+ * Для каждого товара хранит записи складов с ненулевым остатком. Отсутствующие товары загружаются
+ * одним запросом на заказ. Бронирования этого экземпляра уменьшают остатки в индексе после фиксации
+ * транзакции, прочие изменения товара удаляют его из индекса. Изменения других экземпляров видны
+ * после истечения {@code index-ttl}; устаревший индекс не приводит к перебронированию, так как остатки
+ * списываются условным UPDATE, а распределение повторяется по перечитанным остаткам.
+ */
+@Component
+public class StockAllocationIndex {
+    private final StockRowRepository stockRowRepository;
+    private final Cache<UUID, List<StockRow>> cache;
+
+    public StockAllocationIndex(StockRowRepository stockRowRepository, AllocationProperties properties) {
+        this.stockRowRepository = stockRowRepository;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getIndexTtl())
+                .maximumSize(properties.getMaximumSize())
+                .build();
+    }
+
+    /**
+     * Возвращает записи складов с остатком для товаров.
+     *
+     * @param productIds ID товаров
+     * @return записи по товарам (ID товара → записи)
+     */
+    public Map<UUID, List<StockRow>> getAll(Set<UUID> productIds) {
+        return cache.getAll(productIds, stockRowRepository::findByProductIds);
+    }
+
+    /**
+     * Уменьшает остатки записей в индексе после фиксации текущей транзакции.
+     *
+     * @param allocations списанные количества
+     */
+    public void reserved(List<Allocation> allocations) {
+        AfterCommit.run(() -> allocations.forEach(allocation ->
+                allocation.row().quantity().addAndGet(-allocation.quantity())));
+    }
+
+    /**
+     * Удаляет товары из индекса сразу и после фиксации текущей транзакции,
+     * чтобы параллельное чтение не вернуло в индекс остатки до изменения.
+     *
+     * @param productIds ID товаров
+     */
+    public void invalidate(Collection<UUID> productIds) {
+        cache.invalidateAll(productIds);
+        AfterCommit.run(() -> cache.invalidateAll(productIds));
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.service.allocation;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Остаток товара на одном складе в индексе распределения.
+ *
+ * @param warehouseProductId ID записи товара на складе
+ * @param warehouseId        ID склада
+ * @param productId          ID товара
+ * @param quantity           остаток, уменьшается бронированиями этого экземпляра
+ * @param weight             вес единицы товара
+ * @param volume             объем единицы товара
+ * @param fragile            признак хрупкости
+ */
+public record StockRow(UUID warehouseProductId, UUID warehouseId, UUID productId, AtomicLong quantity,
+                       double weight, double volume, boolean fragile) {
+}
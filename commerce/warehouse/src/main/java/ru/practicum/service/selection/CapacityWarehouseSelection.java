@@ -0,0 +1,28 @@
+package ru.practicum.service.selection;
+
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.warehouse.AddressDto;
+import ru.practicum.model.WarehouseInfo;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Выбор наименее заполненного склада: склада с наименьшим количеством видов товаров.
+ * Новые товары распределяются по складам равномерно.
+ */
+@Component
+public class CapacityWarehouseSelection implements WarehouseSelectionStrategy {
+
+    @Override
+    public SelectionPolicy getPolicy() {
+        return SelectionPolicy.CAPACITY;
+    }
+
+    @Override
+    public WarehouseInfo select(List<WarehouseInfo> warehouses, AddressDto target) {
+        return warehouses.stream()
+                .min(Comparator.comparingLong(warehouse -> warehouse.productCount().get()))
+                .orElseThrow();
+    }
+}
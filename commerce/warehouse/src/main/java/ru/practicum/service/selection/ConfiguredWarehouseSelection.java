@@ -0,0 +1,24 @@
+package ru.practicum.service.selection;
+
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.warehouse.AddressDto;
+import ru.practicum.model.WarehouseInfo;
+
+import java.util.List;
+
+/**
+ * Выбор предпочтительного склада из настроек.
+ */
+@Component
+public class ConfiguredWarehouseSelection implements WarehouseSelectionStrategy {
+
+    @Override
+    public SelectionPolicy getPolicy() {
+        return SelectionPolicy.CONFIGURED;
+    }
+
+    @Override
+    public WarehouseInfo select(List<WarehouseInfo> warehouses, AddressDto target) {
+        return warehouses.getFirst();
+    }
+}
@@ -0,0 +1,50 @@
+package ru.practicum.service.selection;
+
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.warehouse.AddressDto;
+import ru.practicum.model.WarehouseInfo;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Выбор ближайшего к адресу доставки склада: склада в том же городе, а если такого нет - в той же стране.
+ * Если адрес не передан или подходящего склада нет, выбирается предпочтительный склад.
+ */
+@Component
+public class ProximityWarehouseSelection implements WarehouseSelectionStrategy {
+
+    @Override
+    public SelectionPolicy getPolicy() {
+        return SelectionPolicy.PROXIMITY;
+    }
+
+    @Override
+    public WarehouseInfo select(List<WarehouseInfo> warehouses, AddressDto target) {
+        if (target == null) {
+            return warehouses.getFirst();
+        }
+
+        WarehouseInfo sameCity = findSame(warehouses, target, AddressDto::city);
+        if (sameCity != null) {
+            return sameCity;
+        }
+
+        WarehouseInfo sameCountry = findSame(warehouses, target, AddressDto::country);
+        return sameCountry != null ? sameCountry : warehouses.getFirst();
+    }
+
+    private WarehouseInfo findSame(List<WarehouseInfo> warehouses, AddressDto target,
+                                   Function<AddressDto, String> field) {
+        String expected = field.apply(target);
+        if (expected == null || expected.isBlank()) {
+            return null;
+        }
+
+        return warehouses.stream()
+                .filter(warehouse -> warehouse.address() != null
+                                     && expected.equalsIgnoreCase(field.apply(warehouse.address())))
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.service.selection;
+
+/**
+ * Политика выбора склада.
+ */
+public enum SelectionPolicy {
+
+    /**
+     * Склад из настройки {@code preferred-warehouse-id}, если он не задан - первый склад.
+     */
+    CONFIGURED,
+
+    /**
+     * Склад с наименьшим количеством видов товаров.
+     */
+    CAPACITY,
+
+    /**
+     * Склад в городе, а если такого нет - в стране адреса доставки.
+     */
+    PROXIMITY
+}
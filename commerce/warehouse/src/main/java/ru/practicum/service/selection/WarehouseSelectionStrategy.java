@@ -0,0 +1,31 @@
+package ru.practicum.service.selection;
+
+import ru.practicum.dto.warehouse.AddressDto;
+import ru.practicum.model.WarehouseInfo;
+
+import java.util.List;
+
+/**
+ * Интерфейс стратегий выбора склада.
+ * Каждая реализация соответствует одной политике {@link SelectionPolicy}.
+ *
+ * @see ru.practicum.service.WarehouseDirectory
+ */
+public interface WarehouseSelectionStrategy {
+
+    /**
+     * Возвращает политику, которую реализует стратегия.
+     *
+     * @return политика выбора склада
+     */
+    SelectionPolicy getPolicy();
+
+    /**
+     * Выбирает склад.
+     *
+     * @param warehouses склады, не пустой список; предпочтительный склад идет первым
+     * @param target     адрес доставки, может быть null
+     * @return выбранный склад
+     */
+    WarehouseInfo select(List<WarehouseInfo> warehouses, AddressDto target);
+}
@@ -33,6 +33,7 @@ CREATE TABLE IF NOT EXISTS warehouse_products
     fragile              BOOLEAN                                    NOT NULL DEFAULT false,
     dimensions_id        UUID REFERENCES dimensions (dimensions_id) NOT NULL,
     weight               FLOAT                                      NOT NULL CHECK (weight >= 0),
+    version              BIGINT                                     NOT NULL DEFAULT 0,
     created_at           TIMESTAMP                                           DEFAULT CURRENT_TIMESTAMP,
     updated_at           TIMESTAMP                                           DEFAULT CURRENT_TIMESTAMP,
 
@@ -40,6 +41,10 @@ CREATE TABLE IF NOT EXISTS warehouse_products
     UNIQUE (warehouse_id, product_id)
 );
 
+-- Версия для оптимистической блокировки в существующих таблицах
+ALTER TABLE warehouse_products
+    ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
 CREATE TABLE IF NOT EXISTS booked_products
 (
     booked_product_id    UUID PRIMARY KEY DEFAULT gen_random_uuid(),
@@ -50,6 +55,36 @@ CREATE TABLE IF NOT EXISTS booked_products
     booked_at            TIMESTAMP        DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Отметки о бронировании заказов: одна строка на заказ, первая вставка выигрывает у параллельных повторов
+CREATE TABLE IF NOT EXISTS order_bookings
+(
+    order_id  UUID PRIMARY KEY,
+    booked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Остатки популярных товаров, забранные экземплярами сервиса в память журнала бронирований
+CREATE TABLE IF NOT EXISTS stock_allotments
+(
+    owner_id             UUID                                                      NOT NULL,
+    warehouse_product_id UUID REFERENCES warehouse_products (warehouse_product_id) NOT NULL,
+    quantity             BIGINT                                                    NOT NULL CHECK (quantity >= 0),
+    heartbeat_at         TIMESTAMP                                                 NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (owner_id, warehouse_product_id)
+);
+
+CREATE TABLE IF NOT EXISTS quantity_state_outbox
+(
+    product_id     UUID PRIMARY KEY,
+    quantity_state VARCHAR(20) NOT NULL,
+    pending        BOOLEAN     NOT NULL DEFAULT TRUE,
+    claimed_until  TIMESTAMP,
+    updated_at     TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Срок, до которого состояние отправляется одним экземпляром, в существующей таблице
+ALTER TABLE quantity_state_outbox
+    ADD COLUMN IF NOT EXISTS claimed_until TIMESTAMP;
+
 -- ИНДЕКСЫ ДЛЯ ОПТИМИЗАЦИИ:
 
 -- Для быстрого поиска товаров на всех складах
@@ -58,6 +93,10 @@ CREATE INDEX IF NOT EXISTS idx_warehouse_products_product
     WHERE quantity > 0;
 -- Только доступные товары
 
+-- Для проверки регистрации товара на любом складе, включая товары с нулевым остатком
+CREATE INDEX IF NOT EXISTS idx_warehouse_products_product_id
+    ON warehouse_products (product_id);
+
 -- Для поиска конкретного товара на конкретном складе
 CREATE INDEX IF NOT EXISTS idx_warehouse_products_warehouse_product
     ON warehouse_products (warehouse_id, product_id);
@@ -70,4 +109,7 @@ CREATE INDEX IF NOT EXISTS idx_warehouse_products_warehouse
 CREATE INDEX IF NOT EXISTS idx_booked_products_warehouse_product
     ON booked_products (warehouse_product_id);
 
-
+-- Для выборки состояний количества, ожидающих отправки в магазин
+CREATE INDEX IF NOT EXISTS idx_quantity_state_outbox_pending
+    ON quantity_state_outbox (updated_at)
+    WHERE pending;
@@ -0,0 +1,355 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.config.HotSkuLedgerProperties;
+import ru.practicum.dto.warehouse.BookedProductsDto;
+import ru.practicum.dto.warehouse.WarehouseShipmentDto;
+import ru.practicum.exception.AllotmentLostException;
+import ru.practicum.exception.ProductInShoppingCartLowQuantityInWarehouse;
+import ru.practicum.exception.ServiceTemporaryUnavailableException;
+import ru.practicum.model.Dimension;
+import ru.practicum.model.Warehouse;
+import ru.practicum.model.WarehouseProduct;
+import ru.practicum.repository.OrderBookingRepository;
+import ru.practicum.repository.StockAllotmentRepository;
+import ru.practicum.repository.StockReservationRepository;
+import ru.practicum.repository.WarehouseProductRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты журнала бронирований популярных товаров: списание из остатка в памяти, возврат количества
+ * при нехватке и неудачной записи, повтор уже забронированного заказа и сверка остатков с БД.
+ */
+@ExtendWith(MockitoExtension.class)
+class HotSkuLedgerTest {
+    private static final UUID PRODUCT = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+    private static final UUID SCARCE_PRODUCT = UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+    private static final UUID WAREHOUSE_PRODUCT = UUID.fromString("123e4567-e89b-12d3-a456-426614174010");
+    private static final UUID SCARCE_WAREHOUSE_PRODUCT = UUID.fromString("123e4567-e89b-12d3-a456-426614174011");
+    private static final UUID WAREHOUSE = UUID.fromString("123e4567-e89b-12d3-a456-426614174020");
+    private static final UUID FIRST_ORDER = UUID.fromString("123e4567-e89b-12d3-a456-426614174030");
+    private static final UUID SECOND_ORDER = UUID.fromString("123e4567-e89b-12d3-a456-426614174031");
+    private static final UUID THIRD_ORDER = UUID.fromString("123e4567-e89b-12d3-a456-426614174032");
+
+    @Mock
+    private WarehouseProductRepository warehouseProductRepository;
+    @Mock
+    private StockReservationRepository stockReservationRepository;
+    @Mock
+    private QuantityStateOutbox quantityStateOutbox;
+
+    private final HotSkuLedgerProperties properties = new HotSkuLedgerProperties();
+    private final InMemoryAllotments allotments = new InMemoryAllotments(Map.of(
+            WAREHOUSE_PRODUCT, 1000L,
+            SCARCE_WAREHOUSE_PRODUCT, 1L));
+    private final InMemoryOrderBookings orderBookings = new InMemoryOrderBookings();
+    private HotSkuLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        properties.setProductIds(Set.of(PRODUCT, SCARCE_PRODUCT));
+        properties.setAllotmentSize(100);
+        properties.setFlushInterval(Duration.ofMillis(5));
+        when(warehouseProductRepository.findAllByProductIdIn(properties.getProductIds())).thenReturn(List.of(
+                warehouseProduct(WAREHOUSE_PRODUCT, PRODUCT, 1000),
+                warehouseProduct(SCARCE_WAREHOUSE_PRODUCT, SCARCE_PRODUCT, 1)));
+
+        ledger = new HotSkuLedger(properties, allotments, warehouseProductRepository, orderBookings,
+                stockReservationRepository, quantityStateOutbox, new TransactionTemplate(new NoOpTransactionManager()));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        ledger.stop();
+    }
+
+    @Test
+    void reserveBooksFromAllotmentAndRepliesAfterWrite() {
+        ledger.start();
+
+        var shipments = ledger.reserve(FIRST_ORDER, Map.of(PRODUCT, 3L));
+
+        assertThat(shipments).contains(List.of(new WarehouseShipmentDto(WAREHOUSE, Map.of(PRODUCT, 3L),
+                BookedProductsDto.builder().deliveryWeight(6.0).deliveryVolume(3.0).fragile(false).build())));
+        assertThat(allotments.booked())
+                .extracting(StockAllotmentRepository.Booking::orderId, StockAllotmentRepository.Booking::quantity)
+                .containsExactly(tuple(FIRST_ORDER, 3L));
+        assertThat(allotments.stock(WAREHOUSE_PRODUCT)).isEqualTo(900);
+        verify(quantityStateOutbox).record(anyMap());
+    }
+
+    @Test
+    void nextReservationsUseUnitsInMemory() {
+        ledger.start();
+
+        ledger.reserve(FIRST_ORDER, Map.of(PRODUCT, 3L));
+        ledger.reserve(SECOND_ORDER, Map.of(PRODUCT, 97L));
+
+        assertThat(allotments.takes(WAREHOUSE_PRODUCT)).isEqualTo(1);
+        assertThat(allotments.booked()).hasSize(2);
+    }
+
+    @Test
+    void shortfallReturnsGrantedUnitsToMemory() {
+        ledger.start();
+
+        assertThatThrownBy(() -> ledger.reserve(FIRST_ORDER, Map.of(PRODUCT, 2L, SCARCE_PRODUCT, 5L)))
+                .isInstanceOf(ProductInShoppingCartLowQuantityInWarehouse.class)
+                .hasMessageContaining(SCARCE_PRODUCT.toString());
+
+        ledger.reserve(SECOND_ORDER, Map.of(PRODUCT, 100L));
+
+        assertThat(allotments.takes(WAREHOUSE_PRODUCT)).isEqualTo(1);
+        assertThat(allotments.booked())
+                .extracting(StockAllotmentRepository.Booking::orderId)
+                .containsExactly(SECOND_ORDER);
+    }
+
+    @Test
+    void alreadyBookedOrderIsNotWrittenAgain() {
+        orderBookings.claimed.add(FIRST_ORDER);
+        ledger.start();
+
+        assertThat(ledger.reserve(FIRST_ORDER, Map.of(PRODUCT, 10L))).isEmpty();
+        ledger.reserve(SECOND_ORDER, Map.of(PRODUCT, 100L));
+
+        assertThat(allotments.takes(WAREHOUSE_PRODUCT)).isEqualTo(1);
+        assertThat(allotments.booked())
+                .extracting(StockAllotmentRepository.Booking::orderId)
+                .containsExactly(SECOND_ORDER);
+    }
+
+    @Test
+    void failedWriteReturnsUnitsToMemoryAndReportsUnavailable() {
+        orderBookings.failNext = true;
+        ledger.start();
+
+        assertThatThrownBy(() -> ledger.reserve(FIRST_ORDER, Map.of(PRODUCT, 10L)))
+                .isInstanceOf(ServiceTemporaryUnavailableException.class);
+        ledger.reserve(SECOND_ORDER, Map.of(PRODUCT, 100L));
+
+        assertThat(allotments.takes(WAREHOUSE_PRODUCT)).isEqualTo(1);
+        assertThat(allotments.booked())
+                .extracting(StockAllotmentRepository.Booking::orderId)
+                .containsExactly(SECOND_ORDER);
+    }
+
+    @Test
+    void lostAllotmentIsDroppedFromMemoryAndTakenAgain() {
+        ledger.start();
+        ledger.reserve(FIRST_ORDER, Map.of(PRODUCT, 3L));
+        allotments.releaseAsStale();
+
+        assertThatThrownBy(() -> ledger.reserve(SECOND_ORDER, Map.of(PRODUCT, 3L)))
+                .isInstanceOf(ServiceTemporaryUnavailableException.class);
+        ledger.reserve(THIRD_ORDER, Map.of(PRODUCT, 3L));
+
+        assertThat(allotments.takes(WAREHOUSE_PRODUCT)).isEqualTo(2);
+        assertThat(allotments.stock(WAREHOUSE_PRODUCT)).isEqualTo(897);
+        assertThat(allotments.booked())
+                .extracting(StockAllotmentRepository.Booking::orderId)
+                .containsExactly(FIRST_ORDER, THIRD_ORDER);
+    }
+
+    @Test
+    void missedHeartbeatDropsUnitsFromMemory() throws InterruptedException {
+        properties.setLeaseTimeout(Duration.ofMillis(300));
+        ledger.start();
+        ledger.reserve(FIRST_ORDER, Map.of(PRODUCT, 3L));
+        allotments.releaseAsStale();
+
+        allotments.awaitMissedHeartbeat(Duration.ofSeconds(5));
+        ledger.reserve(SECOND_ORDER, Map.of(PRODUCT, 3L));
+
+        assertThat(allotments.takes(WAREHOUSE_PRODUCT)).isEqualTo(2);
+        assertThat(allotments.booked()).hasSize(2);
+    }
+
+    @Test
+    void startReturnsStaleAllotmentsAndStopReturnsOwnAllotment() throws InterruptedException {
+        allotments.stale.put(WAREHOUSE_PRODUCT, 50L);
+        ledger.start();
+
+        assertThat(allotments.stock(WAREHOUSE_PRODUCT)).isEqualTo(1050);
+
+        ledger.reserve(FIRST_ORDER, Map.of(PRODUCT, 3L));
+        ledger.stop();
+
+        assertThat(allotments.stock(WAREHOUSE_PRODUCT)).isEqualTo(1047);
+        verify(quantityStateOutbox, atLeastOnce()).record(anyMap());
+    }
+
+    private static WarehouseProduct warehouseProduct(UUID id, UUID productId, long quantity) {
+        return WarehouseProduct.builder()
+                .id(id)
+                .warehouse(Warehouse.builder().warehouseId(WAREHOUSE).build())
+                .productId(productId)
+                .quantity(quantity)
+                .weight(2.0)
+                .dimensions(Dimension.builder().width(1.0).height(1.0).depth(1.0).build())
+                .build();
+    }
+
+    /**
+     * Остатки склада и экземпляров в памяти теста. Повторяет проверки запросов {@link StockAllotmentRepository}:
+     * бронирование списывается только с остатка экземпляра, а возврат брошенного остатка переносит его на склад.
+     */
+    private static class InMemoryAllotments extends StockAllotmentRepository {
+        private final Map<UUID, Long> stock;
+        private final Map<UUID, Long> allotted = new HashMap<>();
+        private final Map<UUID, Long> stale = new HashMap<>();
+        private final Map<UUID, Integer> takes = new HashMap<>();
+        private final List<Booking> booked = new ArrayList<>();
+        private boolean heartbeatFailed;
+        private boolean heartbeatMissed;
+
+        InMemoryAllotments(Map<UUID, Long> stock) {
+            super(null);
+            this.stock = new HashMap<>(stock);
+        }
+
+        @Override
+        public synchronized Taken take(UUID owner, UUID id, long amount) {
+            long taken = Math.min(stock.get(id), amount);
+            stock.merge(id, -taken, Long::sum);
+            allotted.merge(id, taken, Long::sum);
+            takes.merge(id, 1, Integer::sum);
+            return new Taken(taken, stock.get(id));
+        }
+
+        @Override
+        public synchronized void book(UUID owner, List<Booking> bookings) {
+            for (Booking booking : bookings) {
+                if (allotted.getOrDefault(booking.warehouseProductId(), 0L) < booking.quantity()) {
+                    throw new AllotmentLostException("Allotment of " + booking.warehouseProductId() + " is lost");
+                }
+            }
+            bookings.forEach(booking -> allotted.merge(booking.warehouseProductId(), -booking.quantity(), Long::sum));
+            booked.addAll(bookings);
+        }
+
+        @Override
+        public synchronized int heartbeat(UUID owner) {
+            heartbeatFailed = allotted.values().stream().noneMatch(quantity -> quantity > 0);
+            return heartbeatFailed ? 0 : 1;
+        }
+
+        @Override
+        public synchronized void release(UUID owner) {
+            allotted.forEach((id, quantity) -> stock.merge(id, quantity, Long::sum));
+            allotted.clear();
+        }
+
+        @Override
+        public synchronized int releaseStale(Duration lease) {
+            // журнал возвращает брошенные остатки после продления, то есть после сброса счетчиков
+            if (heartbeatFailed) {
+                heartbeatMissed = true;
+                notifyAll();
+            }
+            int released = stale.size();
+            stale.forEach((id, quantity) -> stock.merge(id, quantity, Long::sum));
+            stale.clear();
+            return released;
+        }
+
+        /**
+         * Возвращает остаток экземпляра на склад так, как это делает другой экземпляр после {@code lease-timeout}.
+         */
+        synchronized void releaseAsStale() {
+            heartbeatFailed = false;
+            heartbeatMissed = false;
+            release(null);
+        }
+
+        synchronized void awaitMissedHeartbeat(Duration timeout) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeout.toMillis();
+            while (!heartbeatMissed && System.currentTimeMillis() < deadline) {
+                wait(deadline - System.currentTimeMillis());
+            }
+            assertThat(heartbeatMissed).isTrue();
+        }
+
+        synchronized long stock(UUID id) {
+            return stock.get(id);
+        }
+
+        synchronized int takes(UUID id) {
+            return takes.getOrDefault(id, 0);
+        }
+
+        synchronized List<Booking> booked() {
+            return List.copyOf(booked);
+        }
+    }
+
+    /**
+     * Отметки заказов в памяти теста.
+     */
+    private static class InMemoryOrderBookings extends OrderBookingRepository {
+        private final Set<UUID> claimed = new HashSet<>();
+        private volatile boolean failNext;
+
+        InMemoryOrderBookings() {
+            super(null);
+        }
+
+        @Override
+        public synchronized Set<UUID> claimAll(Collection<UUID> orderIds) {
+            if (failNext) {
+                failNext = false;
+                throw new DataAccessResourceFailureException("Connection lost");
+            }
+            Set<UUID> created = new HashSet<>();
+            orderIds.forEach(orderId -> {
+                if (claimed.add(orderId)) {
+                    created.add(orderId);
+                }
+            });
+            return created;
+        }
+    }
+
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.client.ShoppingStoreFeignClient;
+import ru.practicum.config.QuantityStateOutboxProperties;
+import ru.practicum.dto.product.QuantityState;
+import ru.practicum.dto.product.SetProductQuantityStateRequest;
+import ru.practicum.exception.BadRequestException;
+import ru.practicum.exception.ServiceTemporaryUnavailableException;
+import ru.practicum.repository.QuantityStateOutboxRepository;
+import ru.practicum.repository.QuantityStateOutboxRepository.PendingState;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты записи состояний количества в outbox и их отправки в магазин:
+ * пачка забирается, отправляется и помечается отправленной, а при недоступности магазина освобождается.
+ */
+@ExtendWith(MockitoExtension.class)
+class QuantityStateOutboxTest {
+    private static final UUID FIRST_PRODUCT = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+    private static final UUID SECOND_PRODUCT = UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+    private static final UUID THIRD_PRODUCT = UUID.fromString("123e4567-e89b-12d3-a456-426614174002");
+    private static final UUID FOURTH_PRODUCT = UUID.fromString("123e4567-e89b-12d3-a456-426614174003");
+
+    @Mock
+    private QuantityStateOutboxRepository quantityStateOutboxRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private ShoppingStoreFeignClient shoppingStoreClient;
+
+    private final QuantityStateOutboxProperties properties = new QuantityStateOutboxProperties();
+    private QuantityStateOutbox quantityStateOutbox;
+
+    @BeforeEach
+    void setUp() {
+        properties.setRelayBatchSize(2);
+        properties.setClaimTimeout(Duration.ofSeconds(10));
+        quantityStateOutbox = new QuantityStateOutbox(
+                quantityStateOutboxRepository, properties, transactionTemplate, shoppingStoreClient);
+    }
+
+    @Test
+    void recordMapsQuantitiesToStateRanges() {
+        Map<UUID, Long> quantities = new HashMap<>();
+        quantities.put(FIRST_PRODUCT, 0L);
+        quantities.put(SECOND_PRODUCT, 9L);
+        quantities.put(THIRD_PRODUCT, 99L);
+        quantities.put(FOURTH_PRODUCT, 100L);
+        quantities.put(UUID.randomUUID(), null);
+
+        quantityStateOutbox.record(quantities);
+
+        verify(quantityStateOutboxRepository).record(Map.of(
+                FIRST_PRODUCT, QuantityState.ENDED,
+                SECOND_PRODUCT, QuantityState.FEW,
+                THIRD_PRODUCT, QuantityState.ENOUGH,
+                FOURTH_PRODUCT, QuantityState.MANY));
+    }
+
+    @Test
+    void relaySendsClaimedBatchAndMarksItSent() {
+        List<PendingState> batch = List.of(new PendingState(FIRST_PRODUCT, QuantityState.FEW));
+        when(quantityStateOutboxRepository.claimPending(2, Duration.ofSeconds(10))).thenReturn(batch);
+        inTransaction();
+
+        quantityStateOutbox.relay();
+
+        verify(shoppingStoreClient).setQuantityStates(argThat(requests -> requests.size() == 1
+                && isRequest(requests.getFirst(), FIRST_PRODUCT, QuantityState.FEW)));
+        verify(quantityStateOutboxRepository).markSent(batch);
+        verify(quantityStateOutboxRepository, never()).release(any());
+    }
+
+    @Test
+    void relayClaimsNextBatchWhileBatchesAreFull() {
+        List<PendingState> full = List.of(
+                new PendingState(FIRST_PRODUCT, QuantityState.ENDED),
+                new PendingState(SECOND_PRODUCT, QuantityState.MANY));
+        List<PendingState> last = List.of(new PendingState(THIRD_PRODUCT, QuantityState.ENOUGH));
+        when(quantityStateOutboxRepository.claimPending(2, Duration.ofSeconds(10))).thenReturn(full, last);
+        inTransaction();
+
+        quantityStateOutbox.relay();
+
+        verify(shoppingStoreClient, times(2)).setQuantityStates(anyList());
+        verify(quantityStateOutboxRepository).markSent(full);
+        verify(quantityStateOutboxRepository).markSent(last);
+    }
+
+    @Test
+    void unavailableStoreReleasesBatchWithoutMarkingItSent() {
+        List<PendingState> batch = List.of(
+                new PendingState(FIRST_PRODUCT, QuantityState.ENDED),
+                new PendingState(SECOND_PRODUCT, QuantityState.MANY));
+        when(quantityStateOutboxRepository.claimPending(2, Duration.ofSeconds(10))).thenReturn(batch);
+        when(shoppingStoreClient.setQuantityStates(anyList()))
+                .thenThrow(new ServiceTemporaryUnavailableException("Shopping store is unavailable"));
+
+        quantityStateOutbox.relay();
+
+        verify(quantityStateOutboxRepository).release(List.of(FIRST_PRODUCT, SECOND_PRODUCT));
+        verify(quantityStateOutboxRepository, never()).markSent(anyList());
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void rejectedBatchIsDroppedAndNotSentAgain() {
+        List<PendingState> batch = List.of(new PendingState(FIRST_PRODUCT, QuantityState.FEW));
+        when(quantityStateOutboxRepository.claimPending(2, Duration.ofSeconds(10))).thenReturn(batch);
+        when(shoppingStoreClient.setQuantityStates(anyList()))
+                .thenThrow(new BadRequestException("Unknown product"));
+        inTransaction();
+
+        quantityStateOutbox.relay();
+
+        verify(quantityStateOutboxRepository).markSent(batch);
+        verify(quantityStateOutboxRepository, never()).release(any());
+    }
+
+    @Test
+    void emptyOutboxSendsNothing() {
+        when(quantityStateOutboxRepository.claimPending(2, Duration.ofSeconds(10))).thenReturn(List.of());
+
+        quantityStateOutbox.relay();
+
+        verifyNoInteractions(shoppingStoreClient, transactionTemplate);
+    }
+
+    private void inTransaction() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private static boolean isRequest(SetProductQuantityStateRequest request, UUID productId, QuantityState state) {
+        return request.getProductId().equals(productId) && request.getQuantityState() == state;
+    }
+}
@@ -0,0 +1,119 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.config.AvailabilityCacheProperties;
+import ru.practicum.model.ProductAvailability;
+import ru.practicum.repository.StockAvailabilityRepository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты кэша доступности товаров: загрузка отсутствующих товаров, изменение остатков на месте
+ * без продления времени жизни записи и применение изменений после фиксации транзакции.
+ */
+@ExtendWith(MockitoExtension.class)
+class StockAvailabilityCacheTest {
+    private static final UUID FIRST_PRODUCT = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+    private static final UUID SECOND_PRODUCT = UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+
+    @Mock
+    private StockAvailabilityRepository stockAvailabilityRepository;
+
+    private final AvailabilityCacheProperties properties = new AvailabilityCacheProperties();
+
+    @BeforeEach
+    void setUp() {
+        when(stockAvailabilityRepository.findByProductIds(any())).thenAnswer(invocation -> invocation
+                .<Collection<UUID>>getArgument(0).stream()
+                .collect(Collectors.toMap(Function.identity(),
+                        productId -> new ProductAvailability(new AtomicLong(10), 1.0, 0.5, false))));
+    }
+
+    @Test
+    void getAllLoadsOnlyMissingProducts() {
+        StockAvailabilityCache cache = new StockAvailabilityCache(stockAvailabilityRepository, properties);
+
+        cache.getAll(Set.of(FIRST_PRODUCT));
+        Map<UUID, ProductAvailability> availability = cache.getAll(Set.of(FIRST_PRODUCT, SECOND_PRODUCT));
+
+        assertThat(availability).containsOnlyKeys(FIRST_PRODUCT, SECOND_PRODUCT);
+        verify(stockAvailabilityRepository).findByProductIds(argThat(ids -> ids.size() == 1
+                && ids.contains(SECOND_PRODUCT)));
+        verify(stockAvailabilityRepository, times(2)).findByProductIds(any());
+    }
+
+    @Test
+    void changeQuantitiesAdjustsCachedQuantityInPlace() {
+        StockAvailabilityCache cache = new StockAvailabilityCache(stockAvailabilityRepository, properties);
+        ProductAvailability loaded = cache.getAll(Set.of(FIRST_PRODUCT)).get(FIRST_PRODUCT);
+
+        cache.changeQuantities(Map.of(FIRST_PRODUCT, -3L, SECOND_PRODUCT, 5L));
+
+        assertThat(cache.getAll(Set.of(FIRST_PRODUCT)).get(FIRST_PRODUCT)).isSameAs(loaded);
+        assertThat(loaded.quantity().get()).isEqualTo(7);
+        verify(stockAvailabilityRepository, times(1)).findByProductIds(any());
+    }
+
+    @Test
+    void changeQuantitiesDoesNotGoBelowZero() {
+        StockAvailabilityCache cache = new StockAvailabilityCache(stockAvailabilityRepository, properties);
+        ProductAvailability loaded = cache.getAll(Set.of(FIRST_PRODUCT)).get(FIRST_PRODUCT);
+
+        cache.changeQuantities(Map.of(FIRST_PRODUCT, -15L));
+
+        assertThat(loaded.quantity().get()).isZero();
+    }
+
+    @Test
+    void changeQuantitiesDoesNotExtendTtl() throws InterruptedException {
+        properties.setTtl(Duration.ofMillis(300));
+        StockAvailabilityCache cache = new StockAvailabilityCache(stockAvailabilityRepository, properties);
+        cache.getAll(Set.of(FIRST_PRODUCT));
+
+        Thread.sleep(200);
+        cache.changeQuantities(Map.of(FIRST_PRODUCT, -1L));
+        Thread.sleep(200);
+        ProductAvailability reloaded = cache.getAll(Set.of(FIRST_PRODUCT)).get(FIRST_PRODUCT);
+
+        assertThat(reloaded.quantity().get()).isEqualTo(10);
+        verify(stockAvailabilityRepository, times(2)).findByProductIds(any());
+    }
+
+    @Test
+    void changeInsideTransactionIsAppliedAfterCommit() {
+        StockAvailabilityCache cache = new StockAvailabilityCache(stockAvailabilityRepository, properties);
+        ProductAvailability loaded = cache.getAll(Set.of(FIRST_PRODUCT)).get(FIRST_PRODUCT);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.changeQuantities(Map.of(FIRST_PRODUCT, -4L));
+            assertThat(loaded.quantity().get()).isEqualTo(10);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(loaded.quantity().get()).isEqualTo(6);
+    }
+}
@@ -0,0 +1,113 @@
+package ru.practicum.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.config.StockIntakeProperties;
+import ru.practicum.dto.warehouse.StockIntakeLineResult;
+import ru.practicum.dto.warehouse.StockIntakeReport;
+import ru.practicum.dto.warehouse.StockIntakeStatus;
+import ru.practicum.repository.StockIntakeRepository;
+import ru.practicum.repository.StockReservationRepository;
+import ru.practicum.service.allocation.StockAllocationIndex;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Тесты чтения строк пакетной приемки в форматах JSON-массив и NDJSON.
+ */
+@ExtendWith(MockitoExtension.class)
+class StockIntakeServiceTest {
+    private static final UUID FIRST_PRODUCT = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+    private static final UUID SECOND_PRODUCT = UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private StockIntakeRepository stockIntakeRepository;
+    @Mock
+    private StockReservationRepository stockReservationRepository;
+    @Mock
+    private WarehouseDirectory warehouseDirectory;
+    @Mock
+    private QuantityStateOutbox quantityStateOutbox;
+    @Mock
+    private StockAvailabilityCache stockAvailabilityCache;
+    @Mock
+    private StockAllocationIndex stockAllocationIndex;
+
+    private StockIntakeService stockIntakeService;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        stockIntakeService = new StockIntakeService(
+                new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                transactionTemplate,
+                stockIntakeRepository,
+                stockReservationRepository,
+                new StockIntakeProperties(),
+                warehouseDirectory,
+                quantityStateOutbox,
+                stockAvailabilityCache,
+                stockAllocationIndex);
+    }
+
+    @Test
+    void intakeReadsEachElementOfJsonArrayAsLine() {
+        String input = "[" + addLine(FIRST_PRODUCT, 5) + "," + addLine(SECOND_PRODUCT, 7) + "]";
+
+        StockIntakeReport report = intake(input);
+
+        assertAdded(report);
+    }
+
+    @Test
+    void intakeReadsEachValueOfNdjsonAsLine() {
+        String input = addLine(FIRST_PRODUCT, 5) + "\n" + addLine(SECOND_PRODUCT, 7) + "\n";
+
+        StockIntakeReport report = intake(input);
+
+        assertAdded(report);
+    }
+
+    private StockIntakeReport intake(String input) {
+        return stockIntakeService.intake(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void assertAdded(StockIntakeReport report) {
+        assertThat(report.total()).isEqualTo(2);
+        assertThat(report.succeeded()).isEqualTo(2);
+        assertThat(report.results())
+                .extracting(StockIntakeLineResult::line, StockIntakeLineResult::status)
+                .containsExactly(
+                        tuple(1L, StockIntakeStatus.ADDED),
+                        tuple(2L, StockIntakeStatus.ADDED));
+        verify(stockIntakeRepository).add(Map.of(FIRST_PRODUCT, 5L, SECOND_PRODUCT, 7L));
+    }
+
+    private static String addLine(UUID productId, long quantity) {
+        return "{\"add\":{\"productId\":\"" + productId + "\",\"quantity\":" + quantity + "}}";
+    }
+}
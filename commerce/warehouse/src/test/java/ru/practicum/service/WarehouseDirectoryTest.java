@@ -0,0 +1,145 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.config.WarehouseSelectionProperties;
+import ru.practicum.dto.warehouse.AddressDto;
+import ru.practicum.mapper.AddressMapperImpl;
+import ru.practicum.model.Address;
+import ru.practicum.model.Warehouse;
+import ru.practicum.repository.WarehouseRepository;
+import ru.practicum.service.selection.CapacityWarehouseSelection;
+import ru.practicum.service.selection.ConfiguredWarehouseSelection;
+import ru.practicum.service.selection.ProximityWarehouseSelection;
+import ru.practicum.service.selection.SelectionPolicy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты справочника складов: выбор склада каждой политикой, учет новых товаров в памяти
+ * и перечитывание складов из БД только после истечения {@code metadata-ttl}.
+ */
+@ExtendWith(MockitoExtension.class)
+class WarehouseDirectoryTest {
+    private static final UUID MOSCOW = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+    private static final UUID KAZAN = UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+    private static final UUID MINSK = UUID.fromString("123e4567-e89b-12d3-a456-426614174002");
+
+    @Mock
+    private WarehouseRepository warehouseRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final WarehouseSelectionProperties properties = new WarehouseSelectionProperties();
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(warehouseRepository.findAllWithAddress()).thenReturn(List.of(
+                warehouse(MOSCOW, "Россия", "Москва"),
+                warehouse(KAZAN, "Россия", "Казань"),
+                warehouse(MINSK, "Беларусь", "Минск")));
+        when(warehouseRepository.countProductsByWarehouse()).thenReturn(List.of(
+                new ProductCount(MOSCOW, 5),
+                new ProductCount(KAZAN, 3)));
+    }
+
+    @Test
+    void configuredPolicySelectsPreferredWarehouse() {
+        properties.setPreferredWarehouseId(KAZAN);
+
+        assertThat(directory(SelectionPolicy.CONFIGURED).select(null).warehouseId()).isEqualTo(KAZAN);
+    }
+
+    @Test
+    void configuredPolicySelectsFirstWarehouseWithoutPreference() {
+        assertThat(directory(SelectionPolicy.CONFIGURED).select(null).warehouseId()).isEqualTo(MOSCOW);
+    }
+
+    @Test
+    void capacityPolicySelectsWarehouseWithFewestProducts() {
+        WarehouseDirectory directory = directory(SelectionPolicy.CAPACITY);
+
+        assertThat(directory.select(null).warehouseId()).isEqualTo(MINSK);
+
+        for (int i = 0; i < 4; i++) {
+            directory.productAdded(MINSK);
+        }
+
+        assertThat(directory.select(null).warehouseId()).isEqualTo(KAZAN);
+    }
+
+    @Test
+    void proximityPolicyPrefersSameCityThenSameCountry() {
+        properties.setPreferredWarehouseId(MOSCOW);
+        WarehouseDirectory directory = directory(SelectionPolicy.PROXIMITY);
+
+        assertThat(directory.select(address("россия", "казань")).warehouseId()).isEqualTo(KAZAN);
+        assertThat(directory.select(address("Беларусь", "Гродно")).warehouseId()).isEqualTo(MINSK);
+        assertThat(directory.select(address("Казахстан", "Алматы")).warehouseId()).isEqualTo(MOSCOW);
+        assertThat(directory.select(null).warehouseId()).isEqualTo(MOSCOW);
+    }
+
+    @Test
+    void warehousesAreReadOnceWithinMetadataTtl() {
+        WarehouseDirectory directory = directory(SelectionPolicy.CONFIGURED);
+
+        directory.select(null);
+        directory.select(null);
+
+        assertThat(directory.contains(MINSK)).isTrue();
+        assertThat(directory.contains(UUID.randomUUID())).isFalse();
+        verify(warehouseRepository, times(1)).findAllWithAddress();
+        verify(warehouseRepository, times(1)).countProductsByWarehouse();
+    }
+
+    @Test
+    void warehousesAreReadAgainAfterMetadataTtl() throws InterruptedException {
+        properties.setMetadataTtl(Duration.ofMillis(1));
+        WarehouseDirectory directory = directory(SelectionPolicy.CONFIGURED);
+
+        directory.select(null);
+        Thread.sleep(10);
+        directory.select(null);
+
+        verify(warehouseRepository, times(2)).findAllWithAddress();
+    }
+
+    private WarehouseDirectory directory(SelectionPolicy policy) {
+        properties.setPolicy(policy);
+        return new WarehouseDirectory(warehouseRepository, new AddressMapperImpl(), transactionTemplate, properties,
+                Set.of(new ConfiguredWarehouseSelection(), new CapacityWarehouseSelection(),
+                        new ProximityWarehouseSelection()));
+    }
+
+    private static Warehouse warehouse(UUID warehouseId, String country, String city) {
+        return Warehouse.builder()
+                .warehouseId(warehouseId)
+                .name("Склад " + city)
+                .address(Address.builder().country(country).city(city).street("Ленина").house("1").build())
+                .build();
+    }
+
+    private static AddressDto address(String country, String city) {
+        return new AddressDto(country, city, "Советская", "2", "3");
+    }
+
+    private record ProductCount(UUID getWarehouseId, long getProductCount)
+            implements WarehouseRepository.WarehouseProductCount {
+    }
+}
@@ -0,0 +1,188 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.config.AllocationProperties;
+import ru.practicum.dto.warehouse.AssemblyProductsForOrderRequest;
+import ru.practicum.dto.warehouse.OrderAllocationDto;
+import ru.practicum.dto.warehouse.WarehouseShipmentDto;
+import ru.practicum.exception.ProductInShoppingCartLowQuantityInWarehouse;
+import ru.practicum.mapper.DimensionMapper;
+import ru.practicum.model.BookedProduct;
+import ru.practicum.model.Dimension;
+import ru.practicum.model.Warehouse;
+import ru.practicum.model.WarehouseProduct;
+import ru.practicum.repository.BookedProductRepository;
+import ru.practicum.repository.OrderBookingRepository;
+import ru.practicum.repository.StockIntakeRepository;
+import ru.practicum.repository.StockReservationRepository;
+import ru.practicum.repository.WarehouseProductRepository;
+import ru.practicum.repository.WarehouseRepository;
+import ru.practicum.service.allocation.AllocationEngine;
+import ru.practicum.service.allocation.StockAllocationIndex;
+import ru.practicum.service.allocation.StockRow;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты сборки товаров для заказа: повтор распределения по устаревшему индексу остатков
+ * и возврат существующего бронирования при повторном запросе.
+ */
+@ExtendWith(MockitoExtension.class)
+class WarehouseServiceImplTest {
+    private static final UUID ORDER_ID = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+    private static final UUID PRODUCT_ID = UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+    private static final UUID STALE_ROW = UUID.fromString("123e4567-e89b-12d3-a456-426614174010");
+    private static final UUID FRESH_ROW = UUID.fromString("123e4567-e89b-12d3-a456-426614174011");
+    private static final UUID FIRST_WAREHOUSE = UUID.fromString("123e4567-e89b-12d3-a456-426614174020");
+    private static final UUID SECOND_WAREHOUSE = UUID.fromString("123e4567-e89b-12d3-a456-426614174021");
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private WarehouseRepository warehouseRepository;
+    @Mock
+    private WarehouseProductRepository warehouseProductRepository;
+    @Mock
+    private BookedProductRepository bookedProductRepository;
+    @Mock
+    private OrderBookingRepository orderBookingRepository;
+    @Mock
+    private DimensionMapper dimensionMapper;
+    @Mock
+    private StockReservationRepository stockReservationRepository;
+    @Mock
+    private StockIntakeRepository stockIntakeRepository;
+    @Mock
+    private ObjectProvider<HotSkuLedger> hotSkuLedger;
+    @Mock
+    private QuantityStateOutbox quantityStateOutbox;
+    @Mock
+    private StockAvailabilityCache stockAvailabilityCache;
+    @Mock
+    private WarehouseDirectory warehouseDirectory;
+    @Mock
+    private StockAllocationIndex stockAllocationIndex;
+
+    private WarehouseServiceImpl warehouseService;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        warehouseService = new WarehouseServiceImpl(transactionTemplate, warehouseRepository,
+                warehouseProductRepository, bookedProductRepository, orderBookingRepository, dimensionMapper,
+                stockReservationRepository, stockIntakeRepository, new RetryTemplate(), hotSkuLedger,
+                quantityStateOutbox, stockAvailabilityCache, warehouseDirectory, stockAllocationIndex,
+                new AllocationEngine(new AllocationProperties()));
+    }
+
+    @Test
+    void staleIndexIsInvalidatedAndAllocationRetried() {
+        when(stockAllocationIndex.getAll(Set.of(PRODUCT_ID))).thenReturn(
+                Map.of(PRODUCT_ID, List.of(row(STALE_ROW, FIRST_WAREHOUSE, 10))),
+                Map.of(PRODUCT_ID, List.of(row(FRESH_ROW, SECOND_WAREHOUSE, 10))));
+        when(orderBookingRepository.claim(ORDER_ID)).thenReturn(true);
+        when(stockReservationRepository.reserve(any())).thenReturn(List.of(STALE_ROW), List.of());
+
+        OrderAllocationDto allocation = warehouseService.allocateProductsForOrder(request());
+
+        assertThat(allocation.shipments())
+                .extracting(WarehouseShipmentDto::warehouseId, WarehouseShipmentDto::products)
+                .containsExactly(tuple(SECOND_WAREHOUSE, Map.of(PRODUCT_ID, 4L)));
+        verify(stockAllocationIndex).invalidate(Set.of(PRODUCT_ID));
+        verify(bookedProductRepository, times(1)).saveAll(anyList());
+        verify(stockAllocationIndex).reserved(anyList());
+    }
+
+    @Test
+    void shortfallAfterRetryIsReported() {
+        when(stockAllocationIndex.getAll(Set.of(PRODUCT_ID))).thenReturn(
+                Map.of(PRODUCT_ID, List.of(row(STALE_ROW, FIRST_WAREHOUSE, 10))));
+        when(orderBookingRepository.claim(ORDER_ID)).thenReturn(true);
+        when(stockReservationRepository.reserve(any())).thenReturn(List.of(STALE_ROW));
+
+        assertThatThrownBy(() -> warehouseService.allocateProductsForOrder(request()))
+                .isInstanceOf(ProductInShoppingCartLowQuantityInWarehouse.class)
+                .hasMessageContaining(PRODUCT_ID.toString());
+
+        verify(stockAllocationIndex, times(2)).invalidate(Set.of(PRODUCT_ID));
+        verify(bookedProductRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void bookedOrderReturnsExistingAllocation() {
+        when(bookedProductRepository.findAllByOrderIdAndQuantityGreaterThan(ORDER_ID, 0L))
+                .thenReturn(List.of(bookedProduct()));
+
+        OrderAllocationDto allocation = warehouseService.allocateProductsForOrder(request());
+
+        assertThat(allocation.shipments())
+                .extracting(WarehouseShipmentDto::warehouseId)
+                .containsExactly(FIRST_WAREHOUSE);
+        verifyNoInteractions(stockAllocationIndex, orderBookingRepository, stockReservationRepository);
+    }
+
+    @Test
+    void concurrentlyBookedOrderReturnsItsAllocationWithoutReserving() {
+        when(bookedProductRepository.findAllByOrderIdAndQuantityGreaterThan(ORDER_ID, 0L))
+                .thenReturn(List.of(), List.of(bookedProduct()));
+        when(stockAllocationIndex.getAll(Set.of(PRODUCT_ID))).thenReturn(
+                Map.of(PRODUCT_ID, List.of(row(FRESH_ROW, SECOND_WAREHOUSE, 10))));
+        when(orderBookingRepository.claim(ORDER_ID)).thenReturn(false);
+
+        OrderAllocationDto allocation = warehouseService.allocateProductsForOrder(request());
+
+        assertThat(allocation.shipments())
+                .extracting(WarehouseShipmentDto::warehouseId)
+                .containsExactly(FIRST_WAREHOUSE);
+        verifyNoInteractions(stockReservationRepository);
+        verify(bookedProductRepository, never()).saveAll(anyList());
+    }
+
+    private static AssemblyProductsForOrderRequest request() {
+        return new AssemblyProductsForOrderRequest(Map.of(PRODUCT_ID, 4L), ORDER_ID);
+    }
+
+    private static StockRow row(UUID warehouseProductId, UUID warehouseId, long quantity) {
+        return new StockRow(warehouseProductId, warehouseId, PRODUCT_ID, new AtomicLong(quantity), 1.0, 0.1, false);
+    }
+
+    private static BookedProduct bookedProduct() {
+        return BookedProduct.builder()
+                .orderId(ORDER_ID)
+                .quantity(4L)
+                .warehouseProduct(WarehouseProduct.builder()
+                        .id(STALE_ROW)
+                        .warehouse(Warehouse.builder().warehouseId(FIRST_WAREHOUSE).build())
+                        .productId(PRODUCT_ID)
+                        .quantity(6L)
+                        .weight(1.0)
+                        .dimensions(Dimension.builder().width(1.0).height(1.0).depth(1.0).build())
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package ru.practicum.service.allocation;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.config.AllocationProperties;
+import ru.practicum.exception.ProductInShoppingCartLowQuantityInWarehouse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Тесты распределения заказа по складам: наименьший набор складов, деление позиции между складами
+ * и жадный выбор складов сверх {@code exact-search-limit}.
+ */
+class AllocationEngineTest {
+    private static final UUID FIRST_PRODUCT = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+    private static final UUID SECOND_PRODUCT = UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+    private static final UUID FIRST_WAREHOUSE = UUID.fromString("123e4567-e89b-12d3-a456-426614174010");
+    private static final UUID SECOND_WAREHOUSE = UUID.fromString("123e4567-e89b-12d3-a456-426614174011");
+    private static final UUID THIRD_WAREHOUSE = UUID.fromString("123e4567-e89b-12d3-a456-426614174012");
+
+    private final AllocationProperties properties = new AllocationProperties();
+    private final AllocationEngine allocationEngine = new AllocationEngine(properties);
+
+    @Test
+    void singleWarehouseCoveringOrderIsPreferredOverSplit() {
+        Map<UUID, List<StockRow>> rows = Map.of(
+                FIRST_PRODUCT, List.of(row(FIRST_WAREHOUSE, FIRST_PRODUCT, 50), row(THIRD_WAREHOUSE, FIRST_PRODUCT, 5)),
+                SECOND_PRODUCT, List.of(row(SECOND_WAREHOUSE, SECOND_PRODUCT, 50),
+                        row(THIRD_WAREHOUSE, SECOND_PRODUCT, 5)));
+
+        List<Allocation> allocations = allocationEngine.allocate(Map.of(FIRST_PRODUCT, 5L, SECOND_PRODUCT, 5L), rows);
+
+        assertThat(allocations)
+                .extracting(allocation -> allocation.row().warehouseId())
+                .containsOnly(THIRD_WAREHOUSE);
+        assertThat(allocations)
+                .extracting(allocation -> allocation.row().productId(), Allocation::quantity)
+                .containsExactlyInAnyOrder(tuple(FIRST_PRODUCT, 5L), tuple(SECOND_PRODUCT, 5L));
+    }
+
+    @Test
+    void warehouseWithLargestStockIsChosenAmongEqualCovers() {
+        Map<UUID, List<StockRow>> rows = Map.of(FIRST_PRODUCT, List.of(
+                row(FIRST_WAREHOUSE, FIRST_PRODUCT, 10),
+                row(SECOND_WAREHOUSE, FIRST_PRODUCT, 30)));
+
+        List<Allocation> allocations = allocationEngine.allocate(Map.of(FIRST_PRODUCT, 5L), rows);
+
+        assertThat(allocations)
+                .extracting(allocation -> allocation.row().warehouseId(), Allocation::quantity)
+                .containsExactly(tuple(SECOND_WAREHOUSE, 5L));
+    }
+
+    @Test
+    void positionIsSplitOnlyWhenNoWarehouseHasItWhole() {
+        Map<UUID, List<StockRow>> rows = Map.of(FIRST_PRODUCT, List.of(
+                row(FIRST_WAREHOUSE, FIRST_PRODUCT, 6),
+                row(SECOND_WAREHOUSE, FIRST_PRODUCT, 7),
+                row(THIRD_WAREHOUSE, FIRST_PRODUCT, 2)));
+
+        List<Allocation> allocations = allocationEngine.allocate(Map.of(FIRST_PRODUCT, 10L), rows);
+
+        assertThat(allocations)
+                .extracting(allocation -> allocation.row().warehouseId(), Allocation::quantity)
+                .containsExactly(tuple(SECOND_WAREHOUSE, 7L), tuple(FIRST_WAREHOUSE, 3L));
+    }
+
+    @Test
+    void warehousesAreAddedGreedilyAboveExactSearchLimit() {
+        properties.setExactSearchLimit(2);
+        Map<UUID, List<StockRow>> rows = Map.of(
+                FIRST_PRODUCT, List.of(row(FIRST_WAREHOUSE, FIRST_PRODUCT, 5), row(THIRD_WAREHOUSE, FIRST_PRODUCT, 5)),
+                SECOND_PRODUCT, List.of(row(SECOND_WAREHOUSE, SECOND_PRODUCT, 5),
+                        row(THIRD_WAREHOUSE, SECOND_PRODUCT, 4)));
+
+        List<Allocation> allocations = allocationEngine.allocate(Map.of(FIRST_PRODUCT, 5L, SECOND_PRODUCT, 5L), rows);
+
+        assertThat(allocations)
+                .extracting(allocation -> allocation.row().warehouseId(), allocation -> allocation.row().productId(),
+                        Allocation::quantity)
+                .containsExactlyInAnyOrder(
+                        tuple(THIRD_WAREHOUSE, FIRST_PRODUCT, 5L),
+                        tuple(SECOND_WAREHOUSE, SECOND_PRODUCT, 5L));
+    }
+
+    @Test
+    void shortfallIsReportedWithProductIds() {
+        Map<UUID, List<StockRow>> rows = Map.of(FIRST_PRODUCT, List.of(
+                row(FIRST_WAREHOUSE, FIRST_PRODUCT, 3),
+                row(SECOND_WAREHOUSE, FIRST_PRODUCT, 4)));
+
+        assertThatThrownBy(() -> allocationEngine.allocate(Map.of(FIRST_PRODUCT, 8L, SECOND_PRODUCT, 1L), rows))
+                .isInstanceOf(ProductInShoppingCartLowQuantityInWarehouse.class)
+                .hasMessageContaining(FIRST_PRODUCT.toString())
+                .hasMessageContaining(SECOND_PRODUCT.toString());
+    }
+
+    @Test
+    void emptyOrderNeedsNoWarehouses() {
+        assertThat(allocationEngine.allocate(Map.of(), Map.of())).isEmpty();
+    }
+
+    private static StockRow row(UUID warehouseId, UUID productId, long quantity) {
+        return new StockRow(UUID.randomUUID(), warehouseId, productId, new AtomicLong(quantity), 1.0, 0.1, false);
+    }
+}
@@ -0,0 +1,139 @@
+package ru.practicum.aggregation;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.kafka.telemetry.event.CompactSensorStateAvro;
+import ru.yandex.practicum.kafka.telemetry.event.CompactSensorsSnapshotAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Агрегация событий датчиков в компактные снимки состояния хабов.
+ *
+ * <p>Работает так же, как {@link SnapshotAggregator}, но хранит и возвращает
+ * {@link CompactSensorsSnapshotAvro}: состояния датчиков лежат массивом с кодами из
+ * {@link SensorIdDictionary} вместо карты со строковыми ключами. Состояние датчика ищется
+ * сравнением кодов; датчики без кода хранятся с идентификатором и получают код,
+ * как только он появится в словаре.
+ *
+ * <p>События одного хаба должны обрабатываться последовательно.
+ */
+@Slf4j
+public class CompactSnapshotAggregator {
+    private final SensorIdDictionary dictionary;
+    private final Map<String, CompactSensorsSnapshotAvro> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Создаёт агрегатор поверх словаря идентификаторов датчиков.
+     *
+     * @param dictionary словари идентификаторов датчиков хабов
+     */
+    public CompactSnapshotAggregator(SensorIdDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Обновляет состояние датчика хаба по событию.
+     *
+     * @param event событие датчика для обработки
+     * @return новый снимок хаба, если состояние изменилось, или пустой {@link Optional},
+     * если событие устарело или не меняет показания
+     */
+    public Optional<CompactSensorsSnapshotAvro> updateState(SensorEventAvro event) {
+        if (event == null) {
+            return Optional.empty();
+        }
+
+        String hubId = event.getHubId();
+        String sensorId = event.getId();
+        int code = dictionary.codeOf(hubId, sensorId);
+
+        CompactSensorsSnapshotAvro current = snapshots.get(hubId);
+        List<CompactSensorStateAvro> states = current == null
+                ? new ArrayList<>()
+                : new ArrayList<>(current.getSensorsState());
+
+        int index = indexOf(states, code, sensorId);
+        if (index >= 0) {
+            CompactSensorStateAvro oldState = states.get(index);
+            if (oldState.getTimestamp().isAfter(event.getTimestamp())
+                || oldState.getData().equals(event.getPayload())) {
+                return Optional.empty();
+            }
+        }
+
+        CompactSensorStateAvro newState = CompactSensorStateAvro.newBuilder()
+                .setCode(code)
+                .setId(code == SensorIdDictionary.NO_CODE ? sensorId : null)
+                .setTimestamp(event.getTimestamp())
+                .setData(event.getPayload())
+                .build();
+
+        if (index >= 0) {
+            states.set(index, newState);
+        } else {
+            states.add(newState);
+        }
+
+        CompactSensorsSnapshotAvro snapshot = CompactSensorsSnapshotAvro.newBuilder()
+                .setHubId(hubId)
+                .setTimestamp(event.getTimestamp())
+                .setSensorsState(states)
+                .build();
+        snapshots.put(hubId, snapshot);
+
+        log.debug("Updated compact snapshot of hub {}, sensors: {}", hubId, states.size());
+        return Optional.of(snapshot);
+    }
+
+    /**
+     * Возвращает текущий снимок хаба.
+     * Снимки не изменяются после публикации, поэтому метод можно вызывать из любого потока.
+     *
+     * @param hubId идентификатор хаба
+     * @return снимок хаба или пустой {@link Optional}, если состояния хаба нет
+     */
+    public Optional<CompactSensorsSnapshotAvro> get(String hubId) {
+        return Optional.ofNullable(snapshots.get(hubId));
+    }
+
+    /**
+     * Восстанавливает снимок хаба, например прочитанный из топика снимков при назначении партиции.
+     * Заменяет текущий снимок хаба.
+     *
+     * @param snapshot снимок хаба
+     */
+    public void restore(CompactSensorsSnapshotAvro snapshot) {
+        snapshots.put(snapshot.getHubId(), snapshot);
+    }
+
+    /**
+     * Удаляет снимки хабов, удовлетворяющих условию (например, хабов отозванных партиций).
+     *
+     * @param hubIds условие удаления хаба
+     */
+    public void evict(Predicate<String> hubIds) {
+        snapshots.keySet().removeIf(hubIds);
+    }
+
+    /**
+     * Ищет состояние датчика: по коду, а для состояний, сохранённых без кода, - по идентификатору.
+     */
+    private static int indexOf(List<CompactSensorStateAvro> states, int code, String sensorId) {
+        for (int i = 0; i < states.size(); i++) {
+            CompactSensorStateAvro state = states.get(i);
+            if (code != SensorIdDictionary.NO_CODE && state.getCode() == code) {
+                return i;
+            }
+            if (state.getId() != null && state.getId().equals(sensorId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.aggregation;
+
+import ru.yandex.practicum.kafka.telemetry.event.CompactSensorStateAvro;
+import ru.yandex.practicum.kafka.telemetry.event.CompactSensorsSnapshotAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorStateAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Преобразование компактных снимков в снимки со строковыми идентификаторами датчиков.
+ */
+public final class CompactSnapshots {
+
+    private CompactSnapshots() {
+    }
+
+    /**
+     * Проверяет, что все коды датчиков снимка есть в словаре.
+     *
+     * @param snapshot   компактный снимок
+     * @param dictionary словари идентификаторов датчиков
+     * @return true если снимок можно восстановить полностью
+     */
+    public static boolean isResolvable(CompactSensorsSnapshotAvro snapshot, SensorIdDictionary dictionary) {
+        for (CompactSensorStateAvro state : snapshot.getSensorsState()) {
+            if (sensorIdOf(snapshot.getHubId(), state, dictionary) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Восстанавливает снимок со строковыми идентификаторами датчиков.
+     * Состояния с кодами, которых нет в словаре, пропускаются.
+     *
+     * @param snapshot   компактный снимок
+     * @param dictionary словари идентификаторов датчиков
+     * @return снимок с картой состояний по идентификаторам датчиков
+     */
+    public static SensorsSnapshotAvro decode(CompactSensorsSnapshotAvro snapshot, SensorIdDictionary dictionary) {
+        Map<String, SensorStateAvro> states = new HashMap<>(snapshot.getSensorsState().size() * 2);
+        for (CompactSensorStateAvro state : snapshot.getSensorsState()) {
+            String sensorId = sensorIdOf(snapshot.getHubId(), state, dictionary);
+            if (sensorId != null) {
+                states.put(sensorId, SensorStateAvro.newBuilder()
+                        .setTimestamp(state.getTimestamp())
+                        .setData(state.getData())
+                        .build());
+            }
+        }
+
+        return SensorsSnapshotAvro.newBuilder()
+                .setHubId(snapshot.getHubId())
+                .setTimestamp(snapshot.getTimestamp())
+                .setSensorsState(states)
+                .build();
+    }
+
+    private static String sensorIdOf(String hubId, CompactSensorStateAvro state, SensorIdDictionary dictionary) {
+        if (state.getId() != null) {
+            return state.getId();
+        }
+        return dictionary.sensorIdOf(hubId, state.getCode());
+    }
+}
@@ -1,22 +1,21 @@
-package ru.practicum.repository;
+package ru.practicum.aggregation;
 
-import org.springframework.stereotype.Component;
 import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
 
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 /**
  * Репозиторий для хранения снимков показаний датчиков в памяти.
  * Обеспечивает потокобезопасное хранение и доступ к данным с использованием ConcurrentHashMap.
  *
- * <p>Класс является компонентом Spring и может быть автоматически внедрен через механизм dependency injection.
+ * <p>Не зависит от Spring и используется как агрегатором, так и анализатором в совмещённом режиме.
  *
  * @see SensorsSnapshotAvro
  * @see ConcurrentHashMap
  */
-@Component
 public class InMemoryRepository {
     private final Map<String, SensorsSnapshotAvro> snapshots = new ConcurrentHashMap<>();
 
@@ -48,4 +47,13 @@ public class InMemoryRepository {
         snapshots.put(sensorsSnapshotAvro.getHubId(), sensorsSnapshotAvro);
         return sensorsSnapshotAvro;
     }
+
+    /**
+     * Удаляет снимки хабов, удовлетворяющих условию (например, хабов отозванных партиций).
+     *
+     * @param hubIds условие удаления хаба
+     */
+    public void evict(Predicate<String> hubIds) {
+        snapshots.keySet().removeIf(hubIds);
+    }
 }
@@ -0,0 +1,81 @@
+package ru.practicum.aggregation;
+
+import ru.yandex.practicum.kafka.telemetry.event.SensorIdDictionaryAvro;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Словари идентификаторов датчиков хабов: код датчика - индекс его идентификатора в словаре хаба.
+ *
+ * <p>Словари только читаются: коды выдаёт анализатор при добавлении устройств и публикует
+ * словарь хаба целиком ({@link SensorIdDictionaryAvro}), а агрегатор и анализатор применяют
+ * последнюю версию через {@link #update(SensorIdDictionaryAvro)}.
+ *
+ * <p>Словарь хаба заменяется целиком, поэтому чтение из любого потока видит согласованную версию.
+ */
+public class SensorIdDictionary {
+    /**
+     * Код датчика, которому ещё не выдан код.
+     */
+    public static final int NO_CODE = -1;
+
+    private final Map<String, HubDictionary> hubs = new ConcurrentHashMap<>();
+
+    /**
+     * Применяет опубликованный словарь хаба.
+     * Словарь короче уже известного игнорируется: коды выдаются только добавлением.
+     *
+     * @param dictionary словарь хаба
+     */
+    public void update(SensorIdDictionaryAvro dictionary) {
+        HubDictionary updated = new HubDictionary(List.copyOf(dictionary.getSensorIds()));
+        hubs.merge(dictionary.getHubId(), updated,
+                (current, candidate) -> candidate.sensorIds.size() >= current.sensorIds.size() ? candidate : current);
+    }
+
+    /**
+     * Возвращает код датчика хаба.
+     *
+     * @param hubId    идентификатор хаба
+     * @param sensorId идентификатор датчика
+     * @return код датчика или {@link #NO_CODE}, если код не выдан
+     */
+    public int codeOf(String hubId, String sensorId) {
+        HubDictionary dictionary = hubs.get(hubId);
+        if (dictionary == null) {
+            return NO_CODE;
+        }
+        return dictionary.codes.getOrDefault(sensorId, NO_CODE);
+    }
+
+    /**
+     * Возвращает идентификатор датчика хаба по коду.
+     *
+     * @param hubId идентификатор хаба
+     * @param code  код датчика
+     * @return идентификатор датчика или null, если код неизвестен
+     */
+    public String sensorIdOf(String hubId, int code) {
+        HubDictionary dictionary = hubs.get(hubId);
+        if (dictionary == null || code < 0 || code >= dictionary.sensorIds.size()) {
+            return null;
+        }
+        return dictionary.sensorIds.get(code);
+    }
+
+    private static final class HubDictionary {
+        private final List<String> sensorIds;
+        private final Map<String, Integer> codes;
+
+        private HubDictionary(List<String> sensorIds) {
+            this.sensorIds = sensorIds;
+            this.codes = new HashMap<>(sensorIds.size() * 2);
+            for (int code = 0; code < sensorIds.size(); code++) {
+                codes.put(sensorIds.get(code), code);
+            }
+        }
+    }
+}
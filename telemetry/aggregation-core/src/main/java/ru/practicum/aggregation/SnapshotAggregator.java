@@ -0,0 +1,103 @@
+package ru.practicum.aggregation;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorStateAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Агрегация событий датчиков в снимки состояния хабов.
+ *
+ * <p>Не зависит от Kafka и Spring: принимает событие датчика и возвращает новый снимок хаба,
+ * если событие изменило его состояние. Используется агрегатором и анализатором
+ * в совмещённом режиме, где снимки передаются на проверку сценариев в памяти.
+ *
+ * <p>События одного хаба должны обрабатываться последовательно.
+ *
+ * @see InMemoryRepository
+ */
+@Slf4j
+public class SnapshotAggregator {
+    private final InMemoryRepository repository;
+
+    /**
+     * Создаёт агрегатор поверх хранилища снимков.
+     *
+     * @param repository хранилище текущих снимков хабов
+     */
+    public SnapshotAggregator(InMemoryRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Обновляет состояние датчиков на основе полученного события.
+     *
+     * <p>Метод выполняет следующие проверки и действия:
+     * <ul>
+     *   <li>Игнорирует null события</li>
+     *   <li>Проверяет существующее состояние датчика в репозитории</li>
+     *   <li>Обновляет состояние только если данные новые или timestamp более свежий</li>
+     *   <li>Создает новый снимок состояния при изменениях</li>
+     * </ul>
+     *
+     * @param event событие датчика для обработки
+     * @return {@link Optional} содержащий обновленный {@link SensorsSnapshotAvro} если состояние изменилось,
+     * или пустой {@link Optional} если обновление не требуется
+     */
+    public Optional<SensorsSnapshotAvro> updateState(SensorEventAvro event) {
+        if (event == null) {
+            return Optional.empty();
+        }
+
+        log.info("Updating state for event {}", event);
+
+        // Получаем снапшот для hubId
+        Optional<SensorsSnapshotAvro> optSnapshot = repository.get(event.getHubId());
+        Map<String, SensorStateAvro> states;
+        SensorsSnapshotAvro snapshotAvro;
+
+        if (optSnapshot.isPresent()) {
+            snapshotAvro = optSnapshot.get();
+            // Проверяем, есть ли в снапшоте данные для event.getId()
+            states = new HashMap<>(snapshotAvro.getSensorsState());
+            SensorStateAvro oldState = states.get(event.getId());
+
+            if (oldState != null) {
+                log.debug("Found old state {}", oldState);
+                // Проверяем, нужно ли обновлять данные
+                if (oldState.getTimestamp().isAfter(event.getTimestamp()) ||
+                    oldState.getData().equals(event.getPayload())) {
+                    return Optional.empty();
+                }
+            }
+        } else {
+            states = new HashMap<>();
+        }
+
+        // Создаём экземпляр SensorStateAvro на основе данных события
+        SensorStateAvro newState = SensorStateAvro.newBuilder()
+                .setData(event.getPayload())
+                .setTimestamp(event.getTimestamp())
+                .build();
+
+        log.debug("Updating state by new state {}", newState);
+
+        // Добавляем полученный экземпляр в снапшот
+        states.put(event.getId(), newState);
+
+        // Обновляем снапшот
+        snapshotAvro = SensorsSnapshotAvro.newBuilder()
+                .setHubId(event.getHubId())
+                .setSensorsState(states)
+                .setTimestamp(event.getTimestamp())
+                .build();
+
+        log.debug("Updating snapshot {}", snapshotAvro);
+
+        return Optional.of(repository.put(snapshotAvro));
+    }
+}
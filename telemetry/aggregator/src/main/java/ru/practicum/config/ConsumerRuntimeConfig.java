@@ -0,0 +1,24 @@
+package ru.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.practicum.kafka.ConsumerRuntimeSettings;
+
+/**
+ * Настройки цикла опроса Kafka агрегатора.
+ * Связывает свойства {@code aggregator.consumer.*} из конфигурации
+ * с параметрами {@link ru.practicum.kafka.ConsumerRuntime}.
+ */
+@Getter
+@Setter
+@ToString
+@ConfigurationProperties("aggregator.consumer")
+public class ConsumerRuntimeConfig {
+    /**
+     * Настройки консьюмера событий датчиков.
+     * Порог {@code max-in-flight} ограничивает события, чьи снимки ещё не подтверждены брокером.
+     */
+    private ConsumerRuntimeSettings sensors = new ConsumerRuntimeSettings();
+}
@@ -67,6 +67,25 @@ public class KafkaConfig {
      */
     private Properties consumerProperties;
 
+    /**
+     * Настройки Kafka консьюмера словарей идентификаторов датчиков.
+     * Используются только в режиме {@link SnapshotEncoding#COMPACT}; топик читается
+     * целиком без группы потребителей, поэтому {@code group.id} не задаётся.
+     *
+     * @see org.apache.kafka.clients.consumer.ConsumerConfig
+     */
+    private Properties dictionaryConsumerProperties;
+
+    /**
+     * Настройки Kafka консьюмера, которым снимки хабов назначенных партиций восстанавливаются
+     * из топика снимков. Партиции назначаются вручную, поэтому {@code group.id} не задаётся;
+     * {@code value.deserializer} выбирается по формату снимков.
+     *
+     * @see StateHandOffConfig
+     * @see org.apache.kafka.clients.consumer.ConsumerConfig
+     */
+    private Properties restoreConsumerProperties;
+
     /**
      * Устанавливает соответствие между строковыми ключами топиков из конфигурации
      * и перечислением {@link TopicType}.
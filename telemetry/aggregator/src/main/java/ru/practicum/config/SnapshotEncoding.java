@@ -0,0 +1,19 @@
+package ru.practicum.config;
+
+/**
+ * Формат снимков состояния датчиков, публикуемых агрегатором.
+ */
+public enum SnapshotEncoding {
+    /**
+     * Снимки {@code SensorsSnapshotAvro} с картой состояний по строковым идентификаторам датчиков
+     * в топике {@link TopicType#TELEMETRY_SNAPSHOTS}.
+     */
+    STRING,
+
+    /**
+     * Снимки {@code CompactSensorsSnapshotAvro} с кодами датчиков из словаря хаба
+     * в топике {@link TopicType#TELEMETRY_SNAPSHOTS_COMPACT}.
+     * Словари читаются из топика {@link TopicType#TELEMETRY_SENSOR_IDS}.
+     */
+    COMPACT
+}
@@ -0,0 +1,31 @@
+package ru.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки формата снимков агрегатора.
+ * Связывает свойства {@code aggregator.snapshot-encoding.*} из конфигурации.
+ *
+ * @see SnapshotEncoding
+ */
+@Getter
+@Setter
+@ToString
+@ConfigurationProperties("aggregator.snapshot-encoding")
+public class SnapshotEncodingConfig {
+    /**
+     * Формат публикуемых снимков. По умолчанию - снимки со строковыми идентификаторами датчиков.
+     */
+    private SnapshotEncoding mode = SnapshotEncoding.STRING;
+
+    /**
+     * Максимальное время чтения словарей идентификаторов датчиков при запуске в режиме {@code COMPACT}.
+     * Датчики, чей код ещё не прочитан, попадают в снимок со строковым идентификатором.
+     */
+    private Duration dictionaryLoadTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,38 @@
+package ru.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки передачи состояния хабов между экземплярами агрегатора при ребалансировке.
+ * Связывает свойства {@code aggregator.state-hand-off.*} из конфигурации.
+ *
+ * <p>Журналом состояния служит топик снимков: каждый снимок содержит полное состояние хаба,
+ * а событие подтверждается только после того, как брокер принял его снимок. Поэтому последний
+ * снимок хаба в топике всегда соответствует закоммиченным смещениям событий.
+ *
+ * @see ru.practicum.service.SnapshotStateHandOff
+ */
+@Getter
+@Setter
+@ToString
+@ConfigurationProperties("aggregator.state-hand-off")
+public class StateHandOffConfig {
+    /**
+     * Восстанавливать ли снимки хабов назначенных партиций из топика снимков.
+     * Требует, чтобы топик снимков был копартиционирован с топиком событий датчиков
+     * и хранил последний снимок каждого хаба ({@code cleanup.policy=compact}).
+     * Если выключено, хабы назначенной партиции начинаются с пустого состояния.
+     */
+    private boolean restoreOnAssign = false;
+
+    /**
+     * Максимальное время чтения снимков назначенных партиций.
+     * Чтение выполняется в потоке консьюмера и должно укладываться в {@code max.poll.interval.ms}.
+     */
+    private Duration restoreTimeout = Duration.ofSeconds(30);
+}
@@ -26,5 +26,17 @@ public enum TopicType {
      * Содержит команды и события, связанные с работой хабов: добавление/удаление устройств, сценарии.
      * Используется для управления конфигурацией системы.
      */
-    TELEMETRY_HUBS
+    TELEMETRY_HUBS,
+
+    /**
+     * Топик для компактных снапшотов, где идентификаторы датчиков заменены кодами словаря хаба.
+     * Используется вместо {@link #TELEMETRY_SNAPSHOTS} при компактном кодировании снимков.
+     */
+    TELEMETRY_SNAPSHOTS_COMPACT,
+
+    /**
+     * Компактный топик словарей идентификаторов датчиков хабов (ключ - идентификатор хаба).
+     * Словари публикует анализатор, читают агрегатор и анализатор.
+     */
+    TELEMETRY_SENSOR_IDS
 }
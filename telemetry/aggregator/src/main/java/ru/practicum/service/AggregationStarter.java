@@ -1,26 +1,45 @@
 package ru.practicum.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
-import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
-import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.header.Headers;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
+import ru.practicum.CompactSensorsSnapshotDeserializer;
+import ru.practicum.SensorsSnapshotDeserializer;
+import ru.practicum.TelemetryHeaders;
+import ru.practicum.aggregation.CompactSnapshotAggregator;
+import ru.practicum.aggregation.InMemoryRepository;
+import ru.practicum.aggregation.SensorIdDictionary;
+import ru.practicum.aggregation.SnapshotAggregator;
+import ru.practicum.config.ConsumerRuntimeConfig;
 import ru.practicum.config.KafkaConfig;
+import ru.practicum.config.SnapshotEncoding;
+import ru.practicum.config.SnapshotEncodingConfig;
+import ru.practicum.config.StateHandOffConfig;
 import ru.practicum.config.TopicType;
-import ru.practicum.repository.InMemoryRepository;
+import ru.practicum.kafka.Acknowledgment;
+import ru.practicum.kafka.CompactedTopicReader;
+import ru.practicum.kafka.ConsumerRuntime;
+import ru.yandex.practicum.kafka.telemetry.event.CompactSensorsSnapshotAvro;
 import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
-import ru.yandex.practicum.kafka.telemetry.event.SensorStateAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorIdDictionaryAvro;
 import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
 
-import java.time.Duration;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Сервис агрегации телеметрических данных датчиков.
@@ -28,6 +47,13 @@ import java.util.Optional;
  * <p>Слушает входящие события от датчиков из Kafka, агрегирует их состояние
  * и периодически отправляет снимки текущего состояния обратно в Kafka.
  *
+ * <p>В режиме {@link SnapshotEncoding#COMPACT} публикует компактные снимки, где идентификаторы
+ * датчиков заменены кодами из словарей хабов, которые ведёт анализатор.
+ *
+ * <p>Экземпляры агрегатора масштабируются группой потребителей. При ребалансировке
+ * {@link SnapshotStateHandOff} удаляет снимки хабов отозванных партиций и, если включено,
+ * восстанавливает снимки хабов назначенных партиций из топика снимков.
+ *
  * <p>Реализует интерфейс {@link CommandLineRunner} для автоматического запуска
  * при старте приложения Spring Boot.
  *
@@ -40,33 +66,102 @@ import java.util.Optional;
  * </ul>
  *
  * @see CommandLineRunner
- * @see KafkaConsumer
+ * @see ConsumerRuntime
  * @see KafkaProducer
- * @see InMemoryRepository
+ * @see SnapshotAggregator
  */
 @Slf4j
 @Component
 public class AggregationStarter implements CommandLineRunner {
+    private static final long RESEND_DELAY_MS = 1000;
 
-    private final KafkaConsumer<String, SensorEventAvro> consumer;
-    private final KafkaProducer<String, SensorsSnapshotAvro> producer;
+    private final ConsumerRuntime<String, SensorEventAvro> runtime;
+    private final KafkaProducer<String, SpecificRecordBase> producer;
     private final InMemoryRepository repository;
+    private final SnapshotAggregator aggregator;
+    private final CompactSnapshotAggregator compactAggregator;
+    private final CompactedTopicReader<String, SensorIdDictionaryAvro> dictionaryReader;
+    private final SnapshotStateHandOff stateHandOff;
+    private final SnapshotEncodingConfig encodingConfig;
     private final KafkaConfig kafkaConfig;
-    private static final Duration POLL_DURATION = Duration.ofSeconds(3);
+    private final ScheduledExecutorService resendExecutor;
+    private final Counter resends;
 
     /**
      * Конструктор сервиса агрегации.
      *
      * <p>Инициализирует Kafka consumer и producer на основе конфигурации,
-     * а также создает экземпляр in-memory репозитория для хранения состояния.
+     * а также создает агрегатор снимков поверх in-memory репозитория для хранения состояния.
+     * В режиме {@link SnapshotEncoding#COMPACT} вместо него создаётся агрегатор компактных снимков
+     * и читатель словарей идентификаторов датчиков.
      *
-     * @param kafkaConfig конфигурация Kafka, содержащая настройки producer и consumer
+     * @param kafkaConfig    конфигурация Kafka, содержащая настройки producer и consumer
+     * @param runtimeConfig  настройки цикла опроса Kafka
+     * @param encodingConfig настройки формата снимков
+     * @param handOffConfig  настройки передачи состояния при ребалансировке
+     * @param meterRegistry  реестр метрик консьюмера
      */
-    public AggregationStarter(KafkaConfig kafkaConfig) {
+    public AggregationStarter(KafkaConfig kafkaConfig,
+                              ConsumerRuntimeConfig runtimeConfig,
+                              SnapshotEncodingConfig encodingConfig,
+                              StateHandOffConfig handOffConfig,
+                              MeterRegistry meterRegistry) {
         this.kafkaConfig = kafkaConfig;
+        this.encodingConfig = encodingConfig;
         this.producer = new KafkaProducer<>(kafkaConfig.getProducerProperties());
-        this.consumer = new KafkaConsumer<>(kafkaConfig.getConsumerProperties());
-        this.repository = new InMemoryRepository();
+        this.resendExecutor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "SnapshotResendThread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.resends = Counter.builder("telemetry.aggregator.snapshot.resends")
+                .description("Snapshots re-sent after a failed send")
+                .register(meterRegistry);
+
+        if (encodingConfig.getMode() == SnapshotEncoding.COMPACT) {
+            SensorIdDictionary dictionary = new SensorIdDictionary();
+            this.repository = null;
+            this.aggregator = null;
+            this.compactAggregator = new CompactSnapshotAggregator(dictionary);
+            this.dictionaryReader = new CompactedTopicReader<>("SensorIdDictionaryReader",
+                    kafkaConfig.getDictionaryConsumerProperties(),
+                    kafkaConfig.getTopics().get(TopicType.TELEMETRY_SENSOR_IDS),
+                    record -> dictionary.update(record.value()));
+        } else {
+            this.repository = new InMemoryRepository();
+            this.aggregator = new SnapshotAggregator(repository);
+            this.compactAggregator = null;
+            this.dictionaryReader = null;
+        }
+
+        this.stateHandOff = new SnapshotStateHandOff(restoreConsumerProperties(),
+                kafkaConfig.getTopics().get(TopicType.TELEMETRY_SENSORS),
+                snapshotsTopic(),
+                handOffConfig,
+                hubIds -> {
+                    if (compactAggregator != null) {
+                        compactAggregator.evict(hubIds);
+                    } else {
+                        repository.evict(hubIds);
+                    }
+                },
+                snapshot -> {
+                    if (compactAggregator != null) {
+                        compactAggregator.restore((CompactSensorsSnapshotAvro) snapshot);
+                    } else {
+                        repository.put((SensorsSnapshotAvro) snapshot);
+                    }
+                });
+
+        this.runtime = ConsumerRuntime.<String, SensorEventAvro>builder()
+                .name(getClass().getSimpleName())
+                .consumerProperties(kafkaConfig.getConsumerProperties())
+                .topics(List.of(kafkaConfig.getTopics().get(TopicType.TELEMETRY_SENSORS)))
+                .handler(this::aggregate)
+                .rebalanceListener(stateHandOff)
+                .settings(runtimeConfig.getSensors())
+                .meterRegistry(meterRegistry)
+                .build();
     }
 
     /**
@@ -87,134 +182,100 @@ public class AggregationStarter implements CommandLineRunner {
     /**
      * Основной метод запуска процесса агрегации данных.
      *
-     * <p>Выполняет следующие действия:
-     * <ol>
-     *   <li>Подписывается на топик Kafka с событиями датчиков</li>
-     *   <li>В бесконечном цикле опрашивает Kafka на наличие новых сообщений</li>
-     *   <li>Для каждого полученного события обновляет состояние датчиков</li>
-     *   <li>Отправляет обновленные снимки состояния в выходной топик</li>
-     *   <li>Фиксирует обработанные смещения (offsets)</li>
-     * </ol>
-     *
-     * <p>Метод обеспечивает корректное завершение работы при получении сигнала shutdown,
-     * гарантируя отправку всех буферизованных сообщений и фиксацию обработанных смещений.
+     * <p>Читает топик событий датчиков через {@link ConsumerRuntime}: для каждого события
+     * обновляет состояние датчиков и отправляет обновленный снимок в выходной топик.
+     * Событие подтверждается, когда брокер принял порождённый им снимок, поэтому смещения
+     * коммитятся только для событий с доставленными снимками, а при медленном брокере
+     * чтение приостанавливается.
      *
-     * <p>Использует shutdown hook для прерывания polling цикла при завершении работы JVM.
+     * <p>Метод работает до получения сигнала shutdown, после чего дожидается отправки
+     * принятых снимков, фиксирует смещения и закрывает producer.
      */
     public void start() {
-        log.info("Starting aggregation service with empty initial state");
-        String topic = kafkaConfig.getTopics().get(TopicType.TELEMETRY_SENSORS);
-
-        try (consumer) {
-            Runtime.getRuntime().addShutdownHook(new Thread(consumer::wakeup));
-            consumer.subscribe(List.of(topic));
-
-            while (true) {
-                ConsumerRecords<String, SensorEventAvro> records = consumer.poll(POLL_DURATION);
-
-                if (records.count() > 0) {
-                    log.debug("Processing {} events", records.count());
-                }
+        log.info("Starting aggregation service with empty initial state, snapshot encoding {}",
+                encodingConfig.getMode());
 
-                for (ConsumerRecord<String, SensorEventAvro> record : records) {
-                    updateState(record.value()).ifPresent(this::sendSnapshot);
-                }
-
-                consumer.commitSync();
+        try {
+            if (dictionaryReader != null) {
+                loadDictionary();
             }
-
-        } catch (WakeupException ignored) {
-            log.info("Wakeup interrupted");
-        } catch (Exception e) {
-            log.error("Exception while trying to handle sensor event data", e);
+            runtime.run();
         } finally {
-
-            try {
-                if (producer != null) {
-                    producer.flush();
-                }
-                if (consumer != null) {
-                    consumer.commitSync();
-                }
-            } finally {
-                log.info("Closing consumer");
-                if (consumer != null) {
-                    consumer.close();
-                }
-                log.info("Closing producer");
-                if (producer != null) {
-                    producer.close();
-                }
+            if (dictionaryReader != null) {
+                dictionaryReader.wakeup();
             }
+            stateHandOff.close();
+            resendExecutor.shutdownNow();
+            log.info("Closing producer");
+            producer.close();
         }
     }
 
     /**
-     * Обновляет состояние датчиков на основе полученного события.
+     * Возвращает топик, в который публикуются снимки в текущем формате.
      *
-     * <p>Метод выполняет следующие проверки и действия:
-     * <ul>
-     *   <li>Игнорирует null события</li>
-     *   <li>Проверяет существующее состояние датчика в репозитории</li>
-     *   <li>Обновляет состояние только если данные новые или timestamp более свежий</li>
-     *   <li>Создает новый снимок состояния при изменениях</li>
-     * </ul>
+     * @return имя топика снимков
+     */
+    private String snapshotsTopic() {
+        return encodingConfig.getMode() == SnapshotEncoding.COMPACT
+                ? kafkaConfig.getTopics().get(TopicType.TELEMETRY_SNAPSHOTS_COMPACT)
+                : kafkaConfig.getTopics().get(TopicType.TELEMETRY_SNAPSHOTS);
+    }
+
+    /**
+     * Настройки консьюмера восстановления с десериализатором снимков текущего формата.
      *
-     * @param event событие датчика для обработки
-     * @return {@link Optional} содержащий обновленный {@link SensorsSnapshotAvro} если состояние изменилось,
-     * или пустой {@link Optional} если обновление не требуется
+     * @return настройки консьюмера топика снимков
      */
-    private Optional<SensorsSnapshotAvro> updateState(SensorEventAvro event) {
-        if (event == null) {
-            return Optional.empty();
-        }
+    private Properties restoreConsumerProperties() {
+        Properties properties = new Properties();
+        properties.putAll(kafkaConfig.getRestoreConsumerProperties());
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+                encodingConfig.getMode() == SnapshotEncoding.COMPACT
+                        ? CompactSensorsSnapshotDeserializer.class.getName()
+                        : SensorsSnapshotDeserializer.class.getName());
+        return properties;
+    }
+
+    /**
+     * Запускает чтение словарей идентификаторов датчиков и ждёт загрузки опубликованных словарей.
+     * Словари продолжают читаться до остановки сервиса.
+     */
+    private void loadDictionary() {
+        Thread readerThread = new Thread(dictionaryReader);
+        readerThread.setName("SensorIdDictionaryThread");
+        readerThread.setDaemon(true);
+        readerThread.start();
 
-        log.info("Updating state for event {}", event);
-
-        // Получаем снапшот для hubId
-        Optional<SensorsSnapshotAvro> optSnapshot = repository.get(event.getHubId());
-        Map<String, SensorStateAvro> states;
-        SensorsSnapshotAvro snapshotAvro;
-
-        if (optSnapshot.isPresent()) {
-            snapshotAvro = optSnapshot.get();
-            // Проверяем, есть ли в снапшоте данные для event.getId()
-            states = new HashMap<>(snapshotAvro.getSensorsState());
-            SensorStateAvro oldState = states.get(event.getId());
-
-            if (oldState != null) {
-                log.debug("Found old state {}", oldState);
-                // Проверяем, нужно ли обновлять данные
-                if (oldState.getTimestamp().isAfter(event.getTimestamp()) ||
-                    oldState.getData().equals(event.getPayload())) {
-                    return Optional.empty();
-                }
+        try {
+            if (!dictionaryReader.awaitCaughtUp(encodingConfig.getDictionaryLoadTimeout())) {
+                log.warn("Sensor id dictionaries were not loaded in {}, unknown sensors are sent with string ids",
+                        encodingConfig.getDictionaryLoadTimeout());
             }
-        } else {
-            states = new HashMap<>();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+    }
 
-        // Создаём экземпляр SensorStateAvro на основе данных события
-        SensorStateAvro newState = SensorStateAvro.newBuilder()
-                .setData(event.getPayload())
-                .setTimestamp(event.getTimestamp())
-                .build();
-
-        log.debug("Updating state by new state {}", newState);
-
-        // Добавляем полученный экземпляр в снапшот
-        states.put(event.getId(), newState);
-
-        // Обновляем снапшот
-        snapshotAvro = SensorsSnapshotAvro.newBuilder()
-                .setHubId(event.getHubId())
-                .setSensorsState(states)
-                .setTimestamp(event.getTimestamp())
-                .build();
+    /**
+     * Агрегирует пакет событий датчиков. События без изменений состояния подтверждаются сразу,
+     * остальные - после отправки снимка.
+     *
+     * @param records        записи с событиями датчиков
+     * @param acknowledgment подтверждение обработки записей
+     */
+    private void aggregate(ConsumerRecords<String, SensorEventAvro> records, Acknowledgment acknowledgment) {
+        String snapshotsTopic = snapshotsTopic();
 
-        log.debug("Updating snapshot {}", snapshotAvro);
+        for (ConsumerRecord<String, SensorEventAvro> record : records) {
+            Optional<? extends SpecificRecordBase> snapshot = compactAggregator != null
+                    ? compactAggregator.updateState(record.value())
+                    : aggregator.updateState(record.value());
 
-        return Optional.of(repository.put(snapshotAvro));
+            snapshot.ifPresentOrElse(
+                    value -> sendSnapshot(snapshotsTopic, value, record, acknowledgment),
+                    () -> acknowledgment.acknowledge(record));
+        }
     }
 
     /**
@@ -223,24 +284,79 @@ public class AggregationStarter implements CommandLineRunner {
      * <p>Использует идентификатор хаба в качестве ключа сообщения для обеспечения
      * упорядоченной доставки сообщений от одного хаба.
      *
-     * @param snapshot снимок состояния датчиков для отправки
+     * <p>Переносит на снимок время приёма и время исходного события датчика
+     * (заголовки {@link TelemetryHeaders}) для измерения задержки конвейера.
+     *
+     * <p>Запись с исходным событием подтверждается только после того, как брокер принял снимок,
+     * поэтому последний снимок хаба в топике всегда соответствует закоммиченным смещениям,
+     * на что опирается восстановление состояния при назначении партиций. Если отправка не удалась,
+     * через {@value #RESEND_DELAY_MS} мс отправляется текущий снимок хаба: он включает состояние
+     * исходного события и все более поздние, а топик снимков хранит по хабу только последний снимок.
+     * Повторы учитываются в метрике {@code telemetry.aggregator.snapshot.resends}.
+     *
+     * @param topicName      топик снимков
+     * @param snapshot       снимок состояния датчиков для отправки
+     * @param source         запись с событием датчика, породившим снимок
+     * @param acknowledgment подтверждение обработки записей
      */
-    private void sendSnapshot(SensorsSnapshotAvro snapshot) {
-        String topicName = kafkaConfig.getTopics().get(TopicType.TELEMETRY_SNAPSHOTS);
+    private void sendSnapshot(String topicName,
+                              SpecificRecordBase snapshot,
+                              ConsumerRecord<String, SensorEventAvro> source,
+                              Acknowledgment acknowledgment) {
+        String hubId = source.value().getHubId();
+        ProducerRecord<String, SpecificRecordBase> record = new ProducerRecord<>(topicName, hubId, snapshot);
 
-        ProducerRecord<String, SensorsSnapshotAvro> record =
-                new ProducerRecord<>(topicName, snapshot.getHubId(), snapshot);
+        Headers headers = record.headers();
+        Long ingestMillis = TelemetryHeaders.getTime(source.headers(), TelemetryHeaders.INGEST_TIME);
+        if (ingestMillis != null) {
+            TelemetryHeaders.putTime(headers, TelemetryHeaders.INGEST_TIME, ingestMillis);
+        }
+        TelemetryHeaders.putTime(headers, TelemetryHeaders.EVENT_TIME, source.value().getTimestamp().toEpochMilli());
 
         log.info("Sending snapshot {} to topic {}", snapshot, topicName);
 
         producer.send(record, (metadata, exception) -> {
-            if (exception != null) {
-                log.error("Failed to send snapshot: {} to topic: {}, Key: {}",
-                        snapshot, topicName, snapshot.getHubId(), exception);
-            } else {
+            if (exception == null) {
+                acknowledgment.acknowledge(source);
                 log.debug("Snapshot: {} successfully sent to topic: {}, Key: {}, Partition: {}, Offset: {}",
-                        snapshot, topicName, snapshot.getHubId(), metadata.partition(), metadata.offset());
+                        snapshot, topicName, hubId, metadata.partition(), metadata.offset());
+                return;
+            }
+
+            log.error("Failed to send snapshot: {} to topic: {}, Key: {}, re-sending current snapshot of hub",
+                    snapshot, topicName, hubId, exception);
+            resends.increment();
+            try {
+                resendExecutor.schedule(() -> resendSnapshot(topicName, source, acknowledgment),
+                        RESEND_DELAY_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.warn("Service is stopping, event of hub {} at offset {} is left uncommitted",
+                        hubId, source.offset());
             }
         });
     }
+
+    /**
+     * Отправляет текущий снимок хаба вместо снимка, отправка которого не удалась.
+     *
+     * <p>Если хаба больше нет в состоянии (партиция отозвана), запись с исходным событием
+     * не подтверждается: её смещение не коммитится, и новый владелец партиции прочитает событие снова.
+     *
+     * @param topicName      топик снимков
+     * @param source         запись с событием датчика, снимок которого не был доставлен
+     * @param acknowledgment подтверждение обработки записей
+     */
+    private void resendSnapshot(String topicName,
+                                ConsumerRecord<String, SensorEventAvro> source,
+                                Acknowledgment acknowledgment) {
+        String hubId = source.value().getHubId();
+        Optional<? extends SpecificRecordBase> current = compactAggregator != null
+                ? compactAggregator.get(hubId)
+                : repository.get(hubId);
+
+        current.ifPresentOrElse(
+                snapshot -> sendSnapshot(topicName, snapshot, source, acknowledgment),
+                () -> log.warn("Hub {} is no longer owned, event at offset {} will be replayed by the new owner",
+                        hubId, source.offset()));
+    }
 }
@@ -0,0 +1,193 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Utils;
+import ru.practicum.config.StateHandOffConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Передача состояния хабов между экземплярами агрегатора при ребалансировке.
+ *
+ * <p>Вызывается {@link ru.practicum.kafka.ConsumerRuntime} после того, как записи отзываемых партиций
+ * подтверждены и их смещения закоммичены, то есть снимки этих партиций уже приняты брокером.
+ * <ul>
+ *   <li>при отзыве или потере партиций удаляет из памяти снимки их хабов</li>
+ *   <li>при назначении партиций, если включено, читает партиции топика снимков с теми же номерами
+ *   и восстанавливает последний снимок каждого хаба</li>
+ * </ul>
+ *
+ * <p>При кооперативном назначении партиций ({@code CooperativeStickyAssignor}) отзываются и назначаются
+ * только переезжающие партиции, поэтому остальные хабы продолжают агрегироваться без перерыва.
+ * Методы вызываются в потоке консьюмера.
+ */
+@Slf4j
+public class SnapshotStateHandOff implements ConsumerRebalanceListener, AutoCloseable {
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(200);
+
+    private final org.apache.kafka.clients.consumer.Consumer<String, SpecificRecordBase> restoreConsumer;
+    private final String sensorsTopic;
+    private final String snapshotsTopic;
+    private final StateHandOffConfig config;
+    private final Consumer<Predicate<String>> evictor;
+    private final Consumer<SpecificRecordBase> restorer;
+
+    /**
+     * Создаёт обработчик передачи состояния.
+     *
+     * @param restoreConsumerProperties настройки консьюмера топика снимков без {@code group.id}
+     * @param sensorsTopic              топик событий датчиков
+     * @param snapshotsTopic            топик снимков, из которого восстанавливается состояние
+     * @param config                    настройки передачи состояния
+     * @param evictor                   удаление снимков хабов, удовлетворяющих условию
+     * @param restorer                  восстановление снимка хаба
+     */
+    public SnapshotStateHandOff(Properties restoreConsumerProperties,
+                                String sensorsTopic,
+                                String snapshotsTopic,
+                                StateHandOffConfig config,
+                                Consumer<Predicate<String>> evictor,
+                                Consumer<SpecificRecordBase> restorer) {
+        this(new KafkaConsumer<>(restoreConsumerProperties), sensorsTopic, snapshotsTopic, config, evictor, restorer);
+    }
+
+    /**
+     * Создаёт обработчик передачи состояния с готовым консьюмером топика снимков.
+     *
+     * @param restoreConsumer консьюмер топика снимков без {@code group.id}
+     * @param sensorsTopic    топик событий датчиков
+     * @param snapshotsTopic  топик снимков, из которого восстанавливается состояние
+     * @param config          настройки передачи состояния
+     * @param evictor         удаление снимков хабов, удовлетворяющих условию
+     * @param restorer        восстановление снимка хаба
+     */
+    SnapshotStateHandOff(org.apache.kafka.clients.consumer.Consumer<String, SpecificRecordBase> restoreConsumer,
+                         String sensorsTopic,
+                         String snapshotsTopic,
+                         StateHandOffConfig config,
+                         Consumer<Predicate<String>> evictor,
+                         Consumer<SpecificRecordBase> restorer) {
+        this.restoreConsumer = restoreConsumer;
+        this.sensorsTopic = sensorsTopic;
+        this.snapshotsTopic = snapshotsTopic;
+        this.config = config;
+        this.evictor = evictor;
+        this.restorer = restorer;
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        evict(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> partitions) {
+        evict(partitions);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        if (config.isRestoreOnAssign() && !partitions.isEmpty()) {
+            restore(partitions);
+        }
+    }
+
+    @Override
+    public void close() {
+        restoreConsumer.close();
+    }
+
+    /**
+     * Удаляет снимки хабов, события которых попадают в указанные партиции.
+     *
+     * @param partitions отозванные партиции топика событий датчиков
+     */
+    private void evict(Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> numbers = partitions.stream().map(TopicPartition::partition).collect(Collectors.toSet());
+        int partitionCount = restoreConsumer.partitionsFor(sensorsTopic).size();
+        evictor.accept(hubId -> numbers.contains(partitionOf(hubId, partitionCount)));
+        log.info("Evicted snapshots of partitions {}", numbers);
+    }
+
+    /**
+     * Читает партиции топика снимков с номерами назначенных партиций от начала до конца
+     * и восстанавливает снимки хабов, но не дольше {@link StateHandOffConfig#getRestoreTimeout()}.
+     *
+     * @param partitions назначенные партиции топика событий датчиков
+     * @throws IllegalStateException если количество партиций топиков снимков и событий датчиков различается
+     */
+    private void restore(Collection<TopicPartition> partitions) {
+        int sensorPartitions = restoreConsumer.partitionsFor(sensorsTopic).size();
+        int snapshotPartitions = restoreConsumer.partitionsFor(snapshotsTopic).size();
+        if (sensorPartitions != snapshotPartitions) {
+            throw new IllegalStateException("Topic " + snapshotsTopic + " has " + snapshotPartitions
+                    + " partitions, but sensors topic has " + sensorPartitions);
+        }
+
+        List<TopicPartition> sources = partitions.stream()
+                .map(partition -> new TopicPartition(snapshotsTopic, partition.partition()))
+                .toList();
+        long startMillis = System.currentTimeMillis();
+        long deadline = startMillis + config.getRestoreTimeout().toMillis();
+        int restored = 0;
+
+        try {
+            restoreConsumer.assign(sources);
+            restoreConsumer.seekToBeginning(sources);
+            Map<TopicPartition, Long> endOffsets = restoreConsumer.endOffsets(sources);
+
+            while (!caughtUp(endOffsets)) {
+                if (System.currentTimeMillis() >= deadline) {
+                    log.warn("Snapshots of partitions {} were not restored in {}, continuing with partial state",
+                            sources, config.getRestoreTimeout());
+                    break;
+                }
+                for (ConsumerRecord<String, SpecificRecordBase> record : restoreConsumer.poll(POLL_TIMEOUT)) {
+                    if (record.value() != null) {
+                        restorer.accept(record.value());
+                        restored++;
+                    }
+                }
+            }
+        } finally {
+            restoreConsumer.unsubscribe();
+        }
+
+        log.info("Restored {} snapshots of partitions {} in {} ms",
+                restored, sources, System.currentTimeMillis() - startMillis);
+    }
+
+    private boolean caughtUp(Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+            if (restoreConsumer.position(end.getKey()) < end.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Номер партиции ключа так же, как его выбирает стандартный партиционер продюсера.
+     */
+    private static int partitionOf(String hubId, int partitionCount) {
+        return Utils.toPositive(Utils.murmur2(hubId.getBytes(StandardCharsets.UTF_8))) % partitionCount;
+    }
+}
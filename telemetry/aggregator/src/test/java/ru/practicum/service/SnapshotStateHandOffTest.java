@@ -0,0 +1,133 @@
+package ru.practicum.service;
+
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Utils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.config.StateHandOffConfig;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тесты передачи состояния хабов при ребалансировке: удаление снимков отозванных партиций
+ * и восстановление снимков назначенных партиций из топика снимков.
+ */
+class SnapshotStateHandOffTest {
+    private static final String SENSORS_TOPIC = "telemetry.sensors.v1";
+    private static final String SNAPSHOTS_TOPIC = "telemetry.snapshots.v1";
+    private static final int PARTITIONS = 3;
+
+    private final MockConsumer<String, SpecificRecordBase> restoreConsumer = new MockConsumer<>("earliest");
+    private final List<Predicate<String>> evictions = new ArrayList<>();
+    private final List<SpecificRecordBase> restored = new ArrayList<>();
+    private final StateHandOffConfig config = new StateHandOffConfig();
+    private SnapshotStateHandOff handOff;
+
+    @BeforeEach
+    void setUp() {
+        restoreConsumer.updatePartitions(SENSORS_TOPIC, partitions(SENSORS_TOPIC, PARTITIONS));
+        restoreConsumer.updatePartitions(SNAPSHOTS_TOPIC, partitions(SNAPSHOTS_TOPIC, PARTITIONS));
+        config.setRestoreOnAssign(true);
+        handOff = new SnapshotStateHandOff(restoreConsumer, SENSORS_TOPIC, SNAPSHOTS_TOPIC, config,
+                evictions::add, restored::add);
+    }
+
+    @Test
+    void revokedPartitionsEvictOnlyTheirHubs() {
+        String revokedHub = hubInPartition(1);
+        String keptHub = hubInPartition(2);
+
+        handOff.onPartitionsRevoked(List.of(new TopicPartition(SENSORS_TOPIC, 1)));
+
+        assertThat(evictions).hasSize(1);
+        assertThat(evictions.getFirst().test(revokedHub)).isTrue();
+        assertThat(evictions.getFirst().test(keptHub)).isFalse();
+    }
+
+    @Test
+    void lostPartitionsEvictTheirHubs() {
+        String lostHub = hubInPartition(0);
+
+        handOff.onPartitionsLost(List.of(new TopicPartition(SENSORS_TOPIC, 0)));
+
+        assertThat(evictions).hasSize(1);
+        assertThat(evictions.getFirst().test(lostHub)).isTrue();
+    }
+
+    @Test
+    void assignedPartitionsRestoreSnapshotsOfSamePartitionNumbers() {
+        TopicPartition source = new TopicPartition(SNAPSHOTS_TOPIC, 1);
+        SensorsSnapshotAvro first = snapshot(hubInPartition(1));
+        SensorsSnapshotAvro second = snapshot(hubInPartition(1) + "-next");
+        restoreConsumer.updateBeginningOffsets(Map.of(source, 0L));
+        restoreConsumer.updateEndOffsets(Map.of(source, 2L));
+        restoreConsumer.schedulePollTask(() -> {
+            restoreConsumer.addRecord(new ConsumerRecord<>(SNAPSHOTS_TOPIC, 1, 0, first.getHubId(), first));
+            restoreConsumer.addRecord(new ConsumerRecord<>(SNAPSHOTS_TOPIC, 1, 1, second.getHubId(), second));
+        });
+
+        handOff.onPartitionsAssigned(List.of(new TopicPartition(SENSORS_TOPIC, 1)));
+
+        assertThat(restored).containsExactly(first, second);
+        assertThat(restoreConsumer.assignment()).isEmpty();
+    }
+
+    @Test
+    void assignedPartitionsAreNotRestoredWhenDisabled() {
+        config.setRestoreOnAssign(false);
+
+        handOff.onPartitionsAssigned(List.of(new TopicPartition(SENSORS_TOPIC, 1)));
+
+        assertThat(restored).isEmpty();
+        assertThat(restoreConsumer.assignment()).isEmpty();
+    }
+
+    @Test
+    void restoreFailsWhenSnapshotsTopicIsNotCopartitioned() {
+        restoreConsumer.updatePartitions(SNAPSHOTS_TOPIC, partitions(SNAPSHOTS_TOPIC, PARTITIONS + 1));
+
+        assertThatThrownBy(() -> handOff.onPartitionsAssigned(List.of(new TopicPartition(SENSORS_TOPIC, 0))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(SNAPSHOTS_TOPIC);
+    }
+
+    private static List<PartitionInfo> partitions(String topic, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(partition -> new PartitionInfo(topic, partition, null, null, null))
+                .toList();
+    }
+
+    /**
+     * Подбирает идентификатор хаба, который стандартный партиционер помещает в указанную партицию.
+     */
+    private static String hubInPartition(int partition) {
+        for (int i = 0; ; i++) {
+            String hubId = "hub-" + i;
+            if (Utils.toPositive(Utils.murmur2(hubId.getBytes(StandardCharsets.UTF_8))) % PARTITIONS == partition) {
+                return hubId;
+            }
+        }
+    }
+
+    private static SensorsSnapshotAvro snapshot(String hubId) {
+        return SensorsSnapshotAvro.newBuilder()
+                .setHubId(hubId)
+                .setTimestamp(Instant.ofEpochMilli(1_000))
+                .setSensorsState(Map.of())
+                .build();
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки состояния оконных условий и условий с гистерезисом.
+ * Связывает свойства {@code analyzer.condition-state.*} из конфигурации.
+ *
+ * @see ru.practicum.dal.service.state.ConditionStateStore
+ */
+@Getter
+@Setter
+@ToString
+@ConfigurationProperties("analyzer.condition-state")
+public class ConditionStateConfig {
+    /**
+     * Количество корзин кольцевого буфера, на которые делится окно усреднения.
+     * Чем больше корзин, тем точнее граница окна и тем больше памяти на каждое окно.
+     */
+    private int windowBuckets = 60;
+}
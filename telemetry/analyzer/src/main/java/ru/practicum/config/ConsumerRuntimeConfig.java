@@ -0,0 +1,29 @@
+package ru.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.practicum.kafka.ConsumerRuntimeSettings;
+
+/**
+ * Настройки циклов опроса Kafka анализатора.
+ * Связывает свойства {@code analyzer.consumer.*} из конфигурации
+ * с параметрами {@link ru.practicum.kafka.ConsumerRuntime}.
+ */
+@Getter
+@Setter
+@ToString
+@ConfigurationProperties("analyzer.consumer")
+public class ConsumerRuntimeConfig {
+    /**
+     * Настройки консьюмера событий хабов.
+     */
+    private ConsumerRuntimeSettings hubEvents = new ConsumerRuntimeSettings();
+
+    /**
+     * Настройки консьюмера снимков, а в совмещённом режиме - консьюмера событий датчиков.
+     * Порог {@code max-in-flight} ограничивает записи, ожидающие проверки сценариев и отправки действий.
+     */
+    private ConsumerRuntimeSettings snapshots = new ConsumerRuntimeSettings();
+}
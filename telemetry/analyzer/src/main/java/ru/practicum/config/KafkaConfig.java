@@ -71,6 +71,47 @@ public class KafkaConfig {
      */
     private Properties snapshotConsumerProperties;
 
+    /**
+     * Настройки Kafka консьюмера событий датчиков.
+     * Используются только в режиме {@link PipelineMode#FUSED}.
+     *
+     * @see org.apache.kafka.clients.consumer.ConsumerConfig
+     */
+    private Properties sensorConsumerProperties;
+
+    /**
+     * Настройки Kafka продюсера снимков.
+     * Используются только в режиме {@link PipelineMode#FUSED} при включённой публикации снимков.
+     *
+     * @see org.apache.kafka.clients.producer.ProducerConfig
+     */
+    private Properties snapshotProducerProperties;
+
+    /**
+     * Настройки Kafka консьюмера компактных снимков.
+     * Используются только в режиме {@link PipelineMode#COMPACT_SNAPSHOTS}.
+     *
+     * @see org.apache.kafka.clients.consumer.ConsumerConfig
+     */
+    private Properties compactSnapshotConsumerProperties;
+
+    /**
+     * Настройки Kafka консьюмера топика словарей идентификаторов датчиков.
+     * Топик читается целиком без группы потребителей, поэтому {@code group.id} не задаётся.
+     * Используются только в режиме {@link PipelineMode#COMPACT_SNAPSHOTS}.
+     *
+     * @see org.apache.kafka.clients.consumer.ConsumerConfig
+     */
+    private Properties dictionaryConsumerProperties;
+
+    /**
+     * Настройки Kafka продюсера словарей идентификаторов датчиков.
+     * Используются только при включённых словарях ({@code analyzer.sensor-id-dictionary.enabled}).
+     *
+     * @see org.apache.kafka.clients.producer.ProducerConfig
+     */
+    private Properties dictionaryProducerProperties;
+
     /**
      * Устанавливает соответствие между строковыми ключами топиков из конфигурации
      * и перечислением {@link TopicType}.
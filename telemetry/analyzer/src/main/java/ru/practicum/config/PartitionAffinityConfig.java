@@ -0,0 +1,36 @@
+package ru.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки привязки хабов к экземпляру анализатора по назначенным партициям.
+ * Связывает свойства {@code analyzer.partition-affinity.*} из конфигурации.
+ *
+ * <p>Требует, чтобы топики снимков и событий хабов имели одинаковое количество партиций
+ * и ключ - идентификатор хаба (стандартный партиционер), то есть были копартиционированы.
+ *
+ * @see ru.practicum.service.HubPartitionOwnership
+ */
+@Getter
+@Setter
+@ToString
+@ConfigurationProperties("analyzer.partition-affinity")
+public class PartitionAffinityConfig {
+    /**
+     * Включает кэширование сценариев только своих хабов и чтение событий хабов
+     * из тех же партиций, что и снимки. Если выключено, сценарии читаются из базы
+     * на каждый снимок, а события хабов распределяются отдельной группой потребителей.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Время жизни сценариев хаба в кэше. Страхует от изменений сценариев,
+     * применённых другим экземпляром во время ребалансировки.
+     */
+    private Duration scenarioTtl = Duration.ofMinutes(5);
+}
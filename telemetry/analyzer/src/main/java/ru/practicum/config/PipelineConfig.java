@@ -0,0 +1,29 @@
+package ru.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки конвейера обработки телеметрии в анализаторе.
+ * Связывает свойства {@code analyzer.pipeline.*} из конфигурации.
+ *
+ * @see PipelineMode
+ */
+@Getter
+@Setter
+@ToString
+@ConfigurationProperties("analyzer.pipeline")
+public class PipelineConfig {
+    /**
+     * Источник снимков состояния сенсоров. По умолчанию - топик снимков агрегатора.
+     */
+    private PipelineMode mode = PipelineMode.SNAPSHOTS;
+
+    /**
+     * Публиковать ли в режиме {@code FUSED} построенные снимки в топик снимков.
+     * Отправка асинхронная и не задерживает проверку сценариев.
+     */
+    private boolean publishSnapshots = false;
+}
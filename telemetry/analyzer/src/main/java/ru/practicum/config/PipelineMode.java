@@ -0,0 +1,23 @@
+package ru.practicum.config;
+
+/**
+ * Режим получения снимков состояния сенсоров анализатором.
+ */
+public enum PipelineMode {
+    /**
+     * Снимки читаются из топика снимков, куда их публикует сервис-агрегатор.
+     */
+    SNAPSHOTS,
+
+    /**
+     * Снимки читаются из топика компактных снимков агрегатора, где датчики обозначены кодами
+     * из словарей идентификаторов, и восстанавливаются по словарям, прочитанным из топика словарей.
+     */
+    COMPACT_SNAPSHOTS,
+
+    /**
+     * Анализатор сам читает события датчиков, строит снимки в памяти и сразу проверяет сценарии.
+     * Сервис-агрегатор для хабов этого анализатора не нужен.
+     */
+    FUSED
+}
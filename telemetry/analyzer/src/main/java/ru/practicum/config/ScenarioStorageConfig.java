@@ -0,0 +1,24 @@
+package ru.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.practicum.dal.model.ScenarioStorageMode;
+
+/**
+ * Настройки хранения сценариев.
+ * Связывает свойства {@code analyzer.scenario-storage.*} из конфигурации.
+ *
+ * @see ScenarioStorageMode
+ */
+@Getter
+@Setter
+@ToString
+@ConfigurationProperties("analyzer.scenario-storage")
+public class ScenarioStorageConfig {
+    /**
+     * Режим хранения сценариев. По умолчанию - реляционные таблицы.
+     */
+    private ScenarioStorageMode mode = ScenarioStorageMode.RELATIONAL;
+}
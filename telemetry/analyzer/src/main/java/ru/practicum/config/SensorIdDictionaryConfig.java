@@ -0,0 +1,35 @@
+package ru.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки словарей идентификаторов датчиков для компактных снимков.
+ * Связывает свойства {@code analyzer.sensor-id-dictionary.*} из конфигурации.
+ *
+ * @see ru.practicum.service.SensorIdDictionaryPublisher
+ * @see ru.practicum.service.CompactSnapshotProcessor
+ */
+@Getter
+@Setter
+@ToString
+@ConfigurationProperties("analyzer.sensor-id-dictionary")
+public class SensorIdDictionaryConfig {
+    /**
+     * Выдавать ли коды датчикам при добавлении устройств и публиковать ли словари хабов
+     * в топик {@code TELEMETRY_SENSOR_IDS}. Должно быть включено, если агрегатор
+     * публикует компактные снимки.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Сколько ждать в режиме {@link PipelineMode#COMPACT_SNAPSHOTS} чтения словаря,
+     * если в снимке есть неизвестный код датчика. Состояния с неизвестными кодами
+     * после ожидания пропускаются.
+     */
+    private Duration resolveTimeout = Duration.ofSeconds(1);
+}
@@ -0,0 +1,27 @@
+package ru.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки параллельной обработки снимков состояния сенсоров.
+ * Связывает свойства {@code analyzer.snapshot-processing.*} из конфигурации
+ * с параметрами {@link ru.practicum.service.KeyedExecutor}.
+ *
+ * @see ru.practicum.service.SnapshotProcessor
+ */
+@Getter
+@Setter
+@ToString
+@ConfigurationProperties("analyzer.snapshot-processing")
+public class SnapshotProcessingConfig {
+    /**
+     * Количество потоков (шардов) обработки снимков.
+     * Снимки одного хаба всегда попадают в один и тот же поток, поэтому порядок
+     * их обработки внутри хаба сохраняется.
+     * По умолчанию равно количеству доступных процессоров.
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+}
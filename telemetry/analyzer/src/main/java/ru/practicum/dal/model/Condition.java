@@ -33,7 +33,7 @@ public class Condition {
     private ConditionType type;
 
     /**
-     * Операция сравнения для условия (EQUALS, GREATER_THAN, LOWER_THAN).
+     * Операция сравнения для условия (EQUALS, GREATER_THAN, LOWER_THAN и оконные операции).
      * Обязательное поле.
      */
     @Enumerated(EnumType.STRING)
@@ -46,4 +46,18 @@ public class Condition {
      */
     @Column
     private Integer value;
+
+    /**
+     * Длина окна в секундах для оконных операций.
+     * Для остальных операций равна null.
+     */
+    @Column(name = "window_seconds")
+    private Integer windowSeconds;
+
+    /**
+     * Ширина гистерезиса для операций с гистерезисом.
+     * Если не задана, гистерезис нулевой.
+     */
+    @Column
+    private Integer hysteresis;
 }
@@ -17,5 +17,51 @@ public enum ConditionOperation {
     /**
      * Меньше указанного значения.
      */
-    LOWER_THAN
+    LOWER_THAN,
+
+    /**
+     * Среднее значение за окно {@link Condition#getWindowSeconds()} больше указанного.
+     */
+    AVERAGE_GREATER_THAN,
+
+    /**
+     * Среднее значение за окно {@link Condition#getWindowSeconds()} меньше указанного.
+     */
+    AVERAGE_LOWER_THAN,
+
+    /**
+     * Значение непрерывно равно указанному на протяжении окна {@link Condition#getWindowSeconds()}.
+     * Например, "нет движения 10 минут".
+     */
+    EQUALS_FOR,
+
+    /**
+     * Больше указанного значения с гистерезисом: условие остаётся выполненным,
+     * пока значение не опустится до {@code value - hysteresis}.
+     */
+    GREATER_THAN_HYSTERESIS,
+
+    /**
+     * Меньше указанного значения с гистерезисом: условие остаётся выполненным,
+     * пока значение не поднимется до {@code value + hysteresis}.
+     */
+    LOWER_THAN_HYSTERESIS;
+
+    /**
+     * Проверяет, требует ли операция окна значений.
+     *
+     * @return true для оконных операций
+     */
+    public boolean isWindowed() {
+        return this == AVERAGE_GREATER_THAN || this == AVERAGE_LOWER_THAN || this == EQUALS_FOR;
+    }
+
+    /**
+     * Проверяет, зависит ли результат операции от предыдущих значений сенсора.
+     *
+     * @return true для оконных операций и операций с гистерезисом
+     */
+    public boolean isStateful() {
+        return isWindowed() || this == GREATER_THAN_HYSTERESIS || this == LOWER_THAN_HYSTERESIS;
+    }
 }
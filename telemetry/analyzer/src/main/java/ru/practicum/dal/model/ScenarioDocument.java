@@ -0,0 +1,65 @@
+package ru.practicum.dal.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Сценарий автоматизации в компактном документном представлении.
+ * Хранится в таблице "scenario_documents" базы данных одной строкой на пару (хаб, название).
+ * Условия и действия сценария сериализованы в поле payload в бинарном формате Avro
+ * по схеме ScenarioAddedEventAvro.
+ */
+@Entity
+@Table(name = "scenario_documents")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScenarioDocument {
+
+    /**
+     * Уникальный идентификатор документа.
+     * Генерируется автоматически при сохранении.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Идентификатор хаба, к которому привязан сценарий.
+     * Обязательное поле.
+     */
+    @Column(name = "hub_id", nullable = false)
+    private String hubId;
+
+    /**
+     * Название сценария.
+     * Обязательное поле.
+     */
+    @Column(nullable = false)
+    private String name;
+
+    /**
+     * Версия документа.
+     * Увеличивается при каждом изменении содержимого сценария.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    /**
+     * Сценарий в бинарном формате Avro (ScenarioAddedEventAvro).
+     * Обязательное поле.
+     */
+    @Column(nullable = false)
+    private byte[] payload;
+
+    /**
+     * Отпечаток схемы Avro, по которой записан payload (64-битный отпечаток канонической формы схемы).
+     * Позволяет читать документы, записанные предыдущими версиями схемы.
+     * Пустое значение - документ записан до появления поля.
+     */
+    @Column(name = "schema_fingerprint")
+    private Long schemaFingerprint;
+}
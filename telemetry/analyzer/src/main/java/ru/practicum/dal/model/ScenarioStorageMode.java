@@ -0,0 +1,46 @@
+package ru.practicum.dal.model;
+
+/**
+ * Режимы хранения сценариев.
+ */
+public enum ScenarioStorageMode {
+    /**
+     * Сценарии хранятся в реляционных таблицах scenarios, conditions, actions
+     * и связующих таблицах scenario_conditions, scenario_actions.
+     */
+    RELATIONAL,
+
+    /**
+     * Каждый сценарий хранится одной строкой таблицы scenario_documents.
+     * Реляционные таблицы сценариев используются только для переноса сценариев без документа при старте.
+     */
+    DOCUMENT,
+
+    /**
+     * Сценарии записываются в оба хранилища, а читаются из scenario_documents.
+     * Используется для перехода с реляционного хранения на документное: при старте сценарии,
+     * у которых ещё нет документа, переносятся из реляционных таблиц.
+     */
+    DUAL;
+
+    /**
+     * @return true если сценарии нужно записывать в реляционные таблицы
+     */
+    public boolean writesRelational() {
+        return this != DOCUMENT;
+    }
+
+    /**
+     * @return true если сценарии нужно записывать в scenario_documents
+     */
+    public boolean writesDocuments() {
+        return this != RELATIONAL;
+    }
+
+    /**
+     * @return true если сценарии нужно читать из scenario_documents
+     */
+    public boolean readsDocuments() {
+        return this != RELATIONAL;
+    }
+}
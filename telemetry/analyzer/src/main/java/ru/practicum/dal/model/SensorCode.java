@@ -0,0 +1,47 @@
+package ru.practicum.dal.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Код датчика в словаре хаба.
+ * Хранится в таблице "sensor_codes" базы данных.
+ *
+ * <p>Код - порядковый номер датчика среди датчиков хаба, получивших код. Запись не удаляется
+ * вместе с датчиком, поэтому выданный код никогда не переходит к другому датчику.
+ */
+@Entity
+@Table(name = "sensor_codes")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SensorCode {
+
+    /**
+     * Уникальный идентификатор записи.
+     * Генерируется автоматически при сохранении.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Идентификатор хаба.
+     */
+    @Column(name = "hub_id", nullable = false)
+    private String hubId;
+
+    /**
+     * Идентификатор датчика.
+     */
+    @Column(name = "sensor_id", nullable = false)
+    private String sensorId;
+
+    /**
+     * Код датчика в словаре хаба, начиная с нуля.
+     */
+    @Column(nullable = false)
+    private Integer code;
+}
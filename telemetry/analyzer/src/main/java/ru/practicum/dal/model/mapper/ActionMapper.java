@@ -27,13 +27,16 @@ public class ActionMapper {
         }
 
         try {
-            return DeviceActionProto.newBuilder()
+            DeviceActionProto.Builder builder = DeviceActionProto.newBuilder()
                     .setSensorId(sensorId)
                     .setType(
                             ActionTypeProto.valueOf(action.getType().toString())
-                    )
-                    .setValue(action.getValue())
-                    .build();
+                    );
+            // значение необязательно: у ACTIVATE, DEACTIVATE и INVERSE его обычно нет
+            if (action.getValue() != null) {
+                builder.setValue(action.getValue());
+            }
+            return builder.build();
         } catch (IllegalArgumentException e) {
             log.error("Unknown action type: {}. Available types: {}. Action: {}",
                     action.getType(),
@@ -0,0 +1,141 @@
+package ru.practicum.dal.model.mapper;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+import ru.practicum.dal.model.Scenario;
+import ru.practicum.dal.model.ScenarioDocument;
+import ru.yandex.practicum.kafka.telemetry.event.ScenarioAddedEventAvro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Маппер для преобразования сценариев в компактное документное представление и обратно.
+ * Документ хранит сценарий в бинарном формате Avro по схеме {@link ScenarioAddedEventAvro}
+ * вместе с отпечатком схемы записи. При чтении документ декодируется по схеме, которой он был записан,
+ * и приводится к текущей схеме по правилам разрешения схем Avro, поэтому добавление полей
+ * со значениями по умолчанию не делает старые документы нечитаемыми.
+ */
+public class ScenarioDocumentMapper {
+    private static final Schema SCHEMA = ScenarioAddedEventAvro.getClassSchema();
+    private static final long SCHEMA_FINGERPRINT = SchemaNormalization.parsingFingerprint64(SCHEMA);
+
+    /**
+     * Схема первой версии документов: условия без полей window_seconds и hysteresis.
+     * Ею записаны документы без отпечатка (записанные до появления поля schema_fingerprint).
+     */
+    private static final Schema SCHEMA_V1 = loadSchema("/avro/ScenarioAddedEventAvro-v1.avsc");
+    private static final Schema LEGACY_SCHEMA = SCHEMA_V1;
+
+    /**
+     * Все известные схемы записи документов: текущая и предыдущие версии.
+     * При изменении {@link ScenarioAddedEventAvro} предыдущую схему нужно сохранить в ресурсах и добавить сюда.
+     */
+    private static final List<Schema> WRITER_SCHEMAS = List.of(SCHEMA, SCHEMA_V1);
+
+    private static final SpecificDatumWriter<ScenarioAddedEventAvro> WRITER = new SpecificDatumWriter<>(SCHEMA);
+    private static final Map<Long, SpecificDatumReader<ScenarioAddedEventAvro>> READERS = WRITER_SCHEMAS.stream()
+            .collect(Collectors.toMap(SchemaNormalization::parsingFingerprint64, ScenarioDocumentMapper::reader,
+                    (first, second) -> first));
+    private static final SpecificDatumReader<ScenarioAddedEventAvro> LEGACY_READER = reader(LEGACY_SCHEMA);
+
+    /**
+     * Сериализует Avro-событие сценария в бинарное представление.
+     *
+     * @param scenarioAvro Avro-событие сценария
+     * @return бинарное представление сценария
+     */
+    public static byte[] encode(ScenarioAddedEventAvro scenarioAvro) {
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+            WRITER.write(scenarioAvro, encoder);
+            encoder.flush();
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't encode scenario " + scenarioAvro.getName(), e);
+        }
+    }
+
+    /**
+     * Отпечаток текущей схемы, по которой кодирует {@link #encode}.
+     *
+     * @return 64-битный отпечаток канонической формы схемы
+     */
+    public static long schemaFingerprint() {
+        return SCHEMA_FINGERPRINT;
+    }
+
+    /**
+     * Создаёт новый документ сценария.
+     *
+     * @param hubId        ID хаба
+     * @param scenarioAvro Avro-событие сценария
+     * @return документ сценария, ещё не сохранённый в базе данных
+     */
+    public static ScenarioDocument toDocument(String hubId, ScenarioAddedEventAvro scenarioAvro) {
+        return ScenarioDocument.builder()
+                .hubId(hubId)
+                .name(scenarioAvro.getName())
+                .payload(encode(scenarioAvro))
+                .schemaFingerprint(SCHEMA_FINGERPRINT)
+                .build();
+    }
+
+    /**
+     * Восстанавливает доменный объект сценария из документа.
+     * Возвращаемый сценарий не связан с реляционными таблицами и не должен сохраняться.
+     *
+     * @param document документ сценария
+     * @return доменный объект сценария
+     * @throws IllegalStateException если документ записан неизвестной схемой
+     */
+    public static Scenario toScenario(ScenarioDocument document) {
+        SpecificDatumReader<ScenarioAddedEventAvro> reader = document.getSchemaFingerprint() == null
+                ? LEGACY_READER
+                : READERS.get(document.getSchemaFingerprint());
+        if (reader == null) {
+            throw new IllegalStateException("Unknown schema fingerprint " + document.getSchemaFingerprint()
+                                            + " of scenario document " + document.getId());
+        }
+
+        try {
+            BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(document.getPayload(), null);
+            ScenarioAddedEventAvro scenarioAvro = reader.read(null, decoder);
+            return ScenarioMapper.mapScenario(document.getHubId(), scenarioAvro);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't decode scenario document " + document.getId(), e);
+        }
+    }
+
+    /**
+     * Загружает схему Avro из ресурсов приложения.
+     */
+    private static Schema loadSchema(String resource) {
+        try (InputStream in = ScenarioDocumentMapper.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Avro schema resource " + resource + " not found");
+            }
+            return new Schema.Parser().parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't load Avro schema " + resource, e);
+        }
+    }
+
+    /**
+     * Создаёт читатель документов, записанных схемой {@code writerSchema}, в текущую схему.
+     */
+    private static SpecificDatumReader<ScenarioAddedEventAvro> reader(Schema writerSchema) {
+        return new SpecificDatumReader<>(writerSchema, SCHEMA);
+    }
+}
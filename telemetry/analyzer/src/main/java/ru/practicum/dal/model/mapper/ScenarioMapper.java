@@ -6,6 +6,9 @@ import lombok.extern.slf4j.Slf4j;
 import ru.practicum.dal.model.*;
 import ru.yandex.practicum.grpc.telemetry.event.DeviceActionProto;
 import ru.yandex.practicum.grpc.telemetry.event.DeviceActionRequest;
+import ru.yandex.practicum.kafka.telemetry.event.ActionTypeAvro;
+import ru.yandex.practicum.kafka.telemetry.event.ConditionOperationAvro;
+import ru.yandex.practicum.kafka.telemetry.event.ConditionTypeAvro;
 import ru.yandex.practicum.kafka.telemetry.event.DeviceActionAvro;
 import ru.yandex.practicum.kafka.telemetry.event.ScenarioAddedEventAvro;
 import ru.yandex.practicum.kafka.telemetry.event.ScenarioConditionAvro;
@@ -17,7 +20,7 @@ import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
- * Маппер для преобразования Avro-событий в доменные объекты сценариев.
+ * Маппер для преобразования Avro-событий в доменные объекты сценариев и обратно.
  */
 @Slf4j
 public class ScenarioMapper {
@@ -45,6 +48,40 @@ public class ScenarioMapper {
                 .build();
     }
 
+    /**
+     * Преобразует доменный объект сценария обратно в Avro-событие.
+     * Используется для переноса сценариев из реляционных таблиц в документное хранилище.
+     *
+     * @param scenario доменный объект сценария
+     * @return Avro-событие сценария
+     */
+    public static ScenarioAddedEventAvro toAvro(Scenario scenario) {
+        List<ScenarioConditionAvro> conditions = scenario.getSensorConditions().entrySet().stream()
+                .map(entry -> ScenarioConditionAvro.newBuilder()
+                        .setSensorId(entry.getKey())
+                        .setType(ConditionTypeAvro.valueOf(entry.getValue().getType().name()))
+                        .setOperation(ConditionOperationAvro.valueOf(entry.getValue().getOperation().name()))
+                        .setValue(entry.getValue().getValue())
+                        .setWindowSeconds(entry.getValue().getWindowSeconds())
+                        .setHysteresis(entry.getValue().getHysteresis())
+                        .build())
+                .toList();
+
+        List<DeviceActionAvro> actions = scenario.getSensorActions().entrySet().stream()
+                .map(entry -> DeviceActionAvro.newBuilder()
+                        .setSensorId(entry.getKey())
+                        .setType(ActionTypeAvro.valueOf(entry.getValue().getType().name()))
+                        .setValue(entry.getValue().getValue())
+                        .build())
+                .toList();
+
+        return ScenarioAddedEventAvro.newBuilder()
+                .setName(scenario.getName())
+                .setConditions(conditions)
+                .setActions(actions)
+                .build();
+    }
+
     /**
      * Преобразует сценарий в список DeviceActionRequest - по одному запросу на каждое действие.
      *
@@ -113,6 +150,8 @@ public class ScenarioMapper {
                 .type(ConditionType.valueOf(conditionAvro.getType().name()))
                 .operation(ConditionOperation.valueOf(conditionAvro.getOperation().name()))
                 .value(extractIntegerValue(conditionAvro.getValue()))
+                .windowSeconds(conditionAvro.getWindowSeconds())
+                .hysteresis(conditionAvro.getHysteresis())
                 .build();
     }
 
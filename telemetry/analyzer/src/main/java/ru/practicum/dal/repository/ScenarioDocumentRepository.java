@@ -0,0 +1,67 @@
+package ru.practicum.dal.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.dal.model.ScenarioDocument;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий для работы с документами сценариев в базе данных.
+ * Все методы поиска используют уникальный индекс (hub_id, name).
+ */
+public interface ScenarioDocumentRepository extends JpaRepository<ScenarioDocument, Long> {
+
+    /**
+     * Находит все документы сценариев указанного хаба.
+     *
+     * @param hubId идентификатор хаба
+     * @return список документов хаба
+     */
+    List<ScenarioDocument> findByHubId(String hubId);
+
+    /**
+     * Находит все документы сценариев указанных хабов.
+     *
+     * @param hubIds идентификаторы хабов
+     * @return список документов хабов
+     */
+    List<ScenarioDocument> findByHubIdIn(Collection<String> hubIds);
+
+    /**
+     * Находит идентификаторы всех хабов, у которых есть сценарии.
+     *
+     * @return список идентификаторов хабов без повторений
+     */
+    @Query("select distinct d.hubId from ScenarioDocument d")
+    List<String> findHubIds();
+
+    /**
+     * Находит названия сценариев хаба, для которых есть документы.
+     *
+     * @param hubId идентификатор хаба
+     * @return список названий сценариев
+     */
+    @Query("select d.name from ScenarioDocument d where d.hubId = :hubId")
+    List<String> findNamesByHubId(@Param("hubId") String hubId);
+
+    /**
+     * Находит документ сценария по идентификатору хаба и названию.
+     *
+     * @param hubId идентификатор хаба
+     * @param name  название сценария
+     * @return документ, если найден
+     */
+    Optional<ScenarioDocument> findByHubIdAndName(String hubId, String name);
+
+    /**
+     * Удаляет документ сценария по идентификатору хаба и названию.
+     *
+     * @param hubId идентификатор хаба
+     * @param name  название сценария
+     */
+    void deleteByHubIdAndName(String hubId, String name);
+}
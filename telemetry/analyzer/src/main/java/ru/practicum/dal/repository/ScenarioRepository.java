@@ -1,8 +1,10 @@
 package ru.practicum.dal.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.dal.model.Scenario;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +22,22 @@ public interface ScenarioRepository extends JpaRepository<Scenario, Long> {
      */
     List<Scenario> findByHubId(String hubId);
 
+    /**
+     * Находит все сценарии указанных хабов.
+     *
+     * @param hubIds идентификаторы хабов
+     * @return список сценариев хабов
+     */
+    List<Scenario> findByHubIdIn(Collection<String> hubIds);
+
+    /**
+     * Находит идентификаторы всех хабов, у которых есть сценарии.
+     *
+     * @return список идентификаторов хабов без повторений
+     */
+    @Query("select distinct s.hubId from Scenario s")
+    List<String> findHubIds();
+
     /**
      * Находит сценарий по идентификатору хаба и названию.
      *
@@ -29,6 +47,15 @@ public interface ScenarioRepository extends JpaRepository<Scenario, Long> {
      */
     Optional<Scenario> findByHubIdAndName(String hubId, String name);
 
+    /**
+     * Находит сценарии хаба с указанными названиями.
+     *
+     * @param hubId идентификатор хаба
+     * @param names названия сценариев
+     * @return список найденных сценариев
+     */
+    List<Scenario> findByHubIdAndNameIn(String hubId, Collection<String> names);
+
     /**
      * Удаляет сценарий по идентификатору хаба и названию.
      *
@@ -0,0 +1,38 @@
+package ru.practicum.dal.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.dal.model.SensorCode;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий для работы с кодами датчиков в словарях хабов.
+ */
+public interface SensorCodeRepository extends JpaRepository<SensorCode, Long> {
+
+    /**
+     * Находит коды датчиков указанных хабов.
+     *
+     * @param hubIds идентификаторы хабов
+     * @return коды датчиков хабов
+     */
+    List<SensorCode> findByHubIdIn(Collection<String> hubIds);
+
+    /**
+     * Находит коды датчиков хаба в порядке возрастания кода.
+     *
+     * @param hubId идентификатор хаба
+     * @return коды датчиков хаба
+     */
+    List<SensorCode> findByHubIdOrderByCode(String hubId);
+
+    /**
+     * Находит хабы, у датчиков которых есть коды.
+     *
+     * @return идентификаторы хабов
+     */
+    @Query("select distinct c.hubId from SensorCode c")
+    List<String> findHubIds();
+}
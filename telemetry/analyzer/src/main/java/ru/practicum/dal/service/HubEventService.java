@@ -0,0 +1,257 @@
+package ru.practicum.dal.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.config.ScenarioStorageConfig;
+import ru.practicum.dal.model.Scenario;
+import ru.practicum.dal.model.Sensor;
+import ru.practicum.dal.model.mapper.ScenarioMapper;
+import ru.practicum.dal.model.mapper.SensorMapper;
+import ru.practicum.dal.repository.ScenarioRepository;
+import ru.practicum.dal.repository.SensorRepository;
+import ru.yandex.practicum.kafka.telemetry.event.*;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Сервис пакетной обработки событий хабов.
+ *
+ * <p>Применяет все события одного опроса Kafka в одной транзакции и в порядке их поступления.
+ * Сенсоры и сценарии, затрагиваемые пакетом, загружаются заранее одним запросом на таблицу,
+ * после чего изменения накапливаются в контексте персистентности и сбрасываются в базу
+ * пакетами JDBC (см. {@code hibernate.jdbc.batch_size}).
+ *
+ * <p>Сценарии записываются в хранилище, выбранное режимом {@link ScenarioStorageConfig#getMode()}.
+ *
+ * <p>Некорректные события (например, сценарий со ссылкой на неизвестный сенсор) пропускаются
+ * с предупреждением и не откатывают транзакцию.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HubEventService {
+    private final ScenarioRepository scenarioRepository;
+    private final SensorRepository sensorRepository;
+    private final ScenarioDocumentService documentService;
+    private final ScenarioStorageConfig storageConfig;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Применяет пакет событий хабов в одной транзакции.
+     *
+     * @param events события хабов в порядке поступления
+     */
+    @Transactional
+    public void handleBatch(List<HubEventAvro> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        BatchContext context = new BatchContext(loadSensors(events), loadScenarios(events));
+
+        for (HubEventAvro event : events) {
+            String hubId = event.getHubId();
+            switch (event.getPayload()) {
+                case DeviceAddedEventAvro deviceAdd -> addSensor(context, hubId, deviceAdd.getId());
+
+                case DeviceRemovedEventAvro deviceRemove -> removeSensor(context, hubId, deviceRemove.getId());
+
+                case ScenarioAddedEventAvro scenarioAdd -> saveOrUpdateScenario(context, hubId, scenarioAdd);
+
+                case ScenarioRemovedEventAvro scenarioRemove ->
+                        removeScenario(context, hubId, scenarioRemove.getName());
+
+                default -> log.warn("Unknown event type: {}", event.getPayload().getClass().getSimpleName());
+            }
+        }
+
+        log.debug("Applied batch of {} hub events", events.size());
+    }
+
+    /**
+     * Добавляет сенсор или перепривязывает существующий к указанному хабу.
+     */
+    private void addSensor(BatchContext context, String hubId, String sensorId) {
+        Sensor existing = context.sensors.get(sensorId);
+        if (existing != null) {
+            existing.setHubId(hubId);
+            return;
+        }
+
+        // повторное добавление удалённого в этом же пакете сенсора: сначала выполняем удаление
+        if (context.removedSensors.remove(sensorId)) {
+            entityManager.flush();
+        }
+
+        Sensor sensor = SensorMapper.mapSensor(hubId, sensorId);
+        entityManager.persist(sensor);
+        context.sensors.put(sensorId, sensor);
+    }
+
+    /**
+     * Удаляет сенсор, если он привязан к указанному хабу.
+     */
+    private void removeSensor(BatchContext context, String hubId, String sensorId) {
+        Sensor existing = context.sensors.get(sensorId);
+        if (existing == null || !hubId.equals(existing.getHubId())) {
+            return;
+        }
+
+        sensorRepository.delete(existing);
+        context.sensors.remove(sensorId);
+        context.removedSensors.add(sensorId);
+    }
+
+    /**
+     * Создаёт сценарий или обновляет существующий с сохранением неизменённых условий и действий.
+     */
+    private void saveOrUpdateScenario(BatchContext context, String hubId, ScenarioAddedEventAvro scenarioAvro) {
+        Scenario newScenario = ScenarioMapper.mapScenario(hubId, scenarioAvro);
+
+        Optional<String> unknownSensor = Stream.concat(
+                        newScenario.getSensorConditions().keySet().stream(),
+                        newScenario.getSensorActions().keySet().stream())
+                .filter(sensorId -> {
+                    Sensor sensor = context.sensors.get(sensorId);
+                    return sensor == null || !hubId.equals(sensor.getHubId());
+                })
+                .findFirst();
+
+        if (unknownSensor.isPresent()) {
+            log.warn("Couldn't create scenario {}, sensor {} doesn't exist in hub {}",
+                    newScenario.getName(), unknownSensor.get(), hubId);
+            return;
+        }
+
+        if (!ScenarioService.hasValidWindows(newScenario)) {
+            log.warn("Couldn't create scenario {} for hub {}, windowed condition without positive window",
+                    newScenario.getName(), hubId);
+            return;
+        }
+
+        if (storageConfig.getMode().writesDocuments()) {
+            documentService.saveOrUpdate(hubId, scenarioAvro);
+        }
+
+        if (!storageConfig.getMode().writesRelational()) {
+            return;
+        }
+
+        ScenarioKey key = new ScenarioKey(hubId, newScenario.getName());
+        Scenario existing = context.scenarios.get(key);
+
+        if (existing != null) {
+            ScenarioService.updateScenarioData(existing, newScenario);
+            log.info("Updated scenario: {} for hub: {}", newScenario.getName(), hubId);
+            return;
+        }
+
+        // повторное создание удалённого в этом же пакете сценария: сначала выполняем удаление
+        if (context.removedScenarios.remove(key)) {
+            entityManager.flush();
+        }
+
+        context.scenarios.put(key, scenarioRepository.save(newScenario));
+        log.info("Created new scenario: {} for hub: {}", newScenario.getName(), hubId);
+    }
+
+    /**
+     * Удаляет сценарий хаба по названию.
+     */
+    private void removeScenario(BatchContext context, String hubId, String name) {
+        if (storageConfig.getMode().writesDocuments()) {
+            documentService.deleteByHubIdAndName(hubId, name);
+        }
+
+        ScenarioKey key = new ScenarioKey(hubId, name);
+        Scenario existing = context.scenarios.remove(key);
+        if (existing == null) {
+            return;
+        }
+
+        scenarioRepository.delete(existing);
+        context.removedScenarios.add(key);
+    }
+
+    /**
+     * Загружает одним запросом все сенсоры, упоминаемые в пакете событий.
+     */
+    private Map<String, Sensor> loadSensors(List<HubEventAvro> events) {
+        Set<String> sensorIds = new HashSet<>();
+        for (HubEventAvro event : events) {
+            switch (event.getPayload()) {
+                case DeviceAddedEventAvro deviceAdd -> sensorIds.add(deviceAdd.getId());
+                case DeviceRemovedEventAvro deviceRemove -> sensorIds.add(deviceRemove.getId());
+                case ScenarioAddedEventAvro scenarioAdd -> {
+                    scenarioAdd.getConditions().forEach(condition -> sensorIds.add(condition.getSensorId()));
+                    scenarioAdd.getActions().forEach(action -> sensorIds.add(action.getSensorId()));
+                }
+                default -> {
+                }
+            }
+        }
+
+        if (sensorIds.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        return sensorRepository.findAllById(sensorIds).stream()
+                .collect(Collectors.toMap(Sensor::getId, Function.identity()));
+    }
+
+    /**
+     * Загружает сценарии, упоминаемые в пакете событий, по одному запросу на хаб.
+     */
+    private Map<ScenarioKey, Scenario> loadScenarios(List<HubEventAvro> events) {
+        if (!storageConfig.getMode().writesRelational()) {
+            return new HashMap<>();
+        }
+
+        Map<String, Set<String>> namesByHub = new HashMap<>();
+        for (HubEventAvro event : events) {
+            String name = switch (event.getPayload()) {
+                case ScenarioAddedEventAvro scenarioAdd -> scenarioAdd.getName();
+                case ScenarioRemovedEventAvro scenarioRemove -> scenarioRemove.getName();
+                default -> null;
+            };
+            if (name != null) {
+                namesByHub.computeIfAbsent(event.getHubId(), hubId -> new HashSet<>()).add(name);
+            }
+        }
+
+        Map<ScenarioKey, Scenario> scenarios = new HashMap<>();
+        namesByHub.forEach((hubId, names) ->
+                scenarioRepository.findByHubIdAndNameIn(hubId, names)
+                        .forEach(scenario -> scenarios.put(new ScenarioKey(hubId, scenario.getName()), scenario)));
+        return scenarios;
+    }
+
+    /**
+     * Ключ сценария: хаб и название.
+     */
+    private record ScenarioKey(String hubId, String name) {
+    }
+
+    /**
+     * Состояние обработки пакета: загруженные и созданные в пакете сущности,
+     * а также удалённые в пакете ключи.
+     */
+    private record BatchContext(Map<String, Sensor> sensors,
+                                Map<ScenarioKey, Scenario> scenarios,
+                                Set<String> removedSensors,
+                                Set<ScenarioKey> removedScenarios) {
+
+        private BatchContext(Map<String, Sensor> sensors, Map<ScenarioKey, Scenario> scenarios) {
+            this(sensors, scenarios, new HashSet<>(), new HashSet<>());
+        }
+    }
+}
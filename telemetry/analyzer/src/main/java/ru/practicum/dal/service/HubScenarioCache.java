@@ -0,0 +1,112 @@
+package ru.practicum.dal.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.practicum.config.PartitionAffinityConfig;
+import ru.practicum.dal.model.Scenario;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Кэш сценариев хабов, снимки которых обрабатывает этот экземпляр анализатора.
+ *
+ * <p>Хабы назначенных партиций загружаются заранее при назначении ({@link #warmUp}),
+ * остальные - при первом снимке. При отзыве партиций их хабы удаляются ({@link #evict}),
+ * поэтому объём кэша пропорционален доле хабов экземпляра.
+ *
+ * <p>После применения событий сценариев хаб удаляется из кэша ({@link #invalidate})
+ * и перечитывается при следующем снимке. Загрузка и удаление одного хаба выполняются
+ * атомарно, поэтому удаление после коммита всегда вытесняет загруженные до него данные.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HubScenarioCache {
+    private final ScenarioService scenarioService;
+    private final PartitionAffinityConfig config;
+
+    private final Map<String, CachedScenarios> cache = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Возвращает сценарии хаба, загружая их при отсутствии в кэше или по истечении времени жизни.
+     *
+     * @param hubId идентификатор хаба
+     * @return список сценариев хаба
+     */
+    public List<Scenario> get(String hubId) {
+        CachedScenarios cached = cache.get(hubId);
+        if (cached != null && !cached.isExpired(config.getScenarioTtl().toNanos())) {
+            return cached.scenarios();
+        }
+
+        return cache.compute(hubId, (id, current) ->
+                current != null && !current.isExpired(config.getScenarioTtl().toNanos())
+                        ? current
+                        : new CachedScenarios(scenarioService.findByHubId(id), System.nanoTime())
+        ).scenarios();
+    }
+
+    /**
+     * Загружает сценарии всех хабов, удовлетворяющих условию, одним запросом.
+     * Если во время загрузки какой-либо хаб был инвалидирован, результат отбрасывается,
+     * и хабы загружаются по одному при первых снимках.
+     *
+     * @param owned условие принадлежности хаба этому экземпляру
+     */
+    public void warmUp(Predicate<String> owned) {
+        long before = invalidations.get();
+
+        List<String> hubIds = scenarioService.findHubIds().stream()
+                .filter(owned)
+                .filter(hubId -> !cache.containsKey(hubId))
+                .toList();
+        Map<String, List<Scenario>> scenarios = scenarioService.findByHubIdIn(hubIds);
+
+        if (invalidations.get() != before) {
+            log.debug("Scenarios changed during warm-up, {} hubs will be loaded lazily", hubIds.size());
+            return;
+        }
+
+        long now = System.nanoTime();
+        hubIds.forEach(hubId ->
+                cache.putIfAbsent(hubId, new CachedScenarios(scenarios.getOrDefault(hubId, List.of()), now)));
+        log.info("Warmed up scenarios of {} hubs", hubIds.size());
+    }
+
+    /**
+     * Удаляет из кэша хабы, удовлетворяющие условию (например, хабы отозванных партиций).
+     *
+     * @param revoked условие удаления хаба
+     */
+    public void evict(Predicate<String> revoked) {
+        cache.keySet().removeIf(revoked);
+    }
+
+    /**
+     * Удаляет из кэша хабы, сценарии которых изменились.
+     *
+     * @param hubIds идентификаторы хабов
+     */
+    public void invalidate(Collection<String> hubIds) {
+        if (hubIds.isEmpty()) {
+            return;
+        }
+
+        invalidations.incrementAndGet();
+        hubIds.forEach(cache::remove);
+    }
+
+    private record CachedScenarios(List<Scenario> scenarios, long loadedAtNanos) {
+
+        boolean isExpired(long ttlNanos) {
+            return System.nanoTime() - loadedAtNanos > ttlNanos;
+        }
+    }
+}
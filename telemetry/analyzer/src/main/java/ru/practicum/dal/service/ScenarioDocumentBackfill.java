@@ -0,0 +1,51 @@
+package ru.practicum.dal.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import ru.practicum.config.ScenarioStorageConfig;
+
+/**
+ * Перенос сценариев из реляционных таблиц в документное хранилище при старте приложения.
+ *
+ * <p>В режимах {@code DUAL} и {@code DOCUMENT} сценарии читаются только из scenario_documents,
+ * поэтому сценарии, созданные до включения этих режимов, без переноса перестали бы срабатывать.
+ * Для каждого хаба создаются документы сценариев, у которых их ещё нет; существующие документы
+ * не изменяются. Перенос выполняется до запуска обработчиков событий и снимков.
+ * Если документ параллельно создал другой экземпляр, хаб пропускается.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class ScenarioDocumentBackfill implements CommandLineRunner {
+    private final ScenarioService scenarioService;
+    private final ScenarioDocumentService documentService;
+    private final ScenarioStorageConfig storageConfig;
+
+    /**
+     * Переносит в документное хранилище сценарии, у которых ещё нет документа.
+     *
+     * @param args аргументы командной строки
+     */
+    @Override
+    public void run(String... args) {
+        if (!storageConfig.getMode().writesDocuments()) {
+            return;
+        }
+
+        int created = 0;
+        for (String hubId : scenarioService.findRelationalHubIds()) {
+            try {
+                created += documentService.saveMissing(hubId, scenarioService.findRelationalByHubId(hubId));
+            } catch (DataIntegrityViolationException e) {
+                log.info("Scenario documents of hub {} are being created by another instance, skipping", hubId);
+            }
+        }
+        log.info("Backfilled {} scenario documents from relational tables", created);
+    }
+}
@@ -0,0 +1,124 @@
+package ru.practicum.dal.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.dal.model.Scenario;
+import ru.practicum.dal.model.ScenarioDocument;
+import ru.practicum.dal.model.mapper.ScenarioDocumentMapper;
+import ru.practicum.dal.model.mapper.ScenarioMapper;
+import ru.practicum.dal.repository.ScenarioDocumentRepository;
+import ru.yandex.practicum.kafka.telemetry.event.ScenarioAddedEventAvro;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Сервис для работы со сценариями в документном хранилище.
+ * Загрузка всех сценариев хаба выполняется одним запросом по индексу без загрузки графа сущностей.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+@Slf4j
+public class ScenarioDocumentService {
+    private final ScenarioDocumentRepository documentRepository;
+
+    /**
+     * Сохраняет или обновляет документ сценария.
+     * Если содержимое сценария и схема записи не изменились, запись в базу данных не выполняется.
+     *
+     * @param hubId        идентификатор хаба
+     * @param scenarioAvro Avro-событие с данными сценария
+     * @return сохраненный или обновленный документ
+     */
+    @Transactional
+    public ScenarioDocument saveOrUpdate(String hubId, ScenarioAddedEventAvro scenarioAvro) {
+        byte[] payload = ScenarioDocumentMapper.encode(scenarioAvro);
+        Optional<ScenarioDocument> existing = documentRepository.findByHubIdAndName(hubId, scenarioAvro.getName());
+
+        if (existing.isPresent()) {
+            ScenarioDocument document = existing.get();
+            if (!Arrays.equals(document.getPayload(), payload)
+                || !Objects.equals(document.getSchemaFingerprint(), ScenarioDocumentMapper.schemaFingerprint())) {
+                document.setPayload(payload);
+                document.setSchemaFingerprint(ScenarioDocumentMapper.schemaFingerprint());
+                log.debug("Updated scenario document: {} for hub: {}", scenarioAvro.getName(), hubId);
+            }
+            return document;
+        }
+
+        log.debug("Created scenario document: {} for hub: {}", scenarioAvro.getName(), hubId);
+        return documentRepository.save(ScenarioDocumentMapper.toDocument(hubId, scenarioAvro));
+    }
+
+    /**
+     * Создаёт документы для сценариев хаба, у которых документа ещё нет.
+     * Существующие документы не изменяются.
+     *
+     * @param hubId     идентификатор хаба
+     * @param scenarios сценарии хаба из реляционных таблиц
+     * @return количество созданных документов
+     */
+    @Transactional
+    public int saveMissing(String hubId, List<Scenario> scenarios) {
+        Set<String> documented = new HashSet<>(documentRepository.findNamesByHubId(hubId));
+        List<ScenarioDocument> missing = scenarios.stream()
+                .filter(scenario -> !documented.contains(scenario.getName()))
+                .map(scenario -> ScenarioDocumentMapper.toDocument(hubId, ScenarioMapper.toAvro(scenario)))
+                .toList();
+
+        documentRepository.saveAll(missing);
+        return missing.size();
+    }
+
+    /**
+     * Удаляет документ сценария по идентификатору хаба и названию.
+     *
+     * @param hubId        идентификатор хаба
+     * @param scenarioName название сценария для удаления
+     */
+    @Transactional
+    public void deleteByHubIdAndName(String hubId, String scenarioName) {
+        documentRepository.deleteByHubIdAndName(hubId, scenarioName);
+    }
+
+    /**
+     * Загружает все сценарии хаба.
+     *
+     * @param hubId идентификатор хаба
+     * @return список сценариев хаба
+     */
+    public List<Scenario> findByHubId(String hubId) {
+        return documentRepository.findByHubId(hubId).stream()
+                .map(ScenarioDocumentMapper::toScenario)
+                .toList();
+    }
+
+    /**
+     * Загружает все сценарии указанных хабов одним запросом.
+     *
+     * @param hubIds идентификаторы хабов
+     * @return список сценариев хабов
+     */
+    public List<Scenario> findByHubIdIn(Collection<String> hubIds) {
+        return documentRepository.findByHubIdIn(hubIds).stream()
+                .map(ScenarioDocumentMapper::toScenario)
+                .toList();
+    }
+
+    /**
+     * Находит идентификаторы всех хабов, у которых есть сценарии.
+     *
+     * @return список идентификаторов хабов
+     */
+    public List<String> findHubIds() {
+        return documentRepository.findHubIds();
+    }
+}
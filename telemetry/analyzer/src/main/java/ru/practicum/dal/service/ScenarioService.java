@@ -2,8 +2,12 @@ package ru.practicum.dal.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.config.ScenarioStorageConfig;
+import ru.practicum.dal.model.Action;
+import ru.practicum.dal.model.Condition;
 import ru.practicum.dal.model.Scenario;
 import ru.practicum.dal.model.mapper.ScenarioMapper;
 import ru.practicum.dal.repository.ScenarioRepository;
@@ -11,12 +15,17 @@ import ru.practicum.dal.repository.SensorRepository;
 import ru.yandex.practicum.kafka.telemetry.event.DeviceActionAvro;
 import ru.yandex.practicum.kafka.telemetry.event.ScenarioAddedEventAvro;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для управления сценариями умного дома.
  * Обеспечивает создание, обновление, удаление и поиск сценариев.
+ * Хранилище сценариев выбирается режимом {@link ScenarioStorageConfig#getMode()}.
  */
 @Service
 @RequiredArgsConstructor
@@ -25,20 +34,23 @@ import java.util.Optional;
 public class ScenarioService {
     private final ScenarioRepository scenarioRepository;
     private final SensorRepository sensorRepository;
+    private final ScenarioDocumentService documentService;
+    private final ScenarioStorageConfig storageConfig;
 
     /**
      * Сохраняет или обновляет сценарий для указанного хаба.
      * Если сценарий с таким именем уже существует - обновляет его.
+     * В режиме {@code DOCUMENT} возвращаемый сценарий не сохраняется в реляционных таблицах.
      *
      * @param hubId        идентификатор хаба
      * @param scenarioAvro Avro-событие с данными сценария
      * @return сохраненный или обновленный сценарий
      * @throws IllegalArgumentException если не все сенсоры существуют в указанном хабе
+     *                                  или у оконного условия не задана длина окна
      */
     @Transactional
     public Scenario saveOrUpdate(String hubId, ScenarioAddedEventAvro scenarioAvro) {
         Scenario newScenario = ScenarioMapper.mapScenario(hubId, scenarioAvro);
-        Optional<Scenario> existingScenario = scenarioRepository.findByHubIdAndName(hubId, newScenario.getName());
 
         List<String> deviceIds = scenarioAvro.getActions()
                 .stream()
@@ -50,6 +62,22 @@ public class ScenarioService {
             throw new IllegalArgumentException("Couldn't create scenario, not all sensors is exist in this hub");
         }
 
+        if (!hasValidWindows(newScenario)) {
+            log.warn("Couldn't create scenario {}, windowed condition without positive window", newScenario.getName());
+            throw new IllegalArgumentException("Couldn't create scenario, windowed condition without positive window");
+        }
+
+        if (storageConfig.getMode().writesDocuments()) {
+            documentService.saveOrUpdate(hubId, scenarioAvro);
+        }
+
+        if (!storageConfig.getMode().writesRelational()) {
+            log.info("Saved scenario document: {} for hub: {}", newScenario.getName(), hubId);
+            return newScenario;
+        }
+
+        Optional<Scenario> existingScenario = scenarioRepository.findByHubIdAndName(hubId, newScenario.getName());
+
         Scenario savedScenario;
         if (existingScenario.isPresent()) {
             savedScenario = existingScenario.get();
@@ -71,21 +99,142 @@ public class ScenarioService {
      */
     @Transactional
     public void deleteByHubIdAndName(String hubId, String scenarioName) {
+        if (storageConfig.getMode().writesDocuments()) {
+            documentService.deleteByHubIdAndName(hubId, scenarioName);
+        }
+        // удаляем из реляционных таблиц и в режиме DOCUMENT, иначе перенос при старте восстановит сценарий
         scenarioRepository.deleteByHubIdAndName(hubId, scenarioName);
     }
 
+    /**
+     * Находит все сценарии указанного хаба в хранилище, выбранном режимом хранения.
+     * Условия и действия сценариев загружаются сразу, поэтому сценарии можно использовать
+     * вне транзакции (например, хранить в кэше).
+     *
+     * @param hubId идентификатор хаба
+     * @return список сценариев хаба
+     */
+    public List<Scenario> findByHubId(String hubId) {
+        if (storageConfig.getMode().readsDocuments()) {
+            return documentService.findByHubId(hubId);
+        }
+        return initialize(scenarioRepository.findByHubId(hubId));
+    }
+
+    /**
+     * Находит сценарии указанных хабов одним запросом и группирует их по хабам.
+     * Условия и действия сценариев загружаются сразу.
+     *
+     * @param hubIds идентификаторы хабов
+     * @return карта хаб -> сценарии, хабы без сценариев в неё не попадают
+     */
+    public Map<String, List<Scenario>> findByHubIdIn(Collection<String> hubIds) {
+        if (hubIds.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Scenario> scenarios = storageConfig.getMode().readsDocuments()
+                ? documentService.findByHubIdIn(hubIds)
+                : initialize(scenarioRepository.findByHubIdIn(hubIds));
+        return scenarios.stream().collect(Collectors.groupingBy(Scenario::getHubId));
+    }
+
+    /**
+     * Находит идентификаторы всех хабов, у которых есть сценарии.
+     *
+     * @return список идентификаторов хабов
+     */
+    public List<String> findHubIds() {
+        if (storageConfig.getMode().readsDocuments()) {
+            return documentService.findHubIds();
+        }
+        return scenarioRepository.findHubIds();
+    }
+
+    /**
+     * Находит идентификаторы хабов, у которых есть сценарии в реляционных таблицах, независимо от режима хранения.
+     *
+     * @return список идентификаторов хабов
+     */
+    public List<String> findRelationalHubIds() {
+        return scenarioRepository.findHubIds();
+    }
+
+    /**
+     * Находит сценарии хаба в реляционных таблицах независимо от режима хранения.
+     * Условия и действия сценариев загружаются сразу.
+     *
+     * @param hubId идентификатор хаба
+     * @return список сценариев хаба
+     */
+    public List<Scenario> findRelationalByHubId(String hubId) {
+        return initialize(scenarioRepository.findByHubId(hubId));
+    }
+
+    /**
+     * Загружает ленивые коллекции условий и действий сценариев.
+     */
+    private static List<Scenario> initialize(List<Scenario> scenarios) {
+        scenarios.forEach(scenario -> {
+            Hibernate.initialize(scenario.getSensorConditions());
+            Hibernate.initialize(scenario.getSensorActions());
+        });
+        return scenarios;
+    }
+
+    /**
+     * Проверяет, что у всех оконных условий сценария задана положительная длина окна.
+     *
+     * @param scenario сценарий для проверки
+     * @return true если параметры оконных условий корректны
+     */
+    static boolean hasValidWindows(Scenario scenario) {
+        return scenario.getSensorConditions().values().stream()
+                .filter(condition -> condition.getOperation().isWindowed())
+                .allMatch(condition -> condition.getWindowSeconds() != null && condition.getWindowSeconds() > 0);
+    }
+
     /**
      * Обновляет данные существующего сценария новыми значениями.
-     * Очищает старые условия и действия, затем добавляет новые.
+     * Сравнивает старые и новые условия и действия по идентификатору сенсора:
+     * совпадающие не трогает, изменённые обновляет на месте, отсутствующие в новых данных удаляет,
+     * а новые добавляет. Благодаря этому неизменённые строки не перезаписываются,
+     * а триггер проверки хаба срабатывает только для действительно новых связей.
      *
      * @param existing существующий сценарий для обновления
      * @param newData  новые данные сценария
      */
-    private void updateScenarioData(Scenario existing, Scenario newData) {
-        existing.getSensorActions().clear();
-        existing.getSensorConditions().clear();
+    static void updateScenarioData(Scenario existing, Scenario newData) {
+        Map<String, Condition> conditions = existing.getSensorConditions();
+        conditions.keySet().retainAll(newData.getSensorConditions().keySet());
+        newData.getSensorConditions().forEach((sensorId, condition) -> {
+            Condition current = conditions.get(sensorId);
+            if (current == null) {
+                conditions.put(sensorId, condition);
+            } else if (current.getType() != condition.getType()
+                       || current.getOperation() != condition.getOperation()
+                       || !Objects.equals(current.getValue(), condition.getValue())
+                       || !Objects.equals(current.getWindowSeconds(), condition.getWindowSeconds())
+                       || !Objects.equals(current.getHysteresis(), condition.getHysteresis())) {
+                current.setType(condition.getType());
+                current.setOperation(condition.getOperation());
+                current.setValue(condition.getValue());
+                current.setWindowSeconds(condition.getWindowSeconds());
+                current.setHysteresis(condition.getHysteresis());
+            }
+        });
 
-        existing.getSensorActions().putAll(newData.getSensorActions());
-        existing.getSensorConditions().putAll(newData.getSensorConditions());
+        Map<String, Action> actions = existing.getSensorActions();
+        actions.keySet().retainAll(newData.getSensorActions().keySet());
+        newData.getSensorActions().forEach((sensorId, action) -> {
+            Action current = actions.get(sensorId);
+            if (current == null) {
+                actions.put(sensorId, action);
+            } else if (current.getType() != action.getType()
+                       || !Objects.equals(current.getValue(), action.getValue())) {
+                current.setType(action.getType());
+                current.setValue(action.getValue());
+            }
+        });
     }
 }
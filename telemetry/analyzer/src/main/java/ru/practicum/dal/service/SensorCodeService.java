@@ -0,0 +1,136 @@
+package ru.practicum.dal.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.dal.model.Sensor;
+import ru.practicum.dal.model.SensorCode;
+import ru.practicum.dal.repository.SensorCodeRepository;
+import ru.practicum.dal.repository.SensorRepository;
+import ru.yandex.practicum.kafka.telemetry.event.DeviceAddedEventAvro;
+import ru.yandex.practicum.kafka.telemetry.event.HubEventAvro;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Сервис словарей идентификаторов датчиков хабов.
+ *
+ * <p>Выдаёт датчику код при добавлении устройства: следующий свободный номер в словаре хаба.
+ * Коды хранятся в базе и не освобождаются при удалении датчика, поэтому код, однажды
+ * опубликованный агрегатору и анализаторам, всегда означает один и тот же датчик.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+@Slf4j
+public class SensorCodeService {
+    private final SensorCodeRepository sensorCodeRepository;
+    private final SensorRepository sensorRepository;
+
+    /**
+     * Выдаёт коды датчикам из событий добавления устройств, у которых кода ещё нет.
+     *
+     * @param events события хабов одного пакета
+     * @return хабы, словари которых изменились
+     */
+    @Transactional
+    public Set<String> assignCodes(List<HubEventAvro> events) {
+        Map<String, Set<String>> sensorsByHub = new LinkedHashMap<>();
+        for (HubEventAvro event : events) {
+            if (event.getPayload() instanceof DeviceAddedEventAvro deviceAdded) {
+                sensorsByHub.computeIfAbsent(event.getHubId(), hubId -> new LinkedHashSet<>())
+                        .add(deviceAdded.getId());
+            }
+        }
+        return assign(sensorsByHub);
+    }
+
+    /**
+     * Выдаёт коды зарегистрированным датчикам, у которых кода ещё нет
+     * (например, добавленным до включения словарей).
+     *
+     * @return хабы, словари которых изменились
+     */
+    @Transactional
+    public Set<String> assignMissingCodes() {
+        Map<String, Set<String>> sensorsByHub = new LinkedHashMap<>();
+        for (Sensor sensor : sensorRepository.findAll(Sort.by("id"))) {
+            sensorsByHub.computeIfAbsent(sensor.getHubId(), hubId -> new LinkedHashSet<>())
+                    .add(sensor.getId());
+        }
+        return assign(sensorsByHub);
+    }
+
+    /**
+     * Возвращает словарь хаба: идентификаторы датчиков в порядке их кодов.
+     *
+     * @param hubId идентификатор хаба
+     * @return идентификаторы датчиков, индекс идентификатора - код датчика
+     */
+    public List<String> dictionaryOf(String hubId) {
+        return sensorCodeRepository.findByHubIdOrderByCode(hubId).stream()
+                .map(SensorCode::getSensorId)
+                .toList();
+    }
+
+    /**
+     * Возвращает хабы, у датчиков которых есть коды.
+     *
+     * @return идентификаторы хабов
+     */
+    public List<String> hubIds() {
+        return sensorCodeRepository.findHubIds();
+    }
+
+    /**
+     * Сохраняет коды датчиков, которых ещё нет в словарях их хабов.
+     * Коды выдаются подряд, начиная со следующего за максимальным кодом хаба.
+     *
+     * @param sensorsByHub идентификаторы датчиков по хабам
+     * @return хабы, получившие новые коды
+     */
+    private Set<String> assign(Map<String, Set<String>> sensorsByHub) {
+        if (sensorsByHub.isEmpty()) {
+            return Set.of();
+        }
+
+        Map<String, Set<String>> knownByHub = new HashMap<>();
+        Map<String, Integer> nextCodeByHub = new HashMap<>();
+        for (SensorCode sensorCode : sensorCodeRepository.findByHubIdIn(sensorsByHub.keySet())) {
+            knownByHub.computeIfAbsent(sensorCode.getHubId(), hubId -> new HashSet<>()).add(sensorCode.getSensorId());
+            nextCodeByHub.merge(sensorCode.getHubId(), sensorCode.getCode() + 1, Math::max);
+        }
+
+        List<SensorCode> created = new ArrayList<>();
+        Set<String> changedHubs = new HashSet<>();
+        sensorsByHub.forEach((hubId, sensorIds) -> {
+            Set<String> known = knownByHub.getOrDefault(hubId, Set.of());
+            int nextCode = nextCodeByHub.getOrDefault(hubId, 0);
+            for (String sensorId : sensorIds) {
+                if (!known.contains(sensorId)) {
+                    created.add(SensorCode.builder()
+                            .hubId(hubId)
+                            .sensorId(sensorId)
+                            .code(nextCode++)
+                            .build());
+                    changedHubs.add(hubId);
+                }
+            }
+        });
+
+        if (!created.isEmpty()) {
+            sensorCodeRepository.saveAll(created);
+            log.info("Assigned {} sensor codes in hubs {}", created.size(), changedHubs);
+        }
+        return changedHubs;
+    }
+}
@@ -4,12 +4,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.avro.specific.SpecificRecordBase;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.config.PartitionAffinityConfig;
 import ru.practicum.dal.model.Condition;
 import ru.practicum.dal.model.ConditionType;
 import ru.practicum.dal.model.Scenario;
 import ru.practicum.dal.model.mapper.ScenarioMapper;
-import ru.practicum.dal.repository.ScenarioRepository;
+import ru.practicum.dal.service.state.ConditionStateStore;
+import ru.practicum.dal.service.state.HubConditionState;
 import ru.yandex.practicum.grpc.telemetry.event.DeviceActionRequest;
 import ru.yandex.practicum.kafka.telemetry.event.*;
 
@@ -17,12 +18,21 @@ import java.util.List;
 
 /**
  * Сервис для обработки снимков состояния сенсоров и активации сценариев.
+ *
+ * <p>Условия, зависящие от предыдущих значений сенсора (оконные и с гистерезисом),
+ * проверяются по состоянию из {@link ConditionStateStore}, которое обновляется каждым снимком.
+ *
+ * <p>При включённой привязке хабов к партициям сценарии берутся из {@link HubScenarioCache},
+ * иначе читаются из хранилища на каждый снимок.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SnapshotService {
-    private final ScenarioRepository scenarioRepository;
+    private final ScenarioService scenarioService;
+    private final HubScenarioCache scenarioCache;
+    private final PartitionAffinityConfig affinityConfig;
+    private final ConditionStateStore conditionStateStore;
 
     /**
      * Обрабатывает снимок состояния сенсоров и возвращает список действий для выполнения.
@@ -31,20 +41,55 @@ public class SnapshotService {
      * @param sensorsSnapshotAvro снимок состояния сенсоров
      * @return список запросов на выполнение действий
      */
-    @Transactional(readOnly = true)
     public List<DeviceActionRequest> handleSnapshot(SensorsSnapshotAvro sensorsSnapshotAvro) {
 
         //находим все сценарии к хабу
-        List<Scenario> scenarios = scenarioRepository.findByHubId(sensorsSnapshotAvro.getHubId());
+        List<Scenario> scenarios = affinityConfig.isEnabled()
+                ? scenarioCache.get(sensorsSnapshotAvro.getHubId())
+                : scenarioService.findByHubId(sensorsSnapshotAvro.getHubId());
+
+        //обновляем состояние оконных условий до проверки, чтобы ни одно показание не пропустить
+        HubConditionState conditionState = conditionStateStore.forHub(sensorsSnapshotAvro.getHubId());
+        observeStatefulConditions(sensorsSnapshotAvro, scenarios, conditionState);
 
         //переводим все сценарии в действия которые нужно исполнить в Proto схему DeviceActionProto
         return scenarios.stream()
-                .filter(scenario -> isAllConditionSatisfied(sensorsSnapshotAvro, scenario))  // выбираем только те сценарии которые удовлетворяют всем условиям
+                .filter(scenario -> isAllConditionSatisfied(sensorsSnapshotAvro, scenario, conditionState))  // выбираем только те сценарии которые удовлетворяют всем условиям
                 .map(ScenarioMapper::toDeviceActionRequest)
                 .flatMap(List::stream)
                 .toList();
     }
 
+    /**
+     * Учитывает показания сенсоров снимка в состоянии всех оконных условий и условий с гистерезисом
+     * сценариев хаба. Состояния условий, которых больше нет в сценариях, удаляются.
+     *
+     * @param sensorsSnapshotAvro снимок состояния всех сенсоров
+     * @param scenarios           сценарии хаба
+     * @param conditionState      состояние условий хаба
+     */
+    private void observeStatefulConditions(SensorsSnapshotAvro sensorsSnapshotAvro,
+                                           List<Scenario> scenarios,
+                                           HubConditionState conditionState) {
+        for (Scenario scenario : scenarios) {
+            scenario.getSensorConditions().forEach((sensorId, condition) -> {
+                if (!condition.getOperation().isStateful()) {
+                    return;
+                }
+
+                SensorStateAvro state = sensorsSnapshotAvro.getSensorsState().get(sensorId);
+                if (state == null) {
+                    conditionState.observe(sensorId, condition, null, null);
+                    return;
+                }
+
+                Integer sensorValue = extractSensorValue((SpecificRecordBase) state.getData(), condition.getType());
+                conditionState.observe(sensorId, condition, state.getTimestamp().toEpochMilli(), sensorValue);
+            });
+        }
+        conditionState.evictUnused();
+    }
+
     /**
      * Проверяет выполнение условия для одного сенсора.
      *
@@ -62,13 +107,21 @@ public class SnapshotService {
      *
      * @param sensorsSnapshotAvro снимок состояния всех сенсоров
      * @param scenario            сценарий для проверки
+     * @param conditionState      состояние оконных условий и условий с гистерезисом хаба
      * @return true если все условия сценария выполнены
      */
-    private boolean isAllConditionSatisfied(SensorsSnapshotAvro sensorsSnapshotAvro, Scenario scenario) {
+    private boolean isAllConditionSatisfied(SensorsSnapshotAvro sensorsSnapshotAvro,
+                                            Scenario scenario,
+                                            HubConditionState conditionState) {
+        long nowMillis = sensorsSnapshotAvro.getTimestamp().toEpochMilli();
         return scenario.getSensorConditions().entrySet().stream()
                 .allMatch(entry -> {
+                    Condition condition = entry.getValue();
+                    if (condition.getOperation().isStateful()) {
+                        return conditionState.isSatisfied(entry.getKey(), condition, nowMillis);
+                    }
                     SensorStateAvro state = sensorsSnapshotAvro.getSensorsState().get(entry.getKey());
-                    return state != null && isConditionSatisfied((SpecificRecordBase) state.getData(), entry.getValue());
+                    return state != null && isConditionSatisfied((SpecificRecordBase) state.getData(), condition);
                 });
     }
 
@@ -121,6 +174,7 @@ public class SnapshotService {
             case EQUALS -> sensorValue.equals(condition.getValue());
             case GREATER_THAN -> sensorValue > condition.getValue();
             case LOWER_THAN -> sensorValue < condition.getValue();
+            default -> false;
         };
     }
 }
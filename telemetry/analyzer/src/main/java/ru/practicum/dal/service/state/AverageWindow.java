@@ -0,0 +1,100 @@
+package ru.practicum.dal.service.state;
+
+import ru.practicum.dal.model.Condition;
+
+/**
+ * Скользящее окно для операций AVERAGE_GREATER_THAN и AVERAGE_LOWER_THAN.
+ *
+ * <p>Окно делится на фиксированное количество корзин, хранящихся в кольцевом буфере.
+ * Каждая корзина накапливает сумму и количество показаний за свой интервал, а общие сумма
+ * и количество поддерживаются инкрементально: при сдвиге окна вычитаются устаревшие корзины.
+ * Память на окно не зависит от частоты показаний, а обновление и проверка выполняются за O(1)
+ * (сдвиг окна - амортизированно).
+ *
+ * <p>Условие не выполняется, пока окно не заполнено: с первого показания должно пройти
+ * не меньше длины окна.
+ */
+class AverageWindow implements ConditionState {
+    private final long windowMillis;
+    private final long bucketMillis;
+    private final long[] sums;
+    private final int[] counts;
+
+    private long sum;
+    private long count;
+    private long headBucket = Long.MIN_VALUE;
+    private long firstSampleMillis = Long.MIN_VALUE;
+    private long lastSampleMillis = Long.MIN_VALUE;
+
+    /**
+     * Создаёт окно усреднения.
+     *
+     * @param windowSeconds длина окна в секундах, больше нуля
+     * @param buckets       количество корзин кольцевого буфера, больше нуля
+     */
+    AverageWindow(int windowSeconds, int buckets) {
+        this.windowMillis = windowSeconds * 1000L;
+        this.bucketMillis = Math.max(1, Math.ceilDiv(windowMillis, buckets));
+        this.sums = new long[buckets];
+        this.counts = new int[buckets];
+    }
+
+    @Override
+    public void update(long timestampMillis, int value) {
+        if (timestampMillis <= lastSampleMillis) {
+            return;
+        }
+        if (firstSampleMillis == Long.MIN_VALUE) {
+            firstSampleMillis = timestampMillis;
+        }
+        lastSampleMillis = timestampMillis;
+
+        long bucket = Math.floorDiv(timestampMillis, bucketMillis);
+        advance(bucket);
+
+        int slot = (int) Math.floorMod(bucket, sums.length);
+        sums[slot] += value;
+        counts[slot]++;
+        sum += value;
+        count++;
+    }
+
+    @Override
+    public boolean test(Condition condition, long nowMillis) {
+        advance(Math.floorDiv(nowMillis, bucketMillis));
+
+        if (count == 0 || condition.getValue() == null || nowMillis - firstSampleMillis < windowMillis) {
+            return false;
+        }
+
+        double average = (double) sum / count;
+        return switch (condition.getOperation()) {
+            case AVERAGE_GREATER_THAN -> average > condition.getValue();
+            case AVERAGE_LOWER_THAN -> average < condition.getValue();
+            default -> false;
+        };
+    }
+
+    /**
+     * Сдвигает голову окна до указанной корзины, очищая вышедшие из окна корзины.
+     */
+    private void advance(long bucket) {
+        if (headBucket == Long.MIN_VALUE) {
+            headBucket = bucket;
+            return;
+        }
+        if (bucket <= headBucket) {
+            return;
+        }
+
+        long steps = Math.min(bucket - headBucket, sums.length);
+        for (long i = 1; i <= steps; i++) {
+            int slot = (int) Math.floorMod(headBucket + i, sums.length);
+            sum -= sums[slot];
+            count -= counts[slot];
+            sums[slot] = 0;
+            counts[slot] = 0;
+        }
+        headBucket = bucket;
+    }
+}
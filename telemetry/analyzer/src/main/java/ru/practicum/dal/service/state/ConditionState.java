@@ -0,0 +1,29 @@
+package ru.practicum.dal.service.state;
+
+import ru.practicum.dal.model.Condition;
+
+/**
+ * Состояние одного условия, зависящего от предыдущих значений сенсора.
+ * Обновляется инкрементально, каждое обновление и проверка выполняются за O(1).
+ */
+interface ConditionState {
+
+    /**
+     * Учитывает новое показание сенсора.
+     * Показания с меткой времени не новее уже учтённых игнорируются,
+     * поэтому повторная передача того же состояния сенсора в следующих снимках не искажает агрегаты.
+     *
+     * @param timestampMillis время показания в миллисекундах с эпохи Unix
+     * @param value           значение сенсора
+     */
+    void update(long timestampMillis, int value);
+
+    /**
+     * Проверяет выполнение условия на момент времени.
+     *
+     * @param condition условие для проверки
+     * @param nowMillis текущее время (время снимка) в миллисекундах с эпохи Unix
+     * @return true если условие выполнено
+     */
+    boolean test(Condition condition, long nowMillis);
+}
@@ -0,0 +1,42 @@
+package ru.practicum.dal.service.state;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.config.ConditionStateConfig;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Хранилище состояния оконных условий и условий с гистерезисом по хабам.
+ *
+ * <p>Состояние хранится только в памяти и накапливается из потока снимков, поэтому
+ * проверка таких условий не требует запросов истории. После перезапуска окна
+ * заполняются заново, и оконные условия не выполняются до заполнения окна.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConditionStateStore {
+    private final ConditionStateConfig config;
+    private final Map<String, HubConditionState> hubs = new ConcurrentHashMap<>();
+
+    /**
+     * Возвращает состояние условий хаба, создавая его при первом обращении.
+     *
+     * @param hubId идентификатор хаба
+     * @return состояние условий хаба
+     */
+    public HubConditionState forHub(String hubId) {
+        return hubs.computeIfAbsent(hubId, id -> new HubConditionState(config.getWindowBuckets()));
+    }
+
+    /**
+     * Удаляет состояние хабов, удовлетворяющих условию (например, хабов отозванных партиций).
+     *
+     * @param revoked условие удаления хаба
+     */
+    public void evict(Predicate<String> revoked) {
+        hubs.keySet().removeIf(revoked);
+    }
+}
@@ -0,0 +1,123 @@
+package ru.practicum.dal.service.state;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.dal.model.Condition;
+import ru.practicum.dal.model.ConditionOperation;
+import ru.practicum.dal.model.ConditionType;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Состояние оконных условий и условий с гистерезисом одного хаба.
+ *
+ * <p>Окна усреднения общие для всех условий с одинаковыми сенсором, типом и длиной окна,
+ * поэтому несколько сценариев с разными порогами над одним окном хранят одно состояние.
+ *
+ * <p>Не потокобезопасен: снимки одного хаба обрабатываются строго последовательно
+ * в одном потоке {@link ru.practicum.service.KeyedExecutor}.
+ */
+@Slf4j
+public class HubConditionState {
+    private final int windowBuckets;
+    private final Map<StateKey, ConditionState> states = new HashMap<>();
+    private final Set<StateKey> used = new HashSet<>();
+
+    HubConditionState(int windowBuckets) {
+        this.windowBuckets = windowBuckets;
+    }
+
+    /**
+     * Отмечает условие как используемое в текущем снимке и, если известно показание сенсора,
+     * учитывает его в состоянии условия.
+     *
+     * @param sensorId        идентификатор сенсора условия
+     * @param condition       условие, зависящее от предыдущих значений сенсора
+     * @param timestampMillis время показания сенсора или null, если сенсора нет в снимке
+     * @param value           значение сенсора или null, если его не удалось извлечь
+     */
+    public void observe(String sensorId, Condition condition, Long timestampMillis, Integer value) {
+        if (!isValid(condition)) {
+            return;
+        }
+
+        StateKey key = StateKey.of(sensorId, condition);
+        used.add(key);
+
+        if (timestampMillis == null || value == null) {
+            return;
+        }
+        states.computeIfAbsent(key, k -> create(condition)).update(timestampMillis, value);
+    }
+
+    /**
+     * Проверяет выполнение условия по накопленному состоянию.
+     *
+     * @param sensorId  идентификатор сенсора условия
+     * @param condition условие, зависящее от предыдущих значений сенсора
+     * @param nowMillis время снимка в миллисекундах с эпохи Unix
+     * @return true если условие выполнено
+     */
+    public boolean isSatisfied(String sensorId, Condition condition, long nowMillis) {
+        if (!isValid(condition)) {
+            return false;
+        }
+
+        ConditionState state = states.get(StateKey.of(sensorId, condition));
+        return state != null && state.test(condition, nowMillis);
+    }
+
+    /**
+     * Удаляет состояния условий, не отмеченных с прошлого вызова
+     * (например, после удаления или изменения сценария).
+     */
+    public void evictUnused() {
+        states.keySet().retainAll(used);
+        used.clear();
+    }
+
+    private ConditionState create(Condition condition) {
+        return switch (condition.getOperation()) {
+            case AVERAGE_GREATER_THAN, AVERAGE_LOWER_THAN ->
+                    new AverageWindow(condition.getWindowSeconds(), windowBuckets);
+            case EQUALS_FOR -> new SteadyValueState(condition.getValue(), condition.getWindowSeconds());
+            case GREATER_THAN_HYSTERESIS, LOWER_THAN_HYSTERESIS ->
+                    new HysteresisLatch(condition.getOperation(), condition.getValue(), condition.getHysteresis());
+            default -> throw new IllegalArgumentException("Stateless operation: " + condition.getOperation());
+        };
+    }
+
+    private static boolean isValid(Condition condition) {
+        if (!condition.getOperation().isWindowed()) {
+            return true;
+        }
+        if (condition.getWindowSeconds() == null || condition.getWindowSeconds() <= 0) {
+            log.debug("Windowed condition {} has no positive window", condition.getOperation());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Ключ состояния условия. Для окон усреднения порог и операция не входят в ключ,
+     * так как окно общее для всех таких условий.
+     */
+    private record StateKey(String sensorId,
+                            ConditionType type,
+                            ConditionOperation operation,
+                            Integer value,
+                            Integer windowSeconds,
+                            Integer hysteresis) {
+
+        static StateKey of(String sensorId, Condition condition) {
+            return switch (condition.getOperation()) {
+                case AVERAGE_GREATER_THAN, AVERAGE_LOWER_THAN -> new StateKey(sensorId, condition.getType(),
+                        ConditionOperation.AVERAGE_GREATER_THAN, null, condition.getWindowSeconds(), null);
+                default -> new StateKey(sensorId, condition.getType(), condition.getOperation(),
+                        condition.getValue(), condition.getWindowSeconds(), condition.getHysteresis());
+            };
+        }
+    }
+}
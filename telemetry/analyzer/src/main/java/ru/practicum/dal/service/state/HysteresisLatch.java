@@ -0,0 +1,60 @@
+package ru.practicum.dal.service.state;
+
+import ru.practicum.dal.model.Condition;
+import ru.practicum.dal.model.ConditionOperation;
+
+/**
+ * Состояние операций GREATER_THAN_HYSTERESIS и LOWER_THAN_HYSTERESIS.
+ *
+ * <p>Условие включается при пересечении порога и выключается, только когда значение
+ * вернётся за порог на ширину гистерезиса. Между этими границами сохраняется предыдущее
+ * состояние, поэтому колебания значения около порога не приводят к частым срабатываниям.
+ */
+class HysteresisLatch implements ConditionState {
+    private final boolean upward;
+    private final Integer threshold;
+    private final int hysteresis;
+
+    private boolean active;
+    private long lastSampleMillis = Long.MIN_VALUE;
+
+    /**
+     * Создаёт состояние для условия.
+     *
+     * @param operation  GREATER_THAN_HYSTERESIS или LOWER_THAN_HYSTERESIS
+     * @param threshold  порог срабатывания, может быть null
+     * @param hysteresis ширина гистерезиса, может быть null (нулевой гистерезис)
+     */
+    HysteresisLatch(ConditionOperation operation, Integer threshold, Integer hysteresis) {
+        this.upward = operation == ConditionOperation.GREATER_THAN_HYSTERESIS;
+        this.threshold = threshold;
+        this.hysteresis = hysteresis == null ? 0 : Math.abs(hysteresis);
+    }
+
+    @Override
+    public void update(long timestampMillis, int value) {
+        if (timestampMillis <= lastSampleMillis || threshold == null) {
+            return;
+        }
+        lastSampleMillis = timestampMillis;
+
+        if (upward) {
+            if (value > threshold) {
+                active = true;
+            } else if (value <= threshold - hysteresis) {
+                active = false;
+            }
+        } else {
+            if (value < threshold) {
+                active = true;
+            } else if (value >= threshold + hysteresis) {
+                active = false;
+            }
+        }
+    }
+
+    @Override
+    public boolean test(Condition condition, long nowMillis) {
+        return active;
+    }
+}
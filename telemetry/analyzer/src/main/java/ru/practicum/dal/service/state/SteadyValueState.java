@@ -0,0 +1,45 @@
+package ru.practicum.dal.service.state;
+
+import ru.practicum.dal.model.Condition;
+
+/**
+ * Состояние операции EQUALS_FOR: с какого момента значение сенсора непрерывно равно заданному.
+ * Например, "нет движения 10 минут" - условие MOTION, значение false, окно 600 секунд.
+ */
+class SteadyValueState implements ConditionState {
+    private final Integer target;
+    private final long windowMillis;
+
+    private long sinceMillis = Long.MIN_VALUE;
+    private long lastSampleMillis = Long.MIN_VALUE;
+
+    /**
+     * Создаёт состояние для условия.
+     *
+     * @param target        значение, которому должен быть равен сенсор, может быть null
+     * @param windowSeconds длина окна в секундах, больше нуля
+     */
+    SteadyValueState(Integer target, int windowSeconds) {
+        this.target = target;
+        this.windowMillis = windowSeconds * 1000L;
+    }
+
+    @Override
+    public void update(long timestampMillis, int value) {
+        if (timestampMillis <= lastSampleMillis) {
+            return;
+        }
+        lastSampleMillis = timestampMillis;
+
+        if (target == null || target != value) {
+            sinceMillis = Long.MIN_VALUE;
+        } else if (sinceMillis == Long.MIN_VALUE) {
+            sinceMillis = timestampMillis;
+        }
+    }
+
+    @Override
+    public boolean test(Condition condition, long nowMillis) {
+        return sinceMillis != Long.MIN_VALUE && nowMillis - sinceMillis >= windowMillis;
+    }
+}
@@ -7,12 +7,13 @@ import org.springframework.stereotype.Component;
 /**
  * Компонент для запуска обработчиков событий при старте приложения.
  * Запускает обработку событий от хабов и обработку снимков состояния в отдельных потоках.
+ * Снимки обрабатывает {@link SnapshotProcessor}, {@link CompactSnapshotProcessor} или, в совмещённом режиме, {@link FusedPipelineProcessor}.
  */
 @Component
 @RequiredArgsConstructor
 public class AnalyzerRunner implements CommandLineRunner {
     final HubEventProcessor hubEventProcessor;
-    final SnapshotProcessor snapshotProcessor;
+    final HubRecordProcessor<?> snapshotProcessor;
 
     /**
      * Запускает обработчики событий при старте приложения.
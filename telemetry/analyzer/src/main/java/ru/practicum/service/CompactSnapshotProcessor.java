@@ -0,0 +1,138 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.aggregation.CompactSnapshots;
+import ru.practicum.aggregation.SensorIdDictionary;
+import ru.practicum.config.ConsumerRuntimeConfig;
+import ru.practicum.config.KafkaConfig;
+import ru.practicum.config.PartitionAffinityConfig;
+import ru.practicum.config.SensorIdDictionaryConfig;
+import ru.practicum.config.SnapshotProcessingConfig;
+import ru.practicum.config.TopicType;
+import ru.practicum.dal.service.SnapshotService;
+import ru.practicum.kafka.CompactedTopicReader;
+import ru.yandex.practicum.kafka.telemetry.event.CompactSensorsSnapshotAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorIdDictionaryAvro;
+
+import java.time.Duration;
+
+/**
+ * Обработчик компактных снимков состояния сенсоров.
+ *
+ * <p>Используется в режиме {@code COMPACT_SNAPSHOTS}: агрегатор публикует снимки, в которых
+ * датчики обозначены кодами из словарей идентификаторов. Словари читаются из топика
+ * {@code TELEMETRY_SENSOR_IDS} в отдельном потоке; снимок восстанавливается по словарю
+ * в снимок со строковыми идентификаторами и проверяется так же, как в {@link SnapshotProcessor}.
+ *
+ * <p>Если в снимке есть код, которого ещё нет в словаре, обработчик ждёт чтения топика словарей
+ * не дольше {@link SensorIdDictionaryConfig#getResolveTimeout()}, после чего пропускает
+ * состояния с неизвестными кодами.
+ */
+@Component
+@ConditionalOnProperty(prefix = "analyzer.pipeline", name = "mode", havingValue = "COMPACT_SNAPSHOTS")
+@Slf4j
+public class CompactSnapshotProcessor extends HubRecordProcessor<CompactSensorsSnapshotAvro> {
+    private static final Duration DICTIONARY_LOAD_TIMEOUT = Duration.ofSeconds(30);
+
+    private final SensorIdDictionary dictionary = new SensorIdDictionary();
+    private final CompactedTopicReader<String, SensorIdDictionaryAvro> dictionaryReader;
+    private final Duration resolveTimeout;
+
+    /**
+     * Конструктор обработчика компактных снимков.
+     *
+     * @param config             конфигурация Kafka
+     * @param runtimeConfig      настройки циклов опроса Kafka
+     * @param meterRegistry      реестр метрик консьюмера
+     * @param dictionaryConfig   настройки словарей идентификаторов датчиков
+     * @param processingConfig   настройки параллельной обработки снимков
+     * @param affinityConfig     настройки привязки хабов к назначенным партициям
+     * @param ownership          принадлежность хабов этому экземпляру
+     * @param snapshotService    сервис для обработки снимков и проверки сценариев
+     * @param hubRouterProcessor процессор для отправки действий через gRPC
+     * @param latencyMetrics     гистограммы задержек конвейера
+     */
+    public CompactSnapshotProcessor(KafkaConfig config,
+                                    ConsumerRuntimeConfig runtimeConfig,
+                                    MeterRegistry meterRegistry,
+                                    SensorIdDictionaryConfig dictionaryConfig,
+                                    SnapshotProcessingConfig processingConfig,
+                                    PartitionAffinityConfig affinityConfig,
+                                    HubPartitionOwnership ownership,
+                                    SnapshotService snapshotService,
+                                    HubRouterProcessor hubRouterProcessor,
+                                    PipelineLatencyMetrics latencyMetrics) {
+        super(config.getCompactSnapshotConsumerProperties(),
+                config.getTopics().get(TopicType.TELEMETRY_SNAPSHOTS_COMPACT),
+                runtimeConfig.getSnapshots(), meterRegistry, processingConfig, affinityConfig, ownership,
+                snapshotService, hubRouterProcessor, latencyMetrics);
+        this.resolveTimeout = dictionaryConfig.getResolveTimeout();
+        this.dictionaryReader = new CompactedTopicReader<>("SensorIdDictionaryReader",
+                config.getDictionaryConsumerProperties(),
+                config.getTopics().get(TopicType.TELEMETRY_SENSOR_IDS),
+                record -> dictionary.update(record.value()));
+    }
+
+    /**
+     * Запускает чтение словарей, дожидается загрузки опубликованных словарей
+     * и начинает обработку снимков. По завершении останавливает чтение словарей.
+     */
+    @Override
+    public void start() {
+        Thread readerThread = new Thread(dictionaryReader, "SensorIdDictionaryReaderThread");
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        try {
+            if (!dictionaryReader.awaitCaughtUp(DICTIONARY_LOAD_TIMEOUT)) {
+                log.warn("Sensor id dictionaries were not loaded in {}", DICTIONARY_LOAD_TIMEOUT);
+            }
+            super.start();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Interrupted while loading sensor id dictionaries");
+        } finally {
+            dictionaryReader.wakeup();
+        }
+    }
+
+    /**
+     * Восстанавливает снимок по словарю хаба и проверяет сценарии хаба.
+     *
+     * @param record запись из Kafka топика с компактным снимком
+     * @param trace  отметки времени прохождения снимка по конвейеру
+     */
+    @Override
+    protected void process(ConsumerRecord<String, CompactSensorsSnapshotAvro> record, LatencyTrace trace) {
+        CompactSensorsSnapshotAvro snapshot = record.value();
+
+        if (!CompactSnapshots.isResolvable(snapshot, dictionary)) {
+            try {
+                dictionaryReader.awaitCaughtUp(resolveTimeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!CompactSnapshots.isResolvable(snapshot, dictionary)) {
+                log.warn("Snapshot of hub {} has sensor codes missing from dictionary, skipping them",
+                        snapshot.getHubId());
+            }
+        }
+
+        executeActions(CompactSnapshots.decode(snapshot, dictionary), trace);
+    }
+
+    @Override
+    protected LatencyTrace traceOf(ConsumerRecord<String, CompactSensorsSnapshotAvro> record, long polledMillis) {
+        return LatencyTrace.ofSnapshot(record, polledMillis);
+    }
+
+    @Override
+    protected String hubIdOf(CompactSensorsSnapshotAvro value) {
+        return value.getHubId();
+    }
+}
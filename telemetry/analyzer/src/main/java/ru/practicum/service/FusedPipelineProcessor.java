@@ -0,0 +1,163 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.TelemetryHeaders;
+import ru.practicum.aggregation.InMemoryRepository;
+import ru.practicum.aggregation.SnapshotAggregator;
+import ru.practicum.config.ConsumerRuntimeConfig;
+import ru.practicum.config.KafkaConfig;
+import ru.practicum.config.PartitionAffinityConfig;
+import ru.practicum.config.PipelineConfig;
+import ru.practicum.config.SnapshotProcessingConfig;
+import ru.practicum.config.TopicType;
+import ru.practicum.dal.service.SnapshotService;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Совмещённый конвейер агрегации и анализа в одном процессе.
+ *
+ * <p>Читает события датчиков из топика {@code TELEMETRY_SENSORS}, строит снимки хабов
+ * через {@link SnapshotAggregator} и сразу передаёт их в память на проверку сценариев,
+ * минуя сериализацию, брокер и опрос топика снимков. Агрегация и проверка выполняются
+ * в потоке, отвечающем за хаб, поэтому события одного хаба обрабатываются по порядку.
+ *
+ * <p>Если включена публикация снимков, снимки дополнительно асинхронно отправляются
+ * в топик {@code TELEMETRY_SNAPSHOTS} для внешних потребителей.
+ *
+ * <p>При включённой привязке хабов к партициям топики событий датчиков и хабов
+ * должны быть копартиционированы.
+ */
+@Component
+@ConditionalOnProperty(prefix = "analyzer.pipeline", name = "mode", havingValue = "FUSED")
+@Slf4j
+public class FusedPipelineProcessor extends HubRecordProcessor<SensorEventAvro> {
+    private final InMemoryRepository repository = new InMemoryRepository();
+    private final SnapshotAggregator aggregator = new SnapshotAggregator(repository);
+    private final KafkaProducer<String, SensorsSnapshotAvro> producer;
+    private final String sensorsTopic;
+    private final String snapshotsTopic;
+
+    /**
+     * Конструктор совмещённого конвейера.
+     *
+     * @param config             конфигурация Kafka
+     * @param runtimeConfig      настройки циклов опроса Kafka
+     * @param meterRegistry      реестр метрик консьюмера
+     * @param pipelineConfig     настройки конвейера
+     * @param processingConfig   настройки параллельной обработки
+     * @param affinityConfig     настройки привязки хабов к назначенным партициям
+     * @param ownership          принадлежность хабов этому экземпляру
+     * @param snapshotService    сервис для обработки снимков и проверки сценариев
+     * @param hubRouterProcessor процессор для отправки действий через gRPC
+     * @param latencyMetrics     гистограммы задержек конвейера
+     */
+    public FusedPipelineProcessor(KafkaConfig config,
+                                  ConsumerRuntimeConfig runtimeConfig,
+                                  MeterRegistry meterRegistry,
+                                  PipelineConfig pipelineConfig,
+                                  SnapshotProcessingConfig processingConfig,
+                                  PartitionAffinityConfig affinityConfig,
+                                  HubPartitionOwnership ownership,
+                                  SnapshotService snapshotService,
+                                  HubRouterProcessor hubRouterProcessor,
+                                  PipelineLatencyMetrics latencyMetrics) {
+        super(config.getSensorConsumerProperties(), config.getTopics().get(TopicType.TELEMETRY_SENSORS),
+                runtimeConfig.getSnapshots(), meterRegistry, processingConfig, affinityConfig, ownership,
+                snapshotService, hubRouterProcessor, latencyMetrics);
+        this.sensorsTopic = config.getTopics().get(TopicType.TELEMETRY_SENSORS);
+        this.snapshotsTopic = config.getTopics().get(TopicType.TELEMETRY_SNAPSHOTS);
+        this.producer = pipelineConfig.isPublishSnapshots()
+                ? new KafkaProducer<>(config.getSnapshotProducerProperties())
+                : null;
+    }
+
+    /**
+     * Запускает конвейер и по его завершении закрывает продюсер снимков.
+     */
+    @Override
+    public void start() {
+        try {
+            super.start();
+        } finally {
+            if (producer != null) {
+                log.info("Closing producer");
+                producer.close();
+            }
+        }
+    }
+
+    /**
+     * Обновляет снимок хаба событием датчика и, если снимок изменился, проверяет сценарии хаба.
+     *
+     * @param record запись из Kafka топика с событием датчика
+     * @param trace  отметки времени прохождения события по конвейеру
+     */
+    @Override
+    protected void process(ConsumerRecord<String, SensorEventAvro> record, LatencyTrace trace) {
+        aggregator.updateState(record.value()).ifPresent(snapshot -> {
+            publish(snapshot);
+            executeActions(snapshot, trace);
+        });
+    }
+
+    /**
+     * Берёт время приёма из заголовка коллектора и время события из самого события;
+     * этапа публикации снимка в совмещённом режиме нет.
+     */
+    @Override
+    protected LatencyTrace traceOf(ConsumerRecord<String, SensorEventAvro> record, long polledMillis) {
+        return new LatencyTrace(
+                TelemetryHeaders.getTime(record.headers(), TelemetryHeaders.INGEST_TIME),
+                record.value().getTimestamp().toEpochMilli(),
+                null,
+                polledMillis);
+    }
+
+    @Override
+    protected String hubIdOf(SensorEventAvro value) {
+        return value.getHubId();
+    }
+
+    /**
+     * Удаляет снимки хабов отозванных партиций: их события теперь агрегирует другой экземпляр.
+     *
+     * @param partitions отозванные партиции
+     */
+    @Override
+    protected void onRevoked(Collection<TopicPartition> partitions) {
+        Set<Integer> revoked = new HashSet<>();
+        partitions.forEach(partition -> revoked.add(partition.partition()));
+        int partitionCount = runtime.partitionCount(sensorsTopic);
+
+        repository.evict(hubId -> revoked.contains(HubPartitionOwnership.partitionOf(hubId, partitionCount)));
+    }
+
+    /**
+     * Асинхронно отправляет снимок в топик снимков, если публикация включена.
+     *
+     * @param snapshot снимок состояния датчиков хаба
+     */
+    private void publish(SensorsSnapshotAvro snapshot) {
+        if (producer == null) {
+            return;
+        }
+
+        producer.send(new ProducerRecord<>(snapshotsTopic, snapshot.getHubId(), snapshot), (metadata, exception) -> {
+            if (exception != null) {
+                log.error("Failed to send snapshot to topic: {}, Key: {}", snapshotsTopic, snapshot.getHubId(), exception);
+            }
+        });
+    }
+}
@@ -1,82 +1,168 @@
 package ru.practicum.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
-import org.apache.kafka.clients.consumer.KafkaConsumer;
-import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.stereotype.Component;
+import ru.practicum.config.ConsumerRuntimeConfig;
 import ru.practicum.config.KafkaConfig;
+import ru.practicum.config.PartitionAffinityConfig;
 import ru.practicum.config.TopicType;
+import ru.practicum.dal.service.HubEventService;
+import ru.practicum.dal.service.HubScenarioCache;
 import ru.practicum.dal.service.ScenarioService;
 import ru.practicum.dal.service.SensorService;
+import ru.practicum.kafka.Acknowledgment;
+import ru.practicum.kafka.ConsumerRuntime;
 import ru.yandex.practicum.kafka.telemetry.event.*;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Обработчик событий от хабов умного дома.
- * Читает события из Kafka и делегирует обработку соответствующим сервисам.
+ * Читает события из Kafka через {@link ConsumerRuntime} и делегирует обработку соответствующим сервисам.
+ *
+ * <p>События одного опроса применяются одной транзакцией через {@link HubEventService}.
+ * Если пакет не удалось применить целиком, события обрабатываются по одному,
+ * чтобы ошибочное событие не блокировало остальные.
+ *
+ * <p>При включённой привязке хабов к партициям консьюмер не подписывается на топик группой,
+ * а читает те же номера партиций, что назначены консьюмеру снимков ({@link HubPartitionOwnership}).
+ * Так события хаба применяет экземпляр, который кэширует его сценарии, и после применения
+ * сценарии хаба вытесняются из его кэша.
  */
 @Slf4j
 @Component
 public class HubEventProcessor implements Runnable {
-    private final KafkaConsumer<String, HubEventAvro> hubConsumer;
-    private final KafkaConfig config;
+    private final ConsumerRuntime<String, HubEventAvro> runtime;
+    private final String topic;
     private final SensorService sensorService;
     private final ScenarioService scenarioService;
-    private static final Duration POLL_DURATION = Duration.ofSeconds(3);
+    private final HubEventService hubEventService;
+    private final HubPartitionOwnership ownership;
+    private final HubScenarioCache scenarioCache;
+    private final SensorIdDictionaryPublisher dictionaryPublisher;
+    private static final Duration ASSIGNMENT_WAIT = Duration.ofSeconds(3);
 
-    public HubEventProcessor(KafkaConfig config, SensorService sensorService, ScenarioService scenarioService) {
-        this.hubConsumer = new KafkaConsumer<>(config.getHubConsumerProperties());
-        this.config = config;
+    private long assignedVersion = -1;
+
+    public HubEventProcessor(KafkaConfig config,
+                             ConsumerRuntimeConfig runtimeConfig,
+                             MeterRegistry meterRegistry,
+                             SensorService sensorService,
+                             ScenarioService scenarioService,
+                             HubEventService hubEventService,
+                             PartitionAffinityConfig affinityConfig,
+                             HubPartitionOwnership ownership,
+                             HubScenarioCache scenarioCache,
+                             SensorIdDictionaryPublisher dictionaryPublisher) {
+        this.topic = config.getTopics().get(TopicType.TELEMETRY_HUBS);
         this.sensorService = sensorService;
         this.scenarioService = scenarioService;
+        this.hubEventService = hubEventService;
+        this.ownership = ownership;
+        this.scenarioCache = scenarioCache;
+        this.dictionaryPublisher = dictionaryPublisher;
+
+        ConsumerRuntime.ConsumerRuntimeBuilder<String, HubEventAvro> builder =
+                ConsumerRuntime.<String, HubEventAvro>builder()
+                        .name(getClass().getSimpleName())
+                        .consumerProperties(config.getHubConsumerProperties())
+                        .handler(this::handleBatch)
+                        .settings(runtimeConfig.getHubEvents())
+                        .meterRegistry(meterRegistry);
+        this.runtime = affinityConfig.isEnabled()
+                ? builder.assigner(this::syncAssignment).build()
+                : builder.topics(List.of(topic)).build();
     }
 
     /**
      * Основной метод обработки событий.
-     * Подписывается на топик Kafka и обрабатывает события в бесконечном цикле.
+     * Публикует словари идентификаторов датчиков, затем читает топик событий хабов
+     * и обрабатывает события пакетами до получения сигнала завершения.
      */
     @Override
     public void run() {
         log.info("HubEventProcessor started");
-        String topic = config.getTopics().get(TopicType.TELEMETRY_HUBS);
+        dictionaryPublisher.publishAll();
+        runtime.run();
+    }
 
-        try (hubConsumer) {
-            Runtime.getRuntime().addShutdownHook(new Thread(hubConsumer::wakeup));
-            hubConsumer.subscribe(List.of(topic));
+    /**
+     * Приводит назначение партиций топика событий хабов к партициям, назначенным консьюмеру снимков.
+     * Перед сменой назначения синхронно коммитит смещения уже обработанных событий.
+     *
+     * @param consumer консьюмер событий хабов
+     * @return true если консьюмеру назначена хотя бы одна партиция и можно выполнять опрос
+     * @throws IllegalStateException если количество партиций топиков снимков и событий хабов различается
+     * @throws InterruptedException  если поток был прерван во время ожидания назначения
+     */
+    private boolean syncAssignment(ConsumerRuntime<?, ?> consumer) throws InterruptedException {
+        long version = ownership.version();
+        if (version != assignedVersion) {
+            Set<Integer> owned = ownership.partitions();
+            int hubPartitions = consumer.partitionCount(topic);
+            if (!owned.isEmpty() && hubPartitions != ownership.partitionCount()) {
+                throw new IllegalStateException("Topic " + topic + " has " + hubPartitions
+                        + " partitions, but snapshot topic has " + ownership.partitionCount());
+            }
 
-            while (true) {
-                ConsumerRecords<String, HubEventAvro> records = hubConsumer.poll(POLL_DURATION);
+            consumer.assign(owned.stream().map(partition -> new TopicPartition(topic, partition)).toList());
+            assignedVersion = version;
+            log.info("Hub event partitions assigned: {}", owned);
+        }
 
-                if (records.count() > 0) {
-                    log.debug("Processing {} records", records.count());
-                }
+        if (consumer.assignment().isEmpty()) {
+            Thread.sleep(ASSIGNMENT_WAIT.toMillis());
+            return false;
+        }
+        return true;
+    }
 
-                for (ConsumerRecord<String, HubEventAvro> record : records) {
-                    hubAction(record);
-                }
-                hubConsumer.commitSync();
+    /**
+     * Применяет все события опроса одной транзакцией.
+     * При ошибке пакетной обработки повторяет события по одному в отдельных транзакциях.
+     * После применения вытесняет из кэша сценарии хабов, получивших события сценариев,
+     * выдаёт коды добавленным датчикам и подтверждает все записи пакета.
+     *
+     * @param records        записи из Kafka с событиями хабов
+     * @param acknowledgment подтверждение обработки записей
+     */
+    private void handleBatch(ConsumerRecords<String, HubEventAvro> records, Acknowledgment acknowledgment) {
+        List<HubEventAvro> events = new ArrayList<>(records.count());
+        for (ConsumerRecord<String, HubEventAvro> record : records) {
+            if (record.value() != null) {
+                events.add(record.value());
             }
-        } catch (
-                WakeupException ignored) {
-            log.info("Wakeup interrupted");
+        }
+
+        try {
+            hubEventService.handleBatch(events);
         } catch (Exception e) {
-            log.error("Exception while trying to handle hub event", e);
-        } finally {
-            try {
-                if (hubConsumer != null) {
-                    hubConsumer.commitSync();
-                }
-            } finally {
-                log.info("Closing consumer");
-                if (hubConsumer != null) {
-                    hubConsumer.close();
+            log.warn("Batch of {} hub events failed, falling back to per-record processing", events.size(), e);
+            for (ConsumerRecord<String, HubEventAvro> record : records) {
+                if (record.value() != null) {
+                    hubAction(record);
                 }
             }
         }
+
+        Set<String> changedHubs = new HashSet<>();
+        for (HubEventAvro event : events) {
+            if (event.getPayload() instanceof ScenarioAddedEventAvro
+                || event.getPayload() instanceof ScenarioRemovedEventAvro) {
+                changedHubs.add(event.getHubId());
+            }
+        }
+        scenarioCache.invalidate(changedHubs);
+        dictionaryPublisher.publishAdded(events);
+        acknowledgment.acknowledge(records);
     }
 
     /**
@@ -0,0 +1,123 @@
+package ru.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.stereotype.Component;
+import ru.practicum.dal.service.HubScenarioCache;
+import ru.practicum.dal.service.state.ConditionStateStore;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Принадлежность хабов этому экземпляру анализатора.
+ *
+ * <p>Хаб принадлежит экземпляру, если группа потребителей назначила ему партицию топика снимков
+ * (в совмещённом режиме - топика событий датчиков), в которую попадает ключ хаба.
+ * Назначение партиций управляет кэшем сценариев и состоянием условий: при назначении
+ * сценарии хабов загружаются заранее, при отзыве - удаляются вместе с состоянием условий.
+ *
+ * <p>Номера назначенных партиций используются {@link HubEventProcessor} для чтения тех же партиций
+ * топика событий хабов, поэтому события хаба применяет тот же экземпляр, что кэширует его сценарии.
+ *
+ * <p>Методы изменения назначения вызываются из потока консьюмера снимков, чтение - из любого потока.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HubPartitionOwnership {
+    private final HubScenarioCache scenarioCache;
+    private final ConditionStateStore conditionStateStore;
+
+    private volatile Set<Integer> partitions = Set.of();
+    private volatile int partitionCount;
+    private volatile long version;
+
+    /**
+     * Принимает назначенные партиции: загружает сценарии их хабов и публикует новое назначение.
+     *
+     * @param assigned       назначенные партиции топика снимков
+     * @param partitionCount общее количество партиций топика снимков
+     */
+    public synchronized void assign(Collection<TopicPartition> assigned, int partitionCount) {
+        Set<Integer> updated = new HashSet<>(partitions);
+        assigned.forEach(partition -> updated.add(partition.partition()));
+
+        scenarioCache.warmUp(ownedBy(updated, partitionCount));
+
+        this.partitionCount = partitionCount;
+        this.partitions = Set.copyOf(updated);
+        this.version++;
+        log.info("Owning snapshot partitions {} of {}", partitions, partitionCount);
+    }
+
+    /**
+     * Отзывает партиции: удаляет сценарии и состояние условий их хабов и публикует новое назначение.
+     *
+     * @param revoked отозванные партиции топика снимков
+     */
+    public synchronized void revoke(Collection<TopicPartition> revoked) {
+        Set<Integer> removed = new HashSet<>();
+        revoked.forEach(partition -> removed.add(partition.partition()));
+
+        Set<Integer> updated = new HashSet<>(partitions);
+        updated.removeAll(removed);
+
+        if (partitionCount > 0) {
+            Predicate<String> revokedHub = ownedBy(removed, partitionCount);
+            scenarioCache.evict(revokedHub);
+            conditionStateStore.evict(revokedHub);
+        }
+
+        this.partitions = Set.copyOf(updated);
+        this.version++;
+        log.info("Revoked snapshot partitions {}, owning {}", removed, partitions);
+    }
+
+    /**
+     * Возвращает номера назначенных партиций.
+     *
+     * @return неизменяемое множество номеров партиций
+     */
+    public Set<Integer> partitions() {
+        return partitions;
+    }
+
+    /**
+     * Возвращает общее количество партиций топика снимков или 0, если назначения ещё не было.
+     *
+     * @return количество партиций
+     */
+    public int partitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * Возвращает номер версии назначения, увеличивающийся при каждом изменении.
+     *
+     * @return версия назначения
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Вычисляет партицию хаба так же, как стандартный партиционер Kafka для строкового ключа.
+     *
+     * @param hubId          идентификатор хаба
+     * @param partitionCount количество партиций топика
+     * @return номер партиции
+     */
+    public static int partitionOf(String hubId, int partitionCount) {
+        return Utils.toPositive(Utils.murmur2(hubId.getBytes(StandardCharsets.UTF_8))) % partitionCount;
+    }
+
+    private static Predicate<String> ownedBy(Set<Integer> partitions, int partitionCount) {
+        return hubId -> partitions.contains(partitionOf(hubId, partitionCount));
+    }
+}
@@ -0,0 +1,246 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import ru.practicum.config.PartitionAffinityConfig;
+import ru.practicum.config.SnapshotProcessingConfig;
+import ru.practicum.dal.service.SnapshotService;
+import ru.practicum.kafka.Acknowledgment;
+import ru.practicum.kafka.ConsumerRuntime;
+import ru.practicum.kafka.ConsumerRuntimeSettings;
+import ru.yandex.practicum.grpc.telemetry.event.DeviceActionRequest;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Базовый обработчик записей Kafka, ключом которых является идентификатор хаба.
+ *
+ * <p>Записи читает {@link ConsumerRuntime} и обрабатываются параллельно в {@link KeyedExecutor}:
+ * записи разных хабов - в разных потоках, записи одного хаба - последовательно в порядке поступления.
+ * Запись подтверждается после обработки, поэтому смещения коммитятся только до первой
+ * незавершённой записи каждой партиции, а при насыщении потоков обработки чтение приостанавливается.
+ *
+ * <p>Назначение и отзыв партиций передаются в {@link HubPartitionOwnership}, который держит
+ * в памяти сценарии и состояние условий только хабов назначенных партиций.
+ *
+ * @param <V> тип значения записи
+ */
+@Slf4j
+public abstract class HubRecordProcessor<V> {
+    protected final ConsumerRuntime<String, V> runtime;
+    private final String topic;
+    private final SnapshotProcessingConfig processingConfig;
+    private final PartitionAffinityConfig affinityConfig;
+    private final HubPartitionOwnership ownership;
+
+    private final SnapshotService snapshotService;
+    private final HubRouterProcessor hubRouterProcessor;
+    private final PipelineLatencyMetrics latencyMetrics;
+
+    private KeyedExecutor executor;
+
+    /**
+     * Конструктор базового обработчика.
+     *
+     * @param consumerProperties настройки консьюмера Kafka
+     * @param topic              топик для чтения
+     * @param runtimeSettings    настройки цикла опроса
+     * @param meterRegistry      реестр метрик консьюмера
+     * @param processingConfig   настройки параллельной обработки
+     * @param affinityConfig     настройки привязки хабов к назначенным партициям
+     * @param ownership          принадлежность хабов этому экземпляру
+     * @param snapshotService    сервис для обработки снимков и проверки сценариев
+     * @param hubRouterProcessor процессор для отправки действий через gRPC
+     * @param latencyMetrics     гистограммы задержек конвейера
+     */
+    protected HubRecordProcessor(Properties consumerProperties,
+                                 String topic,
+                                 ConsumerRuntimeSettings runtimeSettings,
+                                 MeterRegistry meterRegistry,
+                                 SnapshotProcessingConfig processingConfig,
+                                 PartitionAffinityConfig affinityConfig,
+                                 HubPartitionOwnership ownership,
+                                 SnapshotService snapshotService,
+                                 HubRouterProcessor hubRouterProcessor,
+                                 PipelineLatencyMetrics latencyMetrics) {
+        this.runtime = ConsumerRuntime.<String, V>builder()
+                .name(getClass().getSimpleName())
+                .consumerProperties(consumerProperties)
+                .topics(List.of(topic))
+                .handler(this::submit)
+                .rebalanceListener(new OwnershipListener())
+                .settings(runtimeSettings)
+                .meterRegistry(meterRegistry)
+                .build();
+        this.topic = topic;
+        this.processingConfig = processingConfig;
+        this.affinityConfig = affinityConfig;
+        this.ownership = ownership;
+        this.snapshotService = snapshotService;
+        this.hubRouterProcessor = hubRouterProcessor;
+        this.latencyMetrics = latencyMetrics;
+    }
+
+    /**
+     * Обрабатывает запись. Вызывается в потоке, отвечающем за хаб записи.
+     *
+     * @param record запись из Kafka, значение не null
+     * @param trace  отметки времени прохождения записи по конвейеру
+     */
+    protected abstract void process(ConsumerRecord<String, V> record, LatencyTrace trace);
+
+    /**
+     * Собирает отметки времени записи из её заголовков и метаданных.
+     *
+     * @param record       запись из Kafka, значение не null
+     * @param polledMillis время получения записи консьюмером
+     * @return отметки времени записи
+     */
+    protected abstract LatencyTrace traceOf(ConsumerRecord<String, V> record, long polledMillis);
+
+    /**
+     * Возвращает идентификатор хаба из значения записи, если у записи нет ключа.
+     *
+     * @param value значение записи
+     * @return идентификатор хаба
+     */
+    protected abstract String hubIdOf(V value);
+
+    /**
+     * Вызывается после отзыва партиций, когда все их записи уже обработаны.
+     *
+     * @param partitions отозванные партиции
+     */
+    protected void onRevoked(Collection<TopicPartition> partitions) {
+    }
+
+    /**
+     * Запускает обработку записей.
+     * Читает данные из Kafka топика и распределяет записи по потокам обработки по идентификатору хаба.
+     * Метод работает до получения сигнала завершения, после чего дожидается обработки принятых записей.
+     */
+    public void start() {
+        log.info("Starting {} with {} processing threads", getClass().getSimpleName(), processingConfig.getThreads());
+        executor = new KeyedExecutor(processingConfig.getThreads(), getClass().getSimpleName());
+
+        try {
+            runtime.run();
+        } finally {
+            executor.close();
+        }
+    }
+
+    /**
+     * Проверяет сценарии хаба по снимку и отправляет полученные действия на выполнение.
+     *
+     * @param snapshot снимок состояния сенсоров хаба
+     * @param trace    отметки времени записи, породившей снимок
+     */
+    protected void executeActions(SensorsSnapshotAvro snapshot, LatencyTrace trace) {
+        List<DeviceActionRequest> requests = snapshotService.handleSnapshot(snapshot);
+
+        if (!requests.isEmpty()) {
+            log.info("Processing {} action requests from snapshot", requests.size());
+            for (DeviceActionRequest request : requests) {
+                hubRouterProcessor.handleAction(request);
+                latencyMetrics.recordDispatch(trace, System.currentTimeMillis());
+            }
+            log.debug("Successfully processed {} action requests", requests.size());
+        } else {
+            log.debug("No action requests generated from snapshot");
+        }
+    }
+
+    /**
+     * Ставит записи опроса в очереди потоков, отвечающих за их хабы.
+     * Запись подтверждается после обработки.
+     *
+     * @param records        записи опроса
+     * @param acknowledgment подтверждение обработки записей
+     */
+    private void submit(ConsumerRecords<String, V> records, Acknowledgment acknowledgment) {
+        long polledMillis = System.currentTimeMillis();
+
+        for (ConsumerRecord<String, V> record : records) {
+            String hubId = record.key();
+            if (hubId == null && record.value() != null) {
+                hubId = hubIdOf(record.value());
+            }
+
+            executor.submit(hubId, () -> {
+                try {
+                    handle(record, polledMillis);
+                } finally {
+                    acknowledgment.acknowledge(record);
+                }
+            });
+        }
+    }
+
+    /**
+     * Обрабатывает запись, не позволяя ошибке одной записи остановить обработку остальных.
+     *
+     * @param record       запись из Kafka топика
+     * @param polledMillis время получения записи консьюмером
+     */
+    private void handle(ConsumerRecord<String, V> record, long polledMillis) {
+        if (record.value() == null) {
+            log.debug("Received null value from topic: {}, partition: {}, offset: {}",
+                    record.topic(), record.partition(), record.offset());
+            return;
+        }
+
+        try {
+            LatencyTrace trace = traceOf(record, polledMillis);
+            latencyMetrics.recordReceived(trace);
+            process(record, trace);
+        } catch (Exception e) {
+            log.error("Error processing record from topic: {}, partition: {}, offset: {}",
+                    record.topic(), record.partition(), record.offset(), e);
+        }
+    }
+
+    /**
+     * Слушатель ребалансировки: передаёт изменения назначения в {@link HubPartitionOwnership}.
+     * Отзыв приходит, когда записи отозванных партиций уже обработаны и их смещения закоммичены.
+     */
+    private class OwnershipListener implements ConsumerRebalanceListener {
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            release(partitions);
+        }
+
+        @Override
+        public void onPartitionsLost(Collection<TopicPartition> partitions) {
+            release(partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            if (!affinityConfig.isEnabled() || partitions.isEmpty()) {
+                return;
+            }
+
+            ownership.assign(partitions, runtime.partitionCount(topic));
+        }
+
+        private void release(Collection<TopicPartition> partitions) {
+            if (partitions.isEmpty()) {
+                return;
+            }
+
+            onRevoked(partitions);
+            if (affinityConfig.isEnabled()) {
+                ownership.revoke(partitions);
+            }
+        }
+    }
+}
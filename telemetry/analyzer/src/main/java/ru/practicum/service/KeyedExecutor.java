@@ -0,0 +1,91 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Исполнитель задач, распределяющий их по однопоточным шардам по хэшу ключа.
+ * Задачи с одинаковым ключом (например, идентификатором хаба) выполняются строго
+ * последовательно и в порядке поступления, задачи с разными ключами - параллельно.
+ */
+@Slf4j
+public class KeyedExecutor implements AutoCloseable {
+    private static final long TERMINATION_TIMEOUT_SECONDS = 30;
+
+    private final ExecutorService[] shards;
+
+    /**
+     * Создаёт исполнитель с указанным количеством шардов.
+     *
+     * @param shardCount количество шардов (потоков), должно быть больше нуля
+     * @param threadName префикс имени потоков
+     * @throws IllegalArgumentException если shardCount меньше единицы
+     */
+    public KeyedExecutor(int shardCount, String threadName) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+
+        this.shards = new ExecutorService[shardCount];
+        AtomicInteger counter = new AtomicInteger();
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName + "-" + counter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Ставит задачу в очередь шарда, соответствующего ключу.
+     *
+     * @param key  ключ упорядочивания, может быть null
+     * @param task задача для выполнения
+     * @return future, завершающийся после выполнения задачи
+     */
+    public CompletableFuture<Void> submit(String key, Runnable task) {
+        return CompletableFuture.runAsync(task, shards[shardIndex(key)]);
+    }
+
+    /**
+     * Возвращает количество шардов.
+     *
+     * @return количество шардов
+     */
+    public int size() {
+        return shards.length;
+    }
+
+    /**
+     * Останавливает приём задач и дожидается выполнения уже поставленных в очередь.
+     */
+    @Override
+    public void close() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+
+        for (ExecutorService shard : shards) {
+            try {
+                if (!shard.awaitTermination(TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    log.warn("Shard executor did not terminate in {} seconds", TERMINATION_TIMEOUT_SECONDS);
+                    shard.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                shard.shutdownNow();
+            }
+        }
+    }
+
+    private int shardIndex(String key) {
+        return Math.floorMod(Objects.hashCode(key), shards.length);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.service;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.record.TimestampType;
+import ru.practicum.TelemetryHeaders;
+
+/**
+ * Отметки времени прохождения записи по конвейеру телеметрии, в миллисекундах с эпохи Unix.
+ *
+ * @param ingestMillis   время приёма исходного события коллектором или null, если заголовка нет
+ * @param eventMillis    время исходного события датчика или null, если оно неизвестно
+ * @param snapshotMillis время публикации снимка агрегатором или null в совмещённом режиме
+ * @param polledMillis   время получения записи анализатором
+ */
+public record LatencyTrace(Long ingestMillis, Long eventMillis, Long snapshotMillis, long polledMillis) {
+
+    /**
+     * Собирает отметки времени записи снимка: время приёма и время события - из заголовков,
+     * проставленных агрегатором, время публикации снимка - из метки времени записи.
+     *
+     * @param record       запись снимка из Kafka
+     * @param polledMillis время получения записи анализатором
+     * @return отметки времени записи
+     */
+    public static LatencyTrace ofSnapshot(ConsumerRecord<?, ?> record, long polledMillis) {
+        Long snapshotMillis = record.timestampType() == TimestampType.NO_TIMESTAMP_TYPE ? null : record.timestamp();
+        return new LatencyTrace(
+                TelemetryHeaders.getTime(record.headers(), TelemetryHeaders.INGEST_TIME),
+                TelemetryHeaders.getTime(record.headers(), TelemetryHeaders.EVENT_TIME),
+                snapshotMillis,
+                polledMillis);
+    }
+}
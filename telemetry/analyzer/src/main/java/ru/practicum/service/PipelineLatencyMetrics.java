@@ -0,0 +1,90 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Гистограммы задержек конвейера телеметрии от приёма события датчика до отправки действия.
+ *
+ * <p>Все этапы публикуются одним таймером {@value #METRIC} с тегом {@code stage}.
+ * Задержки между сервисами считаются по часам разных машин, поэтому отрицательные
+ * значения (расхождение часов) отбрасываются.
+ */
+@Component
+public class PipelineLatencyMetrics {
+    public static final String METRIC = "telemetry.pipeline.latency";
+
+    private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+
+    /**
+     * Этапы конвейера.
+     */
+    public enum Stage {
+        /** Коллектор - публикация снимка агрегатором. */
+        INGEST_TO_SNAPSHOT("ingest_to_snapshot"),
+        /** Публикация снимка - получение анализатором. */
+        SNAPSHOT_TO_ANALYZER("snapshot_to_analyzer"),
+        /** Получение анализатором - отправка действия в hub-router. */
+        ANALYZER_TO_DISPATCH("analyzer_to_dispatch"),
+        /** Коллектор - отправка действия в hub-router. */
+        INGEST_TO_DISPATCH("ingest_to_dispatch"),
+        /** Время события датчика - отправка действия в hub-router. */
+        EVENT_TO_DISPATCH("event_to_dispatch");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public PipelineLatencyMetrics(MeterRegistry registry) {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder(METRIC)
+                    .description("Latency of the telemetry pipeline stage")
+                    .tag("stage", stage.tag)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofMinutes(1))
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Фиксирует задержки этапов до получения записи анализатором.
+     *
+     * @param trace отметки времени записи
+     */
+    public void recordReceived(LatencyTrace trace) {
+        if (trace.snapshotMillis() != null) {
+            record(Stage.INGEST_TO_SNAPSHOT, trace.ingestMillis(), trace.snapshotMillis());
+            record(Stage.SNAPSHOT_TO_ANALYZER, trace.snapshotMillis(), trace.polledMillis());
+        }
+    }
+
+    /**
+     * Фиксирует задержки этапов до отправки действия в hub-router.
+     *
+     * @param trace          отметки времени записи, породившей действие
+     * @param dispatchMillis время завершения отправки действия
+     */
+    public void recordDispatch(LatencyTrace trace, long dispatchMillis) {
+        record(Stage.ANALYZER_TO_DISPATCH, trace.polledMillis(), dispatchMillis);
+        record(Stage.INGEST_TO_DISPATCH, trace.ingestMillis(), dispatchMillis);
+        record(Stage.EVENT_TO_DISPATCH, trace.eventMillis(), dispatchMillis);
+    }
+
+    private void record(Stage stage, Long fromMillis, Long toMillis) {
+        if (fromMillis == null || toMillis == null || toMillis < fromMillis) {
+            return;
+        }
+        timers.get(stage).record(toMillis - fromMillis, TimeUnit.MILLISECONDS);
+    }
+}
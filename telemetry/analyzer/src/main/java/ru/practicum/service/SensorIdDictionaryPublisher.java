@@ -0,0 +1,111 @@
+package ru.practicum.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.stereotype.Component;
+import ru.practicum.config.KafkaConfig;
+import ru.practicum.config.SensorIdDictionaryConfig;
+import ru.practicum.config.TopicType;
+import ru.practicum.dal.service.SensorCodeService;
+import ru.yandex.practicum.kafka.telemetry.event.HubEventAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorIdDictionaryAvro;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Публикация словарей идентификаторов датчиков хабов.
+ *
+ * <p>Выдаёт коды датчикам через {@link SensorCodeService} и отправляет изменившиеся словари
+ * целиком в компактный топик {@code TELEMETRY_SENSOR_IDS} с ключом - идентификатором хаба.
+ * Из топика словари читают агрегатор, публикующий компактные снимки, и анализаторы в режиме
+ * {@link ru.practicum.config.PipelineMode#COMPACT_SNAPSHOTS}.
+ *
+ * <p>Если словари выключены, методы ничего не делают.
+ */
+@Slf4j
+@Component
+public class SensorIdDictionaryPublisher {
+    private final SensorCodeService sensorCodeService;
+    private final KafkaProducer<String, SensorIdDictionaryAvro> producer;
+    private final String topic;
+
+    public SensorIdDictionaryPublisher(KafkaConfig config,
+                                       SensorIdDictionaryConfig dictionaryConfig,
+                                       SensorCodeService sensorCodeService) {
+        this.sensorCodeService = sensorCodeService;
+        this.topic = config.getTopics().get(TopicType.TELEMETRY_SENSOR_IDS);
+        this.producer = dictionaryConfig.isEnabled()
+                ? new KafkaProducer<>(config.getDictionaryProducerProperties())
+                : null;
+    }
+
+    /**
+     * Выдаёт коды зарегистрированным датчикам без кода и публикует словари всех хабов.
+     * Вызывается при запуске, чтобы топик словарей соответствовал базе.
+     */
+    public void publishAll() {
+        if (producer == null) {
+            return;
+        }
+
+        try {
+            sensorCodeService.assignMissingCodes();
+            List<String> hubIds = sensorCodeService.hubIds();
+            publish(hubIds);
+            log.info("Published sensor id dictionaries of {} hubs", hubIds.size());
+        } catch (Exception e) {
+            log.error("Failed to publish sensor id dictionaries", e);
+        }
+    }
+
+    /**
+     * Выдаёт коды датчикам из событий добавления устройств и публикует изменившиеся словари.
+     *
+     * @param events события хабов одного пакета
+     */
+    public void publishAdded(List<HubEventAvro> events) {
+        if (producer == null) {
+            return;
+        }
+
+        try {
+            publish(sensorCodeService.assignCodes(events));
+        } catch (Exception e) {
+            log.error("Failed to assign sensor codes for {} hub events", events.size(), e);
+        }
+    }
+
+    /**
+     * Закрывает продюсер словарей.
+     */
+    @PreDestroy
+    public void close() {
+        if (producer != null) {
+            log.info("Closing producer");
+            producer.close();
+        }
+    }
+
+    /**
+     * Асинхронно отправляет словари хабов в топик словарей.
+     *
+     * @param hubIds идентификаторы хабов
+     */
+    private void publish(Collection<String> hubIds) {
+        for (String hubId : hubIds) {
+            SensorIdDictionaryAvro dictionary = SensorIdDictionaryAvro.newBuilder()
+                    .setHubId(hubId)
+                    .setSensorIds(sensorCodeService.dictionaryOf(hubId))
+                    .build();
+
+            producer.send(new ProducerRecord<>(topic, hubId, dictionary), (metadata, exception) -> {
+                if (exception != null) {
+                    log.error("Failed to send sensor id dictionary to topic: {}, Key: {}", topic, hubId, exception);
+                }
+            });
+        }
+    }
+}
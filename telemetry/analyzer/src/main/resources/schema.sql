@@ -23,6 +23,11 @@ CREATE TABLE IF NOT EXISTS conditions
     value     INTEGER
 );
 
+-- параметры оконных условий и условий с гистерезисом (для таблиц, созданных до их появления)
+ALTER TABLE conditions
+    ADD COLUMN IF NOT EXISTS window_seconds INTEGER,
+    ADD COLUMN IF NOT EXISTS hysteresis     INTEGER;
+
 -- создаём таблицу actions
 CREATE TABLE IF NOT EXISTS actions
 (
@@ -86,4 +91,31 @@ CREATE
         INSERT
     ON scenario_actions
     FOR EACH ROW
-EXECUTE FUNCTION check_hub_id();
\ No newline at end of file
+EXECUTE FUNCTION check_hub_id();
+
+-- создаём таблицу scenario_documents для компактного хранения сценария одной строкой (условия и действия в формате Avro)
+CREATE TABLE IF NOT EXISTS scenario_documents
+(
+    id      BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    hub_id  VARCHAR NOT NULL,
+    name    VARCHAR NOT NULL,
+    version BIGINT  NOT NULL,
+    payload BYTEA   NOT NULL,
+    UNIQUE (hub_id, name)
+);
+
+-- отпечаток схемы Avro, по которой записан payload (для таблиц, созданных до его появления)
+ALTER TABLE scenario_documents
+    ADD COLUMN IF NOT EXISTS schema_fingerprint BIGINT;
+
+-- создаём таблицу sensor_codes с кодами датчиков в словарях хабов для компактных снимков;
+-- строки не удаляются вместе с датчиком, поэтому коды хаба не переиспользуются
+CREATE TABLE IF NOT EXISTS sensor_codes
+(
+    id        BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    hub_id    VARCHAR NOT NULL,
+    sensor_id VARCHAR NOT NULL,
+    code      INTEGER NOT NULL,
+    UNIQUE (hub_id, sensor_id),
+    UNIQUE (hub_id, code)
+);
@@ -0,0 +1,19 @@
+package ru.practicum.config;
+
+/**
+ * Формат событий, которые коллектор отправляет в топики {@link TopicType#TELEMETRY_SENSORS}
+ * и {@link TopicType#TELEMETRY_HUBS}.
+ */
+public enum PayloadFormat {
+    /**
+     * События преобразуются в {@code SensorEventAvro} и {@code HubEventAvro}.
+     */
+    AVRO,
+
+    /**
+     * События отправляются в protobuf в том виде, в каком получены по gRPC, с заголовком
+     * {@link ru.practicum.TelemetryHeaders#PAYLOAD_FORMAT}. Потребители должны читать топики
+     * десериализаторами {@code ProtobufSensorEventDeserializer} и {@code ProtobufHubEventDeserializer}.
+     */
+    PROTOBUF
+}
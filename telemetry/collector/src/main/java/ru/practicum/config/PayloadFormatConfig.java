@@ -0,0 +1,23 @@
+package ru.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки формата событий, отправляемых коллектором в Kafka.
+ * Связывает свойства {@code collector.payload.*} из конфигурации.
+ *
+ * @see PayloadFormat
+ */
+@Getter
+@Setter
+@ToString
+@ConfigurationProperties("collector.payload")
+public class PayloadFormatConfig {
+    /**
+     * Формат событий в топиках датчиков и хабов. По умолчанию - Avro.
+     */
+    private PayloadFormat format = PayloadFormat.AVRO;
+}
@@ -0,0 +1,28 @@
+package ru.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки пула Kafka продюсеров коллектора.
+ * Связывает свойства {@code collector.producer.*} из конфигурации.
+ *
+ * @see ru.practicum.service.KafkaEventProducer
+ */
+@Getter
+@Setter
+@ToString
+@ConfigurationProperties("collector.producer")
+public class ProducerPoolConfig {
+    /**
+     * Количество экземпляров {@link org.apache.kafka.clients.producer.KafkaProducer}.
+     * События распределяются по продюсерам по хешу ключа (идентификатора хаба), поэтому события
+     * одного хаба всегда отправляет один продюсер и их порядок сохраняется.
+     *
+     * <p>Каждый продюсер держит собственный буфер {@code buffer.memory} и поток отправки,
+     * поэтому память под буферы растёт пропорционально количеству продюсеров.
+     */
+    private int shards = 1;
+}
@@ -6,6 +6,10 @@ import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
+import ru.practicum.config.PayloadFormat;
+import ru.practicum.config.PayloadFormatConfig;
+import ru.practicum.config.TopicType;
+import ru.practicum.service.KafkaEventProducer;
 import ru.practicum.service.handler.hub.HubEventHandler;
 import ru.practicum.service.handler.sensor.SensorEventHandler;
 import ru.yandex.practicum.grpc.telemetry.collector.CollectorControllerGrpc;
@@ -23,6 +27,9 @@ import java.util.stream.Collectors;
  * <p>
  * Автоматически регистрируется в Spring контексте благодаря аннотации {@link GrpcService}.
  * Использует паттерн "Стратегия" через специализированные обработчики событий.
+ * <p>
+ * В формате {@link PayloadFormat#PROTOBUF} обработчики только проверяют, что тип события поддерживается,
+ * а само событие отправляется в Kafka без преобразования в Avro.
  *
  * @see SensorEventHandler
  * @see HubEventHandler
@@ -33,6 +40,8 @@ import java.util.stream.Collectors;
 public class EventController extends CollectorControllerGrpc.CollectorControllerImplBase {
     private final Map<SensorEventProto.PayloadCase, SensorEventHandler> sensorEventHandlers;
     private final Map<HubEventProto.PayloadCase, HubEventHandler> hubEventHandlers;
+    private final KafkaEventProducer producer;
+    private final PayloadFormat payloadFormat;
 
     /**
      * Конструктор контроллера событий.
@@ -40,9 +49,16 @@ public class EventController extends CollectorControllerGrpc.CollectorController
      *
      * @param sensorEventHandlers набор обработчиков событий от сенсоров.
      * @param hubEventHandlers    набор обработчиков событий от хабов.
+     * @param producer            продюсер для отправки событий без преобразования.
+     * @param payloadConfig       настройки формата событий.
      * @throws IllegalArgumentException если переданы пустые наборы обработчиков.
      */
-    public EventController(Set<SensorEventHandler> sensorEventHandlers, Set<HubEventHandler> hubEventHandlers) {
+    public EventController(Set<SensorEventHandler> sensorEventHandlers,
+                           Set<HubEventHandler> hubEventHandlers,
+                           KafkaEventProducer producer,
+                           PayloadFormatConfig payloadConfig) {
+        this.producer = producer;
+        this.payloadFormat = payloadConfig.getFormat();
         this.sensorEventHandlers = sensorEventHandlers.stream()
                 .collect(Collectors.toMap(
                         SensorEventHandler::getMessageType,
@@ -69,7 +85,13 @@ public class EventController extends CollectorControllerGrpc.CollectorController
             // проверяем, есть ли обработчик для полученного события
             if (sensorEventHandlers.containsKey(request.getPayloadCase())) {
                 // если обработчик найден, передаём событие ему на обработку
-                sensorEventHandlers.get(request.getPayloadCase()).handle(request);
+                // или отправляем как есть, если события передаются в protobuf
+                if (payloadFormat == PayloadFormat.PROTOBUF) {
+                    producer.sendProtobuf(TopicType.TELEMETRY_SENSORS, request.getHubId(), request,
+                            System.currentTimeMillis());
+                } else {
+                    sensorEventHandlers.get(request.getPayloadCase()).handle(request);
+                }
                 log.trace("Collected sensor event for {}", request.getPayloadCase());
             } else {
                 log.warn("No sensor event for {}", request.getPayloadCase());
@@ -102,7 +124,13 @@ public class EventController extends CollectorControllerGrpc.CollectorController
             // проверяем, есть ли обработчик для полученного события
             if (hubEventHandlers.containsKey(request.getPayloadCase())) {
                 // если обработчик найден, передаём событие ему на обработку
-                hubEventHandlers.get(request.getPayloadCase()).handle(request);
+                // или отправляем как есть, если события передаются в protobuf
+                if (payloadFormat == PayloadFormat.PROTOBUF) {
+                    producer.sendProtobuf(TopicType.TELEMETRY_HUBS, request.getHubId(), request,
+                            System.currentTimeMillis());
+                } else {
+                    hubEventHandlers.get(request.getPayloadCase()).handle(request);
+                }
                 log.trace("Collected hub event for {}", request.getPayloadCase());
             } else {
                 log.warn("No hub event for {}", request.getPayloadCase());
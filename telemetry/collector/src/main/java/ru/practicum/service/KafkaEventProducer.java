@@ -1,55 +1,115 @@
 package ru.practicum.service;
 
+import com.google.protobuf.Message;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.avro.specific.SpecificRecordBase;
-import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.stereotype.Component;
+import ru.practicum.TelemetryHeaders;
+import ru.practicum.ProtobufSerializer;
 import ru.practicum.config.KafkaConfig;
+import ru.practicum.config.PayloadFormat;
+import ru.practicum.config.PayloadFormatConfig;
+import ru.practicum.config.ProducerPoolConfig;
 import ru.practicum.config.TopicType;
 
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.List;
+import java.util.Properties;
 
 /**
  * Кастомная реализация KafkaProducer с функцией отправки событий в топики.
  * Управляет жизненным циклом Kafka producer и автоматически закрывает его при завершении работы приложения.
  *
+ * <p>Держит пул из {@link ProducerPoolConfig#getShards()} продюсеров: у одного продюсера запись
+ * в аккумулятор сериализуется блокировками и все пакеты отправляет один поток, что ограничивает
+ * приём событий на многоядерных машинах. Продюсер выбирается по хешу ключа, поэтому события
+ * одного хаба отправляются одним продюсером в порядке приёма.
+ *
+ * <p>Создаёт продюсеры под формат событий из {@link PayloadFormatConfig}: Avro-события отправляются
+ * с сериализатором из {@code kafka.producer-properties}, protobuf-сообщения - с {@link ProtobufSerializer}
+ * и теми же остальными настройками.
+ *
  * @see AutoCloseable
  */
 @Slf4j
 @Component
 public class KafkaEventProducer implements AutoCloseable {
-    protected final KafkaProducer<String, SpecificRecordBase> producer;
+    private final List<ProducerShard<SpecificRecordBase>> shards = new ArrayList<>();
+    private final List<ProducerShard<Message>> protobufShards = new ArrayList<>();
     protected final EnumMap<TopicType, String> topics;
 
     /**
      * Конструктор класса для создания KafkaProducer
      * и заполнения всеми известными топиками
      *
-     * @param kafkaConfig базовая конфигурация Kafka
+     * @param kafkaConfig   базовая конфигурация Kafka
+     * @param payloadConfig настройки формата событий
+     * @param poolConfig    настройки пула продюсеров
+     * @param meterRegistry реестр метрик продюсеров
+     * @throws IllegalArgumentException если количество продюсеров меньше одного
      */
-    public KafkaEventProducer(KafkaConfig kafkaConfig) {
+    public KafkaEventProducer(KafkaConfig kafkaConfig,
+                              PayloadFormatConfig payloadConfig,
+                              ProducerPoolConfig poolConfig,
+                              MeterRegistry meterRegistry) {
+        if (poolConfig.getShards() < 1) {
+            throw new IllegalArgumentException("Producer shards must be positive: " + poolConfig.getShards());
+        }
+
         topics = kafkaConfig.getTopics();
-        producer = new KafkaProducer<>(kafkaConfig.getProducerProperties());
+        if (payloadConfig.getFormat() == PayloadFormat.PROTOBUF) {
+            Properties properties = new Properties();
+            properties.putAll(kafkaConfig.getProducerProperties());
+            properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ProtobufSerializer.class.getName());
+            for (int i = 0; i < poolConfig.getShards(); i++) {
+                protobufShards.add(new ProducerShard<>(i, properties, meterRegistry));
+            }
+        } else {
+            for (int i = 0; i < poolConfig.getShards(); i++) {
+                shards.add(new ProducerShard<>(i, kafkaConfig.getProducerProperties(), meterRegistry));
+            }
+        }
+        log.info("Created {} {} producers", poolConfig.getShards(), payloadConfig.getFormat());
     }
 
     /**
-     * Отправка события в Kafka
+     * Отправка события в Kafka с текущим временем в качестве времени приёма
      *
      * @param topicType тип топика из enum
      * @param key       ключ для партицирования
      * @param event     событие от хаба или датчика
      */
     public <T extends SpecificRecordBase> void sendEvent(TopicType topicType, String key, T event) {
+        sendEvent(topicType, key, event, System.currentTimeMillis());
+    }
+
+    /**
+     * Отправка события в Kafka.
+     * Время приёма записывается в заголовок {@link TelemetryHeaders#INGEST_TIME}
+     * для измерения задержки конвейера от приёма до действия.
+     *
+     * @param topicType    тип топика из enum
+     * @param key          ключ для партицирования
+     * @param event        событие от хаба или датчика
+     * @param ingestMillis время приёма события коллектором в миллисекундах с эпохи Unix
+     * @throws IllegalStateException если коллектор настроен на формат {@link PayloadFormat#PROTOBUF}
+     */
+    public <T extends SpecificRecordBase> void sendEvent(TopicType topicType, String key, T event, long ingestMillis) {
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("Avro producer is not configured for payload format " + PayloadFormat.PROTOBUF);
+        }
         String topicName = getTopicName(topicType);
 
         ProducerRecord<String, SpecificRecordBase> record =
                 new ProducerRecord<>(topicName, key, event);
+        TelemetryHeaders.putTime(record.headers(), TelemetryHeaders.INGEST_TIME, ingestMillis);
 
-        producer.send(record, (metadata, exception) -> {
+        shardOf(shards, key).send(record, (metadata, exception) -> {
             if (exception != null) {
                 log.error("Failed to send event: {} to topic: {}, Key: {}",
                         event, topicName, key, exception);
@@ -60,6 +120,37 @@ public class KafkaEventProducer implements AutoCloseable {
         });
     }
 
+    /**
+     * Отправка protobuf-сообщения в Kafka без преобразования в Avro.
+     * Запись помечается заголовком {@link TelemetryHeaders#PAYLOAD_FORMAT}, время приёма записывается
+     * в заголовок {@link TelemetryHeaders#INGEST_TIME}.
+     *
+     * @param topicType    тип топика из enum
+     * @param key          ключ для партицирования
+     * @param event        событие от хаба или датчика в том виде, в каком получено по gRPC
+     * @param ingestMillis время приёма события коллектором в миллисекундах с эпохи Unix
+     * @throws IllegalStateException если коллектор настроен на формат {@link PayloadFormat#AVRO}
+     */
+    public void sendProtobuf(TopicType topicType, String key, Message event, long ingestMillis) {
+        if (protobufShards.isEmpty()) {
+            throw new IllegalStateException("Protobuf producer is not configured for payload format " + PayloadFormat.AVRO);
+        }
+        String topicName = getTopicName(topicType);
+
+        ProducerRecord<String, Message> record = new ProducerRecord<>(topicName, key, event);
+        TelemetryHeaders.markProtobuf(record.headers());
+        TelemetryHeaders.putTime(record.headers(), TelemetryHeaders.INGEST_TIME, ingestMillis);
+
+        shardOf(protobufShards, key).send(record, (metadata, exception) -> {
+            if (exception != null) {
+                log.error("Failed to send protobuf event to topic: {}, Key: {}", topicName, key, exception);
+            } else {
+                log.debug("Protobuf event successfully sent to topic: {}, Key: {}, Partition: {}, Offset: {}",
+                        topicName, key, metadata.partition(), metadata.offset());
+            }
+        });
+    }
+
     /**
      * Получение имени топика по типу
      *
@@ -88,7 +179,22 @@ public class KafkaEventProducer implements AutoCloseable {
      * Принудительная отправка всех накопленных сообщений
      */
     public void flush() {
-        producer.flush();
+        shards.forEach(ProducerShard::flush);
+        protobufShards.forEach(ProducerShard::flush);
+    }
+
+    /**
+     * Выбирает продюсер по ключу записи. Записи без ключа отправляет первый продюсер.
+     *
+     * @param pool продюсеры пула
+     * @param key  ключ записи
+     * @return продюсер, отвечающий за ключ
+     */
+    private static <V> ProducerShard<V> shardOf(List<ProducerShard<V>> pool, String key) {
+        if (key == null || pool.size() == 1) {
+            return pool.getFirst();
+        }
+        return pool.get(Math.floorMod(key.hashCode(), pool.size()));
     }
 
     /**
@@ -98,14 +204,13 @@ public class KafkaEventProducer implements AutoCloseable {
     @PreDestroy
     @Override
     public void close() {
-        if (producer != null) {
-            try {
-                log.info("Closing KafkaEventProducer...");
-                producer.close();
-                log.info("KafkaEventProducer closed successfully");
-            } catch (Exception e) {
-                log.error("Error closing KafkaEventProducer", e);
-            }
+        try {
+            log.info("Closing KafkaEventProducer...");
+            shards.forEach(ProducerShard::close);
+            protobufShards.forEach(ProducerShard::close);
+            log.info("KafkaEventProducer closed successfully");
+        } catch (Exception e) {
+            log.error("Error closing KafkaEventProducer", e);
         }
     }
 
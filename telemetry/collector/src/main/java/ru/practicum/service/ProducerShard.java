@@ -0,0 +1,99 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.kafka.KafkaClientMetrics;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Один продюсер пула {@link KafkaEventProducer} со своими метриками. Все метрики помечены тегом {@code shard}.
+ *
+ * <ul>
+ *   <li>{@code telemetry.producer.records} - отправленные записи (тег {@code result})</li>
+ *   <li>{@code telemetry.producer.in.flight} - записи, переданные продюсеру, но ещё не подтверждённые брокером</li>
+ *   <li>{@code kafka.producer.*} - метрики клиента Kafka: заполнение буфера, время в очереди, размер пакетов</li>
+ * </ul>
+ *
+ * @param <V> тип значения записи
+ */
+class ProducerShard<V> implements AutoCloseable {
+    private final KafkaProducer<String, V> producer;
+    private final KafkaClientMetrics clientMetrics;
+    private final Counter sent;
+    private final Counter failed;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Создаёт продюсер шарда. К {@code client.id} из настроек добавляется номер шарда,
+     * чтобы метрики и логи клиентов различались.
+     *
+     * @param index              номер шарда
+     * @param producerProperties настройки продюсера Kafka
+     * @param registry           реестр метрик
+     */
+    ProducerShard(int index, Properties producerProperties, MeterRegistry registry) {
+        Properties properties = new Properties();
+        properties.putAll(producerProperties);
+        String clientId = properties.getProperty(ProducerConfig.CLIENT_ID_CONFIG, "collector-producer");
+        properties.put(ProducerConfig.CLIENT_ID_CONFIG, clientId + "-" + index);
+        this.producer = new KafkaProducer<>(properties);
+
+        Tags tags = Tags.of("shard", String.valueOf(index));
+        this.clientMetrics = new KafkaClientMetrics(producer, tags);
+        this.clientMetrics.bindTo(registry);
+        this.sent = Counter.builder("telemetry.producer.records")
+                .description("Records acknowledged by broker")
+                .tags(tags.and("result", "success"))
+                .register(registry);
+        this.failed = Counter.builder("telemetry.producer.records")
+                .description("Records acknowledged by broker")
+                .tags(tags.and("result", "failure"))
+                .register(registry);
+        Gauge.builder("telemetry.producer.in.flight", inFlight, AtomicInteger::get)
+                .description("Records passed to producer and not yet acknowledged")
+                .tags(tags)
+                .register(registry);
+    }
+
+    /**
+     * Асинхронно отправляет запись и учитывает результат в метриках шарда.
+     *
+     * @param record   запись для отправки
+     * @param callback обработчик результата отправки
+     */
+    void send(ProducerRecord<String, V> record, Callback callback) {
+        inFlight.incrementAndGet();
+        try {
+            producer.send(record, (metadata, exception) -> {
+                inFlight.decrementAndGet();
+                (exception == null ? sent : failed).increment();
+                callback.onCompletion(metadata, exception);
+            });
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            failed.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Отправляет все накопленные записи шарда.
+     */
+    void flush() {
+        producer.flush();
+    }
+
+    @Override
+    public void close() {
+        clientMetrics.close();
+        producer.close();
+    }
+}
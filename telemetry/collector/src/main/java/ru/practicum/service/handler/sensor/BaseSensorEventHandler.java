@@ -43,7 +43,7 @@ public abstract class BaseSensorEventHandler<T extends SpecificRecord> implement
      * <p>
      * Создает обертку {@link SensorEventAvro} с основными метаданными события и payload,
      * полученным из {@link #mapToAvro(SensorEventProto)}.
-     * Отправляет событие в топик {@link TopicType#TELEMETRY_SENSORS}.
+     * Отправляет событие в топик {@link TopicType#TELEMETRY_SENSORS} с временем приёма в заголовках.
      * </p>
      *
      * @param event событие сенсора для обработки
@@ -57,6 +57,7 @@ public abstract class BaseSensorEventHandler<T extends SpecificRecord> implement
             throw new IllegalArgumentException("SensorEvent cannot be null");
         }
 
+        long ingestMillis = System.currentTimeMillis();
         T avroEvent = mapToAvro(event);
 
         SensorEventAvro sensorEventAvro = SensorEventAvro.newBuilder()
@@ -67,7 +68,7 @@ public abstract class BaseSensorEventHandler<T extends SpecificRecord> implement
                 .build();
 
         try {
-            producer.sendEvent(TOPIC_TYPE, event.getHubId(), sensorEventAvro);
+            producer.sendEvent(TOPIC_TYPE, event.getHubId(), sensorEventAvro, ingestMillis);
         } catch (Exception e) {
             log.error("Error processing SensorEvent. SensorEventAvro: {}", sensorEventAvro, e);
             throw new RuntimeException("Failed to process SensorEvent", e);
@@ -6,6 +6,7 @@ import ru.yandex.practicum.grpc.telemetry.event.SensorEventProto;
 import ru.yandex.practicum.grpc.telemetry.event.TemperatureSensorProto;
 import ru.yandex.practicum.kafka.telemetry.event.TemperatureSensorAvro;
 
+import static ru.practicum.util.Converter.timestampToInstant;
 import static ru.yandex.practicum.grpc.telemetry.event.SensorEventProto.PayloadCase.TEMPERATURE_SENSOR;
 
 /**
@@ -43,6 +44,7 @@ public class TemperatureSensorEventHandler extends BaseSensorEventHandler<Temper
         if (event.getPayloadCase() == TEMPERATURE_SENSOR) {
             TemperatureSensorProto temperatureSensor = event.getTemperatureSensor();
             return TemperatureSensorAvro.newBuilder()
+                    .setTimestamp(timestampToInstant(event.getTimestamp()))
                     .setTemperatureC(temperatureSensor.getTemperatureC())
                     .setTemperatureF(temperatureSensor.getTemperatureF())
                     .build();
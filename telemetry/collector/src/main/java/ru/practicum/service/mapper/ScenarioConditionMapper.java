@@ -26,6 +26,8 @@ public class ScenarioConditionMapper {
                 .setSensorId(condition.getSensorId())
                 .setType(EnumMapper.map(condition.getType(), ConditionTypeAvro.class))
                 .setValue(extractValueFromOneOf(condition))
+                .setWindowSeconds(condition.hasWindowSeconds() ? condition.getWindowSeconds() : null)
+                .setHysteresis(condition.hasHysteresis() ? condition.getHysteresis() : null)
                 .build();
     }
 
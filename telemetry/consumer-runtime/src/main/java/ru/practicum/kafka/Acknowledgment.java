@@ -0,0 +1,29 @@
+package ru.practicum.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+
+/**
+ * Подтверждение обработки записей, переданных в {@link BatchHandler}.
+ * Методы можно вызывать из любого потока.
+ */
+public interface Acknowledgment {
+
+    /**
+     * Отмечает запись как полностью обработанную.
+     *
+     * @param record обработанная запись
+     */
+    void acknowledge(ConsumerRecord<?, ?> record);
+
+    /**
+     * Отмечает все записи пакета как полностью обработанные.
+     *
+     * @param records обработанные записи
+     */
+    default void acknowledge(ConsumerRecords<?, ?> records) {
+        for (ConsumerRecord<?, ?> record : records) {
+            acknowledge(record);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+
+/**
+ * Обработчик пакета записей, полученных одним опросом {@link ConsumerRuntime}.
+ *
+ * <p>Перед вызовом все записи пакета регистрируются как принятые в обработку. Обработчик
+ * подтверждает каждую запись через {@link Acknowledgment} - сразу, если обрабатывает пакет
+ * синхронно, или позже из других потоков. Смещения коммитятся только до первой
+ * неподтверждённой записи партиции.
+ *
+ * @param <K> тип ключа записи
+ * @param <V> тип значения записи
+ */
+@FunctionalInterface
+public interface BatchHandler<K, V> {
+
+    /**
+     * Обрабатывает пакет записей. Вызывается в потоке консьюмера.
+     * Исключение, выброшенное обработчиком, останавливает консьюмер.
+     *
+     * @param records        записи опроса, не пустые
+     * @param acknowledgment подтверждение обработки записей
+     */
+    void handle(ConsumerRecords<K, V> records, Acknowledgment acknowledgment);
+}
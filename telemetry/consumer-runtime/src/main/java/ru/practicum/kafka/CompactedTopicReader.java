@@ -0,0 +1,151 @@
+package ru.practicum.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Читатель компактного топика-таблицы (последнее значение по ключу).
+ *
+ * <p>Читает все партиции топика с начала без группы потребителей и без коммитов смещений,
+ * передавая каждую запись обработчику, и продолжает читать новые записи до остановки.
+ * Используется для справочных данных, которые каждый экземпляр сервиса держит целиком в памяти.
+ *
+ * <p>{@link #awaitCaughtUp(Duration)} позволяет дождаться, пока прочитаны все записи,
+ * опубликованные до вызова.
+ *
+ * @param <K> тип ключа записи
+ * @param <V> тип значения записи
+ */
+@Slf4j
+public class CompactedTopicReader<K, V> implements Runnable {
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private final String name;
+    private final String topic;
+    private final KafkaConsumer<K, V> consumer;
+    private final Consumer<ConsumerRecord<K, V>> handler;
+
+    private final Queue<CatchUpRequest> requests = new ConcurrentLinkedQueue<>();
+    private final List<CatchUpRequest> pending = new ArrayList<>();
+
+    /**
+     * Создаёт читателя топика.
+     *
+     * @param name               имя читателя для логов
+     * @param consumerProperties настройки консьюмера Kafka без {@code group.id}
+     * @param topic              компактный топик
+     * @param handler            обработчик записей, вызывается в потоке читателя
+     */
+    public CompactedTopicReader(String name,
+                                Properties consumerProperties,
+                                String topic,
+                                Consumer<ConsumerRecord<K, V>> handler) {
+        this.name = name;
+        this.topic = topic;
+        this.consumer = new KafkaConsumer<>(consumerProperties);
+        this.handler = handler;
+    }
+
+    /**
+     * Читает топик с начала до остановки через {@link #wakeup()}.
+     */
+    @Override
+    public void run() {
+        try {
+            List<TopicPartition> partitions = consumer.partitionsFor(topic).stream()
+                    .map(info -> new TopicPartition(topic, info.partition()))
+                    .toList();
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            log.info("Reader {} started on {} partitions of topic {}", name, partitions.size(), topic);
+
+            while (true) {
+                for (ConsumerRecord<K, V> record : consumer.poll(POLL_TIMEOUT)) {
+                    if (record.value() != null) {
+                        handler.accept(record);
+                    }
+                }
+                completeCaughtUp();
+            }
+        } catch (WakeupException ignored) {
+            log.info("Reader {} woken up", name);
+        } catch (Exception e) {
+            log.error("Reader {} stopped by exception", name, e);
+        } finally {
+            pending.forEach(request -> request.future.cancel(false));
+            consumer.close();
+        }
+    }
+
+    /**
+     * Дожидается, пока читатель прочитает все записи, опубликованные до вызова.
+     *
+     * @param timeout максимальное время ожидания
+     * @return true если записи прочитаны до истечения таймаута
+     * @throws InterruptedException если поток был прерван во время ожидания
+     */
+    public boolean awaitCaughtUp(Duration timeout) throws InterruptedException {
+        CatchUpRequest request = new CatchUpRequest();
+        requests.add(request);
+        try {
+            request.future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException | ExecutionException | CancellationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Останавливает чтение. Можно вызывать из любого потока.
+     */
+    public void wakeup() {
+        consumer.wakeup();
+    }
+
+    /**
+     * Фиксирует конечные смещения для новых запросов и завершает запросы, чьи смещения достигнуты.
+     */
+    private void completeCaughtUp() {
+        Map<TopicPartition, Long> endOffsets = null;
+        CatchUpRequest request;
+        while ((request = requests.poll()) != null) {
+            if (endOffsets == null) {
+                endOffsets = consumer.endOffsets(consumer.assignment());
+            }
+            request.endOffsets = endOffsets;
+            pending.add(request);
+        }
+
+        pending.removeIf(pendingRequest -> {
+            for (Map.Entry<TopicPartition, Long> end : pendingRequest.endOffsets.entrySet()) {
+                if (consumer.position(end.getKey()) < end.getValue()) {
+                    return false;
+                }
+            }
+            pendingRequest.future.complete(null);
+            return true;
+        });
+    }
+
+    private static final class CatchUpRequest {
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private Map<TopicPartition, Long> endOffsets;
+    }
+}
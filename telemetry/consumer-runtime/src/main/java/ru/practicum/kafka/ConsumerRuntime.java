@@ -0,0 +1,342 @@
+package ru.practicum.kafka;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Общий цикл опроса Kafka для сервисов телеметрии.
+ *
+ * <p>Каждый опрос передаётся {@link BatchHandler} одним пакетом. Записи пакета регистрируются
+ * в {@link PartitionOffsetTracker}, и коммитится только подтверждённый префикс каждой партиции,
+ * поэтому обработчик может завершать записи асинхронно и не по порядку.
+ *
+ * <p>Цикл:
+ * <ul>
+ *   <li>приостанавливает чтение партиций, пока неподтверждённых записей не меньше
+ *   {@link ConsumerRuntimeSettings#getMaxInFlight()}, - так насыщение продюсера, hub-router или БД
+ *   ограничивает чтение, а не память</li>
+ *   <li>коммитит смещения асинхронно после каждого опроса и синхронно раз в
+ *   {@link ConsumerRuntimeSettings#getSyncCommitInterval()}, при отзыве партиций и при остановке</li>
+ *   <li>перед отзывом партиций дожидается подтверждения их записей и только затем передаёт
+ *   отзыв слушателю ребалансировки</li>
+ *   <li>публикует метрики {@link ConsumerRuntimeMetrics}</li>
+ * </ul>
+ *
+ * <p>Консьюмер подписывается на топики группой либо, если задан {@link PartitionAssigner},
+ * получает партиции вручную. Цикл завершается сигналом остановки JVM или вызовом {@link #wakeup()}.
+ *
+ * @param <K> тип ключа записи
+ * @param <V> тип значения записи
+ */
+@Slf4j
+public class ConsumerRuntime<K, V> implements Runnable {
+    private final String name;
+    private final KafkaConsumer<K, V> consumer;
+    private final Collection<String> topics;
+    private final PartitionAssigner assigner;
+    private final BatchHandler<K, V> handler;
+    private final ConsumerRebalanceListener rebalanceListener;
+    private final ConsumerRuntimeSettings settings;
+
+    private final PartitionOffsetTracker offsetTracker = new PartitionOffsetTracker();
+    private final ConsumerRuntimeMetrics metrics;
+
+    private long lastSyncCommitMillis = System.currentTimeMillis();
+
+    /**
+     * Создаёт консьюмер. Для подписки группой задаются {@code topics}, для ручного назначения - {@code assigner}.
+     *
+     * @param name               имя консьюмера для логов и тега метрик
+     * @param consumerProperties настройки консьюмера Kafka
+     * @param topics             топики для подписки группой
+     * @param assigner           ручное назначение партиций
+     * @param handler            обработчик пакетов записей
+     * @param rebalanceListener  слушатель ребалансировки, по умолчанию пустой
+     * @param settings           настройки цикла опроса, по умолчанию {@link ConsumerRuntimeSettings}
+     * @param meterRegistry      реестр метрик
+     * @throws IllegalArgumentException если не задан ровно один из способов получения партиций
+     */
+    @Builder
+    private ConsumerRuntime(String name,
+                            Properties consumerProperties,
+                            Collection<String> topics,
+                            PartitionAssigner assigner,
+                            BatchHandler<K, V> handler,
+                            ConsumerRebalanceListener rebalanceListener,
+                            ConsumerRuntimeSettings settings,
+                            MeterRegistry meterRegistry) {
+        if ((topics == null) == (assigner == null)) {
+            throw new IllegalArgumentException("Consumer " + name + " requires either topics or assigner");
+        }
+
+        this.name = Objects.requireNonNull(name, "name");
+        this.handler = Objects.requireNonNull(handler, "handler");
+        this.topics = topics == null ? null : List.copyOf(topics);
+        this.assigner = assigner;
+        this.rebalanceListener = rebalanceListener;
+        this.settings = settings == null ? new ConsumerRuntimeSettings() : settings;
+        this.consumer = new KafkaConsumer<>(consumerProperties);
+        this.metrics = new ConsumerRuntimeMetrics(Objects.requireNonNull(meterRegistry, "meterRegistry"),
+                name, offsetTracker);
+    }
+
+    /**
+     * Запускает цикл опроса в текущем потоке и возвращает управление после остановки.
+     * При остановке дожидается подтверждения принятых записей, синхронно коммитит
+     * достигнутые смещения и закрывает консьюмер.
+     */
+    @Override
+    public void run() {
+        log.info("Starting consumer {} with {}", name, settings);
+
+        try {
+            Runtime.getRuntime().addShutdownHook(new Thread(consumer::wakeup));
+            if (topics != null) {
+                consumer.subscribe(topics, new DrainingRebalanceListener());
+            }
+
+            while (true) {
+                if (assigner != null && !assigner.beforePoll(this)) {
+                    continue;
+                }
+
+                ConsumerRecords<K, V> records = consumer.poll(settings.getPollTimeout());
+                if (!records.isEmpty()) {
+                    dispatch(records);
+                }
+
+                applyBackpressure();
+                updateLag();
+                commit();
+            }
+
+        } catch (WakeupException ignored) {
+            log.info("Consumer {} woken up", name);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Consumer {} interrupted", name);
+        } catch (Exception e) {
+            log.error("Consumer {} stopped by exception", name, e);
+        } finally {
+            try {
+                drain(consumer.assignment());
+                commitSync();
+            } catch (Exception e) {
+                log.warn("Consumer {} failed to commit offsets on shutdown", name, e);
+            } finally {
+                log.info("Closing consumer {}", name);
+                consumer.close();
+            }
+        }
+    }
+
+    /**
+     * Прерывает текущий или ближайший опрос и останавливает цикл. Можно вызывать из любого потока.
+     */
+    public void wakeup() {
+        consumer.wakeup();
+    }
+
+    /**
+     * Возвращает партиции, назначенные консьюмеру. Вызывается только из потока консьюмера.
+     *
+     * @return назначенные партиции
+     */
+    public Set<TopicPartition> assignment() {
+        return consumer.assignment();
+    }
+
+    /**
+     * Возвращает количество партиций топика. Вызывается только из потока консьюмера.
+     *
+     * @param topic имя топика
+     * @return количество партиций
+     */
+    public int partitionCount(String topic) {
+        return consumer.partitionsFor(topic).size();
+    }
+
+    /**
+     * Вручную назначает партиции. До смены назначения дожидается подтверждения записей снимаемых партиций
+     * и синхронно коммитит смещения, после чего прекращает учёт снятых партиций. Вызывается только из {@link PartitionAssigner}.
+     *
+     * @param partitions новые партиции консьюмера
+     */
+    public void assign(Collection<TopicPartition> partitions) {
+        Set<TopicPartition> released = new HashSet<>(consumer.assignment());
+        released.removeAll(partitions);
+
+        drain(released);
+        commitSync();
+        offsetTracker.remove(released);
+        consumer.assign(partitions);
+    }
+
+    /**
+     * Регистрирует записи опроса в трекере смещений и передаёт их обработчику.
+     *
+     * @param records записи опроса
+     */
+    private void dispatch(ConsumerRecords<K, V> records) {
+        log.debug("Consumer {} received {} records", name, records.count());
+        metrics.recordBatch(records.count());
+
+        for (ConsumerRecord<K, V> record : records) {
+            offsetTracker.register(new TopicPartition(record.topic(), record.partition()), record.offset());
+        }
+
+        Timer.Sample sample = Timer.start();
+        try {
+            handler.handle(records, record ->
+                    offsetTracker.complete(new TopicPartition(record.topic(), record.partition()), record.offset()));
+        } finally {
+            sample.stop(metrics.handleTimer());
+        }
+    }
+
+    /**
+     * Приостанавливает чтение назначенных партиций, если неподтверждённых записей больше допустимого,
+     * и возобновляет его после разбора очереди.
+     */
+    private void applyBackpressure() {
+        boolean saturated = offsetTracker.inFlight() >= settings.getMaxInFlight();
+        Set<TopicPartition> paused = consumer.paused();
+
+        if (saturated && !paused.containsAll(consumer.assignment())) {
+            log.debug("Consumer {} pausing partitions, in-flight: {}", name, offsetTracker.inFlight());
+            consumer.pause(consumer.assignment());
+            metrics.recordPause(consumer.assignment().size());
+        } else if (!saturated && !paused.isEmpty()) {
+            log.debug("Consumer {} resuming partitions, in-flight: {}", name, offsetTracker.inFlight());
+            consumer.resume(paused);
+            metrics.recordResume();
+        }
+    }
+
+    /**
+     * Обновляет метрику отставания по позициям, известным консьюмеру после опроса.
+     */
+    private void updateLag() {
+        long maxLag = 0;
+        for (TopicPartition partition : consumer.assignment()) {
+            OptionalLong lag = consumer.currentLag(partition);
+            if (lag.isPresent()) {
+                maxLag = Math.max(maxLag, lag.getAsLong());
+            }
+        }
+        metrics.recordLag(maxLag);
+    }
+
+    /**
+     * Коммитит смещения: синхронно, если с прошлого синхронного коммита прошёл интервал, иначе асинхронно.
+     */
+    private void commit() {
+        if (System.currentTimeMillis() - lastSyncCommitMillis >= settings.getSyncCommitInterval().toMillis()) {
+            commitSync();
+            return;
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> offsets = offsetTracker.committable();
+        if (offsets.isEmpty()) {
+            return;
+        }
+
+        consumer.commitAsync(offsets, (committed, exception) -> {
+            metrics.recordCommit(false, exception == null);
+            if (exception != null) {
+                log.warn("Consumer {} failed to commit offsets {}", name, committed, exception);
+            }
+        });
+    }
+
+    /**
+     * Синхронно коммитит смещения, продвинувшиеся с прошлого коммита.
+     */
+    private void commitSync() {
+        lastSyncCommitMillis = System.currentTimeMillis();
+        Map<TopicPartition, OffsetAndMetadata> offsets = offsetTracker.committable();
+        if (offsets.isEmpty()) {
+            return;
+        }
+
+        try {
+            consumer.commitSync(offsets);
+            metrics.recordCommit(true, true);
+        } catch (RuntimeException e) {
+            metrics.recordCommit(true, false);
+            throw e;
+        }
+    }
+
+    /**
+     * Дожидается подтверждения записей указанных партиций, но не дольше
+     * {@link ConsumerRuntimeSettings#getDrainTimeout()}.
+     *
+     * @param partitions партиции, записи которых нужно дождаться
+     */
+    private void drain(Collection<TopicPartition> partitions) {
+        long timeoutMs = settings.getDrainTimeout().toMillis();
+        try {
+            if (!offsetTracker.awaitCompletion(partitions, timeoutMs)) {
+                log.warn("Consumer {}: records of partitions {} were not processed in {} ms",
+                        name, partitions, timeoutMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Слушатель ребалансировки: перед отзывом партиций дожидается подтверждения их записей
+     * и синхронно коммитит достигнутые смещения, затем передаёт событие слушателю сервиса.
+     */
+    private class DrainingRebalanceListener implements ConsumerRebalanceListener {
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            if (!partitions.isEmpty()) {
+                drain(partitions);
+                commitSync();
+                offsetTracker.remove(partitions);
+            }
+            if (rebalanceListener != null) {
+                rebalanceListener.onPartitionsRevoked(partitions);
+            }
+        }
+
+        @Override
+        public void onPartitionsLost(Collection<TopicPartition> partitions) {
+            // партиции уже принадлежат другому участнику группы, коммитить смещения нельзя
+            offsetTracker.remove(partitions);
+            if (rebalanceListener != null) {
+                rebalanceListener.onPartitionsLost(partitions);
+            }
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            log.debug("Consumer {} assigned partitions: {}", name, partitions);
+            if (rebalanceListener != null) {
+                rebalanceListener.onPartitionsAssigned(partitions);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Метрики цикла опроса {@link ConsumerRuntime}. Все метрики помечены тегом {@code consumer}.
+ *
+ * <ul>
+ *   <li>{@code telemetry.consumer.records} - количество полученных записей</li>
+ *   <li>{@code telemetry.consumer.batch.size} - размер пакета одного опроса</li>
+ *   <li>{@code telemetry.consumer.handle} - время вызова обработчика пакета</li>
+ *   <li>{@code telemetry.consumer.in.flight} - записи, принятые в обработку, но не подтверждённые</li>
+ *   <li>{@code telemetry.consumer.lag} - максимальное отставание среди назначенных партиций</li>
+ *   <li>{@code telemetry.consumer.paused.partitions} - количество приостановленных партиций</li>
+ *   <li>{@code telemetry.consumer.pauses} - количество приостановок чтения</li>
+ *   <li>{@code telemetry.consumer.commits} - коммиты смещений (теги {@code mode} и {@code result})</li>
+ * </ul>
+ *
+ * <p>Значения датчиков обновляются в потоке консьюмера, так как сам консьюмер не потокобезопасен.
+ */
+class ConsumerRuntimeMetrics {
+    private final Counter records;
+    private final DistributionSummary batchSize;
+    private final Timer handle;
+    private final Counter pauses;
+    private final Counter asyncCommits;
+    private final Counter asyncCommitFailures;
+    private final Counter syncCommits;
+    private final Counter syncCommitFailures;
+
+    private final AtomicLong lag = new AtomicLong();
+    private final AtomicInteger pausedPartitions = new AtomicInteger();
+
+    ConsumerRuntimeMetrics(MeterRegistry registry, String consumer, PartitionOffsetTracker offsetTracker) {
+        Tags tags = Tags.of("consumer", consumer);
+
+        this.records = Counter.builder("telemetry.consumer.records")
+                .description("Records received by consumer")
+                .tags(tags)
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("telemetry.consumer.batch.size")
+                .description("Records received by single poll")
+                .tags(tags)
+                .register(registry);
+        this.handle = Timer.builder("telemetry.consumer.handle")
+                .description("Batch handler duration")
+                .tags(tags)
+                .register(registry);
+        this.pauses = Counter.builder("telemetry.consumer.pauses")
+                .description("Times partitions were paused due to backpressure")
+                .tags(tags)
+                .register(registry);
+        this.asyncCommits = commits(registry, tags, "async", "success");
+        this.asyncCommitFailures = commits(registry, tags, "async", "failure");
+        this.syncCommits = commits(registry, tags, "sync", "success");
+        this.syncCommitFailures = commits(registry, tags, "sync", "failure");
+
+        Gauge.builder("telemetry.consumer.in.flight", offsetTracker, PartitionOffsetTracker::inFlight)
+                .description("Records accepted for processing but not acknowledged")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("telemetry.consumer.lag", lag, AtomicLong::get)
+                .description("Maximum lag among assigned partitions")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("telemetry.consumer.paused.partitions", pausedPartitions, AtomicInteger::get)
+                .description("Partitions paused due to backpressure")
+                .tags(tags)
+                .register(registry);
+    }
+
+    void recordBatch(int count) {
+        records.increment(count);
+        batchSize.record(count);
+    }
+
+    Timer handleTimer() {
+        return handle;
+    }
+
+    void recordPause(int partitions) {
+        pauses.increment();
+        pausedPartitions.set(partitions);
+    }
+
+    void recordResume() {
+        pausedPartitions.set(0);
+    }
+
+    void recordLag(long maxLag) {
+        lag.set(maxLag);
+    }
+
+    void recordCommit(boolean sync, boolean success) {
+        if (sync) {
+            (success ? syncCommits : syncCommitFailures).increment();
+        } else {
+            (success ? asyncCommits : asyncCommitFailures).increment();
+        }
+    }
+
+    private static Counter commits(MeterRegistry registry, Tags tags, String mode, String result) {
+        return Counter.builder("telemetry.consumer.commits")
+                .description("Offset commits")
+                .tags(tags)
+                .tag("mode", mode)
+                .tag("result", result)
+                .register(registry);
+    }
+}
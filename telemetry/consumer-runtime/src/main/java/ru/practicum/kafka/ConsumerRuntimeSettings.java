@@ -0,0 +1,39 @@
+package ru.practicum.kafka;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+/**
+ * Настройки цикла опроса {@link ConsumerRuntime}.
+ * Сервисы связывают их со своими свойствами конфигурации.
+ */
+@Getter
+@Setter
+@ToString
+public class ConsumerRuntimeSettings {
+    /**
+     * Максимальное время ожидания записей одним опросом.
+     */
+    private Duration pollTimeout = Duration.ofMillis(500);
+
+    /**
+     * Максимальное количество записей, принятых в обработку, но ещё не подтверждённых.
+     * При достижении порога чтение партиций приостанавливается до разбора очереди.
+     */
+    private int maxInFlight = 1000;
+
+    /**
+     * Интервал синхронного коммита смещений.
+     * Между синхронными коммитами смещения коммитятся асинхронно после каждого опроса.
+     */
+    private Duration syncCommitInterval = Duration.ofSeconds(5);
+
+    /**
+     * Максимальное время ожидания обработки записей отзываемых партиций
+     * и записей, оставшихся в обработке при остановке.
+     */
+    private Duration drainTimeout = Duration.ofSeconds(10);
+}
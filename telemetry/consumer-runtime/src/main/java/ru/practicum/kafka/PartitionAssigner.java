@@ -0,0 +1,19 @@
+package ru.practicum.kafka;
+
+/**
+ * Ручное назначение партиций консьюмеру {@link ConsumerRuntime} без подписки группой.
+ *
+ * @see ConsumerRuntime#assign(java.util.Collection)
+ */
+@FunctionalInterface
+public interface PartitionAssigner {
+
+    /**
+     * Приводит назначение партиций к актуальному. Вызывается в потоке консьюмера перед каждым опросом.
+     *
+     * @param runtime консьюмер, назначение которого нужно проверить
+     * @return true если можно выполнять опрос, false чтобы пропустить итерацию
+     * @throws InterruptedException если поток был прерван во время ожидания назначения
+     */
+    boolean beforePoll(ConsumerRuntime<?, ?> runtime) throws InterruptedException;
+}
@@ -0,0 +1,142 @@
+package ru.practicum.kafka;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Учёт смещений записей, обрабатываемых асинхронно.
+ *
+ * <p>Для каждой партиции хранит множество смещений, принятых в обработку, но ещё не завершённых.
+ * Смещение для коммита - наименьшее незавершённое смещение партиции, а если таких нет -
+ * следующее после последнего принятого. Таким образом коммитится только полностью
+ * обработанный префикс партиции, даже если записи разных хабов завершаются не по порядку.
+ *
+ * <p>Методы {@link #register} и {@link #committable} вызываются из потока консьюмера,
+ * {@link #complete} - из потоков обработки.
+ */
+public class PartitionOffsetTracker {
+    private final Map<TopicPartition, PartitionState> partitions = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Регистрирует запись, принятую в обработку.
+     *
+     * @param partition партиция записи
+     * @param offset    смещение записи
+     */
+    public void register(TopicPartition partition, long offset) {
+        PartitionState state = partitions.computeIfAbsent(partition, tp -> new PartitionState());
+        state.pending.add(offset);
+        state.lastRegistered = Math.max(state.lastRegistered, offset);
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Отмечает запись как полностью обработанную.
+     *
+     * @param partition партиция записи
+     * @param offset    смещение записи
+     */
+    public void complete(TopicPartition partition, long offset) {
+        PartitionState state = partitions.get(partition);
+        if (state == null) {
+            return;
+        }
+
+        synchronized (state) {
+            if (state.pending.remove(offset)) {
+                inFlight.decrementAndGet();
+            }
+            state.notifyAll();
+        }
+    }
+
+    /**
+     * Возвращает смещения, которые можно закоммитить, и запоминает их как закоммиченные.
+     * В результат попадают только партиции, чьё смещение продвинулось с прошлого вызова.
+     *
+     * @return карта смещений для коммита, может быть пустой
+     */
+    public Map<TopicPartition, OffsetAndMetadata> committable() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+
+        partitions.forEach((partition, state) -> {
+            Long firstPending = state.pending.ceiling(Long.MIN_VALUE);
+            long next = firstPending == null ? state.lastRegistered + 1 : firstPending;
+            if (next > state.lastCommitted) {
+                state.lastCommitted = next;
+                offsets.put(partition, new OffsetAndMetadata(next));
+            }
+        });
+
+        return offsets;
+    }
+
+    /**
+     * Дожидается завершения обработки всех записей указанных партиций.
+     *
+     * @param topicPartitions партиции, обработку которых нужно дождаться
+     * @param timeoutMs       максимальное время ожидания в миллисекундах
+     * @return true если все записи обработаны до истечения таймаута
+     * @throws InterruptedException если поток был прерван во время ожидания
+     */
+    public boolean awaitCompletion(Collection<TopicPartition> topicPartitions, long timeoutMs)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+
+        for (TopicPartition partition : topicPartitions) {
+            PartitionState state = partitions.get(partition);
+            if (state == null) {
+                continue;
+            }
+
+            synchronized (state) {
+                while (!state.pending.isEmpty()) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    state.wait(remaining);
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Перестаёт отслеживать указанные партиции (например, после их отзыва при ребалансировке).
+     *
+     * @param topicPartitions партиции для удаления
+     */
+    public void remove(Collection<TopicPartition> topicPartitions) {
+        for (TopicPartition partition : topicPartitions) {
+            PartitionState state = partitions.remove(partition);
+            if (state != null) {
+                inFlight.addAndGet(-state.pending.size());
+            }
+        }
+    }
+
+    /**
+     * Возвращает количество записей, принятых в обработку, но ещё не завершённых.
+     *
+     * @return количество незавершённых записей
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private static class PartitionState {
+        private final ConcurrentSkipListSet<Long> pending = new ConcurrentSkipListSet<>();
+        private volatile long lastRegistered = -1;
+        private volatile long lastCommitted = -1;
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.kafka;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты учёта смещений записей, завершающихся не по порядку.
+ */
+class PartitionOffsetTrackerTest {
+    private static final TopicPartition FIRST = new TopicPartition("telemetry.sensors.v1", 0);
+    private static final TopicPartition SECOND = new TopicPartition("telemetry.sensors.v1", 1);
+
+    private final PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+
+    @Test
+    void committableStopsAtLowestPendingOffset() {
+        tracker.register(FIRST, 10);
+        tracker.register(FIRST, 11);
+        tracker.register(FIRST, 12);
+
+        tracker.complete(FIRST, 10);
+        tracker.complete(FIRST, 12);
+
+        assertThat(tracker.committable()).isEqualTo(Map.of(FIRST, new OffsetAndMetadata(11)));
+        assertThat(tracker.inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void committableMovesPastLastRegisteredOffsetWhenAllComplete() {
+        tracker.register(FIRST, 10);
+        tracker.register(FIRST, 11);
+        tracker.complete(FIRST, 11);
+        tracker.complete(FIRST, 10);
+
+        assertThat(tracker.committable()).isEqualTo(Map.of(FIRST, new OffsetAndMetadata(12)));
+        assertThat(tracker.inFlight()).isZero();
+    }
+
+    @Test
+    void committableReturnsOnlyAdvancedPartitions() {
+        tracker.register(FIRST, 10);
+        tracker.register(SECOND, 20);
+        tracker.complete(FIRST, 10);
+        tracker.complete(SECOND, 20);
+        tracker.committable();
+
+        tracker.register(SECOND, 21);
+        tracker.complete(SECOND, 21);
+
+        assertThat(tracker.committable()).isEqualTo(Map.of(SECOND, new OffsetAndMetadata(22)));
+        assertThat(tracker.committable()).isEmpty();
+    }
+
+    @Test
+    void completeOfUnknownOffsetIsIgnored() {
+        tracker.register(FIRST, 10);
+
+        tracker.complete(FIRST, 9);
+        tracker.complete(SECOND, 10);
+
+        assertThat(tracker.inFlight()).isEqualTo(1);
+        assertThat(tracker.committable()).isEqualTo(Map.of(FIRST, new OffsetAndMetadata(10)));
+    }
+
+    @Test
+    void awaitCompletionTimesOutWhileRecordsArePending() throws InterruptedException {
+        tracker.register(FIRST, 10);
+
+        assertThat(tracker.awaitCompletion(List.of(FIRST), 50)).isFalse();
+    }
+
+    @Test
+    void awaitCompletionReturnsWhenProcessingThreadCompletesRecords() throws InterruptedException {
+        tracker.register(FIRST, 10);
+        tracker.register(SECOND, 20);
+        Thread worker = new Thread(() -> {
+            tracker.complete(FIRST, 10);
+            tracker.complete(SECOND, 20);
+        });
+
+        worker.start();
+
+        assertThat(tracker.awaitCompletion(List.of(FIRST, SECOND), 5_000)).isTrue();
+        worker.join();
+    }
+
+    @Test
+    void removeForgetsRevokedPartitions() {
+        tracker.register(FIRST, 10);
+        tracker.register(FIRST, 11);
+        tracker.register(SECOND, 20);
+
+        tracker.remove(List.of(FIRST));
+
+        assertThat(tracker.inFlight()).isEqualTo(1);
+        assertThat(tracker.committable()).isEqualTo(Map.of(SECOND, new OffsetAndMetadata(20)));
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+/**
+ * Главный класс генератора нагрузки на конвейер телеметрии.
+ *
+ * <p>Запускается локально рядом с Kafka, Postgres, коллектором, агрегатором и анализатором;
+ * сам выступает в роли hub-router, принимая действия анализатора.
+ */
+@SpringBootApplication
+@ConfigurationPropertiesScan
+@Slf4j
+public class LoadGeneratorApp {
+    public static void main(String[] args) {
+        log.info("Starting load generator");
+        SpringApplication.run(LoadGeneratorApp.class, args);
+    }
+}
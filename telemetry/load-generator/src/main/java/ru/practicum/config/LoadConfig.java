@@ -0,0 +1,102 @@
+package ru.practicum.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.yandex.practicum.grpc.telemetry.event.DeviceTypeProto;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Настройки генератора нагрузки.
+ * Связывает свойства {@code load.*} из конфигурации.
+ *
+ * @see ru.practicum.service.LoadRunner
+ */
+@Getter
+@Setter
+@ToString
+@ConfigurationProperties("load")
+public class LoadConfig {
+    /**
+     * Количество имитируемых хабов. При 0 генерация не запускается,
+     * и приложение работает только как заглушка hub-router.
+     */
+    private int hubs = 100;
+
+    /**
+     * Префикс идентификаторов хабов, чтобы не пересекаться с реальными данными.
+     */
+    private String hubPrefix = "load-hub-";
+
+    /**
+     * Состав датчиков каждого хаба: тип датчика - количество датчиков этого типа.
+     */
+    private Map<DeviceTypeProto, Integer> sensors = new EnumMap<>(Map.of(
+            DeviceTypeProto.MOTION_SENSOR, 2,
+            DeviceTypeProto.TEMPERATURE_SENSOR, 1,
+            DeviceTypeProto.LIGHT_SENSOR, 2,
+            DeviceTypeProto.CLIMATE_SENSOR, 1,
+            DeviceTypeProto.SWITCH_SENSOR, 2));
+
+    /**
+     * Частота событий датчиков одного хаба в секунду.
+     */
+    private double eventsPerHubPerSecond = 1.0;
+
+    /**
+     * Интервал между пробами одного хаба. Проба переключает выделенный датчик,
+     * на который настроен сценарий, и измеряет время до получения действия.
+     */
+    private Duration probeInterval = Duration.ofSeconds(5);
+
+    /**
+     * Регистрировать устройства и сценарий пробы перед запуском нагрузки.
+     */
+    private boolean registerHubs = true;
+
+    /**
+     * Пауза после регистрации, за которую анализатор успевает применить события хабов.
+     */
+    private Duration setupDelay = Duration.ofSeconds(5);
+
+    /**
+     * Длительность прогрева, результаты которого не попадают в отчёт.
+     */
+    private Duration warmup = Duration.ofSeconds(10);
+
+    /**
+     * Длительность измеряемой нагрузки.
+     */
+    private Duration duration = Duration.ofSeconds(60);
+
+    /**
+     * Время ожидания незавершённых запросов и действий по пробам после окончания нагрузки.
+     */
+    private Duration drainTimeout = Duration.ofSeconds(15);
+
+    /**
+     * Максимальное количество запросов к коллектору без ответа.
+     * События сверх порога не отправляются и учитываются как отброшенные.
+     */
+    private int maxInFlight = 500;
+
+    /**
+     * Допустимая доля отброшенных событий и потерянных проб. При превышении
+     * генератор завершается с ненулевым кодом.
+     */
+    private double maxDropRatio = 0.01;
+
+    /**
+     * Допустимый 99-й перцентиль задержки от пробы до действия; не проверяется, если не задан.
+     */
+    private Duration maxProbeP99;
+
+    /**
+     * Завершать приложение после отчёта. Если выключено, заглушка hub-router продолжает работать.
+     */
+    private boolean exitOnFinish = true;
+}
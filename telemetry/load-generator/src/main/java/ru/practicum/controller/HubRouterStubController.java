@@ -0,0 +1,30 @@
+package ru.practicum.controller;
+
+import com.google.protobuf.Empty;
+import io.grpc.stub.StreamObserver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.service.GrpcService;
+import ru.practicum.service.LoadStatistics;
+import ru.yandex.practicum.grpc.telemetry.event.DeviceActionRequest;
+import ru.yandex.practicum.grpc.telemetry.hubrouter.HubRouterControllerGrpc;
+
+/**
+ * Заглушка gRPC сервиса hub-router: принимает действия анализатора и учитывает их
+ * в статистике прогона вместо отправки на устройства.
+ */
+@GrpcService
+@RequiredArgsConstructor
+@Slf4j
+public class HubRouterStubController extends HubRouterControllerGrpc.HubRouterControllerImplBase {
+    private final LoadStatistics statistics;
+
+    @Override
+    public void handleDeviceAction(DeviceActionRequest request, StreamObserver<Empty> responseObserver) {
+        statistics.recordAction(request.getHubId(), request.getScenarioName(), System.nanoTime());
+        log.trace("Received action for hub {}, scenario {}", request.getHubId(), request.getScenarioName());
+
+        responseObserver.onNext(Empty.getDefaultInstance());
+        responseObserver.onCompleted();
+    }
+}
@@ -0,0 +1,133 @@
+package ru.practicum.service;
+
+import com.google.protobuf.Timestamp;
+import ru.yandex.practicum.grpc.telemetry.event.ActionTypeProto;
+import ru.yandex.practicum.grpc.telemetry.event.ClimateSensorProto;
+import ru.yandex.practicum.grpc.telemetry.event.ConditionOperationProto;
+import ru.yandex.practicum.grpc.telemetry.event.ConditionTypeProto;
+import ru.yandex.practicum.grpc.telemetry.event.DeviceActionProto;
+import ru.yandex.practicum.grpc.telemetry.event.DeviceAddedEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.DeviceTypeProto;
+import ru.yandex.practicum.grpc.telemetry.event.HubEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.LightSensorProto;
+import ru.yandex.practicum.grpc.telemetry.event.MotionSensorProto;
+import ru.yandex.practicum.grpc.telemetry.event.ScenarioAddedEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.ScenarioConditionProto;
+import ru.yandex.practicum.grpc.telemetry.event.SensorEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.SwitchSensorProto;
+import ru.yandex.practicum.grpc.telemetry.event.TemperatureSensorProto;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Построение gRPC сообщений коллектора для имитируемых хабов.
+ */
+public final class LoadEventFactory {
+
+    private LoadEventFactory() {
+    }
+
+    /**
+     * Создаёт событие датчика со случайными показаниями.
+     *
+     * @param hubId  идентификатор хаба
+     * @param sensor датчик
+     * @return событие датчика
+     */
+    public static SensorEventProto sensorEvent(String hubId, SimulatedHub.Sensor sensor) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SensorEventProto.Builder builder = SensorEventProto.newBuilder()
+                .setId(sensor.id())
+                .setHubId(hubId)
+                .setTimestamp(now());
+
+        return switch (sensor.type()) {
+            case MOTION_SENSOR -> builder.setMotionSensor(MotionSensorProto.newBuilder()
+                    .setLinkQuality(random.nextInt(50, 101))
+                    .setMotion(random.nextBoolean())
+                    .setVoltage(random.nextInt(210, 231))).build();
+            case TEMPERATURE_SENSOR -> {
+                int celsius = random.nextInt(-10, 41);
+                yield builder.setTemperatureSensor(TemperatureSensorProto.newBuilder()
+                        .setTemperatureC(celsius)
+                        .setTemperatureF(celsius * 9 / 5 + 32)).build();
+            }
+            case LIGHT_SENSOR -> builder.setLightSensor(LightSensorProto.newBuilder()
+                    .setLinkQuality(random.nextInt(50, 101))
+                    .setLuminosity(random.nextInt(0, 1001))).build();
+            case CLIMATE_SENSOR -> builder.setClimateSensor(ClimateSensorProto.newBuilder()
+                    .setTemperatureC(random.nextInt(15, 31))
+                    .setHumidity(random.nextInt(20, 81))
+                    .setCo2Level(random.nextInt(400, 2001))).build();
+            case SWITCH_SENSOR -> builder.setSwitchSensor(SwitchSensorProto.newBuilder()
+                    .setState(random.nextBoolean())).build();
+            case UNRECOGNIZED -> throw new IllegalArgumentException("Unknown sensor type " + sensor.type());
+        };
+    }
+
+    /**
+     * Создаёт событие переключателя пробы.
+     *
+     * @param hubId идентификатор хаба
+     * @param state состояние переключателя; {@code true} активирует сценарий пробы
+     * @return событие датчика пробы
+     */
+    public static SensorEventProto probeEvent(String hubId, boolean state) {
+        return SensorEventProto.newBuilder()
+                .setId(SimulatedHub.PROBE_SENSOR)
+                .setHubId(hubId)
+                .setTimestamp(now())
+                .setSwitchSensor(SwitchSensorProto.newBuilder().setState(state))
+                .build();
+    }
+
+    /**
+     * Создаёт событие регистрации устройства в хабе.
+     *
+     * @param hubId    идентификатор хаба
+     * @param deviceId идентификатор устройства
+     * @param type     тип устройства
+     * @return событие хаба
+     */
+    public static HubEventProto deviceAdded(String hubId, String deviceId, DeviceTypeProto type) {
+        return HubEventProto.newBuilder()
+                .setHubId(hubId)
+                .setTimestamp(now())
+                .setDeviceAdded(DeviceAddedEventProto.newBuilder()
+                        .setId(deviceId)
+                        .setType(type))
+                .build();
+    }
+
+    /**
+     * Создаёт сценарий пробы: при включении переключателя пробы активировать его же.
+     *
+     * @param hubId идентификатор хаба
+     * @return событие добавления сценария
+     */
+    public static HubEventProto probeScenario(String hubId) {
+        return HubEventProto.newBuilder()
+                .setHubId(hubId)
+                .setTimestamp(now())
+                .setScenarioAdded(ScenarioAddedEventProto.newBuilder()
+                        .setName(SimulatedHub.PROBE_SCENARIO)
+                        .addCondition(ScenarioConditionProto.newBuilder()
+                                .setSensorId(SimulatedHub.PROBE_SENSOR)
+                                .setType(ConditionTypeProto.SWITCH)
+                                .setOperation(ConditionOperationProto.EQUALS)
+                                .setBoolValue(true))
+                        .addAction(DeviceActionProto.newBuilder()
+                                .setSensorId(SimulatedHub.PROBE_SENSOR)
+                                .setType(ActionTypeProto.ACTIVATE)))
+                .build();
+    }
+
+    private static Timestamp now() {
+        Instant now = Instant.now();
+        return Timestamp.newBuilder()
+                .setSeconds(now.getEpochSecond())
+                .setNanos(now.getNano())
+                .build();
+    }
+}
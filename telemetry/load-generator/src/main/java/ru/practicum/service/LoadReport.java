@@ -0,0 +1,98 @@
+package ru.practicum.service;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Итоги прогона нагрузки.
+ *
+ * @param seconds      длительность измеряемой нагрузки в секундах
+ * @param targetRate   заданная частота событий в секунду
+ * @param sent         события, принятые коллектором
+ * @param failed       события, отклонённые коллектором или не доставленные до него
+ * @param skipped      события, не отправленные из-за превышения числа запросов без ответа
+ * @param rpcLatency   задержки ответа коллектора, мкс
+ * @param probes       отправленные пробы
+ * @param lostProbes   пробы, по которым не пришло действие
+ * @param actions      все действия, полученные заглушкой hub-router
+ * @param probeLatency задержки от пробы до действия, мкс
+ */
+public record LoadReport(double seconds,
+                         double targetRate,
+                         long sent,
+                         long failed,
+                         long skipped,
+                         Histogram rpcLatency,
+                         long probes,
+                         long lostProbes,
+                         long actions,
+                         Histogram probeLatency) {
+
+    /**
+     * Возвращает фактическую пропускную способность коллектора.
+     *
+     * @return принятые события в секунду
+     */
+    public double throughput() {
+        return seconds > 0 ? sent / seconds : 0;
+    }
+
+    /**
+     * Возвращает долю отброшенных событий среди всех попыток отправки.
+     *
+     * @return доля от 0 до 1
+     */
+    public double dropRatio() {
+        long attempted = sent + failed + skipped;
+        return attempted > 0 ? (double) (failed + skipped) / attempted : 0;
+    }
+
+    /**
+     * Возвращает долю проб, по которым не пришло действие.
+     *
+     * @return доля от 0 до 1
+     */
+    public double probeLossRatio() {
+        return probes > 0 ? (double) lostProbes / probes : 0;
+    }
+
+    /**
+     * Возвращает перцентиль задержки от пробы до действия.
+     *
+     * @param percentile перцентиль от 0 до 100
+     * @return задержка
+     */
+    public Duration probePercentile(double percentile) {
+        return Duration.ofNanos(probeLatency.getValueAtPercentile(percentile) * 1_000);
+    }
+
+    /**
+     * Форматирует отчёт построчно для вывода в журнал.
+     *
+     * @return строки отчёта
+     */
+    public List<String> lines() {
+        return List.of(
+                String.format("Duration: %.1f s, target rate: %.1f events/s", seconds, targetRate),
+                String.format("Collector: %d accepted, %.1f events/s, %d failed, %d skipped, drop ratio %.4f",
+                        sent, throughput(), failed, skipped, dropRatio()),
+                "Collector latency: " + percentiles(rpcLatency),
+                String.format("Probes: %d sent, %d lost, loss ratio %.4f, %d actions received in total",
+                        probes, lostProbes, probeLossRatio(), actions),
+                "Probe-to-action latency: " + percentiles(probeLatency));
+    }
+
+    private static String percentiles(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return "no samples";
+        }
+        return String.format("p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, max %.2f ms (%d samples)",
+                histogram.getValueAtPercentile(50) / 1_000.0,
+                histogram.getValueAtPercentile(95) / 1_000.0,
+                histogram.getValueAtPercentile(99) / 1_000.0,
+                histogram.getMaxValue() / 1_000.0,
+                histogram.getTotalCount());
+    }
+}
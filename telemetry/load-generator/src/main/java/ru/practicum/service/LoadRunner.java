@@ -0,0 +1,272 @@
+package ru.practicum.service;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.Empty;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+import ru.practicum.config.LoadConfig;
+import ru.yandex.practicum.grpc.telemetry.collector.CollectorControllerGrpc.CollectorControllerFutureStub;
+import ru.yandex.practicum.grpc.telemetry.event.DeviceTypeProto;
+import ru.yandex.practicum.grpc.telemetry.event.HubEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.SensorEventProto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Прогон нагрузки на коллектор.
+ *
+ * <p>Порядок прогона:
+ * <ol>
+ *   <li>регистрирует датчики хабов и сценарий пробы через события хабов</li>
+ *   <li>отправляет события датчиков с заданной частотой без ожидания ответов (открытая модель нагрузки)
+ *   и периодически пробы каждого хаба</li>
+ *   <li>сбрасывает статистику прогрева и повторяет нагрузку в течение измеряемого интервала</li>
+ *   <li>дожидается незавершённых запросов и действий по пробам, выводит отчёт и завершает приложение
+ *   с ненулевым кодом, если превышены допустимые потери или задержка</li>
+ * </ol>
+ *
+ * <p>Проба включает выделенный переключатель хаба и сразу выключает его: сценарий пробы
+ * срабатывает ровно на одном снимке, поэтому первое действие по нему после пробы
+ * измеряет задержку всего конвейера от коллектора до hub-router.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoadRunner implements ApplicationRunner {
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final LoadConfig config;
+    private final LoadStatistics statistics;
+    private final ConfigurableApplicationContext context;
+
+    @GrpcClient("collector")
+    private CollectorControllerFutureStub collector;
+
+    private Semaphore inFlight;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (config.getHubs() <= 0) {
+            log.info("No hubs configured, running as hub-router stand-in only");
+            return;
+        }
+
+        log.info("Starting load run: {}", config);
+        inFlight = new Semaphore(config.getMaxInFlight());
+        List<SimulatedHub> hubs = createHubs();
+
+        if (config.isRegisterHubs()) {
+            register(hubs);
+        }
+
+        generate(hubs, config.getWarmup().toNanos());
+        statistics.reset();
+
+        long started = System.nanoTime();
+        generate(hubs, config.getDuration().toNanos());
+        long elapsed = System.nanoTime() - started;
+
+        drain();
+
+        double targetRate = hubs.size() * config.getEventsPerHubPerSecond();
+        LoadReport report = statistics.report(elapsed, targetRate);
+        report.lines().forEach(line -> log.info("{}", line));
+
+        int exitCode = check(report);
+        if (config.isExitOnFinish()) {
+            System.exit(SpringApplication.exit(context, () -> exitCode));
+        }
+    }
+
+    /**
+     * Создаёт хабы с одинаковым составом датчиков.
+     *
+     * @return имитируемые хабы
+     */
+    private List<SimulatedHub> createHubs() {
+        List<SimulatedHub> hubs = new ArrayList<>(config.getHubs());
+        for (int i = 0; i < config.getHubs(); i++) {
+            List<SimulatedHub.Sensor> sensors = new ArrayList<>();
+            config.getSensors().forEach((type, count) -> {
+                for (int n = 0; n < count; n++) {
+                    sensors.add(new SimulatedHub.Sensor(type.name().toLowerCase() + "-" + n, type));
+                }
+            });
+            hubs.add(new SimulatedHub(config.getHubPrefix() + i, List.copyOf(sensors)));
+        }
+        return hubs;
+    }
+
+    /**
+     * Регистрирует устройства и сценарий пробы каждого хаба и ждёт, пока анализатор их применит.
+     *
+     * @param hubs имитируемые хабы
+     */
+    private void register(List<SimulatedHub> hubs) throws Exception {
+        log.info("Registering {} hubs", hubs.size());
+        for (SimulatedHub hub : hubs) {
+            List<ListenableFuture<Empty>> futures = new ArrayList<>();
+            for (SimulatedHub.Sensor sensor : hub.sensors()) {
+                futures.add(collector.collectHubEvent(
+                        LoadEventFactory.deviceAdded(hub.hubId(), sensor.id(), sensor.type())));
+            }
+            futures.add(collector.collectHubEvent(
+                    LoadEventFactory.deviceAdded(hub.hubId(), SimulatedHub.PROBE_SENSOR, DeviceTypeProto.SWITCH_SENSOR)));
+            Futures.allAsList(futures).get(config.getDrainTimeout().toMillis(), TimeUnit.MILLISECONDS);
+
+            // сценарий ссылается на устройства, поэтому отправляется после их регистрации
+            HubEventProto scenario = LoadEventFactory.probeScenario(hub.hubId());
+            collector.collectHubEvent(scenario).get(config.getDrainTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        Thread.sleep(config.getSetupDelay().toMillis());
+    }
+
+    /**
+     * Отправляет события датчиков и пробы с заданной частотой в течение интервала.
+     * Количество событий вычисляется от начала интервала, поэтому задержки планирования
+     * не снижают итоговую частоту.
+     *
+     * @param hubs          имитируемые хабы
+     * @param durationNanos длительность интервала
+     */
+    private void generate(List<SimulatedHub> hubs, long durationNanos) {
+        double eventsPerNano = hubs.size() * config.getEventsPerHubPerSecond() / 1_000_000_000.0;
+        double probesPerNano = (double) hubs.size() / config.getProbeInterval().toNanos();
+
+        long started = System.nanoTime();
+        long events = 0;
+        long probes = 0;
+        int eventCursor = 0;
+        int probeCursor = 0;
+
+        long elapsed;
+        while ((elapsed = System.nanoTime() - started) < durationNanos) {
+            for (long due = (long) (elapsed * eventsPerNano); events < due; events++) {
+                SimulatedHub hub = hubs.get(eventCursor++ % hubs.size());
+                List<SimulatedHub.Sensor> sensors = hub.sensors();
+                if (!sensors.isEmpty()) {
+                    SimulatedHub.Sensor sensor = sensors.get(ThreadLocalRandom.current().nextInt(sensors.size()));
+                    send(LoadEventFactory.sensorEvent(hub.hubId(), sensor), null);
+                }
+            }
+
+            for (long due = (long) (elapsed * probesPerNano); probes < due; probes++) {
+                probe(hubs.get(probeCursor++ % hubs.size()).hubId());
+            }
+
+            LockSupport.parkNanos(TICK_NANOS);
+        }
+    }
+
+    /**
+     * Отправляет пробу: включает переключатель пробы и после ответа коллектора выключает его.
+     *
+     * @param hubId идентификатор хаба
+     */
+    private void probe(String hubId) {
+        long sentNanos = System.nanoTime();
+        statistics.probeSent(hubId, sentNanos);
+
+        boolean accepted = send(LoadEventFactory.probeEvent(hubId, true), success -> {
+            if (success) {
+                send(LoadEventFactory.probeEvent(hubId, false), null);
+            } else {
+                statistics.probeFailed(hubId, sentNanos);
+            }
+        });
+        if (!accepted) {
+            statistics.probeFailed(hubId, sentNanos);
+        }
+    }
+
+    /**
+     * Асинхронно отправляет событие в коллектор, если не превышено число запросов без ответа.
+     *
+     * @param event      событие датчика
+     * @param onComplete действие после ответа коллектора с признаком успеха или null
+     * @return {@code true}, если событие отправлено
+     */
+    private boolean send(SensorEventProto event, CompletionListener onComplete) {
+        if (!inFlight.tryAcquire()) {
+            statistics.recordSkipped();
+            return false;
+        }
+
+        long sentNanos = System.nanoTime();
+        Futures.addCallback(collector.collectSensorEvent(event), new FutureCallback<>() {
+            @Override
+            public void onSuccess(Empty result) {
+                inFlight.release();
+                statistics.recordSent(System.nanoTime() - sentNanos);
+                if (onComplete != null) {
+                    onComplete.completed(true);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                inFlight.release();
+                statistics.recordFailed();
+                log.debug("Failed to send event for hub {}", event.getHubId(), t);
+                if (onComplete != null) {
+                    onComplete.completed(false);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+        return true;
+    }
+
+    /**
+     * Дожидается ответов на все запросы и действий по всем пробам, но не дольше заданного времени.
+     */
+    private void drain() throws InterruptedException {
+        long deadline = System.nanoTime() + config.getDrainTimeout().toNanos();
+        while (System.nanoTime() < deadline
+               && (inFlight.availablePermits() < config.getMaxInFlight() || statistics.pendingProbes() > 0)) {
+            Thread.sleep(100);
+        }
+    }
+
+    /**
+     * Сравнивает итоги прогона с допустимыми значениями.
+     *
+     * @param report отчёт о прогоне
+     * @return код завершения: 0 - пороги соблюдены, 1 - превышены
+     */
+    private int check(LoadReport report) {
+        int exitCode = 0;
+        if (report.dropRatio() > config.getMaxDropRatio()) {
+            log.error("Drop ratio {} exceeds {}", report.dropRatio(), config.getMaxDropRatio());
+            exitCode = 1;
+        }
+        if (report.probeLossRatio() > config.getMaxDropRatio()) {
+            log.error("Probe loss ratio {} exceeds {}", report.probeLossRatio(), config.getMaxDropRatio());
+            exitCode = 1;
+        }
+        if (config.getMaxProbeP99() != null && report.probeLatency().getTotalCount() > 0
+            && report.probePercentile(99).compareTo(config.getMaxProbeP99()) > 0) {
+            log.error("Probe p99 latency {} exceeds {}", report.probePercentile(99), config.getMaxProbeP99());
+            exitCode = 1;
+        }
+        return exitCode;
+    }
+
+    @FunctionalInterface
+    private interface CompletionListener {
+        void completed(boolean success);
+    }
+}
@@ -0,0 +1,149 @@
+package ru.practicum.service;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики и гистограммы задержек прогона нагрузки.
+ *
+ * <p>Задержки хранятся в микросекундах. Проба считается потерянной, если до следующей пробы
+ * того же хаба или до конца прогона по ней не пришло действие.
+ */
+@Component
+public class LoadStatistics {
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Histogram rpcLatency = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    private final Histogram probeLatency = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder lostProbes = new LongAdder();
+    private final LongAdder actions = new LongAdder();
+
+    /**
+     * Хаб - время отправки пробы ({@link System#nanoTime()}), по которой ещё не пришло действие.
+     */
+    private final Map<String, Long> pendingProbes = new ConcurrentHashMap<>();
+
+    /**
+     * Фиксирует успешный запрос к коллектору.
+     *
+     * @param latencyNanos время ответа коллектора
+     */
+    public void recordSent(long latencyNanos) {
+        sent.increment();
+        rpcLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+
+    /**
+     * Фиксирует запрос к коллектору, завершившийся ошибкой.
+     */
+    public void recordFailed() {
+        failed.increment();
+    }
+
+    /**
+     * Фиксирует событие, не отправленное из-за превышения числа запросов без ответа.
+     */
+    public void recordSkipped() {
+        skipped.increment();
+    }
+
+    /**
+     * Регистрирует отправленную пробу. Предыдущая проба хаба без действия считается потерянной.
+     *
+     * @param hubId     идентификатор хаба
+     * @param sentNanos время отправки пробы
+     */
+    public void probeSent(String hubId, long sentNanos) {
+        probes.increment();
+        if (pendingProbes.put(hubId, sentNanos) != null) {
+            lostProbes.increment();
+        }
+    }
+
+    /**
+     * Отменяет пробу, которую не удалось отправить.
+     *
+     * @param hubId     идентификатор хаба
+     * @param sentNanos время отправки пробы
+     */
+    public void probeFailed(String hubId, long sentNanos) {
+        if (pendingProbes.remove(hubId, sentNanos)) {
+            probes.decrement();
+        }
+    }
+
+    /**
+     * Фиксирует действие, полученное заглушкой hub-router.
+     * Первое действие сценария пробы после пробы закрывает её и даёт измерение задержки.
+     *
+     * @param hubId         идентификатор хаба
+     * @param scenarioName  название сценария
+     * @param receivedNanos время получения действия
+     */
+    public void recordAction(String hubId, String scenarioName, long receivedNanos) {
+        actions.increment();
+        if (!SimulatedHub.PROBE_SCENARIO.equals(scenarioName)) {
+            return;
+        }
+
+        Long sentNanos = pendingProbes.remove(hubId);
+        if (sentNanos != null) {
+            probeLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(receivedNanos - sentNanos));
+        }
+    }
+
+    /**
+     * Возвращает количество проб, по которым ещё не пришло действие.
+     *
+     * @return количество ожидающих проб
+     */
+    public int pendingProbes() {
+        return pendingProbes.size();
+    }
+
+    /**
+     * Сбрасывает результаты прогрева. Ожидающие пробы сохраняются.
+     */
+    public void reset() {
+        rpcLatency.reset();
+        probeLatency.reset();
+        sent.reset();
+        failed.reset();
+        skipped.reset();
+        probes.reset();
+        lostProbes.reset();
+        actions.reset();
+    }
+
+    /**
+     * Формирует отчёт о прогоне; оставшиеся ожидающие пробы считаются потерянными.
+     *
+     * @param elapsedNanos длительность измеряемой нагрузки
+     * @param targetRate   заданная частота событий в секунду
+     * @return отчёт о прогоне
+     */
+    public LoadReport report(long elapsedNanos, double targetRate) {
+        return new LoadReport(
+                elapsedNanos / 1_000_000_000.0,
+                targetRate,
+                sent.sum(),
+                failed.sum(),
+                skipped.sum(),
+                rpcLatency.copy(),
+                probes.sum(),
+                lostProbes.sum() + pendingProbes.size(),
+                actions.sum(),
+                probeLatency.copy());
+    }
+}
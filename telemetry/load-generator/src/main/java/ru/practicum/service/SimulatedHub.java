@@ -0,0 +1,32 @@
+package ru.practicum.service;
+
+import ru.yandex.practicum.grpc.telemetry.event.DeviceTypeProto;
+
+import java.util.List;
+
+/**
+ * Имитируемый хаб: набор датчиков, генерирующих нагрузку, и датчик пробы.
+ *
+ * @param hubId   идентификатор хаба
+ * @param sensors датчики нагрузки
+ */
+public record SimulatedHub(String hubId, List<Sensor> sensors) {
+    /**
+     * Идентификатор переключателя пробы, на который настроен сценарий {@link #PROBE_SCENARIO}.
+     */
+    public static final String PROBE_SENSOR = "load-probe";
+
+    /**
+     * Название сценария пробы.
+     */
+    public static final String PROBE_SCENARIO = "load-probe";
+
+    /**
+     * Датчик хаба.
+     *
+     * @param id   идентификатор датчика
+     * @param type тип датчика
+     */
+    public record Sensor(String id, DeviceTypeProto type) {
+    }
+}
@@ -0,0 +1,87 @@
+package ru.practicum.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.aggregation.InMemoryRepository;
+import ru.practicum.aggregation.SnapshotAggregator;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Агрегация событий датчиков в снимки хаба ({@link SnapshotAggregator#updateState}) без Kafka.
+ *
+ * <p>Случаи:
+ * <ul>
+ *   <li>{@code allSensorsChanging} - каждое событие меняет показания очередного датчика хаба,
+ *   и каждое порождает новый снимок (худший случай)</li>
+ *   <li>{@code unchangedReading} - показания совпадают с сохранёнными, снимок не строится</li>
+ *   <li>{@code staleEvent} - событие старше сохранённого состояния и отбрасывается</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int sensors;
+
+    private SnapshotAggregator aggregator;
+    private SensorEventAvro[] changing;
+    private SensorEventAvro unchanged;
+    private SensorEventAvro stale;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        aggregator = new SnapshotAggregator(new InMemoryRepository());
+
+        // первая половина - показания A всех датчиков, вторая - показания B,
+        // поэтому по кругу каждое событие меняет показания своего датчика
+        changing = new SensorEventAvro[sensors * 2];
+        for (int i = 0; i < sensors; i++) {
+            changing[i] = PipelineFixtures.sensorEvent(i, 0, 0);
+            changing[sensors + i] = PipelineFixtures.sensorEvent(i, 1, 0);
+        }
+        for (int i = 0; i < sensors; i++) {
+            aggregator.updateState(changing[i]);
+        }
+
+        unchanged = changing[0];
+        stale = PipelineFixtures.sensorEvent(0, 1, -1);
+        cursor = 0;
+    }
+
+    @Benchmark
+    public Optional<SensorsSnapshotAvro> allSensorsChanging() {
+        // начинаем со второй половины: датчики уже хранят показания A
+        SensorEventAvro event = changing[(cursor + sensors) % changing.length];
+        cursor = (cursor + 1) % changing.length;
+        return aggregator.updateState(event);
+    }
+
+    @Benchmark
+    public Optional<SensorsSnapshotAvro> unchangedReading() {
+        return aggregator.updateState(unchanged);
+    }
+
+    @Benchmark
+    public Optional<SensorsSnapshotAvro> staleEvent() {
+        return aggregator.updateState(stale);
+    }
+}
@@ -0,0 +1,147 @@
+package ru.practicum.benchmark;
+
+import ru.practicum.dal.model.Action;
+import ru.practicum.dal.model.ActionType;
+import ru.practicum.dal.model.Condition;
+import ru.practicum.dal.model.ConditionOperation;
+import ru.practicum.dal.model.ConditionType;
+import ru.practicum.dal.model.Scenario;
+import ru.yandex.practicum.kafka.telemetry.event.ClimateSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorStateAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Детерминированные события, снимки и сценарии для бенчмарков конвейера.
+ *
+ * <p>Все датчики климатические: температура 22, влажность 45, CO2 от 800.
+ */
+public final class PipelineFixtures {
+    public static final String HUB_ID = "bench-hub";
+    public static final Instant TIMESTAMP = Instant.parse("2025-01-01T00:00:00Z");
+
+    public static final int WINDOW_SECONDS = 60;
+
+    private static final int CONDITIONS_PER_SCENARIO = 3;
+
+    private PipelineFixtures() {
+    }
+
+    /**
+     * Вид условий сценариев.
+     */
+    public enum ConditionKind {
+        /** Сравнение с порогом ({@code GREATER_THAN}, {@code LOWER_THAN}). */
+        THRESHOLD,
+        /** Сравнение среднего за окно ({@code AVERAGE_GREATER_THAN}, {@code AVERAGE_LOWER_THAN}). */
+        WINDOWED
+    }
+
+    /**
+     * Создаёт событие климатического датчика хаба.
+     *
+     * @param sensor       номер датчика
+     * @param variant      вариант показаний; разные варианты дают разные показания
+     * @param offsetMillis сдвиг времени события относительно {@link #TIMESTAMP}
+     * @return событие датчика
+     */
+    public static SensorEventAvro sensorEvent(int sensor, int variant, long offsetMillis) {
+        return SensorEventAvro.newBuilder()
+                .setId(sensorId(sensor))
+                .setHubId(HUB_ID)
+                .setTimestamp(TIMESTAMP.plusMillis(offsetMillis))
+                .setPayload(climate(variant))
+                .build();
+    }
+
+    /**
+     * Создаёт снимок хаба с указанным количеством датчиков.
+     *
+     * @param sensors   количество датчиков
+     * @param timestamp время снимка и показаний всех датчиков
+     * @return снимок состояния хаба
+     */
+    public static SensorsSnapshotAvro snapshot(int sensors, Instant timestamp) {
+        Map<String, SensorStateAvro> states = new HashMap<>();
+        for (int i = 0; i < sensors; i++) {
+            states.put(sensorId(i), SensorStateAvro.newBuilder()
+                    .setTimestamp(timestamp)
+                    .setData(climate(0))
+                    .build());
+        }
+
+        return SensorsSnapshotAvro.newBuilder()
+                .setHubId(HUB_ID)
+                .setTimestamp(timestamp)
+                .setSensorsState(states)
+                .build();
+    }
+
+    /**
+     * Создаёт сценарии хаба по три условия на датчики снимка и одному действию.
+     * Если {@code matching} ложно, не выполняется последнее условие каждого сценария,
+     * поэтому проверяются все условия, но ни один сценарий не срабатывает.
+     *
+     * @param count    количество сценариев
+     * @param sensors  количество датчиков снимка
+     * @param kind     вид условий
+     * @param matching выполняются ли условия сценариев на снимке {@link #snapshot(int, Instant)}
+     * @return сценарии хаба
+     */
+    public static List<Scenario> scenarios(int count, int sensors, ConditionKind kind, boolean matching) {
+        List<Scenario> scenarios = new ArrayList<>(count);
+        for (int s = 0; s < count; s++) {
+            Map<String, Condition> conditions = new HashMap<>();
+            conditions.put(sensorId((s * CONDITIONS_PER_SCENARIO) % sensors),
+                    condition(ConditionType.TEMPERATURE, kind, true, 10));
+            conditions.put(sensorId((s * CONDITIONS_PER_SCENARIO + 1) % sensors),
+                    condition(ConditionType.HUMIDITY, kind, false, 80));
+            conditions.put(sensorId((s * CONDITIONS_PER_SCENARIO + 2) % sensors),
+                    condition(ConditionType.CO2LEVEL, kind, true, matching ? 400 : 5000));
+
+            Map<String, Action> actions = new HashMap<>();
+            actions.put(sensorId(s % sensors), Action.builder().type(ActionType.ACTIVATE).build());
+
+            scenarios.add(Scenario.builder()
+                    .id((long) s)
+                    .hubId(HUB_ID)
+                    .name("scenario-" + s)
+                    .sensorConditions(conditions)
+                    .sensorActions(actions)
+                    .build());
+        }
+        return scenarios;
+    }
+
+    private static Condition condition(ConditionType type, ConditionKind kind, boolean greater, int value) {
+        ConditionOperation operation = switch (kind) {
+            case THRESHOLD -> greater ? ConditionOperation.GREATER_THAN : ConditionOperation.LOWER_THAN;
+            case WINDOWED -> greater ? ConditionOperation.AVERAGE_GREATER_THAN : ConditionOperation.AVERAGE_LOWER_THAN;
+        };
+
+        return Condition.builder()
+                .type(type)
+                .operation(operation)
+                .value(value)
+                .windowSeconds(kind == ConditionKind.WINDOWED ? WINDOW_SECONDS : null)
+                .build();
+    }
+
+    private static ClimateSensorAvro climate(int variant) {
+        return ClimateSensorAvro.newBuilder()
+                .setTemperatureC(22)
+                .setHumidity(45)
+                .setCo2Level(800 + variant)
+                .build();
+    }
+
+    private static String sensorId(int sensor) {
+        return "sensor-" + sensor;
+    }
+}
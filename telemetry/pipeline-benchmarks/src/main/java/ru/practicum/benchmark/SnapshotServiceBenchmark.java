@@ -0,0 +1,107 @@
+package ru.practicum.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.config.ConditionStateConfig;
+import ru.practicum.config.PartitionAffinityConfig;
+import ru.practicum.dal.model.Scenario;
+import ru.practicum.dal.service.HubScenarioCache;
+import ru.practicum.dal.service.ScenarioService;
+import ru.practicum.dal.service.SnapshotService;
+import ru.practicum.dal.service.state.ConditionStateStore;
+import ru.yandex.practicum.grpc.telemetry.event.DeviceActionRequest;
+import ru.yandex.practicum.kafka.telemetry.event.SensorStateAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка сценариев по снимку ({@link SnapshotService#handleSnapshot}) со сценариями в памяти.
+ *
+ * <p>Сервис собирается так же, как в анализаторе с привязкой хабов к партициям: сценарии
+ * берутся из {@link HubScenarioCache}, который один раз загружает их из подменённого
+ * {@link ScenarioService} вместо базы данных.
+ *
+ * <p>{@code matching=false} - худший случай без срабатываний: в каждом сценарии
+ * проверяются все условия, и только последнее не выполняется.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotServiceBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int sensors;
+
+    @Param({"1", "10", "100"})
+    private int scenarios;
+
+    @Param({"THRESHOLD", "WINDOWED"})
+    private PipelineFixtures.ConditionKind conditions;
+
+    @Param({"true", "false"})
+    private boolean matching;
+
+    private SnapshotService snapshotService;
+    private SensorsSnapshotAvro snapshot;
+    private List<SensorStateAvro> observedStates;
+    private Instant now;
+
+    @Setup
+    public void setUp() {
+        List<Scenario> fixtures = PipelineFixtures.scenarios(scenarios, sensors, conditions, matching);
+        ScenarioService scenarioService = new ScenarioService(null, null, null, null) {
+            @Override
+            public List<Scenario> findByHubId(String hubId) {
+                return fixtures;
+            }
+        };
+
+        PartitionAffinityConfig affinityConfig = new PartitionAffinityConfig();
+        snapshotService = new SnapshotService(
+                scenarioService,
+                new HubScenarioCache(scenarioService, affinityConfig),
+                affinityConfig,
+                new ConditionStateStore(new ConditionStateConfig()));
+
+        // заполняем окна усреднения, иначе оконные условия не выполняются
+        Instant windowStart = PipelineFixtures.TIMESTAMP.minusSeconds(PipelineFixtures.WINDOW_SECONDS);
+        snapshotService.handleSnapshot(PipelineFixtures.snapshot(sensors, windowStart));
+
+        now = PipelineFixtures.TIMESTAMP;
+        snapshot = PipelineFixtures.snapshot(sensors, now);
+        observedStates = fixtures.stream()
+                .flatMap(scenario -> scenario.getSensorConditions().keySet().stream())
+                .distinct()
+                .map(sensorId -> snapshot.getSensorsState().get(sensorId))
+                .toList();
+    }
+
+    /**
+     * Проверяет сценарии по снимку. Перед проверкой время снимка и показаний датчиков условий
+     * сдвигается, чтобы оконные условия каждый раз учитывали новое показание.
+     */
+    @Benchmark
+    public List<DeviceActionRequest> handleSnapshot() {
+        now = now.plusMillis(100);
+        snapshot.setTimestamp(now);
+        for (SensorStateAvro state : observedStates) {
+            state.setTimestamp(now);
+        }
+        return snapshotService.handleSnapshot(snapshot);
+    }
+}
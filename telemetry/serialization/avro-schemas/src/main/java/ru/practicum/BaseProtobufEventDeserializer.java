@@ -0,0 +1,55 @@
+package ru.practicum;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.function.Function;
+
+/**
+ * Десериализатор событий, которые коллектор отправляет в protobuf без преобразования в Avro.
+ *
+ * <p>Записи с заголовком {@link TelemetryHeaders#PAYLOAD_FORMAT} = {@link TelemetryHeaders#PROTOBUF}
+ * разбираются как protobuf-сообщение и преобразуются в Avro-представление, остальные записи
+ * десериализуются как Avro. Поэтому потребителя можно перевести на этот десериализатор
+ * до переключения коллектора, а в топике во время переключения могут быть записи обоих форматов.
+ *
+ * @param <P> тип protobuf-сообщения
+ * @param <T> тип Avro-события
+ */
+public class BaseProtobufEventDeserializer<P extends Message, T extends SpecificRecordBase> implements Deserializer<T> {
+    private final Parser<P> parser;
+    private final Function<P, T> mapper;
+    private final Deserializer<T> avroDeserializer;
+
+    public BaseProtobufEventDeserializer(Parser<P> parser, Function<P, T> mapper, Deserializer<T> avroDeserializer) {
+        this.parser = parser;
+        this.mapper = mapper;
+        this.avroDeserializer = avroDeserializer;
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+
+        try {
+            return mapper.apply(parser.parseFrom(data));
+        } catch (InvalidProtocolBufferException | IllegalArgumentException e) {
+            throw new SerializationException("Ошибка десериализации данных из топика [" + topic + "]", e);
+        }
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        if (TelemetryHeaders.isProtobuf(headers)) {
+            return deserialize(topic, data);
+        }
+        return avroDeserializer.deserialize(topic, data);
+    }
+}
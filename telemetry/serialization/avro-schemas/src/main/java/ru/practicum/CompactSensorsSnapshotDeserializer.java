@@ -0,0 +1,9 @@
+package ru.practicum;
+
+import ru.yandex.practicum.kafka.telemetry.event.CompactSensorsSnapshotAvro;
+
+public class CompactSensorsSnapshotDeserializer extends BaseAvroDeserializer<CompactSensorsSnapshotAvro> {
+    public CompactSensorsSnapshotDeserializer() {
+        super(CompactSensorsSnapshotAvro.getClassSchema());
+    }
+}
@@ -0,0 +1,129 @@
+package ru.practicum;
+
+import com.google.protobuf.Timestamp;
+import ru.yandex.practicum.grpc.telemetry.event.*;
+import ru.yandex.practicum.kafka.telemetry.event.*;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Преобразование protobuf-событий хабов и датчиков в Avro-представление, с которым работают
+ * агрегатор и анализатор.
+ *
+ * <p>Результат совпадает с тем, что отправляют обработчики коллектора в режиме Avro,
+ * поэтому потребители обрабатывают события одинаково независимо от формата топика.
+ */
+public final class ProtobufEventMapper {
+
+    private ProtobufEventMapper() {
+    }
+
+    /**
+     * Преобразует событие датчика.
+     *
+     * @param event protobuf-событие датчика
+     * @return Avro-событие датчика
+     * @throws IllegalArgumentException если у события нет полезной нагрузки
+     */
+    public static SensorEventAvro toAvro(SensorEventProto event) {
+        Instant timestamp = toInstant(event.getTimestamp());
+        Object payload = switch (event.getPayloadCase()) {
+            case MOTION_SENSOR -> MotionSensorAvro.newBuilder()
+                    .setMotion(event.getMotionSensor().getMotion())
+                    .setLinkQuality(event.getMotionSensor().getLinkQuality())
+                    .setVoltage(event.getMotionSensor().getVoltage())
+                    .build();
+            case TEMPERATURE_SENSOR -> TemperatureSensorAvro.newBuilder()
+                    .setTimestamp(timestamp)
+                    .setTemperatureC(event.getTemperatureSensor().getTemperatureC())
+                    .setTemperatureF(event.getTemperatureSensor().getTemperatureF())
+                    .build();
+            case LIGHT_SENSOR -> LightSensorAvro.newBuilder()
+                    .setLinkQuality(event.getLightSensor().getLinkQuality())
+                    .setLuminosity(event.getLightSensor().getLuminosity())
+                    .build();
+            case CLIMATE_SENSOR -> ClimateSensorAvro.newBuilder()
+                    .setCo2Level(event.getClimateSensor().getCo2Level())
+                    .setHumidity(event.getClimateSensor().getHumidity())
+                    .setTemperatureC(event.getClimateSensor().getTemperatureC())
+                    .build();
+            case SWITCH_SENSOR -> SwitchSensorAvro.newBuilder()
+                    .setState(event.getSwitchSensor().getState())
+                    .build();
+            case PAYLOAD_NOT_SET -> throw new IllegalArgumentException("Sensor event payload is not set");
+        };
+
+        return SensorEventAvro.newBuilder()
+                .setId(event.getId())
+                .setHubId(event.getHubId())
+                .setTimestamp(timestamp)
+                .setPayload(payload)
+                .build();
+    }
+
+    /**
+     * Преобразует событие хаба.
+     *
+     * @param event protobuf-событие хаба
+     * @return Avro-событие хаба
+     * @throws IllegalArgumentException если у события нет полезной нагрузки
+     */
+    public static HubEventAvro toAvro(HubEventProto event) {
+        Object payload = switch (event.getPayloadCase()) {
+            case DEVICE_ADDED -> DeviceAddedEventAvro.newBuilder()
+                    .setId(event.getDeviceAdded().getId())
+                    .setType(DeviceTypeAvro.valueOf(event.getDeviceAdded().getType().name()))
+                    .build();
+            case DEVICE_REMOVED -> DeviceRemovedEventAvro.newBuilder()
+                    .setId(event.getDeviceRemoved().getId())
+                    .build();
+            case SCENARIO_ADDED -> ScenarioAddedEventAvro.newBuilder()
+                    .setName(event.getScenarioAdded().getName())
+                    .setConditions(toConditions(event.getScenarioAdded().getConditionList()))
+                    .setActions(toActions(event.getScenarioAdded().getActionList()))
+                    .build();
+            case SCENARIO_REMOVED -> ScenarioRemovedEventAvro.newBuilder()
+                    .setName(event.getScenarioRemoved().getName())
+                    .build();
+            case PAYLOAD_NOT_SET -> throw new IllegalArgumentException("Hub event payload is not set");
+        };
+
+        return HubEventAvro.newBuilder()
+                .setHubId(event.getHubId())
+                .setTimestamp(toInstant(event.getTimestamp()))
+                .setPayload(payload)
+                .build();
+    }
+
+    private static List<ScenarioConditionAvro> toConditions(List<ScenarioConditionProto> conditions) {
+        return conditions.stream()
+                .map(condition -> ScenarioConditionAvro.newBuilder()
+                        .setSensorId(condition.getSensorId())
+                        .setType(ConditionTypeAvro.valueOf(condition.getType().name()))
+                        .setOperation(ConditionOperationAvro.valueOf(condition.getOperation().name()))
+                        .setValue(switch (condition.getValueCase()) {
+                            case INT_VALUE -> condition.getIntValue();
+                            case BOOL_VALUE -> condition.getBoolValue();
+                            case VALUE_NOT_SET -> null;
+                        })
+                        .setWindowSeconds(condition.hasWindowSeconds() ? condition.getWindowSeconds() : null)
+                        .setHysteresis(condition.hasHysteresis() ? condition.getHysteresis() : null)
+                        .build())
+                .toList();
+    }
+
+    private static List<DeviceActionAvro> toActions(List<DeviceActionProto> actions) {
+        return actions.stream()
+                .map(action -> DeviceActionAvro.newBuilder()
+                        .setSensorId(action.getSensorId())
+                        .setType(ActionTypeAvro.valueOf(action.getType().name()))
+                        .setValue(action.getValue())
+                        .build())
+                .toList();
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos());
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum;
+
+import ru.yandex.practicum.grpc.telemetry.event.HubEventProto;
+import ru.yandex.practicum.kafka.telemetry.event.HubEventAvro;
+
+public class ProtobufHubEventDeserializer extends BaseProtobufEventDeserializer<HubEventProto, HubEventAvro> {
+    public ProtobufHubEventDeserializer() {
+        super(HubEventProto.parser(), ProtobufEventMapper::toAvro, new HubEventDeserializer());
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum;
+
+import ru.yandex.practicum.grpc.telemetry.event.SensorEventProto;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+
+public class ProtobufSensorEventDeserializer extends BaseProtobufEventDeserializer<SensorEventProto, SensorEventAvro> {
+    public ProtobufSensorEventDeserializer() {
+        super(SensorEventProto.parser(), ProtobufEventMapper::toAvro, new SensorEventDeserializer());
+    }
+}
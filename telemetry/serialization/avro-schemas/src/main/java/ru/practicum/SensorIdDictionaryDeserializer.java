@@ -0,0 +1,9 @@
+package ru.practicum;
+
+import ru.yandex.practicum.kafka.telemetry.event.SensorIdDictionaryAvro;
+
+public class SensorIdDictionaryDeserializer extends BaseAvroDeserializer<SensorIdDictionaryAvro> {
+    public SensorIdDictionaryDeserializer() {
+        super(SensorIdDictionaryAvro.getClassSchema());
+    }
+}
@@ -0,0 +1,98 @@
+package ru.practicum;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Заголовки Kafka записей конвейера телеметрии: трассировка задержек и формат полезной нагрузки.
+ *
+ * <p>Значения заголовков времени - время в миллисекундах с эпохи Unix, закодированное 8 байтами (big-endian).
+ * <ul>
+ *   <li>{@link #INGEST_TIME} - время приёма события коллектором; ставится коллектором на события датчиков
+ *   и переносится агрегатором на снимки</li>
+ *   <li>{@link #EVENT_TIME} - время события датчика, породившего снимок; ставится агрегатором на снимки</li>
+ * </ul>
+ *
+ * <p>{@link #PAYLOAD_FORMAT} ставится коллектором на события, отправленные в protobuf без преобразования в Avro.
+ */
+public final class TelemetryHeaders {
+    /**
+     * Время приёма исходного события коллектором.
+     */
+    public static final String INGEST_TIME = "telemetry-ingest-time";
+
+    /**
+     * Время исходного события датчика.
+     */
+    public static final String EVENT_TIME = "telemetry-event-time";
+
+    /**
+     * Формат полезной нагрузки записи. Отсутствие заголовка означает Avro.
+     */
+    public static final String PAYLOAD_FORMAT = "telemetry-payload-format";
+
+    /**
+     * Значение {@link #PAYLOAD_FORMAT} для записей с protobuf-сообщением.
+     */
+    public static final String PROTOBUF = "protobuf";
+
+    private static final byte[] PROTOBUF_BYTES = PROTOBUF.getBytes(StandardCharsets.UTF_8);
+
+    private TelemetryHeaders() {
+    }
+
+    /**
+     * Записывает время в заголовок, заменяя предыдущее значение.
+     *
+     * @param headers заголовки записи
+     * @param key     имя заголовка
+     * @param millis  время в миллисекундах с эпохи Unix
+     */
+    public static void putTime(Headers headers, String key, long millis) {
+        headers.remove(key);
+        headers.add(key, ByteBuffer.allocate(Long.BYTES).putLong(millis).array());
+    }
+
+    /**
+     * Помечает запись как содержащую protobuf-сообщение.
+     *
+     * @param headers заголовки записи
+     */
+    public static void markProtobuf(Headers headers) {
+        headers.remove(PAYLOAD_FORMAT);
+        headers.add(PAYLOAD_FORMAT, PROTOBUF_BYTES);
+    }
+
+    /**
+     * Проверяет, содержит ли запись protobuf-сообщение.
+     *
+     * @param headers заголовки записи, может быть null
+     * @return true если последний заголовок {@link #PAYLOAD_FORMAT} равен {@link #PROTOBUF}
+     */
+    public static boolean isProtobuf(Headers headers) {
+        if (headers == null) {
+            return false;
+        }
+        Header header = headers.lastHeader(PAYLOAD_FORMAT);
+        return header != null && Arrays.equals(header.value(), PROTOBUF_BYTES);
+    }
+
+    /**
+     * Читает время из последнего заголовка с указанным именем.
+     *
+     * @param headers заголовки записи
+     * @param key     имя заголовка
+     * @return время в миллисекундах с эпохи Unix или null, если заголовка нет или он некорректен
+     */
+    public static Long getTime(Headers headers, String key) {
+        Header header = headers.lastHeader(key);
+        if (header == null || header.value() == null || header.value().length != Long.BYTES) {
+            return null;
+        }
+        return ByteBuffer.wrap(header.value()).getLong();
+    }
+}
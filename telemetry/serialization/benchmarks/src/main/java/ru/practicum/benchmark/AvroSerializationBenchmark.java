@@ -0,0 +1,87 @@
+package ru.practicum.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.GeneralAvroSerializer;
+import ru.practicum.SensorEventDeserializer;
+import ru.practicum.SensorsSnapshotDeserializer;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация и десериализация записей Kafka: события датчика и снимков хаба
+ * с 10, 100 и 1000 датчиками.
+ *
+ * <p>Состояние потоковое, так как {@link GeneralAvroSerializer} переиспользует энкодер между вызовами.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvroSerializationBenchmark {
+    private static final String TOPIC = "bench";
+
+    private final GeneralAvroSerializer serializer = new GeneralAvroSerializer();
+    private final SensorEventDeserializer eventDeserializer = new SensorEventDeserializer();
+    private final SensorsSnapshotDeserializer snapshotDeserializer = new SensorsSnapshotDeserializer();
+
+    private SensorEventAvro event;
+    private byte[] eventBytes;
+
+    /**
+     * Снимок хаба заданного размера и его сериализованное представление.
+     */
+    @State(Scope.Thread)
+    public static class SnapshotState {
+        @Param({"10", "100", "1000"})
+        private int sensors;
+
+        private SensorsSnapshotAvro snapshot;
+        private byte[] bytes;
+
+        @Setup
+        public void setUp() {
+            snapshot = TelemetryFixtures.snapshot(sensors);
+            bytes = new GeneralAvroSerializer().serialize(TOPIC, snapshot);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        event = TelemetryFixtures.sensorEventAvro();
+        eventBytes = serializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public byte[] serializeSensorEvent() {
+        return serializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public SensorEventAvro deserializeSensorEvent() {
+        return eventDeserializer.deserialize(TOPIC, eventBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeSnapshot(SnapshotState state) {
+        return serializer.serialize(TOPIC, state.snapshot);
+    }
+
+    @Benchmark
+    public SensorsSnapshotAvro deserializeSnapshot(SnapshotState state) {
+        return snapshotDeserializer.deserialize(TOPIC, state.bytes);
+    }
+}
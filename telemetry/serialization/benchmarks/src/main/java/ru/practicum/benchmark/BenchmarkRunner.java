@@ -0,0 +1,24 @@
+package ru.practicum.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Точка входа {@code benchmarks.jar}.
+ *
+ * <p>Принимает обычные аргументы JMH (например, {@code java -jar benchmarks.jar Avro -f 2})
+ * и всегда подключает {@link GCProfiler}, чтобы в отчёте была скорость выделения памяти
+ * ({@code gc.alloc.rate.norm} - байт на операцию).
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
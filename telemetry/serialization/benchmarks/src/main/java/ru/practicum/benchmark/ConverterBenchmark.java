@@ -0,0 +1,37 @@
+package ru.practicum.benchmark;
+
+import com.google.protobuf.Timestamp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.util.Converter;
+import ru.yandex.practicum.grpc.telemetry.event.SensorEventProto;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование protobuf {@link Timestamp} в {@link Instant} коллектором.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConverterBenchmark {
+    private final Timestamp timestamp = TelemetryFixtures
+            .sensorEventProto(SensorEventProto.PayloadCase.SWITCH_SENSOR)
+            .getTimestamp();
+
+    @Benchmark
+    public Instant timestampToInstant() {
+        return Converter.timestampToInstant(timestamp);
+    }
+}
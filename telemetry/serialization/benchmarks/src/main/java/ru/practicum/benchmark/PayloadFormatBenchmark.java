@@ -0,0 +1,99 @@
+package ru.practicum.benchmark;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.GeneralAvroSerializer;
+import ru.practicum.ProtobufEventMapper;
+import ru.practicum.ProtobufSensorEventDeserializer;
+import ru.practicum.ProtobufSerializer;
+import ru.practicum.SensorEventDeserializer;
+import ru.practicum.TelemetryHeaders;
+import ru.yandex.practicum.grpc.telemetry.event.SensorEventProto;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение форматов событий датчиков в топике {@code telemetry.sensors.v1}
+ * ({@code collector.payload.format}): стоимость на стороне коллектора (gRPC-сообщение - байты записи),
+ * на стороне агрегатора (байты записи - {@link SensorEventAvro}) и обеих сторон вместе.
+ *
+ * <p>Путь Avro: преобразование в Avro, {@link GeneralAvroSerializer}, {@link SensorEventDeserializer}.
+ * Путь protobuf: {@link ProtobufSerializer}, {@link ProtobufSensorEventDeserializer}
+ * с разбором protobuf и преобразованием в Avro у потребителя.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadFormatBenchmark {
+    private static final String TOPIC = "bench";
+
+    @Param({"MOTION_SENSOR", "CLIMATE_SENSOR"})
+    private SensorEventProto.PayloadCase payload;
+
+    private final GeneralAvroSerializer avroSerializer = new GeneralAvroSerializer();
+    private final SensorEventDeserializer avroDeserializer = new SensorEventDeserializer();
+    private final ProtobufSerializer protobufSerializer = new ProtobufSerializer();
+    private final ProtobufSensorEventDeserializer protobufDeserializer = new ProtobufSensorEventDeserializer();
+
+    private final Headers avroHeaders = new RecordHeaders();
+    private final Headers protobufHeaders = new RecordHeaders();
+
+    private SensorEventProto event;
+    private byte[] avroBytes;
+    private byte[] protobufBytes;
+
+    @Setup
+    public void setUp() {
+        event = TelemetryFixtures.sensorEventProto(payload);
+        avroBytes = avroSerializer.serialize(TOPIC, ProtobufEventMapper.toAvro(event));
+        protobufBytes = protobufSerializer.serialize(TOPIC, event);
+        TelemetryHeaders.markProtobuf(protobufHeaders);
+    }
+
+    @Benchmark
+    public byte[] collectorAvro() {
+        return avroSerializer.serialize(TOPIC, ProtobufEventMapper.toAvro(event));
+    }
+
+    @Benchmark
+    public byte[] collectorProtobuf() {
+        return protobufSerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public SensorEventAvro consumerAvro() {
+        return avroDeserializer.deserialize(TOPIC, avroHeaders, avroBytes);
+    }
+
+    @Benchmark
+    public SensorEventAvro consumerProtobuf() {
+        return protobufDeserializer.deserialize(TOPIC, protobufHeaders, protobufBytes);
+    }
+
+    @Benchmark
+    public SensorEventAvro roundTripAvro() {
+        byte[] bytes = avroSerializer.serialize(TOPIC, ProtobufEventMapper.toAvro(event));
+        return avroDeserializer.deserialize(TOPIC, avroHeaders, bytes);
+    }
+
+    @Benchmark
+    public SensorEventAvro roundTripProtobuf() {
+        byte[] bytes = protobufSerializer.serialize(TOPIC, event);
+        return protobufDeserializer.deserialize(TOPIC, protobufHeaders, bytes);
+    }
+}
@@ -0,0 +1,108 @@
+package ru.practicum.benchmark;
+
+import com.google.protobuf.Timestamp;
+import ru.yandex.practicum.grpc.telemetry.event.ClimateSensorProto;
+import ru.yandex.practicum.grpc.telemetry.event.LightSensorProto;
+import ru.yandex.practicum.grpc.telemetry.event.MotionSensorProto;
+import ru.yandex.practicum.grpc.telemetry.event.SensorEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.SwitchSensorProto;
+import ru.yandex.practicum.grpc.telemetry.event.TemperatureSensorProto;
+import ru.yandex.practicum.kafka.telemetry.event.ClimateSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.LightSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.MotionSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorStateAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SwitchSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.TemperatureSensorAvro;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Детерминированные данные для бенчмарков: одинаковые от запуска к запуску,
+ * чтобы результаты разных версий кода были сравнимы.
+ */
+public final class TelemetryFixtures {
+    public static final String HUB_ID = "bench-hub";
+    public static final Instant TIMESTAMP = Instant.parse("2025-01-01T00:00:00Z");
+
+    private TelemetryFixtures() {
+    }
+
+    /**
+     * Создаёт gRPC событие датчика с полезной нагрузкой указанного типа.
+     *
+     * @param payloadCase тип полезной нагрузки
+     * @return событие датчика
+     */
+    public static SensorEventProto sensorEventProto(SensorEventProto.PayloadCase payloadCase) {
+        SensorEventProto.Builder builder = SensorEventProto.newBuilder()
+                .setId("sensor-" + payloadCase.name().toLowerCase())
+                .setHubId(HUB_ID)
+                .setTimestamp(Timestamp.newBuilder()
+                        .setSeconds(TIMESTAMP.getEpochSecond())
+                        .setNanos(TIMESTAMP.getNano()));
+
+        return switch (payloadCase) {
+            case MOTION_SENSOR -> builder.setMotionSensor(MotionSensorProto.newBuilder()
+                    .setLinkQuality(90).setMotion(true).setVoltage(220)).build();
+            case TEMPERATURE_SENSOR -> builder.setTemperatureSensor(TemperatureSensorProto.newBuilder()
+                    .setTemperatureC(21).setTemperatureF(69)).build();
+            case LIGHT_SENSOR -> builder.setLightSensor(LightSensorProto.newBuilder()
+                    .setLinkQuality(90).setLuminosity(450)).build();
+            case CLIMATE_SENSOR -> builder.setClimateSensor(ClimateSensorProto.newBuilder()
+                    .setTemperatureC(22).setHumidity(45).setCo2Level(800)).build();
+            case SWITCH_SENSOR -> builder.setSwitchSensor(SwitchSensorProto.newBuilder()
+                    .setState(true)).build();
+            case PAYLOAD_NOT_SET -> throw new IllegalArgumentException("Payload type is required");
+        };
+    }
+
+    /**
+     * Создаёт Avro событие климатического датчика - самого крупного по набору полей.
+     *
+     * @return событие датчика
+     */
+    public static SensorEventAvro sensorEventAvro() {
+        return SensorEventAvro.newBuilder()
+                .setId("sensor-climate")
+                .setHubId(HUB_ID)
+                .setTimestamp(TIMESTAMP)
+                .setPayload(payload(3))
+                .build();
+    }
+
+    /**
+     * Создаёт снимок хаба с указанным количеством датчиков; типы датчиков чередуются.
+     *
+     * @param sensors количество датчиков
+     * @return снимок состояния хаба
+     */
+    public static SensorsSnapshotAvro snapshot(int sensors) {
+        Map<String, SensorStateAvro> states = new HashMap<>();
+        for (int i = 0; i < sensors; i++) {
+            states.put("sensor-" + i, SensorStateAvro.newBuilder()
+                    .setTimestamp(TIMESTAMP.plusMillis(i))
+                    .setData(payload(i))
+                    .build());
+        }
+
+        return SensorsSnapshotAvro.newBuilder()
+                .setHubId(HUB_ID)
+                .setTimestamp(TIMESTAMP)
+                .setSensorsState(states)
+                .build();
+    }
+
+    private static Object payload(int index) {
+        return switch (index % 5) {
+            case 0 -> MotionSensorAvro.newBuilder().setLinkQuality(90).setMotion(index % 2 == 0).setVoltage(220).build();
+            case 1 -> TemperatureSensorAvro.newBuilder().setTimestamp(TIMESTAMP).setTemperatureC(21).setTemperatureF(69).build();
+            case 2 -> LightSensorAvro.newBuilder().setLinkQuality(90).setLuminosity(index).build();
+            case 3 -> ClimateSensorAvro.newBuilder().setTemperatureC(22).setHumidity(45).setCo2Level(800 + index).build();
+            default -> SwitchSensorAvro.newBuilder().setState(index % 2 == 0).build();
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package ru.practicum.service.handler.sensor;
+
+import org.apache.avro.specific.SpecificRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.benchmark.TelemetryFixtures;
+import ru.yandex.practicum.grpc.telemetry.event.SensorEventProto;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование gRPC событий датчиков в Avro обработчиками коллектора.
+ *
+ * <p>Находится в пакете обработчиков, так как {@code mapToAvro} защищённый метод.
+ * Обработчики создаются без продюсера: отправка в Kafka не измеряется.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SensorEventMappingBenchmark {
+
+    @Param({"MOTION_SENSOR", "TEMPERATURE_SENSOR", "LIGHT_SENSOR", "CLIMATE_SENSOR", "SWITCH_SENSOR"})
+    private SensorEventProto.PayloadCase payload;
+
+    private BaseSensorEventHandler<? extends SpecificRecord> handler;
+    private SensorEventProto event;
+
+    @Setup
+    public void setUp() {
+        event = TelemetryFixtures.sensorEventProto(payload);
+        handler = switch (payload) {
+            case MOTION_SENSOR -> new MotionSensorEventHandler(null);
+            case TEMPERATURE_SENSOR -> new TemperatureSensorEventHandler(null);
+            case LIGHT_SENSOR -> new LightSensorEventHandler(null);
+            case CLIMATE_SENSOR -> new ClimateSensorEventHandler(null);
+            case SWITCH_SENSOR -> new SwitchSensorEventHandler(null);
+            case PAYLOAD_NOT_SET -> throw new IllegalArgumentException("Payload type is required");
+        };
+    }
+
+    @Benchmark
+    public SpecificRecord mapToAvro() {
+        return handler.mapToAvro(event);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.practicum;
+
+import com.google.protobuf.Message;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Сериализатор protobuf-сообщений для Kafka.
+ * Записывает сообщение в его стандартном бинарном представлении, в том же виде, в каком оно пришло по gRPC.
+ *
+ * @see Message#toByteArray()
+ */
+public class ProtobufSerializer implements Serializer<Message> {
+
+    /**
+     * Сериализует protobuf-сообщение в байтовый массив для отправки в Kafka.
+     *
+     * @param topic название топика Kafka, для которого выполняется сериализация
+     * @param data  protobuf-сообщение, может быть null
+     * @return байтовый массив с сериализованными данными или null, если data равен null
+     */
+    @Override
+    public byte[] serialize(String topic, Message data) {
+        return data == null ? null : data.toByteArray();
+    }
+}